@@ -0,0 +1,154 @@
+package de.bitc.se.benchmark;
+
+import de.bitc.se.QuerybugApp;
+import de.bitc.se.domain.Asset;
+import de.bitc.se.domain.Calculation;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Pair;
+import de.bitc.se.domain.TimeRange;
+import de.bitc.se.domain.Tuple;
+import de.bitc.se.repository.AssetRepository;
+import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.repository.NativeQueryRepository;
+import de.bitc.se.repository.PairRepository;
+import de.bitc.se.repository.SequenceIdAllocator;
+import de.bitc.se.repository.TimeRangeRepository;
+import de.bitc.se.repository.TupleJdbcRepository;
+import de.bitc.se.service.CalculationService;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the detection of the inconsistent tuples of a calculation by
+ * {@link NativeQueryRepository#inconsistentTime(Long)} with the single pass merge of
+ * {@link CalculationService#calculationGaps(Long, java.util.function.Consumer)}, on an in-memory H2 database.
+ * <p>
+ * The chart has one candle per minute with a gap every {@value #OHLC_GAP_EVERY} candles, the calculation misses a
+ * tuple every {@value #TUPLE_GAP_EVERY} candles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g" })
+public class GapDetectionBenchmark {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2000-01-01T00:00:00Z");
+
+    private static final String INSERT_OHLC =
+        "insert into ohlc (id, time, open, high, low, close, volume, count, chart_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final int OHLC_GAP_EVERY = 50_000;
+
+    private static final int TUPLE_GAP_EVERY = 10_000;
+
+    @Param({ "100000", "1000000", "10000000" })
+    private int candles;
+
+    private ConfigurableApplicationContext context;
+
+    private NativeQueryRepository nativeQueryRepository;
+
+    private CalculationService calculationService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Long calculationId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context =
+            new SpringApplicationBuilder(QuerybugApp.class)
+                .profiles("testdev")
+                .properties(
+                    "server.port=0",
+                    "logging.level.ROOT=WARN",
+                    "logging.level.de.bitc.se=WARN",
+                    "spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1;MODE=LEGACY",
+                    "application.calculation.scheduler-enabled=false"
+                )
+                .run();
+        nativeQueryRepository = context.getBean(NativeQueryRepository.class);
+        calculationService = context.getBean(CalculationService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        Chart chart = createChart();
+        calculationId =
+            context.getBean(CalculationRepository.class).save(new Calculation().name("SMA(20)").disabled(false).chart(chart)).getId();
+        generate(chart.getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Chart createChart() {
+        AssetRepository assetRepository = context.getBean(AssetRepository.class);
+        Asset base = assetRepository.save(new Asset().name("XBT"));
+        Asset quote = assetRepository.save(new Asset().name("EUR"));
+        Pair pair = context.getBean(PairRepository.class).save(new Pair().name("XXBTZEUR").base(base).quote(quote));
+        TimeRange timeRange = context.getBean(TimeRangeRepository.class).save(new TimeRange().name("1M").rangeSize(1));
+        return context.getBean(ChartRepository.class).save(new Chart().name("benchmark").disabled(false).pair(pair).timeRange(timeRange));
+    }
+
+    /**
+     * Insert the candles with a plain JDBC batch, the chart is empty so they need no upsert.
+     */
+    private void generate(Long chartId) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        SequenceIdAllocator sequenceIdAllocator = context.getBean(SequenceIdAllocator.class);
+        TupleJdbcRepository tupleJdbcRepository = context.getBean(TupleJdbcRepository.class);
+        for (int from = 0; from < candles; from += BATCH_SIZE) {
+            List<Object[]> ohlcs = new ArrayList<>(BATCH_SIZE);
+            List<Tuple> tuples = new ArrayList<>(BATCH_SIZE);
+            for (int i = from; i < Math.min(from + BATCH_SIZE, candles); i++) {
+                ZonedDateTime time = START.plusMinutes(i + i / OHLC_GAP_EVERY);
+                BigDecimal close = BigDecimal.valueOf(10_000 + i % 1000, 2);
+                long id = sequenceIdAllocator.nextId();
+                ohlcs.add(new Object[] { id, time.toLocalDateTime(), close, close, close, close, BigDecimal.ONE, 1, chartId });
+                if (i % TUPLE_GAP_EVERY != TUPLE_GAP_EVERY - 1) {
+                    tuples.add(new Tuple().time(time).computation(close));
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_OHLC, ohlcs);
+                tupleJdbcRepository.insertAll(calculationId, tuples);
+            });
+        }
+    }
+
+    @Benchmark
+    public int nativeQuery() {
+        return transactionTemplate.execute(status -> nativeQueryRepository.inconsistentTime(calculationId).size());
+    }
+
+    @Benchmark
+    public long singlePassMerge(Blackhole blackhole) {
+        return calculationService.calculationGaps(calculationId, blackhole::consume);
+    }
+}
@@ -0,0 +1,96 @@
+package de.bitc.se.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.bitc.se.config.JacksonConfiguration;
+import de.bitc.se.domain.Ohlc;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Measures the Jackson serialization of {@link Ohlc} lists with the modules of {@link JacksonConfiguration}, as the
+ * REST resources write them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OhlcSerializationBenchmark {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    private static final TypeReference<List<Ohlc>> OHLC_LIST = new TypeReference<>() {};
+
+    @Param({ "1", "1000" })
+    private int candles;
+
+    private ObjectMapper objectMapper;
+
+    private List<Ohlc> ohlcs;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        JacksonConfiguration configuration = new JacksonConfiguration();
+        objectMapper =
+            Jackson2ObjectMapperBuilder
+                .json()
+                .modules(
+                    configuration.javaTimeModule(),
+                    configuration.jdk8TimeModule(),
+                    configuration.hibernate5Module(),
+                    configuration.problemModule(),
+                    configuration.constraintViolationProblemModule()
+                )
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+        ohlcs = new ArrayList<>(candles);
+        for (int i = 0; i < candles; i++) {
+            BigDecimal price = BigDecimal.valueOf(1_900_000 + i, 2);
+            ohlcs.add(
+                new Ohlc()
+                    .id((long) i)
+                    .time(START.plusMinutes(i))
+                    .open(price)
+                    .high(price.add(BigDecimal.TEN))
+                    .low(price.subtract(BigDecimal.TEN))
+                    .close(price)
+                    .volumeWeightedAveragePrice(price)
+                    .volume(BigDecimal.valueOf(123_456, 2))
+                    .count(42)
+            );
+        }
+        json = objectMapper.writeValueAsBytes(ohlcs);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ohlcs);
+    }
+
+    @Benchmark
+    public List<Ohlc> deserialize() throws IOException {
+        return objectMapper.readValue(json, OHLC_LIST);
+    }
+}
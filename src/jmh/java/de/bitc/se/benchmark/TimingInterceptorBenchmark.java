@@ -0,0 +1,86 @@
+package de.bitc.se.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import de.bitc.se.aop.timing.TimingInterceptor;
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.User;
+import de.bitc.se.service.dto.UserDTO;
+import de.bitc.se.service.mapper.UserMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+
+/**
+ * Measures the overhead of the {@link TimingInterceptor} on a cheap service method, comparing the direct call with
+ * the call through the proxy advised by the interceptor.
+ * <p>
+ * With the {@code DEBUG} level a share of the calls is logged with its arguments, the logger has no appender so that
+ * only the cost of the interceptor is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimingInterceptorBenchmark {
+
+    @Param({ "INFO", "DEBUG" })
+    private String level;
+
+    @Param({ "0.0", "0.01" })
+    private double sampleRate;
+
+    private UserMapper target;
+
+    private UserMapper advised;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        Logger logger = (Logger) LoggerFactory.getLogger(UserMapper.class);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(Level.toLevel(level));
+        ApplicationProperties.Timing properties = new ApplicationProperties.Timing();
+        properties.setSampleRate(sampleRate);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(TimingInterceptor.pointcut(List.of("de.bitc.se.service")));
+        target = new UserMapper();
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(pointcut, new TimingInterceptor(() -> registry, properties)));
+        advised = (UserMapper) proxyFactory.getProxy();
+        user = new User();
+        user.setId(1L);
+        user.setLogin("benchmark");
+    }
+
+    @Benchmark
+    public UserDTO direct() {
+        return target.userToUserDTO(user);
+    }
+
+    @Benchmark
+    public UserDTO timed() {
+        return advised.userToUserDTO(user);
+    }
+}
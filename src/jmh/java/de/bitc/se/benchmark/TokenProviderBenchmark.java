@@ -0,0 +1,69 @@
+package de.bitc.se.benchmark;
+
+import de.bitc.se.management.SecurityMetersService;
+import de.bitc.se.security.AuthoritiesConstants;
+import de.bitc.se.security.jwt.TokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Measures {@link TokenProvider#validateToken(String)}, which runs on every authenticated request, for a valid token
+ * and for a token with a broken signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private static final String BASE64_SECRET =
+        "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+
+    private TokenProvider tokenProvider;
+
+    private String validToken;
+
+    private String invalidSignatureToken;
+
+    @Setup
+    public void setUp() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(BASE64_SECRET);
+        tokenProvider = new TokenProvider(jHipsterProperties, new SecurityMetersService(new SimpleMeterRegistry()));
+        validToken =
+            tokenProvider.createToken(
+                new UsernamePasswordAuthenticationToken("user", "user", List.of(new SimpleGrantedAuthority(AuthoritiesConstants.USER))),
+                false
+            );
+        // the last characters of the signature may only hold padding bits
+        int index = validToken.length() - 10;
+        char changed = validToken.charAt(index) == 'A' ? 'B' : 'A';
+        invalidSignatureToken = validToken.substring(0, index) + changed + validToken.substring(index + 1);
+    }
+
+    @Benchmark
+    public boolean validToken() {
+        return tokenProvider.validateToken(validToken);
+    }
+
+    @Benchmark
+    public boolean invalidSignature() {
+        return tokenProvider.validateToken(invalidSignatureToken);
+    }
+}
@@ -0,0 +1,227 @@
+package de.bitc.se.aop.timing;
+
+import de.bitc.se.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Interceptor recording a Micrometer timer per method of the repository, service and Web REST beans.
+ * <p>
+ * It replaces the logging aspect of JHipster, which looked up a logger and formatted the arguments and results of
+ * every call. The timer and logger of a method are looked up once and cached, so a call that is not sampled only reads
+ * the cache and records its duration. A sampled call, with the logger of the bean at debug level, is logged with its
+ * arguments and duration; collections and arrays are logged with their size only, other arguments are cut at
+ * {@code application.timing.max-argument-length} characters. A call throwing an exception is recorded by the timer
+ * tagged with the exception, and logged at error level with the exception when {@code application.timing.log-exceptions}
+ * is enabled, as in the dev profile.
+ * <p>
+ * The timers and loggers are named after the class of the bean, or the interface of a Spring Data repository, rather
+ * than the class declaring the method: the methods inherited from {@code JpaRepository} are timed per repository.
+ */
+public class TimingInterceptor implements MethodInterceptor {
+
+    public static final String METER_NAME = "method.timed";
+    public static final String METER_DESCRIPTION = "Duration of the calls of a method of the application.";
+    public static final String METER_CLASS_DIMENSION = "class";
+    public static final String METER_METHOD_DIMENSION = "method";
+    public static final String METER_EXCEPTION_DIMENSION = "exception";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final Supplier<MeterRegistry> registry;
+
+    private final double sampleRate;
+
+    private final int maxArgumentLength;
+
+    private final boolean logExceptions;
+
+    // the timings by class of the target, then by method
+    private final Map<Class<?>, Map<Method, MethodTiming>> timings = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry the registry of the timers, looked up on the first call so the registry is not created early.
+     * @param properties the properties of the timing.
+     */
+    public TimingInterceptor(Supplier<MeterRegistry> registry, ApplicationProperties.Timing properties) {
+        this.registry = registry;
+        this.sampleRate = properties.getSampleRate();
+        this.maxArgumentLength = properties.getMaxArgumentLength();
+        this.logExceptions = properties.isLogExceptions();
+    }
+
+    /**
+     * Build the pointcut matching the repositories, services and Web REST endpoints in the packages.
+     *
+     * @param packages the packages of the beans, with their sub-packages.
+     * @return the AspectJ pointcut expression.
+     * @throws IllegalArgumentException if there are no packages, the timing must be disabled instead.
+     */
+    public static String pointcut(List<String> packages) {
+        if (packages.isEmpty()) {
+            throw new IllegalArgumentException("No packages to time, disable the timing instead");
+        }
+        String beans =
+            "(within(@org.springframework.stereotype.Repository *)" +
+            " || within(org.springframework.data.repository.Repository+)" +
+            " || within(@org.springframework.stereotype.Service *)" +
+            " || within(@org.springframework.web.bind.annotation.RestController *))";
+        // the methods of the Spring Data repositories are executed by a target outside of the packages, the inherited
+        // methods are declared outside of them too
+        return packages
+            .stream()
+            .map(name -> "within(" + name + "..*) || execution(* " + name + "..*.*(..))")
+            .collect(Collectors.joining(" || ", beans + " && (", ")"));
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodTiming timing = timing(invocation.getThis(), invocation.getMethod());
+        boolean sampled = sampleRate > 0 && timing.log.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (sampled) {
+            timing.log.debug("Enter: {}() with argument[s] = {}", timing.method, describe(invocation.getArguments()));
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            long duration = System.nanoTime() - start;
+            timing.timer.record(duration, TimeUnit.NANOSECONDS);
+            if (sampled) {
+                timing.log.debug("Exit: {}() after {} µs", timing.method, duration / 1000);
+            }
+            return result;
+        } catch (Throwable e) {
+            long duration = System.nanoTime() - start;
+            timing.exceptionTimer(e).record(duration, TimeUnit.NANOSECONDS);
+            if (logExceptions) {
+                timing.log.error(
+                    "Exception in {}() with cause = '{}' and exception = '{}'",
+                    timing.method,
+                    e.getCause() != null ? e.getCause() : "NULL",
+                    e.getMessage(),
+                    e
+                );
+            } else if (timing.log.isDebugEnabled()) {
+                timing.log.debug("Exception in {}() after {} µs: {}", timing.method, duration / 1000, e.toString());
+            }
+            throw e;
+        }
+    }
+
+    private MethodTiming timing(Object target, Method method) {
+        Class<?> targetClass = target != null ? target.getClass() : method.getDeclaringClass();
+        Map<Method, MethodTiming> methods = timings.get(targetClass);
+        if (methods == null) {
+            methods = timings.computeIfAbsent(targetClass, type -> new ConcurrentHashMap<>());
+        }
+        MethodTiming timing = methods.get(method);
+        if (timing == null) {
+            timing = methods.computeIfAbsent(method, key -> new MethodTiming(type(target, key), key));
+        }
+        return timing;
+    }
+
+    /**
+     * The type a method is timed for: the interface of a proxied repository declaring or inheriting the method, or the
+     * class of the bean without its CGLIB subclass.
+     */
+    static Class<?> type(Object target, Method method) {
+        if (target == null) {
+            return method.getDeclaringClass();
+        }
+        if (target instanceof Advised) {
+            for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(target)) {
+                if (method.getDeclaringClass().isAssignableFrom(type)) {
+                    return type;
+                }
+            }
+        }
+        return ClassUtils.getUserClass(target);
+    }
+
+    private Timer timer(String type, String method, String exception) {
+        return Timer
+            .builder(METER_NAME)
+            .description(METER_DESCRIPTION)
+            .tag(METER_CLASS_DIMENSION, type)
+            .tag(METER_METHOD_DIMENSION, method)
+            .tag(METER_EXCEPTION_DIMENSION, exception)
+            .register(registry.get());
+    }
+
+    String describe(Object[] arguments) {
+        StringBuilder description = new StringBuilder("[");
+        for (int i = 0; i < arguments.length; i++) {
+            if (i > 0) {
+                description.append(", ");
+            }
+            Object argument = arguments[i];
+            if (argument instanceof Collection) {
+                description.append(argument.getClass().getSimpleName()).append("(size=").append(((Collection<?>) argument).size()).append(')');
+            } else if (argument != null && argument.getClass().isArray()) {
+                description
+                    .append(argument.getClass().getComponentType().getSimpleName())
+                    .append('[')
+                    .append(Array.getLength(argument))
+                    .append(']');
+            } else {
+                String value = String.valueOf(argument);
+                if (value.length() > maxArgumentLength) {
+                    description.append(value, 0, maxArgumentLength).append("...");
+                } else {
+                    description.append(value);
+                }
+            }
+        }
+        return description.append(']').toString();
+    }
+
+    /**
+     * The cached timers and logger of a method.
+     */
+    private final class MethodTiming {
+
+        private final String type;
+
+        private final String method;
+
+        private final Logger log;
+
+        private final Timer timer;
+
+        private final Map<Class<?>, Timer> exceptionTimers = new ConcurrentHashMap<>();
+
+        private MethodTiming(Class<?> type, Method method) {
+            this.type = type.getSimpleName();
+            this.method = method.getName();
+            this.log = LoggerFactory.getLogger(type);
+            this.timer = timer(this.type, this.method, NO_EXCEPTION);
+        }
+
+        private Timer exceptionTimer(Throwable e) {
+            Timer exceptionTimer = exceptionTimers.get(e.getClass());
+            if (exceptionTimer == null) {
+                exceptionTimer =
+                    exceptionTimers.computeIfAbsent(e.getClass(), exception -> timer(type, method, exception.getSimpleName()));
+            }
+            return exceptionTimer;
+        }
+    }
+}
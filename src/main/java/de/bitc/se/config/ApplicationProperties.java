@@ -1,6 +1,15 @@
 package de.bitc.se.config;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.cache.spi.access.AccessType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Querybug.
@@ -10,7 +19,1203 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Bulk bulk = new Bulk();
+
+    private final Archive archive = new Archive();
+
+    private final Calculation calculation = new Calculation();
+
+    private final Retention retention = new Retention();
+
+    private final Generator generator = new Generator();
+
+    private final Timing timing = new Timing();
+
+    private final Live live = new Live();
+
+    private final Feed feed = new Feed();
+
+    private final Replica replica = new Replica();
+
+    private final Cache cache = new Cache();
+
+    private final TokenCache tokenCache = new TokenCache();
+
+    private final WindowCache windowCache = new WindowCache();
+
+    private final Coalescing coalescing = new Coalescing();
+
+    private final Job job = new Job();
+
+    private final Columnar columnar = new Columnar();
+
     // jhipster-needle-application-properties-property
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public Calculation getCalculation() {
+        return calculation;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public Generator getGenerator() {
+        return generator;
+    }
+
+    public Timing getTiming() {
+        return timing;
+    }
+
+    public Live getLive() {
+        return live;
+    }
+
+    public Feed getFeed() {
+        return feed;
+    }
+
+    public Replica getReplica() {
+        return replica;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public WindowCache getWindowCache() {
+        return windowCache;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public Job getJob() {
+        return job;
+    }
+
+    public Columnar getColumnar() {
+        return columnar;
+    }
+
     // jhipster-needle-application-properties-property-getter
+
+    /**
+     * Bulk import of candles.
+     */
+    public static class Bulk {
+
+        /**
+         * Number of rows written with one JDBC batch or one {@code COPY}.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Use {@code COPY ... FROM STDIN} when the database is PostgreSQL.
+         */
+        private boolean copyEnabled = true;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public boolean isCopyEnabled() {
+            return copyEnabled;
+        }
+
+        public void setCopyEnabled(boolean copyEnabled) {
+            this.copyEnabled = copyEnabled;
+        }
+    }
+
+    /**
+     * Archive of cold candles in memory-mapped files.
+     */
+    public static class Archive {
+
+        /**
+         * Move the candles older than the horizon out of the database by the scheduled compaction. The compaction is
+         * one-way, the archived candles are still read by the windows of the REST API and the warm-up of the
+         * indicators, but no longer computed or repaired by the calculations.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the archive files, one per chart.
+         */
+        private String directory = "archive";
+
+        /**
+         * Age from which candles are moved into the archive.
+         */
+        private Duration horizon = Duration.ofDays(90);
+
+        /**
+         * Number of candles moved per transaction.
+         */
+        private int batchSize = 10000;
+
+        /**
+         * Cron expression of the scheduled compaction.
+         */
+        private String cron = "0 30 1 * * ?";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getHorizon() {
+            return horizon;
+        }
+
+        public void setHorizon(Duration horizon) {
+            this.horizon = horizon;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+    }
+
+    /**
+     * Computation of the indicators of the calculations.
+     */
+    public static class Calculation {
+
+        /**
+         * Number of candles computed and tuples written per transaction.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Run the calculations of the charts with new candles on schedule and when candles are written.
+         */
+        private boolean schedulerEnabled = true;
+
+        /**
+         * Delay between the end of a scheduled run and the start of the next one, in ISO-8601 format.
+         */
+        private Duration schedulerDelay = Duration.ofSeconds(5);
+
+        /**
+         * Number of charts computed in parallel.
+         */
+        private int parallelism = 4;
+
+        /**
+         * Number of charts waiting for a computation thread, more are postponed to the next run.
+         */
+        private int queueCapacity = 1000;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public boolean isSchedulerEnabled() {
+            return schedulerEnabled;
+        }
+
+        public void setSchedulerEnabled(boolean schedulerEnabled) {
+            this.schedulerEnabled = schedulerEnabled;
+        }
+
+        public Duration getSchedulerDelay() {
+            return schedulerDelay;
+        }
+
+        public void setSchedulerDelay(Duration schedulerDelay) {
+            this.schedulerDelay = schedulerDelay;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * Removal of old candles and their tuples.
+     */
+    public static class Retention {
+
+        /**
+         * Run the retention on schedule.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Age of the oldest candles kept, unlimited when not set.
+         */
+        private Duration horizon = Duration.ofDays(365);
+
+        /**
+         * Number of candles deleted per transaction when rows are deleted one chart at a time.
+         */
+        private int batchSize = 10000;
+
+        /**
+         * Cron expression of the scheduled retention.
+         */
+        private String cron = "0 0 2 * * ?";
+
+        /**
+         * Number of monthly partitions created ahead of the current month on PostgreSQL.
+         */
+        private int partitionsAhead = 3;
+
+        /**
+         * Drop the expired partitions on PostgreSQL, otherwise they are only detached from their table.
+         */
+        private boolean dropPartitions = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getHorizon() {
+            return horizon;
+        }
+
+        public void setHorizon(Duration horizon) {
+            this.horizon = horizon;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public int getPartitionsAhead() {
+            return partitionsAhead;
+        }
+
+        public void setPartitionsAhead(int partitionsAhead) {
+            this.partitionsAhead = partitionsAhead;
+        }
+
+        public boolean isDropPartitions() {
+            return dropPartitions;
+        }
+
+        public void setDropPartitions(boolean dropPartitions) {
+            this.dropPartitions = dropPartitions;
+        }
+    }
+
+    /**
+     * Generation of synthetic candles for load and regression tests, run on startup by the {@code generator} profile.
+     */
+    public static class Generator {
+
+        /**
+         * Seed of the generator, the same seed generates the same candles.
+         */
+        private long seed = 42L;
+
+        /**
+         * Number of generated pairs, each with a chart per time range.
+         */
+        private int pairs = 2;
+
+        /**
+         * Number of candles generated per chart.
+         */
+        private int candles = 10000;
+
+        /**
+         * Time of the first candle, aligned down to the time range of the chart.
+         */
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private ZonedDateTime start = ZonedDateTime.parse("2020-01-01T00:00:00Z");
+
+        /**
+         * Price of the first candle.
+         */
+        private double initialPrice = 100.0;
+
+        /**
+         * Annual drift of the geometric Brownian motion.
+         */
+        private double drift = 0.0;
+
+        /**
+         * Annual volatility of the geometric Brownian motion.
+         */
+        private double volatility = 0.8;
+
+        /**
+         * Median volume of a one minute candle, it grows with the time range.
+         */
+        private double volume = 10.0;
+
+        /**
+         * Probability of a volume burst starting at a candle.
+         */
+        private double burstProbability = 0.005;
+
+        /**
+         * Factor of the volume during a burst, the volatility grows with its square root.
+         */
+        private double burstFactor = 8.0;
+
+        /**
+         * Mean number of candles of a burst.
+         */
+        private int burstLength = 20;
+
+        /**
+         * Probability of a candle being left out.
+         */
+        private double gapProbability = 0.001;
+
+        /**
+         * Probability of a candle being preceded by an unfinished duplicate of the same time.
+         */
+        private double duplicateProbability = 0.001;
+
+        /**
+         * Exit once the candles are generated by the {@code generator} profile.
+         */
+        private boolean exit = false;
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public void setSeed(long seed) {
+            this.seed = seed;
+        }
+
+        public int getPairs() {
+            return pairs;
+        }
+
+        public void setPairs(int pairs) {
+            this.pairs = pairs;
+        }
+
+        public int getCandles() {
+            return candles;
+        }
+
+        public void setCandles(int candles) {
+            this.candles = candles;
+        }
+
+        public ZonedDateTime getStart() {
+            return start;
+        }
+
+        public void setStart(ZonedDateTime start) {
+            this.start = start;
+        }
+
+        public double getInitialPrice() {
+            return initialPrice;
+        }
+
+        public void setInitialPrice(double initialPrice) {
+            this.initialPrice = initialPrice;
+        }
+
+        public double getDrift() {
+            return drift;
+        }
+
+        public void setDrift(double drift) {
+            this.drift = drift;
+        }
+
+        public double getVolatility() {
+            return volatility;
+        }
+
+        public void setVolatility(double volatility) {
+            this.volatility = volatility;
+        }
+
+        public double getVolume() {
+            return volume;
+        }
+
+        public void setVolume(double volume) {
+            this.volume = volume;
+        }
+
+        public double getBurstProbability() {
+            return burstProbability;
+        }
+
+        public void setBurstProbability(double burstProbability) {
+            this.burstProbability = burstProbability;
+        }
+
+        public double getBurstFactor() {
+            return burstFactor;
+        }
+
+        public void setBurstFactor(double burstFactor) {
+            this.burstFactor = burstFactor;
+        }
+
+        public int getBurstLength() {
+            return burstLength;
+        }
+
+        public void setBurstLength(int burstLength) {
+            this.burstLength = burstLength;
+        }
+
+        public double getGapProbability() {
+            return gapProbability;
+        }
+
+        public void setGapProbability(double gapProbability) {
+            this.gapProbability = gapProbability;
+        }
+
+        public double getDuplicateProbability() {
+            return duplicateProbability;
+        }
+
+        public void setDuplicateProbability(double duplicateProbability) {
+            this.duplicateProbability = duplicateProbability;
+        }
+
+        public boolean isExit() {
+            return exit;
+        }
+
+        public void setExit(boolean exit) {
+            this.exit = exit;
+        }
+    }
+
+    /**
+     * Timing of the methods of the application beans.
+     */
+    public static class Timing {
+
+        /**
+         * Record a timer per method of the beans in the packages.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Packages of the timed beans, with their sub-packages.
+         */
+        private List<String> packages = new ArrayList<>(List.of("de.bitc.se.repository", "de.bitc.se.service", "de.bitc.se.web.rest"));
+
+        /**
+         * Share of the calls logged with their arguments when the logger of the bean is at debug level, from 0 to 1.
+         */
+        private double sampleRate = 0.0;
+
+        /**
+         * Maximum length of a logged argument.
+         */
+        private int maxArgumentLength = 200;
+
+        /**
+         * Log the exceptions thrown by the timed methods at error level with their stack trace.
+         */
+        private boolean logExceptions = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getPackages() {
+            return packages;
+        }
+
+        public void setPackages(List<String> packages) {
+            this.packages = packages;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getMaxArgumentLength() {
+            return maxArgumentLength;
+        }
+
+        public void setMaxArgumentLength(int maxArgumentLength) {
+            this.maxArgumentLength = maxArgumentLength;
+        }
+
+        public boolean isLogExceptions() {
+            return logExceptions;
+        }
+
+        public void setLogExceptions(boolean logExceptions) {
+            this.logExceptions = logExceptions;
+        }
+    }
+
+    /**
+     * Push of the written candles and tuples to the subscribers of a chart or calculation.
+     */
+    public static class Live {
+
+        /**
+         * Number of threads sending the updates to the subscribers.
+         */
+        private int threads = 4;
+
+        /**
+         * Number of candles or tuples waiting for a slow subscriber, more are dropped and the subscriber is sent an
+         * invalidation instead.
+         */
+        private int maxPending = 1000;
+
+        /**
+         * Number of subscribers waiting for a thread, the updates of a subscriber that does not fit are sent with its
+         * next update.
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * Time a send may wait for a client that does not read, in ISO-8601 format, the subscription and its connection
+         * are closed after it. The sends are checked at this interval, so a blocked send is closed within twice the time.
+         */
+        private Duration sendTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Time after which a subscription is closed, in ISO-8601 format, the client subscribes again.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(int maxPending) {
+            this.maxPending = maxPending;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getSendTimeout() {
+            return sendTimeout;
+        }
+
+        public void setSendTimeout(Duration sendTimeout) {
+            this.sendTimeout = sendTimeout;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    /**
+     * Ingestion of the candles of the exchange WebSocket feed.
+     */
+    public static class Feed {
+
+        /**
+         * Subscribe the pairs with a WebSocket pair name on startup.
+         */
+        private boolean enabled = false;
+
+        /**
+         * URL of the WebSocket feed.
+         */
+        private String url = "wss://ws.kraken.com";
+
+        /**
+         * Number of received candles the ring holds for the writer, a power of two.
+         */
+        private int ringSize = 4096;
+
+        /**
+         * Number of waiting candles written together.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Maximum time a received candle waits before it is written, in ISO-8601 format.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * Timeout of the opening handshake, in ISO-8601 format.
+         */
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Delay before a closed connection is opened again, in ISO-8601 format.
+         */
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public int getRingSize() {
+            return ringSize;
+        }
+
+        public void setRingSize(int ringSize) {
+            this.ringSize = ringSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        public void setReconnectDelay(Duration reconnectDelay) {
+            this.reconnectDelay = reconnectDelay;
+        }
+    }
+
+    /**
+     * Read replica of the database, used by the read-only transactions.
+     */
+    public static class Replica {
+
+        /**
+         * Route the read-only transactions to the replica.
+         */
+        private boolean enabled = false;
+
+        /**
+         * JDBC URL of the replica, with the driver of {@code spring.datasource}.
+         */
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Maximum number of connections to the replica.
+         */
+        private int maximumPoolSize = 10;
+
+        /**
+         * Maximum replication lag of a usable replica, in ISO-8601 format.
+         */
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        /**
+         * Delay between the checks of the replication lag, in ISO-8601 format.
+         */
+        private Duration lagCheckInterval = Duration.ofSeconds(10);
+
+        /**
+         * Query of the replication lag in seconds, run on the replica.
+         */
+        private String lagQuery =
+            "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0" +
+            " else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public Duration getMaxLag() {
+            return maxLag;
+        }
+
+        public void setMaxLag(Duration maxLag) {
+            this.maxLag = maxLag;
+        }
+
+        public Duration getLagCheckInterval() {
+            return lagCheckInterval;
+        }
+
+        public void setLagCheckInterval(Duration lagCheckInterval) {
+            this.lagCheckInterval = lagCheckInterval;
+        }
+
+        public String getLagQuery() {
+            return lagQuery;
+        }
+
+        public void setLagQuery(String lagQuery) {
+            this.lagQuery = lagQuery;
+        }
+    }
+
+    /**
+     * Regions of the Ehcache cache manager, the regions not configured here keep {@code jhipster.cache.ehcache}.
+     */
+    public static class Cache {
+
+        /**
+         * Directory of the disk tiers.
+         */
+        private String diskDirectory = "cache";
+
+        /**
+         * Regions by cache name, the class name of an entity or the role of a collection.
+         */
+        private Map<String, Region> regions = new LinkedHashMap<>();
+
+        public String getDiskDirectory() {
+            return diskDirectory;
+        }
+
+        public void setDiskDirectory(String diskDirectory) {
+            this.diskDirectory = diskDirectory;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public void setRegions(Map<String, Region> regions) {
+            this.regions = regions;
+        }
+    }
+
+    /**
+     * Tiers, expiry and strategy of a cache region.
+     */
+    public static class Region {
+
+        /**
+         * Number of entries on the heap, {@code jhipster.cache.ehcache.max-entries} if not set.
+         */
+        private Long heapEntries;
+
+        /**
+         * Size of the off-heap tier, none if not set.
+         */
+        private DataSize offHeapSize;
+
+        /**
+         * Size of the disk tier, none if not set; larger than the off-heap tier.
+         */
+        private DataSize diskSize;
+
+        /**
+         * Time to live of an entry, {@code jhipster.cache.ehcache.time-to-live-seconds} if not set and no expiry if
+         * zero.
+         */
+        private Duration timeToLive;
+
+        /**
+         * Concurrency strategy of an entity region, the strategy of its {@code @Cache} annotation if not set. Only
+         * entities never updated through Hibernate may be {@code read-only}.
+         */
+        private AccessType strategy;
+
+        public Long getHeapEntries() {
+            return heapEntries;
+        }
+
+        public void setHeapEntries(Long heapEntries) {
+            this.heapEntries = heapEntries;
+        }
+
+        public DataSize getOffHeapSize() {
+            return offHeapSize;
+        }
+
+        public void setOffHeapSize(DataSize offHeapSize) {
+            this.offHeapSize = offHeapSize;
+        }
+
+        public DataSize getDiskSize() {
+            return diskSize;
+        }
+
+        public void setDiskSize(DataSize diskSize) {
+            this.diskSize = diskSize;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public AccessType getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(AccessType strategy) {
+            this.strategy = strategy;
+        }
+    }
+
+    /**
+     * Cache of the verified JWT tokens of the requests.
+     */
+    public static class TokenCache {
+
+        /**
+         * Maximum number of cached tokens, 0 to verify each token on each request.
+         */
+        private int maxSize = 10000;
+
+        /**
+         * Maximum number of invalid tokens remembered as invalid, 0 to verify each invalid token on each request. They
+         * are kept apart from the valid tokens, so that random tokens cannot push the valid tokens out of the cache.
+         */
+        private int negativeMaxSize = 1000;
+
+        /**
+         * Time an invalid token is remembered as invalid, in ISO-8601 format.
+         */
+        private Duration negativeTimeToLive = Duration.ofSeconds(10);
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getNegativeMaxSize() {
+            return negativeMaxSize;
+        }
+
+        public void setNegativeMaxSize(int negativeMaxSize) {
+            this.negativeMaxSize = negativeMaxSize;
+        }
+
+        public Duration getNegativeTimeToLive() {
+            return negativeTimeToLive;
+        }
+
+        public void setNegativeTimeToLive(Duration negativeTimeToLive) {
+            this.negativeTimeToLive = negativeTimeToLive;
+        }
+    }
+
+    /**
+     * HTTP caching of the closed candle windows, the windows ending before the open candle of their chart.
+     */
+    public static class WindowCache {
+
+        /**
+         * Maximum total size of the responses kept in memory, 0 to only answer with ETags.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Maximum size of a response kept in memory, larger responses are written from the database each time.
+         */
+        private DataSize maxEntrySize = DataSize.ofMegabytes(4);
+
+        /**
+         * Time a client may use a closed window without asking again, in ISO-8601 format.
+         */
+        private Duration maxAge = Duration.ofHours(24);
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public DataSize getMaxEntrySize() {
+            return maxEntrySize;
+        }
+
+        public void setMaxEntrySize(DataSize maxEntrySize) {
+            this.maxEntrySize = maxEntrySize;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    /**
+     * Coalescing of concurrent identical expensive reads, the repair detection and the candle columns.
+     */
+    public static class Coalescing {
+
+        /**
+         * Time a read result is shared after it is read, unless its chart or calculation is written, in ISO-8601
+         * format. 0 to only share the reads in progress.
+         */
+        private Duration timeToLive = Duration.ofSeconds(2);
+
+        /**
+         * Number of kept results above which the expired results are dropped.
+         */
+        private int maxSize = 1000;
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Background jobs, the repair detection and the recompute of calculations.
+     */
+    public static class Job {
+
+        /**
+         * Number of jobs of a chart running at the same time, the other jobs of the chart wait in the queue.
+         */
+        private int maxConcurrentPerChart = 1;
+
+        /**
+         * Number of rows read per transaction by a job.
+         */
+        private int chunkSize = 10000;
+
+        /**
+         * Number of gaps a job keeps in memory: the gaps job keeps the first ones in its result, the repair job repairs
+         * the gaps in batches of this size.
+         */
+        private int maxGaps = 10000;
+
+        /**
+         * Interval of the dispatch of the queued jobs, in ISO-8601 format, it starts the jobs the task executor rejected.
+         */
+        private Duration dispatchInterval = Duration.ofMinutes(1);
+
+        public int getMaxConcurrentPerChart() {
+            return maxConcurrentPerChart;
+        }
+
+        public void setMaxConcurrentPerChart(int maxConcurrentPerChart) {
+            this.maxConcurrentPerChart = maxConcurrentPerChart;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxGaps() {
+            return maxGaps;
+        }
+
+        public void setMaxGaps(int maxGaps) {
+            this.maxGaps = maxGaps;
+        }
+
+        public Duration getDispatchInterval() {
+            return dispatchInterval;
+        }
+
+        public void setDispatchInterval(Duration dispatchInterval) {
+            this.dispatchInterval = dispatchInterval;
+        }
+    }
+
+    /**
+     * Responses of the candle and tuple windows in columns, they are read into memory before they are written.
+     */
+    public static class Columnar {
+
+        /**
+         * Maximum number of rows of a response, the next rows are read with the keyset cursor of the last row.
+         */
+        private int maxRows = 100000;
+
+        public int getMaxRows() {
+            return maxRows;
+        }
+
+        public void setMaxRows(int maxRows) {
+            this.maxRows = maxRows;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
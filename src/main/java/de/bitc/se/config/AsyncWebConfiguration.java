@@ -0,0 +1,32 @@
+package de.bitc.se.config;
+
+import java.util.concurrent.Executor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Run the asynchronous MVC requests, e.g. the streamed responses, on the application task executor
+ * instead of a new thread per request.
+ */
+@Configuration
+public class AsyncWebConfiguration implements WebMvcConfigurer {
+
+    private final Executor taskExecutor;
+
+    public AsyncWebConfiguration(@Qualifier("taskExecutor") Executor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (taskExecutor instanceof AsyncTaskExecutor) {
+            configurer.setTaskExecutor((AsyncTaskExecutor) taskExecutor);
+        } else {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(taskExecutor));
+        }
+    }
+}
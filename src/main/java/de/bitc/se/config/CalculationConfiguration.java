@@ -0,0 +1,35 @@
+package de.bitc.se.config;
+
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration of the computation of the calculations.
+ */
+@Configuration
+public class CalculationConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(CalculationConfiguration.class);
+
+    /**
+     * The bounded executor computing the calculations of the charts, apart from the task executor so a backlog of
+     * computations does not delay other tasks.
+     */
+    @Bean(name = "calculationExecutor")
+    public Executor calculationExecutor(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Calculation properties = applicationProperties.getCalculation();
+        log.debug("Creating Calculation Executor with {} threads", properties.getParallelism());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getParallelism());
+        executor.setMaxPoolSize(properties.getParallelism());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("querybug-calculation-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -11,5 +11,8 @@ public final class Constants {
     public static final String SYSTEM = "system";
     public static final String DEFAULT_LANGUAGE = "en";
 
+    // Spring profile generating synthetic candles on startup
+    public static final String SPRING_PROFILE_GENERATOR = "generator";
+
     private Constants() {}
 }
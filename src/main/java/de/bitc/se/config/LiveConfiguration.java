@@ -0,0 +1,35 @@
+package de.bitc.se.config;
+
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration of the push of the written candles and tuples.
+ */
+@Configuration
+public class LiveConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(LiveConfiguration.class);
+
+    /**
+     * The executor sending the updates to the subscribers, apart from the task executor so slow subscribers do not
+     * delay other tasks. A subscriber is drained by one task at a time, so the queue holds at most one task per
+     * subscriber, up to {@code application.live.queue-capacity}. A send blocked by a client that does not read is
+     * aborted by the {@link de.bitc.se.service.live.LiveUpdateService} after {@code application.live.send-timeout}.
+     */
+    @Bean(name = "liveExecutor")
+    public Executor liveExecutor(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Live properties = applicationProperties.getLive();
+        log.debug("Creating Live Executor with {} threads", properties.getThreads());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("querybug-live-");
+        return executor;
+    }
+}
@@ -0,0 +1,82 @@
+package de.bitc.se.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Configuration of the read replica, enabled by {@code application.replica.enabled}.
+ * <p>
+ * The primary pool is configured by {@code spring.datasource} as without a replica, the replica pool by
+ * {@code application.replica}. The data source of the application routes the read-only transactions to the replica
+ * while the {@link ReplicaLagMonitor} reports it usable, see {@link ReplicaRoutingDataSource}; Liquibase and all
+ * other work use the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaDataSourceConfiguration.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Replica properties = applicationProperties.getReplica();
+        log.debug("Creating replica pool of {} with {} connections", properties.getUrl(), properties.getMaximumPoolSize());
+        HikariDataSource replica = DataSourceBuilder
+            .create()
+            .type(HikariDataSource.class)
+            .driverClassName(dataSourceProperties.determineDriverClassName())
+            .url(properties.getUrl())
+            .username(properties.getUsername())
+            .password(properties.getPassword())
+            .build();
+        replica.setPoolName("Hikari-replica");
+        replica.setMaximumPoolSize(properties.getMaximumPoolSize());
+        replica.setAutoCommit(false);
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+        @Qualifier("replicaDataSource") DataSource replicaDataSource,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Replica properties = applicationProperties.getReplica();
+        return new ReplicaLagMonitor(replicaDataSource, properties.getLagQuery(), properties.getMaxLag());
+    }
+
+    @Bean
+    public MeterBinder replicaLagMeterBinder(ReplicaLagMonitor replicaLagMonitor) {
+        return replicaLagMonitor::bindTo;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+        @Qualifier("primaryDataSource") DataSource primaryDataSource,
+        @Qualifier("replicaDataSource") DataSource replicaDataSource,
+        ReplicaLagMonitor replicaLagMonitor
+    ) {
+        return new LazyConnectionDataSourceProxy(
+            new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor::isUsable)
+        );
+    }
+}
@@ -0,0 +1,104 @@
+package de.bitc.se.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Monitor of the replication lag of the replica, queried every {@code application.replica.lag-check-interval}.
+ * <p>
+ * The replica is usable while its lag is at most {@code application.replica.max-lag}; it is not usable before the
+ * first check, when the lag query fails and when the lag exceeds the limit, so the read-only transactions fall back
+ * to the primary. The lag is published as the {@code replica.lag} gauge in seconds, not a number while the replica is
+ * not reachable.
+ */
+public class ReplicaLagMonitor {
+
+    public static final String METER_NAME = "replica.lag";
+
+    private final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+
+    private final String lagQuery;
+
+    private final double maxLagSeconds;
+
+    private volatile double lagSeconds = Double.NaN;
+
+    private volatile boolean usable;
+
+    /**
+     * @param replica the replica.
+     * @param lagQuery the query of the lag of the replica in seconds.
+     * @param maxLag the maximum lag of a usable replica.
+     */
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+    }
+
+    /**
+     * Register the {@code replica.lag} gauge.
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge
+            .builder(METER_NAME, this, ReplicaLagMonitor::getLagSeconds)
+            .description("Replication lag of the replica")
+            .baseUnit("seconds")
+            .register(registry);
+    }
+
+    /**
+     * Query the lag of the replica.
+     *
+     * @return whether the replica is usable.
+     */
+    @Scheduled(fixedDelayString = "${application.replica.lag-check-interval:PT10S}")
+    public boolean check() {
+        boolean wasUsable = usable;
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                lagSeconds = resultSet.next() ? resultSet.getDouble(1) : Double.NaN;
+            } finally {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            }
+            usable = lagSeconds <= maxLagSeconds;
+            if (wasUsable && !usable) {
+                log.warn("Replica lags {} s behind the primary, reading from the primary", lagSeconds);
+            }
+        } catch (SQLException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Replica is not reachable, reading from the primary: {}", e.getMessage());
+            }
+        }
+        if (!wasUsable && usable) {
+            log.info("Replica lags {} s behind the primary, reading from the replica", lagSeconds);
+        }
+        return usable;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * @return the lag of the last check in seconds, not a number if the replica was not reachable.
+     */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+}
@@ -0,0 +1,52 @@
+package de.bitc.se.config;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source routing the connections of read-only transactions to the replica while it is usable, and all other
+ * connections to the primary.
+ * <p>
+ * The read-only flag of a transaction is only known once it has begun, so the data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which fetches the connection on the
+ * first statement. A read-only transaction joining a read-write transaction uses the connection of the latter.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * The target of a connection.
+     */
+    public enum Target {
+        PRIMARY,
+        REPLICA,
+    }
+
+    private final BooleanSupplier replicaUsable;
+
+    /**
+     * @param primary the primary database.
+     * @param replica the replica of the primary database.
+     * @param replicaUsable whether the replica is reachable and its lag within the limit.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaUsable) {
+        this.replicaUsable = replicaUsable;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        if (
+            TransactionSynchronizationManager.isActualTransactionActive() &&
+            TransactionSynchronizationManager.isCurrentTransactionReadOnly() &&
+            replicaUsable.getAsBoolean()
+        ) {
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+}
@@ -0,0 +1,49 @@
+package de.bitc.se.config;
+
+import de.bitc.se.aop.timing.TimingInterceptor;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+/**
+ * Configuration of the {@link TimingInterceptor}, enabled by {@code application.timing.enabled} for the beans of
+ * {@code application.timing.packages}.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+@ConditionalOnProperty(prefix = "application.timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TimingAspectConfiguration {
+
+    @Bean
+    public static Advisor timingAdvisor(ObjectProvider<MeterRegistry> registry, ApplicationProperties applicationProperties) {
+        ApplicationProperties.Timing properties = applicationProperties.getTiming();
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(TimingInterceptor.pointcut(properties.getPackages()));
+        return new DefaultPointcutAdvisor(pointcut, new TimingInterceptor(registry::getObject, properties));
+    }
+
+    /**
+     * The method timers are recorded on every call, without the percentiles and histograms of the other meters.
+     */
+    @Bean
+    public MeterFilter timingMeterFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals(TimingInterceptor.METER_NAME)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder().percentiles().percentilesHistogram(false).build().merge(config);
+            }
+        };
+    }
+}
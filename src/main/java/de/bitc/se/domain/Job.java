@@ -0,0 +1,287 @@
+package de.bitc.se.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import de.bitc.se.domain.enumeration.JobStatus;
+import de.bitc.se.domain.enumeration.JobType;
+import java.io.Serializable;
+import java.time.Instant;
+import javax.persistence.*;
+import javax.validation.constraints.*;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Type;
+
+/**
+ * A Job, a long running operation on the series of a chart, run in the background.
+ * <p>
+ * The chart and the calculation are kept as ids, the job outlives them. The progress is counted in the units of the
+ * job type up to the total, which is {@code null} while it is unknown. The result is the JSON of the outcome of a
+ * succeeded job. An update only writes the changed columns, so that the progress updates of the running job and its
+ * cancel do not overwrite each other.
+ */
+@Entity
+@Table(name = "job")
+@DynamicUpdate
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class Job implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private JobType type;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private JobStatus status;
+
+    @Column(name = "chart_id")
+    private Long chartId;
+
+    @Column(name = "calculation_id")
+    private Long calculationId;
+
+    @Column(name = "progress")
+    private Long progress;
+
+    @Column(name = "total")
+    private Long total;
+
+    @Column(name = "cancel_requested")
+    private Boolean cancelRequested;
+
+    @JsonIgnore
+    @Lob
+    @Type(type = "org.hibernate.type.TextType")
+    @Column(name = "result")
+    private String result;
+
+    @Size(max = 1024)
+    @Column(name = "error", length = 1024)
+    private String error;
+
+    @Column(name = "created_date")
+    private Instant createdDate;
+
+    @Column(name = "started_date")
+    private Instant startedDate;
+
+    @Column(name = "finished_date")
+    private Instant finishedDate;
+
+    // jhipster-needle-entity-add-field - JHipster will add fields here
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public Job id(Long id) {
+        this.setId(id);
+        return this;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public JobType getType() {
+        return this.type;
+    }
+
+    public Job type(JobType type) {
+        this.setType(type);
+        return this;
+    }
+
+    public void setType(JobType type) {
+        this.type = type;
+    }
+
+    public JobStatus getStatus() {
+        return this.status;
+    }
+
+    public Job status(JobStatus status) {
+        this.setStatus(status);
+        return this;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public Long getChartId() {
+        return this.chartId;
+    }
+
+    public Job chartId(Long chartId) {
+        this.setChartId(chartId);
+        return this;
+    }
+
+    public void setChartId(Long chartId) {
+        this.chartId = chartId;
+    }
+
+    public Long getCalculationId() {
+        return this.calculationId;
+    }
+
+    public Job calculationId(Long calculationId) {
+        this.setCalculationId(calculationId);
+        return this;
+    }
+
+    public void setCalculationId(Long calculationId) {
+        this.calculationId = calculationId;
+    }
+
+    public Long getProgress() {
+        return this.progress;
+    }
+
+    public Job progress(Long progress) {
+        this.setProgress(progress);
+        return this;
+    }
+
+    public void setProgress(Long progress) {
+        this.progress = progress;
+    }
+
+    public Long getTotal() {
+        return this.total;
+    }
+
+    public Job total(Long total) {
+        this.setTotal(total);
+        return this;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public Boolean getCancelRequested() {
+        return this.cancelRequested;
+    }
+
+    public Job cancelRequested(Boolean cancelRequested) {
+        this.setCancelRequested(cancelRequested);
+        return this;
+    }
+
+    public void setCancelRequested(Boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getResult() {
+        return this.result;
+    }
+
+    public Job result(String result) {
+        this.setResult(result);
+        return this;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return this.error;
+    }
+
+    public Job error(String error) {
+        this.setError(error);
+        return this;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedDate() {
+        return this.createdDate;
+    }
+
+    public Job createdDate(Instant createdDate) {
+        this.setCreatedDate(createdDate);
+        return this;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getStartedDate() {
+        return this.startedDate;
+    }
+
+    public Job startedDate(Instant startedDate) {
+        this.setStartedDate(startedDate);
+        return this;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return this.finishedDate;
+    }
+
+    public Job finishedDate(Instant finishedDate) {
+        this.setFinishedDate(finishedDate);
+        return this;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Job)) {
+            return false;
+        }
+        return id != null && id.equals(((Job) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "Job{" +
+            "id=" + getId() +
+            ", type='" + getType() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", chartId='" + getChartId() + "'" +
+            ", calculationId='" + getCalculationId() + "'" +
+            ", progress='" + getProgress() + "'" +
+            ", total='" + getTotal() + "'" +
+            ", cancelRequested='" + getCancelRequested() + "'" +
+            ", error='" + getError() + "'" +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", startedDate='" + getStartedDate() + "'" +
+            ", finishedDate='" + getFinishedDate() + "'" +
+            "}";
+    }
+}
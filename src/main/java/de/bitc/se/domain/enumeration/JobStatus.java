@@ -0,0 +1,19 @@
+package de.bitc.se.domain.enumeration;
+
+/**
+ * The JobStatus enumeration.
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    /**
+     * @return {@code true} if the job is done, it does not change any more.
+     */
+    public boolean isDone() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,17 @@
+package de.bitc.se.domain.enumeration;
+
+/**
+ * The JobType enumeration.
+ */
+public enum JobType {
+    /**
+     * Find all gaps of the tuples of a calculation, the result is the list of the gaps.
+     */
+    CALCULATION_GAPS,
+
+    /**
+     * Find all gaps of the tuples of a calculation and recompute the tuples around them, the result is the outcome of
+     * the repair.
+     */
+    CALCULATION_REPAIR,
+}
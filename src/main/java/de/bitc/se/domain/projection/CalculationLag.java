@@ -0,0 +1,27 @@
+package de.bitc.se.domain.projection;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A Projection for the {@link de.bitc.se.domain.Calculation} entity, how far it is behind the candles of its chart.
+ */
+public interface CalculationLag {
+    Long getCalculationId();
+
+    Long getChartId();
+
+    /**
+     * @return the time of the last computed candle, {@code null} if none was computed yet.
+     */
+    ZonedDateTime getLast();
+
+    /**
+     * @return the time of the first candle after {@link #getLast()}.
+     */
+    ZonedDateTime getFirst();
+
+    /**
+     * @return the time of the latest closed candle of the chart.
+     */
+    ZonedDateTime getLatest();
+}
@@ -0,0 +1,15 @@
+package de.bitc.se.domain.projection;
+
+/**
+ * A Projection for the {@link de.bitc.se.domain.Calculation} entity, its name and the range size of its chart.
+ */
+public interface CalculationRange {
+    Long getCalculationId();
+
+    String getName();
+
+    /**
+     * @return the size of the time range of the chart in minutes, {@code null} if the chart has no time range.
+     */
+    Integer getRangeSize();
+}
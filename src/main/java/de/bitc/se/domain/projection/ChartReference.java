@@ -0,0 +1,14 @@
+package de.bitc.se.domain.projection;
+
+/**
+ * A Projection for the {@link de.bitc.se.domain.Chart} entity, the ids of its pair and time range without loading them.
+ */
+public interface ChartReference {
+    Long getId();
+
+    Long getPairId();
+
+    Long getTimeRangeId();
+
+    Boolean getDisabled();
+}
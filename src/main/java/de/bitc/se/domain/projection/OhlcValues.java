@@ -0,0 +1,27 @@
+package de.bitc.se.domain.projection;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+/**
+ * A Projection for the {@link de.bitc.se.domain.Ohlc} entity, the values of a candle without its chart.
+ */
+public interface OhlcValues {
+    Long getId();
+
+    ZonedDateTime getTime();
+
+    BigDecimal getOpen();
+
+    BigDecimal getHigh();
+
+    BigDecimal getLow();
+
+    BigDecimal getClose();
+
+    BigDecimal getVolumeWeightedAveragePrice();
+
+    BigDecimal getVolume();
+
+    Integer getCount();
+}
@@ -0,0 +1,12 @@
+package de.bitc.se.domain.projection;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A Projection for the {@link de.bitc.se.domain.Tuple} entity, the key of a tuple in the time order of its calculation.
+ */
+public interface TupleTime {
+    Long getId();
+
+    ZonedDateTime getTime();
+}
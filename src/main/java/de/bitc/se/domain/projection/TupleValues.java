@@ -0,0 +1,15 @@
+package de.bitc.se.domain.projection;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+/**
+ * A Projection for the {@link de.bitc.se.domain.Tuple} entity, the values of a tuple without its calculation and candle.
+ */
+public interface TupleValues {
+    Long getId();
+
+    ZonedDateTime getTime();
+
+    BigDecimal getComputation();
+}
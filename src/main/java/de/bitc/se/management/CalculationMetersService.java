@@ -0,0 +1,90 @@
+package de.bitc.se.management;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CalculationMetersService {
+
+    public static final String LAG_METER_NAME = "calculation.lag";
+    public static final String LAG_METER_DESCRIPTION = "Time between the latest candle of the chart and the last candle computed by the calculation.";
+    public static final String LAG_METER_CALCULATION_DIMENSION = "calculation";
+
+    public static final String DEFERRED_METER_NAME = "calculation.deferred";
+    public static final String DEFERRED_METER_DESCRIPTION = "Indicates the count of chart computations postponed to the next run.";
+    public static final String DEFERRED_METER_BASE_UNIT = "runs";
+    public static final String DEFERRED_METER_CAUSE_DIMENSION = "cause";
+
+    public static final String RUN_METER_NAME = "calculation.chart.run";
+    public static final String RUN_METER_DESCRIPTION = "Duration of the computation of the calculations of one chart.";
+
+    private final MeterRegistry registry;
+    private final Counter poolSaturatedCounter;
+    private final Counter executorFullCounter;
+    private final Timer runTimer;
+    private final Map<Long, AtomicLong> lagMillis = new ConcurrentHashMap<>();
+
+    public CalculationMetersService(MeterRegistry registry) {
+        this.registry = registry;
+        this.poolSaturatedCounter = deferredCounterForCauseBuilder("pool-saturated").register(registry);
+        this.executorFullCounter = deferredCounterForCauseBuilder("executor-full").register(registry);
+        this.runTimer = Timer.builder(RUN_METER_NAME).description(RUN_METER_DESCRIPTION).register(registry);
+    }
+
+    private Counter.Builder deferredCounterForCauseBuilder(String cause) {
+        return Counter
+            .builder(DEFERRED_METER_NAME)
+            .baseUnit(DEFERRED_METER_BASE_UNIT)
+            .description(DEFERRED_METER_DESCRIPTION)
+            .tag(DEFERRED_METER_CAUSE_DIMENSION, cause);
+    }
+
+    public void trackLag(Long calculationId, Duration lag) {
+        lagMillis
+            .computeIfAbsent(
+                calculationId,
+                id -> {
+                    AtomicLong millis = new AtomicLong();
+                    Gauge
+                        .builder(LAG_METER_NAME, millis, value -> value.get() / 1000.0)
+                        .baseUnit("seconds")
+                        .description(LAG_METER_DESCRIPTION)
+                        .tag(LAG_METER_CALCULATION_DIMENSION, String.valueOf(id))
+                        .register(registry);
+                    return millis;
+                }
+            )
+            .set(lag.toMillis());
+    }
+
+    /**
+     * Reset the lag of all calculations except the given ones.
+     */
+    public void resetLagExcept(Set<Long> calculationIds) {
+        lagMillis.forEach((id, millis) -> {
+            if (!calculationIds.contains(id)) {
+                millis.set(0);
+            }
+        });
+    }
+
+    public void trackDeferredPoolSaturated() {
+        this.poolSaturatedCounter.increment();
+    }
+
+    public void trackDeferredExecutorFull() {
+        this.executorFullCounter.increment();
+    }
+
+    public void trackRun(Duration duration) {
+        this.runTimer.record(duration);
+    }
+}
@@ -1,6 +1,7 @@
 package de.bitc.se.repository;
 
 import de.bitc.se.domain.Asset;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +10,6 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface AssetRepository extends JpaRepository<Asset, Long> {}
+public interface AssetRepository extends JpaRepository<Asset, Long> {
+    Optional<Asset> findFirstByName(String name);
+}
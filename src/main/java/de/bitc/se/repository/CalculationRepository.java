@@ -1,7 +1,13 @@
 package de.bitc.se.repository;
 
 import de.bitc.se.domain.Calculation;
+import de.bitc.se.domain.projection.CalculationLag;
+import de.bitc.se.domain.projection.CalculationRange;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +15,31 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CalculationRepository extends JpaRepository<Calculation, Long> {}
+public interface CalculationRepository extends JpaRepository<Calculation, Long> {
+    List<Calculation> findAllByChartId(Long chartId);
+
+    /**
+     * Find the names of the enabled calculations with the range sizes of their charts.
+     *
+     * @return the calculations.
+     */
+    @Query(
+        "select c.id as calculationId, c.name as name, t.rangeSize as rangeSize " +
+        "from Calculation c join c.chart ch left join ch.timeRange t where c.disabled is null or c.disabled = false"
+    )
+    List<CalculationRange> findEnabledRanges();
+
+    /**
+     * Find the enabled calculations whose chart has closed candles after their last computed one.
+     *
+     * @param calculationIds the ids of the calculations.
+     * @param before the time the closed candles of the calculations are before.
+     * @return the lag of the calculations, up to their latest closed candle.
+     */
+    @Query(
+        "select c.id as calculationId, c.chart.id as chartId, c.last as last, min(o.time) as first, max(o.time) as latest " +
+        "from Calculation c, Ohlc o where c.id in :calculationIds and (c.disabled is null or c.disabled = false) " +
+        "and o.chart = c.chart and o.time < :before and (c.last is null or o.time > c.last) group by c.id, c.chart.id, c.last"
+    )
+    List<CalculationLag> findLagging(@Param("calculationIds") Collection<Long> calculationIds, @Param("before") ZonedDateTime before);
+}
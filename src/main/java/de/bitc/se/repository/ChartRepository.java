@@ -1,7 +1,11 @@
 package de.bitc.se.repository;
 
 import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.projection.ChartReference;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +13,42 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ChartRepository extends JpaRepository<Chart, Long> {}
+public interface ChartRepository extends JpaRepository<Chart, Long> {
+    /**
+     * Get the charts of a pair with their time range.
+     *
+     * @param pairId the id of the pair.
+     * @return the charts of the pair.
+     */
+    @Query("select c from Chart c join fetch c.timeRange where c.pair.id = :pairId")
+    List<Chart> findAllByPairId(@Param("pairId") Long pairId);
+
+    /**
+     * Get a chart with the ids of its pair and time range, without loading them.
+     *
+     * @param id the id of the chart.
+     * @return the chart, or empty if it does not exist.
+     */
+    @Query("select c.id as id, c.pair.id as pairId, c.timeRange.id as timeRangeId, c.disabled as disabled from Chart c where c.id = :id")
+    Optional<ChartReference> findReferenceById(@Param("id") Long id);
+
+    /**
+     * Get the charts of a pair with the ids of their pair and time range, without loading them.
+     *
+     * @param pairId the id of the pair.
+     * @return the charts of the pair.
+     */
+    @Query(
+        "select c.id as id, c.pair.id as pairId, c.timeRange.id as timeRangeId, c.disabled as disabled " +
+        "from Chart c where c.pair.id = :pairId"
+    )
+    List<ChartReference> findReferencesByPairId(@Param("pairId") Long pairId);
+
+    /**
+     * Get all charts with the ids of their pair and time range, without loading them.
+     *
+     * @return the charts.
+     */
+    @Query("select c.id as id, c.pair.id as pairId, c.timeRange.id as timeRangeId, c.disabled as disabled from Chart c")
+    List<ChartReference> findAllReferences();
+}
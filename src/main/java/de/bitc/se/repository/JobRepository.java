@@ -0,0 +1,37 @@
+package de.bitc.se.repository;
+
+import de.bitc.se.domain.Job;
+import de.bitc.se.domain.enumeration.JobStatus;
+import de.bitc.se.domain.enumeration.JobType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the Job entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface JobRepository extends JpaRepository<Job, Long> {
+    /**
+     * Get the jobs in a status, the oldest first.
+     *
+     * @param status the status.
+     * @return the jobs, ordered by id ascending.
+     */
+    List<Job> findByStatusOrderByIdAsc(JobStatus status);
+
+    long countByChartIdAndStatus(Long chartId, JobStatus status);
+
+    /**
+     * Get the oldest job of a type and calculation in one of the statuses.
+     *
+     * @param type the type of the job.
+     * @param calculationId the id of the calculation.
+     * @param statuses the statuses.
+     * @return the job, or empty if there is none.
+     */
+    Optional<Job> findFirstByTypeAndCalculationIdAndStatusInOrderByIdAsc(JobType type, Long calculationId, Collection<JobStatus> statuses);
+}
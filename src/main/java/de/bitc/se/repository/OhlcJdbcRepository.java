@@ -0,0 +1,203 @@
+package de.bitc.se.repository;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Ohlc;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Writes {@link Ohlc} rows with plain JDBC, bypassing the persistence context.
+ * <p>
+ * The candles are neither attached to the entity manager nor put into the second level cache, so writing a large
+ * number of them does not grow the memory. The candles updated in place would be served stale from the second level
+ * cache, so every write evicts its {@link Ohlc} region. Ids are assigned by the {@link SequenceIdAllocator}.
+ */
+@Repository
+public class OhlcJdbcRepository {
+
+    static final String ON_CONFLICT_UPDATE =
+        "on conflict (chart_id, time) do update set open = excluded.open, high = excluded.high, low = excluded.low, " +
+        "close = excluded.close, volume_weighted_average_price = excluded.volume_weighted_average_price, " +
+        "volume = excluded.volume, count = excluded.count";
+
+    private static final String H2_MERGE_STATEMENT =
+        "merge into ohlc o using table(id bigint = ?, ts timestamp = ?, op numeric(21, 2) = ?, hi numeric(21, 2) = ?, " +
+        "lo numeric(21, 2) = ?, cl numeric(21, 2) = ?, vwap numeric(21, 2) = ?, vol numeric(21, 2) = ?, cnt int = ?) s " +
+        "on o.chart_id = ? and o.time = s.ts " +
+        "when matched then update set o.open = s.op, o.high = s.hi, o.low = s.lo, o.close = s.cl, " +
+        "o.volume_weighted_average_price = s.vwap, o.volume = s.vol, o.count = s.cnt " +
+        "when not matched then insert (id, time, open, high, low, close, volume_weighted_average_price, volume, count, chart_id) " +
+        "values (s.id, s.ts, s.op, s.hi, s.lo, s.cl, s.vwap, s.vol, s.cnt, ?)";
+
+    private static final String POSTGRES_UPSERT_STATEMENT =
+        "insert into ohlc (chart_id, id, time, open, high, low, close, volume_weighted_average_price, volume, count) " +
+        "select cast(? as bigint), s.* from unnest(cast(? as bigint[]), cast(? as timestamp[]), cast(? as numeric[]), " +
+        "cast(? as numeric[]), cast(? as numeric[]), cast(? as numeric[]), cast(? as numeric[]), cast(? as numeric[]), " +
+        "cast(? as int[])) s " +
+        ON_CONFLICT_UPDATE;
+
+    private final Logger log = LoggerFactory.getLogger(OhlcJdbcRepository.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final SequenceIdAllocator sequenceIdAllocator;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final boolean copyEnabled;
+
+    private volatile Boolean postgres;
+
+    public OhlcJdbcRepository(
+        JdbcTemplate jdbcTemplate,
+        SequenceIdAllocator sequenceIdAllocator,
+        EntityManagerFactory entityManagerFactory,
+        ApplicationProperties applicationProperties
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceIdAllocator = sequenceIdAllocator;
+        this.entityManagerFactory = entityManagerFactory;
+        this.copyEnabled = applicationProperties.getBulk().isCopyEnabled();
+    }
+
+    /**
+     * Insert or update the candles of a chart, keyed on {@code (chart_id, time)}.
+     * <p>
+     * A candle with the time of an existing candle of the chart updates its values and keeps its id, other candles
+     * are inserted with a new id. When the list has several candles with the same time, the last one wins.
+     * The ids are allocated for every candle up front, an update leaves its allocated id unused.
+     * The batch is written with one statement: {@code MERGE} on H2, {@code INSERT ... ON CONFLICT} on PostgreSQL,
+     * fed by {@code COPY} into a staging table when enabled. The {@link Ohlc} region of the second level cache is
+     * evicted, and evicted again after the transaction, as a candle read before the commit may be cached again.
+     *
+     * @param chartId the id of the chart of the candles.
+     * @param ohlcs the candles, their chart and id are ignored.
+     * @return the candles written, one per time, in the order of their last occurrence.
+     */
+    public List<Ohlc> upsertAll(Long chartId, List<Ohlc> ohlcs) {
+        if (ohlcs.isEmpty()) {
+            return ohlcs;
+        }
+        List<Ohlc> rows = lastPerTime(ohlcs);
+        Long[] ids = new Long[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = sequenceIdAllocator.nextId();
+        }
+        if (isPostgres()) {
+            if (copyEnabled) {
+                jdbcTemplate.execute((ConnectionCallback<Long>) connection -> PostgresOhlcCopyWriter.upsert(connection, chartId, ids, rows));
+            } else {
+                jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> postgresUpsert(connection, chartId, ids, rows));
+            }
+        } else {
+            jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> h2Merge(connection, chartId, ids, rows));
+        }
+        evictCache();
+        return rows;
+    }
+
+    private void evictCache() {
+        Cache cache = entityManagerFactory.getCache();
+        cache.evict(Ohlc.class);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        cache.evict(Ohlc.class);
+                    }
+                }
+            );
+        }
+    }
+
+    private static List<Ohlc> lastPerTime(List<Ohlc> ohlcs) {
+        Map<Instant, Ohlc> byTime = new LinkedHashMap<>(ohlcs.size() * 2);
+        for (Ohlc ohlc : ohlcs) {
+            byTime.remove(ohlc.getTime().toInstant());
+            byTime.put(ohlc.getTime().toInstant(), ohlc);
+        }
+        return byTime.size() == ohlcs.size() ? ohlcs : new ArrayList<>(byTime.values());
+    }
+
+    private static int h2Merge(Connection connection, Long chartId, Long[] ids, List<Ohlc> rows) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(H2_MERGE_STATEMENT)) {
+            Object[][] columns = columns(ids, rows);
+            for (int i = 0; i < columns.length; i++) {
+                statement.setObject(i + 1, columns[i]);
+            }
+            statement.setLong(columns.length + 1, chartId);
+            statement.setLong(columns.length + 2, chartId);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static int postgresUpsert(Connection connection, Long chartId, Long[] ids, List<Ohlc> rows) throws SQLException {
+        String[] types = { "int8", "timestamp", "numeric", "numeric", "numeric", "numeric", "numeric", "numeric", "int4" };
+        try (PreparedStatement statement = connection.prepareStatement(POSTGRES_UPSERT_STATEMENT)) {
+            statement.setLong(1, chartId);
+            Object[][] columns = columns(ids, rows);
+            for (int i = 0; i < columns.length; i++) {
+                statement.setArray(i + 2, connection.createArrayOf(types[i], columns[i]));
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return the column arrays {@code id, time, open, high, low, close, volumeWeightedAveragePrice, volume, count},
+     * times as UTC local date times.
+     */
+    private static Object[][] columns(Long[] ids, List<Ohlc> rows) {
+        int size = rows.size();
+        LocalDateTime[] times = new LocalDateTime[size];
+        BigDecimal[] opens = new BigDecimal[size];
+        BigDecimal[] highs = new BigDecimal[size];
+        BigDecimal[] lows = new BigDecimal[size];
+        BigDecimal[] closes = new BigDecimal[size];
+        BigDecimal[] vwaps = new BigDecimal[size];
+        BigDecimal[] volumes = new BigDecimal[size];
+        Integer[] counts = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            Ohlc ohlc = rows.get(i);
+            times[i] = LocalDateTime.ofInstant(ohlc.getTime().toInstant(), ZoneOffset.UTC);
+            opens[i] = ohlc.getOpen();
+            highs[i] = ohlc.getHigh();
+            lows[i] = ohlc.getLow();
+            closes[i] = ohlc.getClose();
+            vwaps[i] = ohlc.getVolumeWeightedAveragePrice();
+            volumes[i] = ohlc.getVolume();
+            counts[i] = ohlc.getCount();
+        }
+        return new Object[][] { ids, times, opens, highs, lows, closes, vwaps, volumes, counts };
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName()
+            );
+            log.debug("Bulk writes on {}", product);
+            postgres = "PostgreSQL".equals(product);
+        }
+        return postgres;
+    }
+}
@@ -1,12 +1,233 @@
 package de.bitc.se.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.projection.OhlcValues;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the Ohlc entity.
+ * <p>
+ * The time-range queries are backed by the {@code (chart_id, time)} index, ranges are half-open {@code [from, to)}
+ * and keyset queries continue strictly after the {@code (time, id)} of the last row read.
+ * Streams must be consumed inside a transaction and closed.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface OhlcRepository extends JpaRepository<Ohlc, Long> {}
+public interface OhlcRepository extends JpaRepository<Ohlc, Long> {
+    /**
+     * Number of rows fetched per round trip by the streaming queries.
+     */
+    String STREAM_FETCH_SIZE = "1000";
+
+    /**
+     * Whether a chart has a candle at a time, the {@code (chart_id, time)} of the candles is unique.
+     *
+     * @param chartId the id of the chart.
+     * @param time the time of the candle.
+     * @return true if the chart has a candle at the time.
+     */
+    boolean existsByChartIdAndTime(Long chartId, ZonedDateTime time);
+
+    /**
+     * Streams the candle times of a chart in time order.
+     *
+     * @param chartId the id of the chart.
+     * @return the candle times, ordered ascending.
+     */
+    @Query("select o.time from Ohlc o where o.chart.id = :chartId order by o.time asc")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<ZonedDateTime> streamTimeByChartId(@Param("chartId") Long chartId);
+
+    /**
+     * Streams the candle times of a chart from a time on in time order.
+     *
+     * @param chartId the id of the chart.
+     * @param time the time of the first candle, inclusive.
+     * @return the candle times, ordered ascending.
+     */
+    @Query("select o.time from Ohlc o where o.chart.id = :chartId and o.time >= :time order by o.time asc")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<ZonedDateTime> streamTimeByChartIdFrom(@Param("chartId") Long chartId, @Param("time") ZonedDateTime time);
+
+    /**
+     * Get the candle times of a chart from a time on, the first chunk of the candle times in time order.
+     *
+     * @param chartId the id of the chart.
+     * @param time the time of the first candle, inclusive.
+     * @param pageable the size of the chunk.
+     * @return the candle times, ordered ascending.
+     */
+    @Query("select o.time from Ohlc o where o.chart.id = :chartId and o.time >= :time order by o.time asc")
+    List<ZonedDateTime> findTimesByChartIdFrom(@Param("chartId") Long chartId, @Param("time") ZonedDateTime time, Pageable pageable);
+
+    /**
+     * Get the candle times of a chart after a time, a chunk of the candle times in time order.
+     *
+     * @param chartId the id of the chart.
+     * @param time the time the candles are after, exclusive.
+     * @param pageable the size of the chunk.
+     * @return the candle times, ordered ascending.
+     */
+    @Query("select o.time from Ohlc o where o.chart.id = :chartId and o.time > :time order by o.time asc")
+    List<ZonedDateTime> findTimesByChartIdAfter(@Param("chartId") Long chartId, @Param("time") ZonedDateTime time, Pageable pageable);
+
+    long countByChartId(Long chartId);
+
+    /**
+     * Get the values of the candles of a chart in an open time range.
+     *
+     * @param chartId the id of the chart.
+     * @param after the time the candles are after, exclusive.
+     * @param before the time the candles are before, exclusive.
+     * @param pageable the page of candles.
+     * @return the candle values, ordered by time ascending.
+     */
+    @Query(
+        "select o.id as id, o.time as time, o.open as open, o.high as high, o.low as low, o.close as close, " +
+        "o.volumeWeightedAveragePrice as volumeWeightedAveragePrice, o.volume as volume, o.count as count " +
+        "from Ohlc o where o.chart.id = :chartId and o.time > :after and o.time < :before order by o.time asc"
+    )
+    List<OhlcValues> findValuesByChartIdBetween(
+        @Param("chartId") Long chartId,
+        @Param("after") ZonedDateTime after,
+        @Param("before") ZonedDateTime before,
+        Pageable pageable
+    );
+
+    /**
+     * Streams the values of the candles of a chart within a time range.
+     *
+     * @param chartId the id of the chart.
+     * @param from the time the candles are at or after, inclusive.
+     * @param to the time the candles are before, exclusive.
+     * @return the candle values, ordered by time ascending.
+     */
+    @Query(
+        "select o.id as id, o.time as time, o.open as open, o.high as high, o.low as low, o.close as close, " +
+        "o.volumeWeightedAveragePrice as volumeWeightedAveragePrice, o.volume as volume, o.count as count " +
+        "from Ohlc o where o.chart.id = :chartId and o.time >= :from and o.time < :to order by o.time asc"
+    )
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<OhlcValues> streamValuesByChartIdAndTimeRange(
+        @Param("chartId") Long chartId,
+        @Param("from") ZonedDateTime from,
+        @Param("to") ZonedDateTime to
+    );
+
+    /**
+     * Streams the values of the candles of a chart after a keyset cursor and before a time.
+     *
+     * @param chartId the id of the chart.
+     * @param time the time of the cursor.
+     * @param id the id of the cursor.
+     * @param to the time the candles are before, exclusive.
+     * @return the candle values, ordered by {@code (time, id)}.
+     */
+    @Query(
+        "select o.id as id, o.time as time, o.open as open, o.high as high, o.low as low, o.close as close, " +
+        "o.volumeWeightedAveragePrice as volumeWeightedAveragePrice, o.volume as volume, o.count as count " +
+        "from Ohlc o where o.chart.id = :chartId and (o.time > :time or (o.time = :time and o.id > :id)) and o.time < :to " +
+        "order by o.time asc, o.id asc"
+    )
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<OhlcValues> streamValuesByChartIdAfter(
+        @Param("chartId") Long chartId,
+        @Param("time") ZonedDateTime time,
+        @Param("id") Long id,
+        @Param("to") ZonedDateTime to
+    );
+
+    /**
+     * Get the values of the latest candles of a chart up to a time.
+     *
+     * @param chartId the id of the chart.
+     * @param until the time the candles are at or before, inclusive.
+     * @param pageable the page of candles.
+     * @return the candle values, ordered by time descending.
+     */
+    @Query(
+        "select o.id as id, o.time as time, o.open as open, o.high as high, o.low as low, o.close as close, " +
+        "o.volumeWeightedAveragePrice as volumeWeightedAveragePrice, o.volume as volume, o.count as count " +
+        "from Ohlc o where o.chart.id = :chartId and o.time <= :until order by o.time desc"
+    )
+    List<OhlcValues> findValuesByChartIdUntilLatestFirst(@Param("chartId") Long chartId, @Param("until") ZonedDateTime until, Pageable pageable);
+
+    /**
+     * Get the ids of the oldest candles of a chart before a time.
+     *
+     * @param chartId the id of the chart.
+     * @param before the time the candles are before, exclusive.
+     * @param pageable the page of candles.
+     * @return the candle ids, ordered by time ascending.
+     */
+    @Query("select o.id from Ohlc o where o.chart.id = :chartId and o.time < :before order by o.time asc")
+    List<Long> findIdsByChartIdBefore(@Param("chartId") Long chartId, @Param("before") ZonedDateTime before, Pageable pageable);
+
+    /**
+     * Get the times of the latest candles of a chart.
+     *
+     * @param chartId the id of the chart.
+     * @param pageable the page of candles.
+     * @return the candle times, ordered descending.
+     */
+    @Query("select o.time from Ohlc o where o.chart.id = :chartId order by o.time desc")
+    List<ZonedDateTime> findTimesByChartIdLatestFirst(@Param("chartId") Long chartId, Pageable pageable);
+
+    /**
+     * Delete candles by id, the tuples referring to them must be deleted first.
+     * The bulk delete bypasses the persistence context and clears the second level cache region of the candles.
+     *
+     * @param ids the ids of the candles.
+     * @return the number of deleted candles.
+     */
+    @Modifying
+    @Query("delete from Ohlc o where o.id in :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    @Query("select o from Ohlc o order by o.id asc")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<Ohlc> streamAll();
+
+    @Query("select o from Ohlc o where o.chart.id = :chartId and o.time >= :from and o.time < :to order by o.time asc, o.id asc")
+    Slice<Ohlc> findByChartIdAndTimeRange(
+        @Param("chartId") Long chartId,
+        @Param("from") ZonedDateTime from,
+        @Param("to") ZonedDateTime to,
+        Pageable pageable
+    );
+
+    @Query("select o from Ohlc o where o.chart.id = :chartId and o.time >= :from and o.time < :to order by o.time asc, o.id asc")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<Ohlc> streamByChartIdAndTimeRange(@Param("chartId") Long chartId, @Param("from") ZonedDateTime from, @Param("to") ZonedDateTime to);
+
+    /**
+     * Get the latest candles of a chart, the page size is the number of candles.
+     *
+     * @param chartId the id of the chart.
+     * @param pageable the page of candles.
+     * @return the candles, newest first.
+     */
+    @Query("select o from Ohlc o where o.chart.id = :chartId order by o.time desc, o.id desc")
+    Slice<Ohlc> findLatestByChartId(@Param("chartId") Long chartId, Pageable pageable);
+
+    @Query(
+        "select o from Ohlc o where o.chart.id = :chartId and (o.time > :time or (o.time = :time and o.id > :id)) order by o.time asc, o.id asc"
+    )
+    Slice<Ohlc> findByChartIdAfter(@Param("chartId") Long chartId, @Param("time") ZonedDateTime time, @Param("id") Long id, Pageable pageable);
+
+    @Query(
+        "select o from Ohlc o where o.chart.id = :chartId and (o.time > :time or (o.time = :time and o.id > :id)) order by o.time asc, o.id asc"
+    )
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<Ohlc> streamByChartIdAfter(@Param("chartId") Long chartId, @Param("time") ZonedDateTime time, @Param("id") Long id);
+}
@@ -0,0 +1,151 @@
+package de.bitc.se.repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Manages the monthly partitions of the {@code ohlc} and {@code tuple} tables on PostgreSQL.
+ * <p>
+ * The tables are partitioned by range on {@code time}, one partition per month named {@code <table>_pYYYY_MM}, plus a
+ * default partition for the rows outside of the monthly partitions. On other databases the tables are not
+ * partitioned and {@link #isPartitioned(String)} is {@code false}.
+ */
+@Repository
+public class PartitionJdbcRepository {
+
+    public static final String OHLC_TABLE = "ohlc";
+
+    public static final String TUPLE_TABLE = "tuple";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyy_MM");
+
+    private final Logger log = LoggerFactory.getLogger(PartitionJdbcRepository.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    public PartitionJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param table {@link #OHLC_TABLE} or {@link #TUPLE_TABLE}.
+     * @return {@code true} if the table is partitioned.
+     */
+    public boolean isPartitioned(String table) {
+        if (!isPostgres()) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject(
+            "select count(*) from pg_partitioned_table p join pg_class c on c.oid = p.partrelid " +
+            "where c.relname = ? and c.relnamespace = current_schema()::regnamespace",
+            Integer.class,
+            table
+        );
+        return count != null && count > 0;
+    }
+
+    /**
+     * Get the months of the monthly partitions of a table.
+     *
+     * @param table {@link #OHLC_TABLE} or {@link #TUPLE_TABLE}.
+     * @return the months, ordered ascending.
+     */
+    public List<YearMonth> findMonthlyPartitions(String table) {
+        List<String> names = jdbcTemplate.queryForList(
+            "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid join pg_class p on p.oid = i.inhparent " +
+            "where p.relname = ? and p.relnamespace = current_schema()::regnamespace order by c.relname",
+            String.class,
+            table
+        );
+        List<YearMonth> months = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (name.startsWith(table + "_p")) {
+                try {
+                    months.add(YearMonth.parse(name.substring(table.length()), PARTITION_SUFFIX));
+                } catch (DateTimeParseException e) {
+                    log.debug("Skip partition {} of {}", name, table);
+                }
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Create the partition of a month if it does not exist. It fails if the default partition holds rows of the month.
+     *
+     * @param table {@link #OHLC_TABLE} or {@link #TUPLE_TABLE}.
+     * @param month the month.
+     */
+    public void createMonthlyPartition(String table, YearMonth month) {
+        jdbcTemplate.execute(
+            "create table if not exists " +
+            partitionName(table, month) +
+            " partition of " +
+            table +
+            " for values from ('" +
+            month.atDay(1) +
+            "') to ('" +
+            month.plusMonths(1).atDay(1) +
+            "')"
+        );
+    }
+
+    /**
+     * Detach the partition of a month from its table, the rows are kept in the detached table.
+     *
+     * @param table {@link #OHLC_TABLE} or {@link #TUPLE_TABLE}.
+     * @param month the month.
+     */
+    public void detachMonthlyPartition(String table, YearMonth month) {
+        jdbcTemplate.execute("alter table " + table + " detach partition " + partitionName(table, month));
+    }
+
+    /**
+     * Drop the partition of a month with its rows.
+     *
+     * @param table {@link #OHLC_TABLE} or {@link #TUPLE_TABLE}.
+     * @param month the month.
+     */
+    public void dropMonthlyPartition(String table, YearMonth month) {
+        jdbcTemplate.execute("drop table if exists " + partitionName(table, month));
+    }
+
+    /**
+     * Delete the tuples of other months referring to the candles of the partition of a month.
+     *
+     * @param month the month of the partition of the candles.
+     * @return the number of deleted tuples.
+     */
+    public int deleteTuplesOfOhlcPartition(YearMonth month) {
+        return jdbcTemplate.update(
+            "delete from " + TUPLE_TABLE + " where ohlc_id in (select id from " + partitionName(OHLC_TABLE, month) + ")"
+        );
+    }
+
+    static String partitionName(String table, YearMonth month) {
+        if (!OHLC_TABLE.equals(table) && !TUPLE_TABLE.equals(table)) {
+            throw new IllegalArgumentException("Table " + table + " is not partitioned");
+        }
+        return table + PARTITION_SUFFIX.format(month);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName()
+            );
+            postgres = "PostgreSQL".equals(product);
+        }
+        return postgres;
+    }
+}
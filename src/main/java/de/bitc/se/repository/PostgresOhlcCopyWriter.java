@@ -0,0 +1,86 @@
+package de.bitc.se.repository;
+
+import de.bitc.se.domain.Ohlc;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Upserts candles with {@code COPY ... FROM STDIN} into a staging table followed by one
+ * {@code INSERT ... ON CONFLICT}.
+ * <p>
+ * Only this class refers to the PostgreSQL driver, it must not be loaded on other databases.
+ */
+final class PostgresOhlcCopyWriter {
+
+    private static final String COLUMNS = "id, time, open, high, low, close, volume_weighted_average_price, volume, count, chart_id";
+
+    /**
+     * The staging table lives as long as the pooled connection, its rows are removed after every batch.
+     */
+    private static final String CREATE_STAGING_TABLE =
+        "create temporary table if not exists ohlc_staging (like ohlc including defaults) on commit delete rows";
+
+    private static final String COPY_STATEMENT = "copy ohlc_staging (" + COLUMNS + ") from stdin with (format csv)";
+
+    private static final String UPSERT_STATEMENT =
+        "insert into ohlc (" + COLUMNS + ") select " + COLUMNS + " from ohlc_staging " + OhlcJdbcRepository.ON_CONFLICT_UPDATE;
+
+    private static final String CLEAR_STAGING_TABLE = "truncate ohlc_staging";
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private PostgresOhlcCopyWriter() {}
+
+    static long upsert(Connection connection, Long chartId, Long[] ids, List<Ohlc> ohlcs) throws SQLException {
+        StringBuilder rows = new StringBuilder(ohlcs.size() * 96);
+        for (int i = 0; i < ids.length; i++) {
+            Ohlc ohlc = ohlcs.get(i);
+            rows.append(ids[i]).append(',');
+            rows.append(TIME_FORMAT.format(ohlc.getTime().withZoneSameInstant(ZoneOffset.UTC))).append(',');
+            appendDecimal(rows, ohlc.getOpen());
+            appendDecimal(rows, ohlc.getHigh());
+            appendDecimal(rows, ohlc.getLow());
+            appendDecimal(rows, ohlc.getClose());
+            appendDecimal(rows, ohlc.getVolumeWeightedAveragePrice());
+            appendDecimal(rows, ohlc.getVolume());
+            if (ohlc.getCount() != null) {
+                rows.append(ohlc.getCount());
+            }
+            rows.append(',').append(chartId).append('\n');
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_TABLE);
+            copy(connection, rows.toString().getBytes(StandardCharsets.UTF_8));
+            long upserted = statement.executeUpdate(UPSERT_STATEMENT);
+            statement.execute(CLEAR_STAGING_TABLE);
+            return upserted;
+        }
+    }
+
+    private static void copy(Connection connection, byte[] data) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STATEMENT);
+        try {
+            copyIn.writeToCopy(data, 0, data.length);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void appendDecimal(StringBuilder rows, BigDecimal value) {
+        if (value != null) {
+            rows.append(value.toPlainString());
+        }
+        rows.append(',');
+    }
+}
@@ -0,0 +1,57 @@
+package de.bitc.se.repository;
+
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Allocates entity ids from the {@code sequence_generator} for rows written with plain JDBC.
+ * <p>
+ * The sequence is incremented by {@link #POOL_SIZE}, and one value {@code v} reserves the ids
+ * {@code [v - POOL_SIZE + 1, v]}. This is the scheme of the pooled optimizer Hibernate uses for the
+ * {@code sequenceGenerator} of the entities, so ids allocated here never collide with ids generated by Hibernate,
+ * and one sequence round trip is needed per {@link #POOL_SIZE} rows.
+ */
+@Repository
+public class SequenceIdAllocator {
+
+    /**
+     * The increment of the {@code sequence_generator}.
+     */
+    public static final int POOL_SIZE = 50;
+
+    private static final String SEQUENCE_NAME = "sequence_generator";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String nextValueQuery;
+
+    private long next;
+
+    private long upperLimit = -1;
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueQuery =
+            entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect()
+                .getSequenceNextValString(SEQUENCE_NAME);
+    }
+
+    /**
+     * Allocate the next id.
+     *
+     * @return an id not used by any other row.
+     */
+    public synchronized long nextId() {
+        if (next > upperLimit) {
+            Long value = jdbcTemplate.queryForObject(nextValueQuery, Long.class);
+            upperLimit = value;
+            next = value - POOL_SIZE + 1;
+        }
+        return next++;
+    }
+}
@@ -0,0 +1,56 @@
+package de.bitc.se.repository;
+
+import de.bitc.se.domain.Tuple;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes {@link Tuple} rows with plain JDBC batches, bypassing the persistence context.
+ * Ids are assigned by the {@link SequenceIdAllocator}.
+ */
+@Repository
+public class TupleJdbcRepository {
+
+    private static final String INSERT_STATEMENT = "insert into tuple (id, computation, time, calculation_id, ohlc_id) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final SequenceIdAllocator sequenceIdAllocator;
+
+    public TupleJdbcRepository(JdbcTemplate jdbcTemplate, SequenceIdAllocator sequenceIdAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sequenceIdAllocator = sequenceIdAllocator;
+    }
+
+    /**
+     * Insert the tuples of a calculation with one JDBC batch.
+     *
+     * @param calculationId the id of the calculation of the tuples.
+     * @param tuples the tuples, their id and calculation are ignored, their candle is referenced by its id.
+     */
+    public void insertAll(Long calculationId, List<Tuple> tuples) {
+        if (tuples.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            INSERT_STATEMENT,
+            tuples,
+            tuples.size(),
+            (statement, tuple) -> {
+                statement.setLong(1, sequenceIdAllocator.nextId());
+                statement.setBigDecimal(2, tuple.getComputation());
+                statement.setObject(3, LocalDateTime.ofInstant(tuple.getTime().toInstant(), ZoneOffset.UTC));
+                statement.setLong(4, calculationId);
+                if (tuple.getOhlc() != null) {
+                    statement.setLong(5, tuple.getOhlc().getId());
+                } else {
+                    statement.setNull(5, Types.BIGINT);
+                }
+            }
+        );
+    }
+}
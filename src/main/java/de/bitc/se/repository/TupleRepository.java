@@ -1,12 +1,211 @@
 package de.bitc.se.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import de.bitc.se.domain.Tuple;
+import de.bitc.se.domain.projection.TupleTime;
+import de.bitc.se.domain.projection.TupleValues;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the Tuple entity.
+ * <p>
+ * The time-range queries are backed by the {@code (calculation_id, time)} index, ranges are half-open {@code [from, to)}
+ * and keyset queries continue strictly after the {@code (time, id)} of the last row read.
+ * Streams must be consumed inside a transaction and closed.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface TupleRepository extends JpaRepository<Tuple, Long> {}
+public interface TupleRepository extends JpaRepository<Tuple, Long> {
+    /**
+     * Streams the tuple times of a calculation in time order.
+     *
+     * @param calculationId the id of the calculation.
+     * @return the tuple times, ordered ascending.
+     */
+    @Query("select t.time from Tuple t where t.calculation.id = :calculationId order by t.time asc")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = OhlcRepository.STREAM_FETCH_SIZE))
+    Stream<ZonedDateTime> streamTimeByCalculationId(@Param("calculationId") Long calculationId);
+
+    /**
+     * Streams the tuple times of a calculation from a time on in time order.
+     *
+     * @param calculationId the id of the calculation.
+     * @param time the time of the first tuple, inclusive.
+     * @return the tuple times, ordered ascending.
+     */
+    @Query("select t.time from Tuple t where t.calculation.id = :calculationId and t.time >= :time order by t.time asc")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = OhlcRepository.STREAM_FETCH_SIZE))
+    Stream<ZonedDateTime> streamTimeByCalculationIdFrom(@Param("calculationId") Long calculationId, @Param("time") ZonedDateTime time);
+
+    /**
+     * Get the keys of the tuples of a calculation after a key, a chunk of the tuple times in time order.
+     *
+     * @param calculationId the id of the calculation.
+     * @param time the time of the last tuple read.
+     * @param id the id of the last tuple read.
+     * @param pageable the size of the chunk.
+     * @return the keys of the tuples, ordered by time and id ascending.
+     */
+    @Query(
+        "select t.id as id, t.time as time from Tuple t where t.calculation.id = :calculationId and (t.time > :time or (t.time = :time and t.id > :id)) order by t.time asc, t.id asc"
+    )
+    List<TupleTime> findTimesByCalculationIdAfter(
+        @Param("calculationId") Long calculationId,
+        @Param("time") ZonedDateTime time,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    long countByCalculationId(Long calculationId);
+
+    /**
+     * Get the time of the latest tuple of a calculation before a time.
+     *
+     * @param calculationId the id of the calculation.
+     * @param time the time the tuple is before, exclusive.
+     * @return the time, or {@code null} if there is no tuple before.
+     */
+    @Query("select max(t.time) from Tuple t where t.calculation.id = :calculationId and t.time < :time")
+    ZonedDateTime findLatestTimeBefore(@Param("calculationId") Long calculationId, @Param("time") ZonedDateTime time);
+
+    /**
+     * Delete the tuples of a calculation in the time range {@code (after, until]}.
+     *
+     * @param calculationId the id of the calculation.
+     * @param after the time the tuples are after, exclusive.
+     * @param until the time the tuples are at or before, inclusive.
+     * @return the number of deleted tuples.
+     */
+    @Modifying
+    @Query("delete from Tuple t where t.calculation.id = :calculationId and t.time > :after and t.time <= :until")
+    int deleteByCalculationIdBetween(
+        @Param("calculationId") Long calculationId,
+        @Param("after") ZonedDateTime after,
+        @Param("until") ZonedDateTime until
+    );
+
+    /**
+     * Delete the tuples of candles.
+     *
+     * @param ohlcIds the ids of the candles.
+     * @return the number of deleted tuples.
+     */
+    @Modifying
+    @Query("delete from Tuple t where t.ohlc.id in :ohlcIds")
+    int deleteByOhlcIdIn(@Param("ohlcIds") List<Long> ohlcIds);
+
+    /**
+     * Remove the reference to the candle from the tuples of candles.
+     *
+     * @param ohlcIds the ids of the candles.
+     * @return the number of detached tuples.
+     */
+    @Modifying
+    @Query("update Tuple t set t.ohlc = null where t.ohlc.id in :ohlcIds")
+    int detachOhlcs(@Param("ohlcIds") Collection<Long> ohlcIds);
+
+    @Query("select t from Tuple t left join fetch t.ohlc order by t.id asc")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = OhlcRepository.STREAM_FETCH_SIZE))
+    Stream<Tuple> streamAll();
+
+    @Query(
+        "select t from Tuple t where t.calculation.id = :calculationId and t.time >= :from and t.time < :to order by t.time asc, t.id asc"
+    )
+    Slice<Tuple> findByCalculationIdAndTimeRange(
+        @Param("calculationId") Long calculationId,
+        @Param("from") ZonedDateTime from,
+        @Param("to") ZonedDateTime to,
+        Pageable pageable
+    );
+
+    @Query(
+        "select t from Tuple t left join fetch t.ohlc where t.calculation.id = :calculationId and t.time >= :from and t.time < :to order by t.time asc, t.id asc"
+    )
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = OhlcRepository.STREAM_FETCH_SIZE))
+    Stream<Tuple> streamByCalculationIdAndTimeRange(
+        @Param("calculationId") Long calculationId,
+        @Param("from") ZonedDateTime from,
+        @Param("to") ZonedDateTime to
+    );
+
+    /**
+     * Streams the values of the tuples of a calculation within a time range.
+     *
+     * @param calculationId the id of the calculation.
+     * @param from the time the tuples are at or after, inclusive.
+     * @param to the time the tuples are before, exclusive.
+     * @return the tuple values, ordered by {@code (time, id)}.
+     */
+    @Query(
+        "select t.id as id, t.time as time, t.computation as computation from Tuple t " +
+        "where t.calculation.id = :calculationId and t.time >= :from and t.time < :to order by t.time asc, t.id asc"
+    )
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = OhlcRepository.STREAM_FETCH_SIZE))
+    Stream<TupleValues> streamValuesByCalculationIdAndTimeRange(
+        @Param("calculationId") Long calculationId,
+        @Param("from") ZonedDateTime from,
+        @Param("to") ZonedDateTime to
+    );
+
+    /**
+     * Streams the values of the tuples of a calculation after a keyset cursor and before a time.
+     *
+     * @param calculationId the id of the calculation.
+     * @param time the time of the cursor.
+     * @param id the id of the cursor.
+     * @param to the time the tuples are before, exclusive.
+     * @return the tuple values, ordered by {@code (time, id)}.
+     */
+    @Query(
+        "select t.id as id, t.time as time, t.computation as computation from Tuple t " +
+        "where t.calculation.id = :calculationId and (t.time > :time or (t.time = :time and t.id > :id)) and t.time < :to " +
+        "order by t.time asc, t.id asc"
+    )
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = OhlcRepository.STREAM_FETCH_SIZE))
+    Stream<TupleValues> streamValuesByCalculationIdAfter(
+        @Param("calculationId") Long calculationId,
+        @Param("time") ZonedDateTime time,
+        @Param("id") Long id,
+        @Param("to") ZonedDateTime to
+    );
+
+    /**
+     * Get the latest tuples of a calculation, the page size is the number of tuples.
+     *
+     * @param calculationId the id of the calculation.
+     * @param pageable the page of tuples.
+     * @return the tuples, newest first.
+     */
+    @Query("select t from Tuple t where t.calculation.id = :calculationId order by t.time desc, t.id desc")
+    Slice<Tuple> findLatestByCalculationId(@Param("calculationId") Long calculationId, Pageable pageable);
+
+    @Query(
+        "select t from Tuple t where t.calculation.id = :calculationId and (t.time > :time or (t.time = :time and t.id > :id)) order by t.time asc, t.id asc"
+    )
+    Slice<Tuple> findByCalculationIdAfter(
+        @Param("calculationId") Long calculationId,
+        @Param("time") ZonedDateTime time,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    @Query(
+        "select t from Tuple t left join fetch t.ohlc where t.calculation.id = :calculationId and (t.time > :time or (t.time = :time and t.id > :id)) order by t.time asc, t.id asc"
+    )
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = OhlcRepository.STREAM_FETCH_SIZE))
+    Stream<Tuple> streamByCalculationIdAfter(
+        @Param("calculationId") Long calculationId,
+        @Param("time") ZonedDateTime time,
+        @Param("id") Long id
+    );
+}
@@ -83,8 +83,17 @@ public class TokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return getAuthentication(jwtParser.parseClaimsJws(token).getBody(), token);
+    }
 
+    /**
+     * Build the authentication of a valid token from its claims.
+     *
+     * @param claims the claims of the token, see {@link #parseValidClaims(String)}.
+     * @param token the token, the credentials of the authentication.
+     * @return the authentication.
+     */
+    public Authentication getAuthentication(Claims claims, String token) {
         Collection<? extends GrantedAuthority> authorities = Arrays
             .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
             .filter(auth -> !auth.trim().isEmpty())
@@ -97,10 +106,18 @@ public class TokenProvider {
     }
 
     public boolean validateToken(String authToken) {
-        try {
-            jwtParser.parseClaimsJws(authToken);
+        return parseValidClaims(authToken).isPresent();
+    }
 
-            return true;
+    /**
+     * Verify the signature and expiration of a token and parse its claims.
+     *
+     * @param authToken the token.
+     * @return the claims, or empty if the token is not valid.
+     */
+    public Optional<Claims> parseValidClaims(String authToken) {
+        try {
+            return Optional.of(jwtParser.parseClaimsJws(authToken).getBody());
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -121,6 +138,6 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return Optional.empty();
     }
 }
@@ -0,0 +1,216 @@
+package de.bitc.se.security.jwt;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.management.SecurityMetersService;
+import io.jsonwebtoken.Claims;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the authentications of the verified JWT tokens, so a token presented again is not parsed and its signature
+ * not verified again.
+ * <p>
+ * The tokens are keyed on their SHA-256 digest. The authentication of a valid token is kept until the token expires,
+ * in a map of at most {@code application.token-cache.max-size} tokens. An invalid token is remembered for
+ * {@code application.token-cache.negative-time-to-live} in a separate map of at most
+ * {@code application.token-cache.negative-max-size} tokens, so that presenting random tokens does not push the valid
+ * tokens out of the cache. When a map is full, its expired tokens are dropped, and all its tokens if none has expired.
+ * <p>
+ * The lookups are tracked by the {@link SecurityMetersService}. The cached authentications are shared by the requests
+ * presenting the same token and must not be modified.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * The SHA-256 digest of a token.
+     */
+    private static final class TokenDigest {
+
+        private final byte[] digest;
+
+        private final int hash;
+
+        TokenDigest(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof TokenDigest && Arrays.equals(digest, ((TokenDigest) o).digest));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The authentication of a valid token, until the given time.
+     */
+    private static final class Verified {
+
+        private final Authentication authentication;
+
+        private final long expiresAtMillis;
+
+        Verified(Authentication authentication, long expiresAtMillis) {
+            this.authentication = authentication;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final TokenProvider tokenProvider;
+
+    private final SecurityMetersService securityMetersService;
+
+    private final int maxSize;
+
+    private final int negativeMaxSize;
+
+    private final long negativeTimeToLiveMillis;
+
+    private final Clock clock;
+
+    private final ConcurrentHashMap<TokenDigest, Verified> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * The invalid tokens, until the time they are verified again.
+     */
+    private final ConcurrentHashMap<TokenDigest, Long> invalidTokens = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VerifiedTokenCache(
+        TokenProvider tokenProvider,
+        SecurityMetersService securityMetersService,
+        ApplicationProperties applicationProperties
+    ) {
+        this(tokenProvider, securityMetersService, applicationProperties.getTokenCache(), Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(
+        TokenProvider tokenProvider,
+        SecurityMetersService securityMetersService,
+        ApplicationProperties.TokenCache properties,
+        Clock clock
+    ) {
+        this.tokenProvider = tokenProvider;
+        this.securityMetersService = securityMetersService;
+        this.maxSize = properties.getMaxSize();
+        Duration negativeTimeToLive = properties.getNegativeTimeToLive();
+        this.negativeMaxSize = negativeTimeToLive.isZero() || negativeTimeToLive.isNegative() ? 0 : properties.getNegativeMaxSize();
+        this.negativeTimeToLiveMillis = negativeTimeToLive.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Authenticate a token.
+     *
+     * @param token the token.
+     * @return the authentication of the token, or empty if the token is not valid.
+     */
+    public Optional<Authentication> authenticate(String token) {
+        if (maxSize <= 0 && negativeMaxSize <= 0) {
+            return verify(token, clock.millis()).map(verified -> verified.authentication);
+        }
+        TokenDigest digest = digest(token);
+        long now = clock.millis();
+        Verified verified = tokens.get(digest);
+        if (verified != null && now < verified.expiresAtMillis) {
+            securityMetersService.trackTokenCacheHit();
+            return Optional.of(verified.authentication);
+        }
+        Long invalidUntil = invalidTokens.get(digest);
+        if (invalidUntil != null && now < invalidUntil) {
+            securityMetersService.trackTokenCacheHit();
+            return Optional.empty();
+        }
+        securityMetersService.trackTokenCacheMiss();
+        if (verified != null) {
+            tokens.remove(digest, verified);
+        }
+        if (invalidUntil != null) {
+            invalidTokens.remove(digest, invalidUntil);
+        }
+        Optional<Verified> valid = verify(token, now);
+        if (valid.isPresent()) {
+            valid.filter(checked -> maxSize > 0 && now < checked.expiresAtMillis).ifPresent(checked -> put(digest, checked, now));
+        } else if (negativeMaxSize > 0) {
+            putInvalid(digest, now);
+        }
+        return valid.map(checked -> checked.authentication);
+    }
+
+    /**
+     * @return the number of cached valid tokens, including the expired ones not dropped yet.
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * @return the number of remembered invalid tokens, including the expired ones not dropped yet.
+     */
+    public int invalidSize() {
+        return invalidTokens.size();
+    }
+
+    private Optional<Verified> verify(String token, long now) {
+        return tokenProvider
+            .parseValidClaims(token)
+            .map(claims -> new Verified(tokenProvider.getAuthentication(claims, token), expiresAtMillis(claims, now)));
+    }
+
+    /**
+     * @return the expiration of the token, a token without expiration is not cached.
+     */
+    private static long expiresAtMillis(Claims claims, long now) {
+        Date expiration = claims.getExpiration();
+        return expiration != null ? expiration.getTime() : now;
+    }
+
+    private void put(TokenDigest digest, Verified verified, long now) {
+        if (tokens.size() >= maxSize) {
+            tokens.values().removeIf(cached -> cached.expiresAtMillis <= now);
+            if (tokens.size() >= maxSize) {
+                // the tokens in use are cached again on their next request
+                tokens.clear();
+            }
+        }
+        tokens.put(digest, verified);
+    }
+
+    private void putInvalid(TokenDigest digest, long now) {
+        if (invalidTokens.size() >= negativeMaxSize) {
+            invalidTokens.values().removeIf(until -> until <= now);
+            if (invalidTokens.size() >= negativeMaxSize) {
+                invalidTokens.clear();
+            }
+        }
+        invalidTokens.put(digest, now + negativeTimeToLiveMillis);
+    }
+
+    private static TokenDigest digest(String token) {
+        return new TokenDigest(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -1,15 +1,25 @@
 package de.bitc.se.service;
 
-import de.bitc.se.domain.projection.CalculationRepairInfo;
+import de.bitc.se.domain.Calculation;
 import de.bitc.se.repository.*;
+import de.bitc.se.service.coalescing.CoalescingKey;
+import de.bitc.se.service.coalescing.RequestCoalescer;
 import de.bitc.se.service.dto.CalculationRepairDTO;
-import java.util.List;
+import de.bitc.se.service.reference.ReferenceDataService;
+import de.bitc.se.service.reference.ReferenceTimeRange;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Transactional
@@ -25,27 +35,161 @@ public class CalculationService {
 
     private final ChartRepository chartRepository;
 
-    @Autowired
-    private NativeQueryRepository nativeQueryRepository;
+    private final RequestCoalescer requestCoalescer;
+
+    private final ReferenceDataService referenceDataService;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
 
     public CalculationService(
         CalculationRepository calculationRepository,
         TupleRepository tupleRepository,
         OhlcRepository ohlcRepository,
-        ChartRepository chartRepository
+        ChartRepository chartRepository,
+        RequestCoalescer requestCoalescer,
+        ReferenceDataService referenceDataService,
+        PlatformTransactionManager transactionManager
     ) {
         this.calculationRepository = calculationRepository;
         this.tupleRepository = tupleRepository;
         this.ohlcRepository = ohlcRepository;
         this.chartRepository = chartRepository;
+        this.requestCoalescer = requestCoalescer;
+        this.referenceDataService = referenceDataService;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
+    /**
+     * Find the first time where the tuples of a calculation are inconsistent with the candles of its chart.
+     * The detection stops at the first inconsistency.
+     * <p>
+     * Concurrent detections of the same calculation are coalesced by the {@link RequestCoalescer}, the detection runs
+     * once and its result is shared until the calculation or its chart is written. The detection runs in its own
+     * read-only transaction, the callers waiting for it hold no connection.
+     *
+     * @param calculationId the id of the calculation.
+     * @return the first inconsistency, or empty if the calculation is consistent or does not exist.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<CalculationRepairDTO> calculationRepair(Long calculationId) {
-        List<CalculationRepairInfo> result = nativeQueryRepository.inconsistentTime(calculationId);
-        if (result != null && !result.isEmpty()) {
-            log.debug("bla {}", result);
-            return Optional.of(new CalculationRepairDTO(result.get(0)));
+        Long chartId = readOnlyTransactionTemplate.execute(status ->
+            calculationRepository.findById(calculationId).map(calculation -> calculation.getChart().getId()).orElse(null)
+        );
+        if (chartId == null) {
+            return Optional.empty();
+        }
+        return requestCoalescer.execute(
+            CoalescingKey.ofCalculation("calculation-repair", chartId, calculationId),
+            () -> readOnlyTransactionTemplate.execute(status -> detectFirstGap(calculationId))
+        );
+    }
+
+    private Optional<CalculationRepairDTO> detectFirstGap(Long calculationId) {
+        CalculationRepairDTO[] first = new CalculationRepairDTO[1];
+        detectGaps(
+            calculationId,
+            (previous, time, rangeSize) -> {
+                first[0] = new CalculationRepairDTO(time, rangeSize);
+                return false;
+            }
+        );
+        log.debug("First inconsistency of Calculation {} : {}", calculationId, first[0]);
+        return Optional.ofNullable(first[0]);
+    }
+
+    /**
+     * Find all times where the tuples of a calculation are inconsistent with the candles of its chart.
+     * The inconsistencies are handed to the consumer while the series are read, nothing is collected.
+     *
+     * @param calculationId the id of the calculation.
+     * @param consumer the consumer receiving the inconsistencies in time order.
+     * @return the number of inconsistencies.
+     */
+    @Transactional(readOnly = true)
+    public long calculationGaps(Long calculationId, Consumer<CalculationRepairDTO> consumer) {
+        long gaps = detectGaps(
+            calculationId,
+            (previous, time, rangeSize) -> {
+                consumer.accept(new CalculationRepairDTO(time, rangeSize));
+                return true;
+            }
+        );
+        log.debug("Calculation {} has {} inconsistencies", calculationId, gaps);
+        return gaps;
+    }
+
+    /**
+     * Find the times where the tuples of a calculation are inconsistent with the candles of its chart from a time on,
+     * up to a number of inconsistencies. The series are read from that time on, so the tuple at the time itself is
+     * never reported; the detection of the next inconsistencies continues at the time of the last one received.
+     *
+     * @param calculationId the id of the calculation.
+     * @param from the time to start at, {@code null} for the beginning of the series.
+     * @param limit the maximum number of inconsistencies, nothing is detected unless it is positive.
+     * @param consumer the consumer receiving the inconsistencies in time order.
+     * @return the number of inconsistencies received, {@code limit} if there may be more.
+     */
+    @Transactional(readOnly = true)
+    public long calculationGaps(Long calculationId, ZonedDateTime from, int limit, Consumer<CalculationRepairDTO> consumer) {
+        if (limit <= 0) {
+            return 0;
+        }
+        long[] received = new long[1];
+        detectGaps(
+            calculationId,
+            from,
+            (previous, time, rangeSize) -> {
+                consumer.accept(new CalculationRepairDTO(time, rangeSize));
+                return ++received[0] < limit;
+            }
+        );
+        log.debug("Calculation {} has {} inconsistencies from {}", calculationId, received[0], from);
+        return received[0];
+    }
+
+    /**
+     * Receives the gaps found by {@link #detectGaps(Long, ZonedDateTime, CalculationGapListener)}.
+     */
+    @FunctionalInterface
+    interface CalculationGapListener {
+        boolean onGap(ZonedDateTime previous, ZonedDateTime time, Integer rangeSize);
+    }
+
+    long detectGaps(Long calculationId, CalculationGapListener listener) {
+        return detectGaps(calculationId, null, listener);
+    }
+
+    long detectGaps(Long calculationId, ZonedDateTime from, CalculationGapListener listener) {
+        Optional<Calculation> calculation = calculationRepository.findById(calculationId);
+        if (calculation.isEmpty()) {
+            return 0;
+        }
+        Long chartId = calculation.get().getChart().getId();
+        Long timeRangeId = calculation.get().getChart().getTimeRange().getId();
+        Integer rangeSize = referenceDataService.findTimeRange(timeRangeId).map(ReferenceTimeRange::getRangeSize).orElse(null);
+        if (rangeSize == null) {
+            log.warn("TimeRange {} of Calculation {} has no range size", timeRangeId, calculationId);
+            return 0;
+        }
+        try (
+            Stream<ZonedDateTime> ohlcTimes = from != null
+                ? ohlcRepository.streamTimeByChartIdFrom(chartId, from)
+                : ohlcRepository.streamTimeByChartId(chartId);
+            Stream<ZonedDateTime> tupleTimes = from != null
+                ? tupleRepository.streamTimeByCalculationIdFrom(calculationId, from)
+                : tupleRepository.streamTimeByCalculationId(calculationId)
+        ) {
+            return TimeSeriesGapDetector.detect(
+                ohlcTimes.iterator(),
+                tupleTimes.iterator(),
+                Duration.ofMinutes(rangeSize),
+                (previous, time) -> listener.onGap(utc(previous), utc(time), rangeSize)
+            );
         }
-        return Optional.empty();
+    }
+
+    private static ZonedDateTime utc(ZonedDateTime time) {
+        return time.withZoneSameInstant(ZoneOffset.UTC);
     }
 }
@@ -0,0 +1,135 @@
+package de.bitc.se.service;
+
+import de.bitc.se.domain.Ohlc;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads candles from CSV lines.
+ * <p>
+ * The first line is a header naming the columns with the JSON property names of {@link Ohlc}, e.g.
+ * {@code time,open,high,low,close,volumeWeightedAveragePrice,volume,count}. Only {@code time} is required, the
+ * columns may come in any order, and an empty field is {@code null}. Times are ISO-8601 date times with offset.
+ */
+class OhlcCsvReader {
+
+    private enum Column {
+        TIME("time"),
+        OPEN("open"),
+        HIGH("high"),
+        LOW("low"),
+        CLOSE("close"),
+        VWAP("volumeWeightedAveragePrice"),
+        VOLUME("volume"),
+        COUNT("count");
+
+        private final String header;
+
+        Column(String header) {
+            this.header = header;
+        }
+
+        static Column of(String header) {
+            for (Column column : values()) {
+                if (column.header.equals(header)) {
+                    return column;
+                }
+            }
+            throw new OhlcImportException("Unknown CSV column " + header);
+        }
+    }
+
+    private final BufferedReader reader;
+
+    private final Column[] columns;
+
+    private long lineNumber = 1;
+
+    OhlcCsvReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        String header = reader.readLine();
+        if (header == null) {
+            throw new OhlcImportException("Missing CSV header");
+        }
+        String[] names = header.split(",", -1);
+        this.columns = new Column[names.length];
+        boolean time = false;
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = Column.of(names[i].trim());
+            time |= columns[i] == Column.TIME;
+        }
+        if (!time) {
+            throw new OhlcImportException("The CSV header has no time column");
+        }
+    }
+
+    /**
+     * Read the next candle, blank lines are skipped.
+     *
+     * @return the candle, or {@code null} at the end of the stream.
+     * @throws IOException if the stream cannot be read.
+     */
+    Ohlc read() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+        Ohlc ohlc = new Ohlc();
+        int start = 0;
+        for (int i = 0; i < columns.length; i++) {
+            int end = line.indexOf(',', start);
+            if (end < 0) {
+                if (i < columns.length - 1) {
+                    throw new OhlcImportException("Line " + lineNumber + " has less than " + columns.length + " fields");
+                }
+                end = line.length();
+            }
+            set(ohlc, columns[i], line.substring(start, end).trim());
+            start = end + 1;
+        }
+        return ohlc;
+    }
+
+    private void set(Ohlc ohlc, Column column, String value) {
+        if (value.isEmpty()) {
+            return;
+        }
+        try {
+            switch (column) {
+                case TIME:
+                    ohlc.setTime(ZonedDateTime.parse(value));
+                    break;
+                case OPEN:
+                    ohlc.setOpen(new BigDecimal(value));
+                    break;
+                case HIGH:
+                    ohlc.setHigh(new BigDecimal(value));
+                    break;
+                case LOW:
+                    ohlc.setLow(new BigDecimal(value));
+                    break;
+                case CLOSE:
+                    ohlc.setClose(new BigDecimal(value));
+                    break;
+                case VWAP:
+                    ohlc.setVolumeWeightedAveragePrice(new BigDecimal(value));
+                    break;
+                case VOLUME:
+                    ohlc.setVolume(new BigDecimal(value));
+                    break;
+                case COUNT:
+                    ohlc.setCount(Integer.valueOf(value));
+                    break;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new OhlcImportException("Line " + lineNumber + " has an invalid " + column.header + " " + value, e);
+        }
+    }
+}
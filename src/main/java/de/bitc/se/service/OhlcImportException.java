@@ -0,0 +1,17 @@
+package de.bitc.se.service;
+
+/**
+ * Thrown when the candles of a bulk import cannot be read.
+ */
+public class OhlcImportException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public OhlcImportException(String message) {
+        super(message);
+    }
+
+    public OhlcImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,523 @@
+package de.bitc.se.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.projection.OhlcValues;
+import de.bitc.se.repository.OhlcJdbcRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.archive.CandleArchive;
+import de.bitc.se.service.archive.CandleArchiveService;
+import de.bitc.se.service.dto.OhlcImportDTO;
+import de.bitc.se.service.dto.TimeSeriesQueryDTO;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for reading and writing the candles of the {@link de.bitc.se.domain.Chart}s.
+ * <p>
+ * Every write publishes a {@link CandlesWrittenEvent} or a {@link CandlesInvalidatedEvent}. The windows of a chart
+ * are read from its {@link CandleArchive} and the {@code ohlc} table, see {@link CandleArchiveService}.
+ */
+@Service
+@Transactional
+public class OhlcService {
+
+    private final Logger log = LoggerFactory.getLogger(OhlcService.class);
+
+    private final OhlcRepository ohlcRepository;
+
+    private final OhlcJdbcRepository ohlcJdbcRepository;
+
+    private final TupleRepository tupleRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CandleArchiveService candleArchiveService;
+
+    private final int batchSize;
+
+    public OhlcService(
+        OhlcRepository ohlcRepository,
+        OhlcJdbcRepository ohlcJdbcRepository,
+        TupleRepository tupleRepository,
+        EntityManager entityManager,
+        ObjectMapper objectMapper,
+        ApplicationEventPublisher eventPublisher,
+        CandleArchiveService candleArchiveService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.ohlcRepository = ohlcRepository;
+        this.ohlcJdbcRepository = ohlcJdbcRepository;
+        this.tupleRepository = tupleRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.candleArchiveService = candleArchiveService;
+        this.batchSize = applicationProperties.getBulk().getBatchSize();
+    }
+
+    /**
+     * Save a new ohlc. The ohlc is flushed, a second ohlc at the same chart time fails here and not on commit.
+     *
+     * @param ohlc the entity to save.
+     * @return the persisted entity.
+     */
+    public Ohlc save(Ohlc ohlc) {
+        log.debug("Request to save Ohlc : {}", ohlc);
+        Ohlc result = ohlcRepository.saveAndFlush(ohlc);
+        eventPublisher.publishEvent(new CandlesWrittenEvent(result.getChart().getId(), List.of(result)));
+        return result;
+    }
+
+    /**
+     * Update an ohlc. The ohlc is flushed, like a new one.
+     *
+     * @param ohlc the entity to update.
+     * @return the persisted entity.
+     */
+    public Ohlc update(Ohlc ohlc) {
+        log.debug("Request to update Ohlc : {}", ohlc);
+        Optional<Ohlc> existing = ohlcRepository.findById(ohlc.getId());
+        Long previousChartId = existing.map(o -> o.getChart().getId()).orElse(null);
+        ZonedDateTime previousTime = existing.map(Ohlc::getTime).orElse(null);
+        Ohlc result = ohlcRepository.saveAndFlush(ohlc);
+        publishUpdate(previousChartId, previousTime, result);
+        return result;
+    }
+
+    /**
+     * Partially update an ohlc, the fields which are {@code null} are left unchanged. The ohlc is flushed, like a new one.
+     *
+     * @param ohlc the entity to update partially.
+     * @return the persisted entity.
+     */
+    public Optional<Ohlc> partialUpdate(Ohlc ohlc) {
+        log.debug("Request to partially update Ohlc : {}", ohlc);
+
+        return ohlcRepository
+            .findById(ohlc.getId())
+            .map(existingOhlc -> {
+                Long previousChartId = existingOhlc.getChart().getId();
+                ZonedDateTime previousTime = existingOhlc.getTime();
+                if (ohlc.getTime() != null) {
+                    existingOhlc.setTime(ohlc.getTime());
+                }
+                if (ohlc.getOpen() != null) {
+                    existingOhlc.setOpen(ohlc.getOpen());
+                }
+                if (ohlc.getHigh() != null) {
+                    existingOhlc.setHigh(ohlc.getHigh());
+                }
+                if (ohlc.getLow() != null) {
+                    existingOhlc.setLow(ohlc.getLow());
+                }
+                if (ohlc.getClose() != null) {
+                    existingOhlc.setClose(ohlc.getClose());
+                }
+                if (ohlc.getVolumeWeightedAveragePrice() != null) {
+                    existingOhlc.setVolumeWeightedAveragePrice(ohlc.getVolumeWeightedAveragePrice());
+                }
+                if (ohlc.getVolume() != null) {
+                    existingOhlc.setVolume(ohlc.getVolume());
+                }
+                if (ohlc.getCount() != null) {
+                    existingOhlc.setCount(ohlc.getCount());
+                }
+
+                Ohlc result = ohlcRepository.saveAndFlush(existingOhlc);
+                publishUpdate(previousChartId, previousTime, result);
+                return result;
+            });
+    }
+
+    /**
+     * Delete the ohlc by id, with the tuples referring to it.
+     *
+     * @param id the id of the entity.
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete Ohlc : {}", id);
+        ohlcRepository
+            .findById(id)
+            .ifPresent(ohlc -> {
+                tupleRepository.deleteByOhlcIdIn(List.of(id));
+                ohlcRepository.delete(ohlc);
+                eventPublisher.publishEvent(new CandlesInvalidatedEvent(ohlc.getChart().getId()));
+            });
+    }
+
+    private void publishUpdate(Long previousChartId, ZonedDateTime previousTime, Ohlc result) {
+        Long chartId = result.getChart().getId();
+        boolean moved =
+            previousChartId != null &&
+            (!previousChartId.equals(chartId) || previousTime == null || result.getTime() == null || !previousTime.isEqual(result.getTime()));
+        if (moved) {
+            eventPublisher.publishEvent(new CandlesInvalidatedEvent(previousChartId));
+        }
+        if (result.getTime() != null) {
+            eventPublisher.publishEvent(new CandlesWrittenEvent(chartId, List.of(result)));
+        }
+    }
+
+    /**
+     * The formats of a bulk import.
+     */
+    public enum ImportFormat {
+        /**
+         * One JSON object per line, with the properties of {@link Ohlc}.
+         */
+        NDJSON,
+        /**
+         * Comma separated values with a header line naming the properties of {@link Ohlc}.
+         */
+        CSV,
+    }
+
+    /**
+     * Import the candles of a chart from a stream.
+     * <p>
+     * The candles are read one at a time and upserted in batches of {@code application.bulk.batch-size} rows, like
+     * {@link #saveAll(Long, List)}. Nothing is kept in the persistence context, so the memory used does not depend on
+     * the number of candles. The import runs in one transaction: if a line cannot be read, no candle is imported.
+     * Importing an overlapping window again updates the existing candles.
+     *
+     * @param chartId the id of the chart, it must exist.
+     * @param format the format of the stream.
+     * @param inputStream the candles.
+     * @return the number of imported candles, counting each time of a batch once, and the throughput.
+     * @throws OhlcImportException if the stream cannot be read.
+     */
+    public OhlcImportDTO importOhlcs(Long chartId, ImportFormat format, InputStream inputStream) {
+        log.debug("Request to import Ohlcs of Chart {} as {}", chartId, format);
+        try {
+            return importOhlcs(chartId, openSource(format, inputStream));
+        } catch (JsonProcessingException e) {
+            throw new OhlcImportException("Invalid candle after 0 rows: " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Import the candles of a chart from an iterator, like {@link #importOhlcs(Long, ImportFormat, InputStream)}.
+     *
+     * @param chartId the id of the chart, it must exist.
+     * @param ohlcs the candles.
+     * @return the number of imported candles, counting each time of a batch once, and the throughput.
+     */
+    public OhlcImportDTO importOhlcs(Long chartId, Iterator<Ohlc> ohlcs) {
+        log.debug("Request to import Ohlcs of Chart {}", chartId);
+        try {
+            return importOhlcs(chartId, () -> ohlcs.hasNext() ? ohlcs.next() : null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OhlcImportDTO importOhlcs(Long chartId, OhlcSource source) throws IOException {
+        long start = System.nanoTime();
+        long rows = 0;
+        ZonedDateTime from = null;
+        ZonedDateTime until = null;
+        try {
+            List<Ohlc> batch = new ArrayList<>(batchSize);
+            Ohlc ohlc;
+            while ((ohlc = source.read()) != null) {
+                if (ohlc.getTime() == null) {
+                    throw new OhlcImportException("Candle without time after " + (rows + batch.size()) + " rows");
+                }
+                if (from == null || ohlc.getTime().isBefore(from)) {
+                    from = ohlc.getTime();
+                }
+                if (until == null || ohlc.getTime().isAfter(until)) {
+                    until = ohlc.getTime();
+                }
+                batch.add(ohlc);
+                if (batch.size() == batchSize) {
+                    rows += ohlcJdbcRepository.upsertAll(chartId, batch).size();
+                    batch.clear();
+                }
+            }
+            rows += ohlcJdbcRepository.upsertAll(chartId, batch).size();
+        } catch (JsonProcessingException e) {
+            throw new OhlcImportException("Invalid candle after " + rows + " rows: " + e.getOriginalMessage(), e);
+        }
+        // the candles are not kept until the commit, listeners read them again
+        eventPublisher.publishEvent(new CandlesInvalidatedEvent(chartId, from, until));
+        OhlcImportDTO result = new OhlcImportDTO(chartId, rows, (System.nanoTime() - start) / 1_000_000);
+        log.info("Imported {} Ohlcs of Chart {} in {} ms ({} rows/s)", rows, chartId, result.getDurationMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /**
+     * Save a batch of candles of a chart, keyed on {@code (chart, time)}.
+     * <p>
+     * A candle with the time of an existing candle of the chart replaces its values, so resending a candle that is
+     * still open does not create a duplicate. The batch is written with one statement, without reading the existing
+     * candles first.
+     *
+     * @param chartId the id of the chart.
+     * @param ohlcs the candles, their chart and id are ignored.
+     * @return the candles written, one per time; the last candle of a time wins.
+     */
+    public List<Ohlc> saveAll(Long chartId, List<Ohlc> ohlcs) {
+        log.debug("Request to save {} Ohlcs of Chart {}", ohlcs.size(), chartId);
+        List<Ohlc> written = ohlcJdbcRepository.upsertAll(chartId, ohlcs);
+        if (!written.isEmpty()) {
+            eventPublisher.publishEvent(new CandlesWrittenEvent(chartId, List.copyOf(written)));
+        }
+        return written;
+    }
+
+    @FunctionalInterface
+    private interface OhlcSource {
+        Ohlc read() throws IOException;
+    }
+
+    private OhlcSource openSource(ImportFormat format, InputStream inputStream) throws IOException {
+        if (format == ImportFormat.CSV) {
+            return new OhlcCsvReader(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)))::read;
+        }
+        MappingIterator<Ohlc> json = objectMapper.readerFor(Ohlc.class).readValues(inputStream);
+        return () -> json.hasNextValue() ? json.nextValue() : null;
+    }
+
+    /**
+     * Hands the candles of a window to the consumer, ordered by {@code (time, id)}.
+     * <p>
+     * The candles are read through a database cursor and detached once consumed, so the memory used does not depend on
+     * the size of the window. The archived candles of the window come first, without id; a candle written at an
+     * archived time replaces the archived one. Without a series id, all candles of the table are read ordered by id.
+     *
+     * @param query the window, its series id is the chart id.
+     * @param consumer the consumer of the candles.
+     * @return the number of candles read.
+     */
+    @Transactional(readOnly = true)
+    public long streamOhlcs(TimeSeriesQueryDTO query, Consumer<Ohlc> consumer) {
+        log.debug("Request to stream Ohlcs : {}", query);
+        long count = 0;
+        try (Stream<Ohlc> ohlcs = openStream(query)) {
+            Iterator<Ohlc> iterator = ohlcs.iterator();
+            if (query.getSeriesId() != null) {
+                Chart chart = entityManager.find(Chart.class, query.getSeriesId());
+                iterator = withArchived(query, iterator, Ohlc::getTime, values -> toOhlc(values, chart));
+            }
+            while (iterator.hasNext() && (query.getLimit() == null || count < query.getLimit())) {
+                Ohlc ohlc = iterator.next();
+                consumer.accept(ohlc);
+                if (ohlc.getId() != null) {
+                    entityManager.detach(ohlc);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Hands the candles of a window to the consumer like {@link #streamOhlcs}, read from the primary database.
+     * <p>
+     * The read-only transactions are routed to the replica, which may not have the candles of the last commits yet. The
+     * closed windows are cached under the version of the committed candles, so they are read from the primary.
+     *
+     * @param query the window, its series id is the chart id.
+     * @param consumer the consumer of the candles.
+     * @return the number of candles read.
+     */
+    @Transactional
+    public long streamOhlcsFromPrimary(TimeSeriesQueryDTO query, Consumer<Ohlc> consumer) {
+        return streamOhlcs(query, consumer);
+    }
+
+    /**
+     * Hands the values of the candles of a chart window to the consumer, ordered by {@code (time, id)}.
+     * <p>
+     * The values are read as scalars through a database cursor, without loading the candles into the persistence
+     * context. The archived candles of the window come first, like in {@link #streamOhlcs}.
+     *
+     * @param query the window, its series id is the chart id.
+     * @param consumer the consumer of the candle values.
+     * @return the number of candles read.
+     * @throws IllegalArgumentException if the query has no series id.
+     */
+    @Transactional(readOnly = true)
+    public long streamOhlcValues(TimeSeriesQueryDTO query, Consumer<OhlcValues> consumer) {
+        log.debug("Request to stream the values of Ohlcs : {}", query);
+        if (query.getSeriesId() == null) {
+            throw new IllegalArgumentException("The values of the ohlcs are read by chart");
+        }
+        long count = 0;
+        try (Stream<OhlcValues> values = openValueStream(query)) {
+            Iterator<OhlcValues> iterator = withArchived(query, values.iterator(), OhlcValues::getTime, archived -> archived);
+            while (iterator.hasNext() && (query.getLimit() == null || count < query.getLimit())) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Hands the values of the candles of a chart window to the consumer like {@link #streamOhlcValues}, read from the
+     * primary database like {@link #streamOhlcsFromPrimary}.
+     *
+     * @param query the window, its series id is the chart id.
+     * @param consumer the consumer of the candle values.
+     * @return the number of candles read.
+     * @throws IllegalArgumentException if the query has no series id.
+     */
+    @Transactional
+    public long streamOhlcValuesFromPrimary(TimeSeriesQueryDTO query, Consumer<OhlcValues> consumer) {
+        return streamOhlcValues(query, consumer);
+    }
+
+    private Stream<OhlcValues> openValueStream(TimeSeriesQueryDTO query) {
+        if (query.isKeyset()) {
+            return ohlcRepository.streamValuesByChartIdAfter(
+                query.getSeriesId(),
+                query.getAfterTime(),
+                afterId(query),
+                query.getEffectiveTo()
+            );
+        }
+        return ohlcRepository.streamValuesByChartIdAndTimeRange(query.getSeriesId(), query.getEffectiveFrom(), query.getEffectiveTo());
+    }
+
+    private Stream<Ohlc> openStream(TimeSeriesQueryDTO query) {
+        if (query.getSeriesId() == null) {
+            return ohlcRepository.streamAll();
+        }
+        if (query.isKeyset()) {
+            return ohlcRepository
+                .streamByChartIdAfter(query.getSeriesId(), query.getAfterTime(), afterId(query))
+                .takeWhile(ohlc -> ohlc.getTime().isBefore(query.getEffectiveTo()));
+        }
+        return ohlcRepository.streamByChartIdAndTimeRange(query.getSeriesId(), query.getEffectiveFrom(), query.getEffectiveTo());
+    }
+    /**
+     * The id of the keyset cursor: an archived candle has no id, a cursor at its time continues after the time.
+     */
+    private static Long afterId(TimeSeriesQueryDTO query) {
+        return query.getAfterId() != null ? query.getAfterId() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Iterate the archived candles of a window merged with the stored ones by time, a stored candle replacing the
+     * archived candle of its time. The archived candles are read from the mapping of the archive, without copying.
+     */
+    private <T> Iterator<T> withArchived(
+        TimeSeriesQueryDTO query,
+        Iterator<T> stored,
+        Function<T, ZonedDateTime> time,
+        Function<OhlcValues, T> archived
+    ) {
+        // the archived candles have no id, a cursor after a time is after the archived candle of the time
+        ZonedDateTime from = query.isKeyset() ? query.getAfterTime().plusNanos(1_000_000) : query.getEffectiveFrom();
+        Optional<CandleArchive.Range> range = candleArchiveService.getArchivedCandles(query.getSeriesId(), from, query.getEffectiveTo());
+        if (range.isEmpty() || range.get().size() == 0) {
+            return stored;
+        }
+        return new MergingIterator<>(range.get(), stored, time, index -> archived.apply(range.get().values(index)));
+    }
+
+    private static Ohlc toOhlc(OhlcValues values, Chart chart) {
+        return new Ohlc()
+            .time(values.getTime())
+            .open(values.getOpen())
+            .high(values.getHigh())
+            .low(values.getLow())
+            .close(values.getClose())
+            .volumeWeightedAveragePrice(values.getVolumeWeightedAveragePrice())
+            .volume(values.getVolume())
+            .count(values.getCount())
+            .chart(chart);
+    }
+
+    /**
+     * Iterator merging the archived candles of a window with the stored ones, both ordered by time.
+     */
+    private static final class MergingIterator<T> implements Iterator<T> {
+
+        private final CandleArchive.Range archived;
+
+        private final Iterator<T> stored;
+
+        private final Function<T, ZonedDateTime> time;
+
+        private final IntFunction<T> archivedCandle;
+
+        private int index;
+
+        private T next;
+
+        private MergingIterator(
+            CandleArchive.Range archived,
+            Iterator<T> stored,
+            Function<T, ZonedDateTime> time,
+            IntFunction<T> archivedCandle
+        ) {
+            this.archived = archived;
+            this.stored = stored;
+            this.time = time;
+            this.archivedCandle = archivedCandle;
+            this.next = stored.hasNext() ? stored.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < archived.size() || next != null;
+        }
+
+        @Override
+        public T next() {
+            if (index < archived.size()) {
+                long archivedTime = archived.time(index);
+                long storedTime = next != null ? time.apply(next).toInstant().toEpochMilli() : Long.MAX_VALUE;
+                if (archivedTime < storedTime) {
+                    return archivedCandle.apply(index++);
+                }
+                if (archivedTime == storedTime) {
+                    index++;
+                }
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            T result = next;
+            next = stored.hasNext() ? stored.next() : null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package de.bitc.se.service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+
+/**
+ * Single pass merge of the candle and tuple time series of one calculation.
+ * <p>
+ * A tuple is reported as a gap when the distance to the previous tuple differs from the range size
+ * of the chart and the candles do not show the same gap at that time, i.e. the calculation
+ * is missing values for candles that exist. This is the semantic of
+ * {@link de.bitc.se.repository.NativeQueryRepository#inconsistentTime(Long)}.
+ * <p>
+ * Both iterators must be ordered by time ascending. They are only ever moved forward, so the
+ * detector works on database cursors without materializing either series.
+ */
+public final class TimeSeriesGapDetector {
+
+    /**
+     * Receives the detected gaps in time order.
+     */
+    @FunctionalInterface
+    public interface GapListener {
+        /**
+         * @param previous the time of the last tuple before the gap.
+         * @param time the time of the first tuple after the gap.
+         * @return {@code true} to continue the detection, {@code false} to stop it.
+         */
+        boolean onGap(ZonedDateTime previous, ZonedDateTime time);
+    }
+
+    private TimeSeriesGapDetector() {}
+
+    /**
+     * Detects the gaps of the tuple series.
+     *
+     * @param ohlcTimes the candle times of the chart, ordered ascending.
+     * @param tupleTimes the tuple times of the calculation, ordered ascending.
+     * @param rangeSize the expected distance between two consecutive entries.
+     * @param listener the listener receiving the gaps.
+     * @return the number of reported gaps.
+     */
+    public static long detect(
+        Iterator<ZonedDateTime> ohlcTimes,
+        Iterator<ZonedDateTime> tupleTimes,
+        Duration rangeSize,
+        GapListener listener
+    ) {
+        long expected = rangeSize.getSeconds();
+        long gaps = 0;
+
+        ZonedDateTime previousOhlc = null;
+        ZonedDateTime currentOhlc = null;
+        boolean currentOhlcIsGap = false;
+
+        ZonedDateTime previousTuple = null;
+        while (tupleTimes.hasNext()) {
+            ZonedDateTime tuple = tupleTimes.next();
+            if (previousTuple != null && distance(previousTuple, tuple) != expected) {
+                // advance the candle cursor up to the tuple time
+                while ((currentOhlc == null || currentOhlc.isBefore(tuple)) && ohlcTimes.hasNext()) {
+                    previousOhlc = currentOhlc;
+                    currentOhlc = ohlcTimes.next();
+                    currentOhlcIsGap = previousOhlc != null && distance(previousOhlc, currentOhlc) != expected;
+                }
+                boolean candleGap = currentOhlc != null && currentOhlcIsGap && currentOhlc.isEqual(tuple);
+                if (!candleGap) {
+                    gaps++;
+                    if (!listener.onGap(previousTuple, tuple)) {
+                        return gaps;
+                    }
+                }
+            }
+            previousTuple = tuple;
+        }
+        return gaps;
+    }
+
+    private static long distance(ZonedDateTime from, ZonedDateTime to) {
+        return to.toEpochSecond() - from.toEpochSecond();
+    }
+}
@@ -0,0 +1,118 @@
+package de.bitc.se.service;
+
+import de.bitc.se.domain.Tuple;
+import de.bitc.se.domain.projection.TupleValues;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.dto.TimeSeriesQueryDTO;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service for reading and writing the tuples of the {@link de.bitc.se.domain.Calculation}s.
+ */
+@Service
+@Transactional
+public class TupleService {
+
+    private final Logger log = LoggerFactory.getLogger(TupleService.class);
+
+    private final TupleRepository tupleRepository;
+
+    private final EntityManager entityManager;
+
+    public TupleService(TupleRepository tupleRepository, EntityManager entityManager) {
+        this.tupleRepository = tupleRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Hands the tuples of a window to the consumer, ordered by {@code (time, id)}.
+     * <p>
+     * The tuples are read through a database cursor and detached once consumed, so the memory used does not depend on
+     * the size of the window. Without a series id, all tuples are read ordered by id.
+     *
+     * @param query the window, its series id is the calculation id.
+     * @param consumer the consumer of the tuples.
+     * @return the number of tuples read.
+     */
+    @Transactional(readOnly = true)
+    public long streamTuples(TimeSeriesQueryDTO query, Consumer<Tuple> consumer) {
+        log.debug("Request to stream Tuples : {}", query);
+        long count = 0;
+        try (Stream<Tuple> tuples = openStream(query)) {
+            Iterator<Tuple> iterator = tuples.iterator();
+            while (iterator.hasNext() && (query.getLimit() == null || count < query.getLimit())) {
+                Tuple tuple = iterator.next();
+                consumer.accept(tuple);
+                entityManager.detach(tuple);
+                if (tuple.getOhlc() != null) {
+                    entityManager.detach(tuple.getOhlc());
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Hands the values of the tuples of a calculation window to the consumer, ordered by {@code (time, id)}.
+     * <p>
+     * The values are read as scalars through a database cursor, without loading the tuples and their candles into the
+     * persistence context.
+     *
+     * @param query the window, its series id is the calculation id.
+     * @param consumer the consumer of the tuple values.
+     * @return the number of tuples read.
+     * @throws IllegalArgumentException if the query has no series id.
+     */
+    @Transactional(readOnly = true)
+    public long streamTupleValues(TimeSeriesQueryDTO query, Consumer<TupleValues> consumer) {
+        log.debug("Request to stream the values of Tuples : {}", query);
+        if (query.getSeriesId() == null) {
+            throw new IllegalArgumentException("The values of the tuples are read by calculation");
+        }
+        long count = 0;
+        try (Stream<TupleValues> values = openValueStream(query)) {
+            Iterator<TupleValues> iterator = values.iterator();
+            while (iterator.hasNext() && (query.getLimit() == null || count < query.getLimit())) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Stream<TupleValues> openValueStream(TimeSeriesQueryDTO query) {
+        if (query.isKeyset()) {
+            return tupleRepository.streamValuesByCalculationIdAfter(
+                query.getSeriesId(),
+                query.getAfterTime(),
+                query.getAfterId(),
+                query.getEffectiveTo()
+            );
+        }
+        return tupleRepository.streamValuesByCalculationIdAndTimeRange(
+            query.getSeriesId(),
+            query.getEffectiveFrom(),
+            query.getEffectiveTo()
+        );
+    }
+
+    private Stream<Tuple> openStream(TimeSeriesQueryDTO query) {
+        if (query.getSeriesId() == null) {
+            return tupleRepository.streamAll();
+        }
+        if (query.isKeyset()) {
+            return tupleRepository
+                .streamByCalculationIdAfter(query.getSeriesId(), query.getAfterTime(), query.getAfterId())
+                .takeWhile(tuple -> tuple.getTime().isBefore(query.getEffectiveTo()));
+        }
+        return tupleRepository.streamByCalculationIdAndTimeRange(query.getSeriesId(), query.getEffectiveFrom(), query.getEffectiveTo());
+    }
+}
@@ -0,0 +1,545 @@
+package de.bitc.se.service.archive;
+
+import de.bitc.se.domain.projection.OhlcValues;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * An append-only file holding the candles of one {@link de.bitc.se.domain.Chart} and
+ * {@link de.bitc.se.domain.TimeRange}, read through a memory mapping.
+ * <p>
+ * The file is a header of {@value #HEADER_SIZE} bytes followed by records of {@value #RECORD_SIZE} bytes, all
+ * little-endian:
+ * <pre>
+ * header: int magic, int version, int record size, int scale, long chart id, long time range id,
+ *         long committed record count, reserved up to 64 bytes
+ * record: long time in epoch milliseconds, long open, high, low, close, volume weighted average price, volume,
+ *         int count, int reserved
+ * </pre>
+ * The prices and the volume are the unscaled values of the decimals at the scale of the header, the scale of the
+ * {@code ohlc} columns, so they are read back exactly; a value beyond the range of a {@code long} is rejected. A
+ * missing value is {@link #MISSING}. The records are strictly ascending by time, so the record of a time is found by a
+ * binary search and sits at {@code HEADER_SIZE + index * RECORD_SIZE}: the file is its own time index.
+ * <p>
+ * Appended records become visible with {@link #commit()}, which forces them to disk before it writes the record count
+ * into the header. Records behind the committed count, left by a crash or {@link #discard()}, are overwritten by the
+ * next append. Candles at or before the last committed one are merged with {@link #merge(List)}, which rewrites the
+ * file. Writers are serialized, readers work lock-free on the mapping of the last commit and never copy a record. A
+ * mapping is limited to 2 GB, about 33 million candles per file.
+ */
+public final class CandleArchive implements Closeable {
+
+    static final int MAGIC = 0x41434251;
+
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 64;
+
+    static final int RECORD_SIZE = 64;
+
+    /**
+     * The scale of the prices and the volume, the scale of the {@code ohlc} columns.
+     */
+    static final int SCALE = 2;
+
+    /**
+     * The unscaled value of a missing price or volume.
+     */
+    static final long MISSING = Long.MIN_VALUE;
+
+    private static final int COUNT_OFFSET = 32;
+
+    private static final String MERGE_SUFFIX = ".merge";
+
+    private static final int WRITE_BUFFER_RECORDS = 1024;
+
+    private static final long MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private final Path file;
+
+    private FileChannel channel;
+
+    private final long chartId;
+
+    private final long timeRangeId;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_RECORDS * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Records written to the channel since the last commit, the buffered ones not included.
+     */
+    private long written;
+
+    private long pendingLastTime;
+
+    private volatile Range committed;
+
+    private CandleArchive(Path file, FileChannel channel, long chartId, long timeRangeId, long size) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.chartId = chartId;
+        this.timeRangeId = timeRangeId;
+        this.committed = map(size);
+    }
+
+    /**
+     * Open the archive file of a chart, creating it if it does not exist.
+     *
+     * @param file the path of the file.
+     * @param chartId the id of the chart.
+     * @param timeRangeId the id of the time range of the chart.
+     * @return the archive.
+     * @throws IOException if the file cannot be opened or belongs to another chart.
+     */
+    public static CandleArchive open(Path file, long chartId, long timeRangeId) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size;
+            if (channel.size() < HEADER_SIZE) {
+                writeHeader(channel, chartId, timeRangeId);
+                size = 0;
+            } else {
+                size = readHeader(channel, file, chartId, timeRangeId);
+            }
+            return new CandleArchive(file, channel, chartId, timeRangeId, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, long chartId, long timeRangeId) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(SCALE);
+        header.putLong(chartId).putLong(timeRangeId).putLong(0L);
+        header.clear();
+        writeFully(channel, header, 0);
+        channel.force(true);
+    }
+
+    private static long readHeader(FileChannel channel, Path file, long chartId, long timeRangeId) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Truncated header in " + file);
+            }
+        }
+        if (
+            header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_SIZE || header.getInt(12) != SCALE
+        ) {
+            throw new IOException(file + " is not a candle archive of version " + VERSION);
+        }
+        if (header.getLong(16) != chartId || header.getLong(24) != timeRangeId) {
+            throw new IOException(
+                String.format(
+                    "%s belongs to chart %d and time range %d, not %d and %d",
+                    file,
+                    header.getLong(16),
+                    header.getLong(24),
+                    chartId,
+                    timeRangeId
+                )
+            );
+        }
+        long size = header.getLong(COUNT_OFFSET);
+        if (size < 0 || size > MAX_RECORDS || channel.size() < HEADER_SIZE + size * RECORD_SIZE) {
+            throw new IOException("Truncated records in " + file + ", expected " + size);
+        }
+        return size;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void writeCount(FileChannel channel, long size) throws IOException {
+        channel.force(false);
+        ByteBuffer count = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, size);
+        writeFully(channel, count, COUNT_OFFSET);
+        channel.force(false);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getChartId() {
+        return chartId;
+    }
+
+    public long getTimeRangeId() {
+        return timeRangeId;
+    }
+
+    /**
+     * @return the number of committed candles.
+     */
+    public long size() {
+        return committed.size();
+    }
+
+    /**
+     * @return the time of the latest committed candle, or {@link Long#MIN_VALUE} if the archive is empty.
+     */
+    public long lastTime() {
+        Range range = committed;
+        return range.size() > 0 ? range.time(range.size() - 1) : Long.MIN_VALUE;
+    }
+
+    /**
+     * Append a candle, it becomes visible with the next {@link #commit()}.
+     *
+     * @param candle the candle, after the last appended candle.
+     * @throws IOException if the candle cannot be written.
+     * @throws ArithmeticException if a value has more decimals than the scale or is too large.
+     */
+    public synchronized void append(OhlcValues candle) throws IOException {
+        long time = candle.getTime().toInstant().toEpochMilli();
+        long pending = written + writeBuffer.position() / RECORD_SIZE;
+        long last = pending > 0 ? pendingLastTime : lastTime();
+        if ((pending > 0 || size() > 0) && time <= last) {
+            throw new IllegalArgumentException("The candle time " + time + " is not after the last archived time " + last);
+        }
+        if (size() + pending >= MAX_RECORDS) {
+            throw new IOException("The archive " + file + " is full");
+        }
+        put(writeBuffer, time, candle);
+        pendingLastTime = time;
+        if (!writeBuffer.hasRemaining()) {
+            flush();
+        }
+    }
+
+    private static void put(ByteBuffer buffer, long time, OhlcValues candle) {
+        // the values are converted before the record is started, a rejected value leaves the buffer as it is
+        long open = unscaled(candle.getOpen());
+        long high = unscaled(candle.getHigh());
+        long low = unscaled(candle.getLow());
+        long close = unscaled(candle.getClose());
+        long volumeWeightedAveragePrice = unscaled(candle.getVolumeWeightedAveragePrice());
+        long volume = unscaled(candle.getVolume());
+        buffer
+            .putLong(time)
+            .putLong(open)
+            .putLong(high)
+            .putLong(low)
+            .putLong(close)
+            .putLong(volumeWeightedAveragePrice)
+            .putLong(volume)
+            .putInt(candle.getCount() != null ? candle.getCount() : 0)
+            .putInt(0);
+    }
+
+    private static long unscaled(BigDecimal value) {
+        if (value == null) {
+            return MISSING;
+        }
+        long unscaled = value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        if (unscaled == MISSING) {
+            throw new ArithmeticException("The value " + value + " is out of the range of the archive");
+        }
+        return unscaled;
+    }
+
+    private static BigDecimal decimal(long unscaled) {
+        return unscaled != MISSING ? BigDecimal.valueOf(unscaled, SCALE) : null;
+    }
+
+    /**
+     * Make the appended candles durable and visible.
+     *
+     * @throws IOException if the candles cannot be written.
+     */
+    public synchronized void commit() throws IOException {
+        flush();
+        if (written == 0) {
+            return;
+        }
+        long size = size() + written;
+        writeCount(channel, size);
+        committed = map(size);
+        written = 0;
+    }
+
+    /**
+     * Merge candles into the committed ones, a candle replaces the committed candle of the same time. The merged
+     * records are written to a new file, which is moved over the archive file once it is durable; ranges read before
+     * stay valid.
+     *
+     * @param candles the candles, strictly ascending by time.
+     * @throws IOException if the candles cannot be written, the archive is left as it was.
+     * @throws IllegalStateException if candles were appended since the last commit.
+     * @throws ArithmeticException if a value has more decimals than the scale or is too large.
+     */
+    public synchronized void merge(List<OhlcValues> candles) throws IOException {
+        if (written > 0 || writeBuffer.position() > 0) {
+            throw new IllegalStateException("The archive " + file + " has uncommitted candles");
+        }
+        Path merged = file.resolveSibling(file.getFileName() + MERGE_SUFFIX);
+        Range range = committed;
+        long size = 0;
+        try (
+            FileChannel target = FileChannel.open(
+                merged,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            writeHeader(target, chartId, timeRangeId);
+            long position = HEADER_SIZE;
+            int index = 0;
+            long last = Long.MIN_VALUE;
+            for (int i = 0; i <= candles.size(); i++) {
+                long time = i < candles.size() ? candles.get(i).getTime().toInstant().toEpochMilli() : Long.MAX_VALUE;
+                if (i > 0 && time <= last) {
+                    throw new IllegalArgumentException("The candle time " + time + " is not after the merged time " + last);
+                }
+                // the committed candles before the candle are copied as they are
+                for (; index < range.size() && range.time(index) <= time; index++) {
+                    if (range.time(index) < time) {
+                        writeBuffer.put(range.record(index));
+                        size++;
+                        position = flushFull(target, position);
+                    }
+                }
+                if (i < candles.size()) {
+                    put(writeBuffer, time, candles.get(i));
+                    size++;
+                    position = flushFull(target, position);
+                }
+                last = time;
+            }
+            writeBuffer.flip();
+            writeFully(target, writeBuffer, position);
+            writeCount(target, size);
+        } finally {
+            writeBuffer.clear();
+        }
+        Files.move(merged, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // the mappings of the closed channel stay valid
+        channel.close();
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        committed = map(size);
+    }
+
+    private long flushFull(FileChannel target, long position) throws IOException {
+        if (writeBuffer.hasRemaining()) {
+            return position;
+        }
+        writeBuffer.flip();
+        writeFully(target, writeBuffer, position);
+        writeBuffer.clear();
+        return position + WRITE_BUFFER_RECORDS * RECORD_SIZE;
+    }
+
+    /**
+     * Drop the candles appended since the last commit.
+     */
+    public synchronized void discard() {
+        writeBuffer.clear();
+        written = 0;
+    }
+
+    private void flush() throws IOException {
+        int records = writeBuffer.position() / RECORD_SIZE;
+        if (records == 0) {
+            return;
+        }
+        writeBuffer.flip();
+        try {
+            writeFully(channel, writeBuffer, HEADER_SIZE + (size() + written) * RECORD_SIZE);
+            written += records;
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
+    private Range map(long size) throws IOException {
+        if (size == 0) {
+            return new Range(ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN), 0);
+        }
+        ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        return new Range(records, (int) size);
+    }
+
+    /**
+     * Get the committed candles of a time range, without copying them.
+     *
+     * @param from the start of the range in epoch milliseconds, inclusive.
+     * @param to the end of the range in epoch milliseconds, exclusive.
+     * @return the candles, ordered by time.
+     */
+    public Range range(long from, long to) {
+        Range range = committed;
+        int start = range.lowerBound(from);
+        int end = Math.max(start, range.lowerBound(to));
+        return range.slice(start, end);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Candles of the archive, a view on the memory mapping. It stays valid after further commits.
+     */
+    public static final class Range {
+
+        private final ByteBuffer records;
+
+        private final int size;
+
+        private Range(ByteBuffer records, int size) {
+            this.records = records;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long time(int index) {
+            return records.getLong(offset(index));
+        }
+
+        public BigDecimal open(int index) {
+            return decimal(records.getLong(offset(index) + 8));
+        }
+
+        public BigDecimal high(int index) {
+            return decimal(records.getLong(offset(index) + 16));
+        }
+
+        public BigDecimal low(int index) {
+            return decimal(records.getLong(offset(index) + 24));
+        }
+
+        public BigDecimal close(int index) {
+            return decimal(records.getLong(offset(index) + 32));
+        }
+
+        public BigDecimal volumeWeightedAveragePrice(int index) {
+            return decimal(records.getLong(offset(index) + 40));
+        }
+
+        public BigDecimal volume(int index) {
+            return decimal(records.getLong(offset(index) + 48));
+        }
+
+        public int count(int index) {
+            return records.getInt(offset(index) + 56);
+        }
+
+        /**
+         * Get a candle as the {@link OhlcValues} of a stored one, without id: the archived candles are no longer rows.
+         *
+         * @param index the index of the candle.
+         * @return a view on the candle, reading the mapping on each call.
+         */
+        public OhlcValues values(int index) {
+            offset(index);
+            return new OhlcValues() {
+                @Override
+                public Long getId() {
+                    return null;
+                }
+
+                @Override
+                public ZonedDateTime getTime() {
+                    return ZonedDateTime.ofInstant(Instant.ofEpochMilli(time(index)), ZoneOffset.UTC);
+                }
+
+                @Override
+                public BigDecimal getOpen() {
+                    return open(index);
+                }
+
+                @Override
+                public BigDecimal getHigh() {
+                    return high(index);
+                }
+
+                @Override
+                public BigDecimal getLow() {
+                    return low(index);
+                }
+
+                @Override
+                public BigDecimal getClose() {
+                    return close(index);
+                }
+
+                @Override
+                public BigDecimal getVolumeWeightedAveragePrice() {
+                    return volumeWeightedAveragePrice(index);
+                }
+
+                @Override
+                public BigDecimal getVolume() {
+                    return volume(index);
+                }
+
+                @Override
+                public Integer getCount() {
+                    return count(index);
+                }
+            };
+        }
+
+        private ByteBuffer record(int index) {
+            int offset = offset(index);
+            return records.duplicate().position(offset).limit(offset + RECORD_SIZE);
+        }
+
+        private int offset(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            }
+            return index * RECORD_SIZE;
+        }
+
+        /**
+         * @return the index of the first candle at or after the time, {@link #size()} if there is none.
+         */
+        int lowerBound(long time) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (records.getLong(middle * RECORD_SIZE) < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private Range slice(int start, int end) {
+            if (start == 0 && end == size) {
+                return this;
+            }
+            // a duplicate keeps the shared buffer's position untouched for concurrent readers
+            ByteBuffer slice = records.duplicate().position(start * RECORD_SIZE).limit(end * RECORD_SIZE).slice();
+            return new Range(slice.order(ByteOrder.LITTLE_ENDIAN), end - start);
+        }
+    }
+}
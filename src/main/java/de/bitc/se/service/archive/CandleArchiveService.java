@@ -0,0 +1,234 @@
+package de.bitc.se.service.archive;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.projection.OhlcValues;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service moving cold candles out of the {@code ohlc} table into a {@link CandleArchive} per {@link Chart}.
+ * <p>
+ * The compaction appends the candles older than the configured horizon to the archive of their chart, in chunks of
+ * {@code application.archive.batch-size} candles with one transaction per chunk. A chunk is committed to the archive
+ * before exactly its candles are deleted from the database, the tuples referring to them keep their time but lose
+ * their candle. Candles written at or before the last archived time after a compaction, by a backfill, an import or
+ * a correction, are merged into the archive by the next compaction and replace the archived candles of the same time.
+ * If the database transaction fails, the next compaction merges the candles again, so a candle is never lost nor
+ * archived twice.
+ * <p>
+ * The compaction is one-way: the archived candles are read by {@link #getArchivedCandles}, which the windows of
+ * {@link de.bitc.se.service.OhlcService} and the warm-up of the indicators merge with the stored candles, but they are
+ * no longer computed or repaired by the calculations.
+ */
+@Service
+public class CandleArchiveService {
+
+    private static final String FILE_SUFFIX = ".candles";
+
+    /**
+     * Lower bound of the candle times read for an empty archive.
+     */
+    private static final ZonedDateTime BEGINNING = ZonedDateTime.parse("1900-01-01T00:00:00Z");
+
+    private final Logger log = LoggerFactory.getLogger(CandleArchiveService.class);
+
+    private final ApplicationProperties.Archive properties;
+
+    private final ChartRepository chartRepository;
+
+    private final OhlcRepository ohlcRepository;
+
+    private final TupleRepository tupleRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final Map<Long, CandleArchive> archives = new ConcurrentHashMap<>();
+
+    public CandleArchiveService(
+        ApplicationProperties applicationProperties,
+        ChartRepository chartRepository,
+        OhlcRepository ohlcRepository,
+        TupleRepository tupleRepository,
+        TransactionTemplate transactionTemplate,
+        ApplicationEventPublisher applicationEventPublisher
+    ) {
+        this.properties = applicationProperties.getArchive();
+        this.chartRepository = chartRepository;
+        this.ohlcRepository = ohlcRepository;
+        this.tupleRepository = tupleRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    /**
+     * Get the archived candles of a chart in a time range.
+     *
+     * @param chartId the id of the chart.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @return the candles, a view on the archive file, or empty if the chart has no archive.
+     */
+    public Optional<CandleArchive.Range> getArchivedCandles(Long chartId, ZonedDateTime from, ZonedDateTime to) {
+        return getArchive(chartId, false).map(archive -> archive.range(from.toInstant().toEpochMilli(), to.toInstant().toEpochMilli()));
+    }
+
+    /**
+     * Compact the candles of all charts older than the configured horizon, when the archive is enabled.
+     */
+    @Scheduled(cron = "${application.archive.cron}")
+    public void compactAll() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ZonedDateTime before = ZonedDateTime.now(ZoneOffset.UTC).minus(properties.getHorizon());
+        log.debug("Compact candles before {}", before);
+        for (Chart chart : chartRepository.findAll()) {
+            try {
+                compact(chart.getId(), before);
+            } catch (RuntimeException e) {
+                log.warn("Compaction of Chart {} failed: {}", chart.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Move the candles of a chart before a time into its archive.
+     *
+     * @param chartId the id of the chart.
+     * @param before the time the candles are before, exclusive.
+     * @return the number of candles moved.
+     */
+    public long compact(Long chartId, ZonedDateTime before) {
+        Optional<CandleArchive> archive = getArchive(chartId, true);
+        if (archive.isEmpty()) {
+            return 0;
+        }
+        long moved = 0;
+        int chunk;
+        // the archive lock keeps concurrent compactions of the chart apart
+        synchronized (archive.get()) {
+            do {
+                Integer count = transactionTemplate.execute(status -> moveChunk(archive.get(), chartId, before));
+                chunk = count != null ? count : 0;
+                moved += chunk;
+            } while (chunk > 0);
+        }
+        if (moved > 0) {
+            log.debug("Moved {} candles of Chart {} into {}", moved, chartId, archive.get().getFile());
+            applicationEventPublisher.publishEvent(new CandlesInvalidatedEvent(chartId));
+        }
+        return moved;
+    }
+
+    /**
+     * Move the next chunk of candles into the archive: the candles at or before the last archived time are merged,
+     * else the candles after it are appended.
+     *
+     * @return the number of candles moved.
+     */
+    private int moveChunk(CandleArchive archive, Long chartId, ZonedDateTime before) {
+        long lastTime = archive.lastTime();
+        PageRequest chunkSize = PageRequest.of(0, properties.getBatchSize());
+        List<OhlcValues> chunk;
+        try {
+            chunk = List.of();
+            if (lastTime != Long.MIN_VALUE) {
+                ZonedDateTime archivedUntil = toTime(lastTime + 1);
+                ZonedDateTime mergeBefore = archivedUntil.isBefore(before) ? archivedUntil : before;
+                chunk = ohlcRepository.findValuesByChartIdBetween(chartId, BEGINNING, mergeBefore, chunkSize);
+            }
+            if (!chunk.isEmpty()) {
+                archive.merge(chunk);
+            } else {
+                ZonedDateTime after = lastTime == Long.MIN_VALUE ? BEGINNING : toTime(lastTime);
+                chunk = ohlcRepository.findValuesByChartIdBetween(chartId, after, before, chunkSize);
+                for (OhlcValues ohlc : chunk) {
+                    archive.append(ohlc);
+                }
+                archive.commit();
+            }
+        } catch (IOException e) {
+            archive.discard();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            archive.discard();
+            throw e;
+        }
+        if (!chunk.isEmpty()) {
+            List<Long> ids = chunk.stream().map(OhlcValues::getId).collect(Collectors.toList());
+            tupleRepository.detachOhlcs(ids);
+            ohlcRepository.deleteAllByIdInBatch(ids);
+        }
+        return chunk.size();
+    }
+
+    private Optional<CandleArchive> getArchive(Long chartId, boolean create) {
+        CandleArchive archive = archives.get(chartId);
+        if (archive != null) {
+            return Optional.of(archive);
+        }
+        Optional<Chart> chart = chartRepository.findById(chartId);
+        if (chart.isEmpty()) {
+            return Optional.empty();
+        }
+        Path file = Paths.get(properties.getDirectory(), "chart-" + chartId + "-" + chart.get().getTimeRange().getId() + FILE_SUFFIX);
+        if (!create && !Files.exists(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(
+            archives.computeIfAbsent(
+                chartId,
+                id -> {
+                    try {
+                        Files.createDirectories(file.getParent());
+                        return CandleArchive.open(file, id, chart.get().getTimeRange().getId());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            )
+        );
+    }
+
+    private static ZonedDateTime toTime(long epochMillis) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    @PreDestroy
+    public void close() {
+        for (CandleArchive archive : archives.values()) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                log.warn("Closing {} failed: {}", archive.getFile(), e.getMessage());
+            }
+        }
+        archives.clear();
+    }
+}
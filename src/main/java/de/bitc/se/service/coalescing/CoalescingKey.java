@@ -0,0 +1,105 @@
+package de.bitc.se.service.coalescing;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Key of a request coalesced by the {@link RequestCoalescer}: the operation and its arguments.
+ * <p>
+ * The chart and the calculation whose writes change the result are part of the key as well, they drop the result
+ * when they are written.
+ */
+public final class CoalescingKey {
+
+    private final String operation;
+
+    private final Long chartId;
+
+    private final Long calculationId;
+
+    private final List<Object> arguments;
+
+    private CoalescingKey(String operation, Long chartId, Long calculationId, Object[] arguments) {
+        this.operation = Objects.requireNonNull(operation);
+        this.chartId = chartId;
+        this.calculationId = calculationId;
+        this.arguments = Arrays.asList(arguments.clone());
+    }
+
+    /**
+     * Create the key of an operation reading the candles of a chart.
+     *
+     * @param operation the name of the operation.
+     * @param chartId the id of the chart.
+     * @param arguments the arguments of the operation, compared with {@code equals}.
+     * @return the key.
+     */
+    public static CoalescingKey ofChart(String operation, Long chartId, Object... arguments) {
+        return new CoalescingKey(operation, chartId, null, arguments);
+    }
+
+    /**
+     * Create the key of an operation reading the tuples of a calculation and the candles of its chart.
+     *
+     * @param operation the name of the operation.
+     * @param chartId the id of the chart of the calculation.
+     * @param calculationId the id of the calculation.
+     * @param arguments the arguments of the operation, compared with {@code equals}.
+     * @return the key.
+     */
+    public static CoalescingKey ofCalculation(String operation, Long chartId, Long calculationId, Object... arguments) {
+        return new CoalescingKey(operation, chartId, calculationId, arguments);
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public Long getChartId() {
+        return chartId;
+    }
+
+    public Long getCalculationId() {
+        return calculationId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CoalescingKey)) {
+            return false;
+        }
+        CoalescingKey that = (CoalescingKey) o;
+        return (
+            operation.equals(that.operation) &&
+            Objects.equals(chartId, that.chartId) &&
+            Objects.equals(calculationId, that.calculationId) &&
+            arguments.equals(that.arguments)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(operation, chartId, calculationId, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "CoalescingKey{" +
+            "operation='" +
+            operation +
+            "'" +
+            ", chartId=" +
+            chartId +
+            ", calculationId=" +
+            calculationId +
+            ", arguments=" +
+            arguments +
+            "}"
+        );
+    }
+}
@@ -0,0 +1,167 @@
+package de.bitc.se.service.coalescing;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import de.bitc.se.service.event.TuplesWrittenEvent;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service coalescing concurrent identical expensive reads, so that they cost one execution.
+ * <p>
+ * The first caller of a {@link CoalescingKey} runs the read in its own thread and transaction, the callers of the same
+ * key arriving meanwhile wait for its {@link CompletableFuture} and share its result. The result is kept for
+ * {@code application.coalescing.time-to-live} after it is read, unless the chart or the calculation of the key is
+ * written before; a failed read is not kept. The results are shared between the callers, they must not be modified.
+ */
+@Service
+public class RequestCoalescer {
+
+    private final Logger log = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final long timeToLiveNanos;
+
+    private final int maxSize;
+
+    private final LongSupplier nanoTime;
+
+    private final Map<CoalescingKey, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * A read in progress or done.
+     */
+    private static final class Flight {
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private volatile long completedAt;
+
+        private volatile boolean completed;
+    }
+
+    @Autowired
+    public RequestCoalescer(ApplicationProperties applicationProperties) {
+        this(applicationProperties.getCoalescing().getTimeToLive(), applicationProperties.getCoalescing().getMaxSize(), System::nanoTime);
+    }
+
+    RequestCoalescer(Duration timeToLive, int maxSize, LongSupplier nanoTime) {
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.maxSize = maxSize;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Read the result of a key, or share the result of the read in progress or kept for the same key.
+     *
+     * @param key the key of the read.
+     * @param reader the read, run by the first caller only.
+     * @param <T> the type of the result.
+     * @return the result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(CoalescingKey key, Supplier<T> reader) {
+        while (true) {
+            Flight flight = flights.get(key);
+            if (flight != null && !isExpired(flight)) {
+                return (T) join(flight);
+            }
+            Flight own = new Flight();
+            boolean leading = flight == null ? flights.putIfAbsent(key, own) == null : flights.replace(key, flight, own);
+            if (leading) {
+                return lead(key, own, reader);
+            }
+        }
+    }
+
+    /**
+     * Drop the results of the reads of a chart.
+     *
+     * @param chartId the id of the chart.
+     */
+    public void invalidateChart(Long chartId) {
+        flights.keySet().removeIf(key -> Objects.equals(chartId, key.getChartId()));
+    }
+
+    /**
+     * Drop the results of the reads of a calculation.
+     *
+     * @param calculationId the id of the calculation.
+     */
+    public void invalidateCalculation(Long calculationId) {
+        flights.keySet().removeIf(key -> Objects.equals(calculationId, key.getCalculationId()));
+    }
+
+    /**
+     * @return the number of reads in progress or kept.
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCandlesWritten(CandlesWrittenEvent event) {
+        invalidateChart(event.getChartId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCandlesInvalidated(CandlesInvalidatedEvent event) {
+        invalidateChart(event.getChartId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTuplesWritten(TuplesWrittenEvent event) {
+        invalidateCalculation(event.getCalculationId());
+    }
+
+    private <T> T lead(CoalescingKey key, Flight flight, Supplier<T> reader) {
+        if (flights.size() > maxSize) {
+            flights.values().removeIf(this::isExpired);
+        }
+        T value;
+        try {
+            value = reader.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        flight.completedAt = nanoTime.getAsLong();
+        flight.completed = true;
+        if (timeToLiveNanos <= 0) {
+            flights.remove(key, flight);
+        }
+        flight.result.complete(value);
+        return value;
+    }
+
+    private Object join(Flight flight) {
+        try {
+            return flight.result.join();
+        } catch (CompletionException e) {
+            log.debug("Shared read failed: {}", e.getCause().toString());
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isExpired(Flight flight) {
+        return flight.completed && nanoTime.getAsLong() - flight.completedAt >= timeToLiveNanos;
+    }
+}
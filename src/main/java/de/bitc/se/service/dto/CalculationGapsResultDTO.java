@@ -0,0 +1,59 @@
+package de.bitc.se.service.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The gaps of a calculation: their number and the first of them, at most {@code application.job.max-gaps}.
+ */
+public class CalculationGapsResultDTO {
+
+    private final Long calculationId;
+
+    private final long count;
+
+    private final List<CalculationRepairDTO> gaps;
+
+    public CalculationGapsResultDTO(Long calculationId, long count, List<CalculationRepairDTO> gaps) {
+        this.calculationId = calculationId;
+        this.count = count;
+        this.gaps = List.copyOf(gaps);
+    }
+
+    public Long getCalculationId() {
+        return calculationId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public List<CalculationRepairDTO> getGaps() {
+        return gaps;
+    }
+
+    /**
+     * @return true if the calculation has more gaps than {@link #getGaps()}.
+     */
+    public boolean isTruncated() {
+        return count > gaps.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CalculationGapsResultDTO that = (CalculationGapsResultDTO) o;
+        return count == that.count && Objects.equals(calculationId, that.calculationId) && Objects.equals(gaps, that.gaps);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(calculationId, count, gaps);
+    }
+
+    @Override
+    public String toString() {
+        return "CalculationGapsResultDTO{" + "calculationId=" + calculationId + ", count=" + count + ", gaps=" + gaps + "}";
+    }
+}
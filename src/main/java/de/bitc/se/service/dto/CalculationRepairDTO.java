@@ -41,4 +41,9 @@ public class CalculationRepairDTO {
     public int hashCode() {
         return Objects.hash(time, rangeSize);
     }
+
+    @Override
+    public String toString() {
+        return "CalculationRepairDTO{" + "time=" + time + ", rangeSize=" + rangeSize + "}";
+    }
 }
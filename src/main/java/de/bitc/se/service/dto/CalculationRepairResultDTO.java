@@ -0,0 +1,51 @@
+package de.bitc.se.service.dto;
+
+import java.util.Objects;
+
+/**
+ * The outcome of the repair of a calculation: the number of recomputed windows and the tuples written in them.
+ */
+public class CalculationRepairResultDTO {
+
+    private final Long calculationId;
+
+    private final long windows;
+
+    private final long tuples;
+
+    public CalculationRepairResultDTO(Long calculationId, long windows, long tuples) {
+        this.calculationId = calculationId;
+        this.windows = windows;
+        this.tuples = tuples;
+    }
+
+    public Long getCalculationId() {
+        return calculationId;
+    }
+
+    public long getWindows() {
+        return windows;
+    }
+
+    public long getTuples() {
+        return tuples;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CalculationRepairResultDTO that = (CalculationRepairResultDTO) o;
+        return windows == that.windows && tuples == that.tuples && Objects.equals(calculationId, that.calculationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(calculationId, windows, tuples);
+    }
+
+    @Override
+    public String toString() {
+        return "CalculationRepairResultDTO{" + "calculationId=" + calculationId + ", windows=" + windows + ", tuples=" + tuples + "}";
+    }
+}
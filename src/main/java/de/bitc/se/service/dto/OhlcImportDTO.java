@@ -0,0 +1,40 @@
+package de.bitc.se.service.dto;
+
+/**
+ * The result of a bulk import of candles.
+ */
+public class OhlcImportDTO {
+
+    private final Long chartId;
+
+    private final long rows;
+
+    private final long durationMillis;
+
+    public OhlcImportDTO(Long chartId, long rows, long durationMillis) {
+        this.chartId = chartId;
+        this.rows = rows;
+        this.durationMillis = durationMillis;
+    }
+
+    public Long getChartId() {
+        return chartId;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return durationMillis > 0 ? rows * 1000 / durationMillis : rows;
+    }
+
+    @Override
+    public String toString() {
+        return "OhlcImportDTO{" + "chartId=" + chartId + ", rows=" + rows + ", durationMillis=" + durationMillis + "}";
+    }
+}
@@ -0,0 +1,129 @@
+package de.bitc.se.service.dto;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * A window of a time series (the candles of a chart or the tuples of a calculation).
+ * <p>
+ * The window is the half-open range {@code [from, to)}. When a keyset cursor {@code (afterTime, afterId)} is given,
+ * only rows strictly after the cursor are part of the window. Rows are ordered by {@code (time, id)}.
+ */
+public class TimeSeriesQueryDTO {
+
+    private static final ZonedDateTime MIN_TIME = ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final ZonedDateTime MAX_TIME = ZonedDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private final Long seriesId;
+
+    private final ZonedDateTime from;
+
+    private final ZonedDateTime to;
+
+    private final ZonedDateTime afterTime;
+
+    private final Long afterId;
+
+    private final Integer limit;
+
+    public TimeSeriesQueryDTO(Long seriesId, ZonedDateTime from, ZonedDateTime to, ZonedDateTime afterTime, Long afterId, Integer limit) {
+        this.seriesId = seriesId;
+        this.from = from;
+        this.to = to;
+        this.afterTime = afterTime;
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    public Long getSeriesId() {
+        return seriesId;
+    }
+
+    public ZonedDateTime getFrom() {
+        return from;
+    }
+
+    public ZonedDateTime getTo() {
+        return to;
+    }
+
+    public ZonedDateTime getAfterTime() {
+        return afterTime;
+    }
+
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return {@code true} if the query selects the whole table, without series or time restriction.
+     */
+    public boolean isUnrestricted() {
+        return seriesId == null && from == null && to == null && afterTime == null && afterId == null;
+    }
+
+    /**
+     * @return {@code true} if the window starts at the keyset cursor rather than at {@code from}.
+     */
+    public boolean isKeyset() {
+        return afterTime != null && (from == null || !from.isAfter(afterTime));
+    }
+
+    public ZonedDateTime getEffectiveFrom() {
+        return from != null ? from : MIN_TIME;
+    }
+
+    public ZonedDateTime getEffectiveTo() {
+        return to != null ? to : MAX_TIME;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TimeSeriesQueryDTO)) {
+            return false;
+        }
+        TimeSeriesQueryDTO that = (TimeSeriesQueryDTO) o;
+        return (
+            Objects.equals(seriesId, that.seriesId) &&
+            Objects.equals(from, that.from) &&
+            Objects.equals(to, that.to) &&
+            Objects.equals(afterTime, that.afterTime) &&
+            Objects.equals(afterId, that.afterId) &&
+            Objects.equals(limit, that.limit)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seriesId, from, to, afterTime, afterId, limit);
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "TimeSeriesQueryDTO{" +
+            "seriesId=" +
+            seriesId +
+            ", from=" +
+            from +
+            ", to=" +
+            to +
+            ", afterTime=" +
+            afterTime +
+            ", afterId=" +
+            afterId +
+            ", limit=" +
+            limit +
+            "}"
+        );
+    }
+}
@@ -0,0 +1,50 @@
+package de.bitc.se.service.event;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Published when candles of a chart have been deleted, moved to another time or chart, or written in bulk.
+ * The candles are not part of the event, listeners holding candles of the chart must read them again.
+ * Candles written in bulk are within the time range of the event, when it has one.
+ */
+public class CandlesInvalidatedEvent {
+
+    private final Long chartId;
+
+    private final ZonedDateTime from;
+
+    private final ZonedDateTime until;
+
+    public CandlesInvalidatedEvent(Long chartId) {
+        this(chartId, null, null);
+    }
+
+    public CandlesInvalidatedEvent(Long chartId, ZonedDateTime from, ZonedDateTime until) {
+        this.chartId = chartId;
+        this.from = from;
+        this.until = until;
+    }
+
+    public Long getChartId() {
+        return chartId;
+    }
+
+    /**
+     * @return the time of the first written candle, inclusive, or {@code null} if the range is unknown.
+     */
+    public ZonedDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the time of the last written candle, inclusive, or {@code null} if the range is unknown.
+     */
+    public ZonedDateTime getUntil() {
+        return until;
+    }
+
+    @Override
+    public String toString() {
+        return "CandlesInvalidatedEvent{" + "chartId=" + chartId + ", from=" + from + ", until=" + until + "}";
+    }
+}
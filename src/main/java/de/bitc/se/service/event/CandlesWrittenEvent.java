@@ -0,0 +1,35 @@
+package de.bitc.se.service.event;
+
+import de.bitc.se.domain.Ohlc;
+import java.util.List;
+
+/**
+ * Published when candles of a chart have been inserted or updated, keyed on their time.
+ */
+public class CandlesWrittenEvent {
+
+    private final Long chartId;
+
+    private final List<Ohlc> ohlcs;
+
+    public CandlesWrittenEvent(Long chartId, List<Ohlc> ohlcs) {
+        this.chartId = chartId;
+        this.ohlcs = ohlcs;
+    }
+
+    public Long getChartId() {
+        return chartId;
+    }
+
+    /**
+     * @return the written candles, one per time. They must not be modified.
+     */
+    public List<Ohlc> getOhlcs() {
+        return ohlcs;
+    }
+
+    @Override
+    public String toString() {
+        return "CandlesWrittenEvent{" + "chartId=" + chartId + ", ohlcs=" + ohlcs.size() + "}";
+    }
+}
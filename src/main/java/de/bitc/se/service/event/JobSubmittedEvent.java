@@ -0,0 +1,22 @@
+package de.bitc.se.service.event;
+
+/**
+ * Published when a job has been queued, the job is started after the commit.
+ */
+public class JobSubmittedEvent {
+
+    private final Long jobId;
+
+    public JobSubmittedEvent(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    @Override
+    public String toString() {
+        return "JobSubmittedEvent{" + "jobId=" + jobId + "}";
+    }
+}
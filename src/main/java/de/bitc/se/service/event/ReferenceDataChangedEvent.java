@@ -0,0 +1,25 @@
+package de.bitc.se.service.event;
+
+/**
+ * Published when pairs, assets, time ranges or fees have been created, updated or deleted.
+ */
+public class ReferenceDataChangedEvent {
+
+    private final String entityName;
+
+    public ReferenceDataChangedEvent(String entityName) {
+        this.entityName = entityName;
+    }
+
+    /**
+     * @return the name of the changed entity, e.g. {@code pair}.
+     */
+    public String getEntityName() {
+        return entityName;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceDataChangedEvent{" + "entityName='" + entityName + "'" + "}";
+    }
+}
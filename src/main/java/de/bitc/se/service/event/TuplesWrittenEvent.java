@@ -0,0 +1,35 @@
+package de.bitc.se.service.event;
+
+import de.bitc.se.domain.Tuple;
+import java.util.List;
+
+/**
+ * Published when tuples of a calculation have been computed or recomputed, keyed on their time.
+ */
+public class TuplesWrittenEvent {
+
+    private final Long calculationId;
+
+    private final List<Tuple> tuples;
+
+    public TuplesWrittenEvent(Long calculationId, List<Tuple> tuples) {
+        this.calculationId = calculationId;
+        this.tuples = tuples;
+    }
+
+    public Long getCalculationId() {
+        return calculationId;
+    }
+
+    /**
+     * @return the written tuples, one per time. They must not be modified.
+     */
+    public List<Tuple> getTuples() {
+        return tuples;
+    }
+
+    @Override
+    public String toString() {
+        return "TuplesWrittenEvent{" + "calculationId=" + calculationId + ", tuples=" + tuples.size() + "}";
+    }
+}
@@ -0,0 +1,129 @@
+package de.bitc.se.service.feed;
+
+import de.bitc.se.domain.Ohlc;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * A candle received from the exchange feed, a reusable slot of the {@link FeedRingBuffer}.
+ * <p>
+ * The prices and the volume are kept as unscaled values with their scale, the decimal strings of the feed are parsed
+ * into the slot without creating objects. The {@link Ohlc} is only created when the candle is written.
+ */
+public class FeedCandle {
+
+    public static final int OPEN = 0;
+    public static final int HIGH = 1;
+    public static final int LOW = 2;
+    public static final int CLOSE = 3;
+    public static final int VOLUME_WEIGHTED_AVERAGE_PRICE = 4;
+    public static final int VOLUME = 5;
+
+    private static final int DECIMALS = 6;
+
+    private long chartId;
+
+    private long time;
+
+    private final long[] unscaled = new long[DECIMALS];
+
+    private final int[] scales = new int[DECIMALS];
+
+    private int count;
+
+    /**
+     * @return the id of the chart of the candle.
+     */
+    public long getChartId() {
+        return chartId;
+    }
+
+    public void setChartId(long chartId) {
+        this.chartId = chartId;
+    }
+
+    /**
+     * @return the start of the time range of the candle, in epoch milliseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    /**
+     * Set a decimal value.
+     *
+     * @param field the value, e.g. {@link #OPEN}.
+     * @param unscaledValue the unscaled value.
+     * @param scale the number of digits after the decimal point.
+     */
+    public void setDecimal(int field, long unscaledValue, int scale) {
+        unscaled[field] = unscaledValue;
+        scales[field] = scale;
+    }
+
+    /**
+     * @param field the value, e.g. {@link #OPEN}.
+     * @return the decimal value.
+     */
+    public BigDecimal getDecimal(int field) {
+        return BigDecimal.valueOf(unscaled[field], scales[field]);
+    }
+
+    /**
+     * Copy the values of another candle.
+     */
+    public void copyFrom(FeedCandle other) {
+        chartId = other.chartId;
+        time = other.time;
+        System.arraycopy(other.unscaled, 0, unscaled, 0, DECIMALS);
+        System.arraycopy(other.scales, 0, scales, 0, DECIMALS);
+        count = other.count;
+    }
+
+    /**
+     * @return the candle as a new {@link Ohlc}, without chart.
+     */
+    public Ohlc toOhlc() {
+        return new Ohlc()
+            .time(ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC))
+            .open(getDecimal(OPEN))
+            .high(getDecimal(HIGH))
+            .low(getDecimal(LOW))
+            .close(getDecimal(CLOSE))
+            .volumeWeightedAveragePrice(getDecimal(VOLUME_WEIGHTED_AVERAGE_PRICE))
+            .volume(getDecimal(VOLUME))
+            .count(count);
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "FeedCandle{" +
+            "chartId=" +
+            chartId +
+            ", time=" +
+            Instant.ofEpochMilli(time) +
+            ", open=" +
+            getDecimal(OPEN) +
+            ", close=" +
+            getDecimal(CLOSE) +
+            ", volume=" +
+            getDecimal(VOLUME) +
+            "}"
+        );
+    }
+}
@@ -0,0 +1,106 @@
+package de.bitc.se.service.feed;
+
+import de.bitc.se.domain.Ohlc;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Consumer of the {@link FeedRingBuffer} writing the received candles in batches.
+ * <p>
+ * The feed sends the forming candle of a pair again on every trade, so the candles are collected per chart and time
+ * and only the latest state of a candle is written. The collected candles are written once {@code batchSize} candles
+ * are waiting or the oldest waits for {@code flushInterval}, with one call of the writer per chart. A batch that
+ * cannot be written is dropped, the forming candle is written again with its next update.
+ */
+public class FeedCandleWriter {
+
+    private final Logger log = LoggerFactory.getLogger(FeedCandleWriter.class);
+
+    private final FeedRingBuffer.Consumer consumer;
+
+    private final BiConsumer<Long, List<Ohlc>> writer;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final Map<Long, Map<Long, FeedCandle>> pending = new HashMap<>();
+
+    private int pendingCount;
+
+    private long pendingSince;
+
+    private long written;
+
+    /**
+     * @param consumer the consumer of the ring.
+     * @param writer writes the candles of a chart.
+     * @param batchSize the number of waiting candles written together.
+     * @param flushIntervalNanos the maximum time a candle waits, in nanoseconds.
+     */
+    public FeedCandleWriter(FeedRingBuffer.Consumer consumer, BiConsumer<Long, List<Ohlc>> writer, int batchSize, long flushIntervalNanos) {
+        this.consumer = consumer;
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushIntervalNanos;
+    }
+
+    /**
+     * Read the published candles and write the waiting candles when they are due.
+     *
+     * @return the number of candles read.
+     */
+    public int drain() {
+        int read = consumer.poll(this::add, batchSize);
+        if (pendingCount >= batchSize || (pendingCount > 0 && System.nanoTime() - pendingSince >= flushIntervalNanos)) {
+            flush();
+        }
+        return read;
+    }
+
+    /**
+     * Write the waiting candles.
+     */
+    public void flush() {
+        for (Map.Entry<Long, Map<Long, FeedCandle>> chart : pending.entrySet()) {
+            List<Ohlc> ohlcs = new ArrayList<>(chart.getValue().size());
+            for (FeedCandle candle : chart.getValue().values()) {
+                ohlcs.add(candle.toOhlc());
+            }
+            try {
+                writer.accept(chart.getKey(), ohlcs);
+                written += ohlcs.size();
+            } catch (RuntimeException e) {
+                log.error("Writing {} Ohlcs of Chart {} from the feed failed: {}", ohlcs.size(), chart.getKey(), e.getMessage());
+            }
+        }
+        pending.clear();
+        pendingCount = 0;
+    }
+
+    /**
+     * @return the number of candles written.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    private void add(FeedCandle candle) {
+        Map<Long, FeedCandle> chart = pending.computeIfAbsent(candle.getChartId(), chartId -> new LinkedHashMap<>());
+        FeedCandle waiting = chart.get(candle.getTime());
+        if (waiting == null) {
+            waiting = new FeedCandle();
+            chart.put(candle.getTime(), waiting);
+            if (pendingCount++ == 0) {
+                pendingSince = System.nanoTime();
+            }
+        }
+        waiting.copyFrom(candle);
+    }
+}
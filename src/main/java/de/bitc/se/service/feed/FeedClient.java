@@ -0,0 +1,197 @@
+package de.bitc.se.service.feed;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client of the exchange WebSocket feed, publishing the received candles into a {@link FeedRingBuffer}.
+ * <p>
+ * The client subscribes to the OHLC channel of each pair with the interval of its chart. The fragments of a message
+ * are collected in a reused buffer and the message is decoded by the {@link KrakenOhlcDecoder} straight into the
+ * claimed slot of the ring; the client is the only producer of the ring. The next message is requested once a message
+ * is handled, so a full ring holds the feed back. The connection is opened again after {@code reconnectDelay} when it
+ * is closed or fails, until the client is closed.
+ */
+public class FeedClient implements WebSocket.Listener {
+
+    private final Logger log = LoggerFactory.getLogger(FeedClient.class);
+
+    private final URI uri;
+
+    private final List<FeedSubscription> subscriptions;
+
+    private final FeedRingBuffer ring;
+
+    private final KrakenOhlcDecoder decoder;
+
+    private final Duration reconnectDelay;
+
+    private final HttpClient httpClient;
+
+    private final StringBuilder message = new StringBuilder(512);
+
+    private final AtomicLong received = new AtomicLong();
+
+    private final AtomicLong decoded = new AtomicLong();
+
+    private volatile WebSocket webSocket;
+
+    private volatile boolean closed;
+
+    /**
+     * @param uri the URI of the feed.
+     * @param subscriptions the subscribed pairs.
+     * @param ring the ring the candles are published into.
+     * @param connectTimeout the timeout of the opening handshake.
+     * @param reconnectDelay the delay before a closed connection is opened again.
+     */
+    public FeedClient(
+        URI uri,
+        List<FeedSubscription> subscriptions,
+        FeedRingBuffer ring,
+        Duration connectTimeout,
+        Duration reconnectDelay
+    ) {
+        this.uri = uri;
+        this.subscriptions = List.copyOf(subscriptions);
+        this.ring = ring;
+        this.decoder = new KrakenOhlcDecoder(subscriptions);
+        this.reconnectDelay = reconnectDelay;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(connectTimeout).build();
+    }
+
+    /**
+     * Open the connection, it is opened again if it fails.
+     */
+    public void connect() {
+        if (closed) {
+            return;
+        }
+        log.debug("Connecting to {}", uri);
+        httpClient
+            .newWebSocketBuilder()
+            .buildAsync(uri, this)
+            .whenComplete((socket, e) -> {
+                if (e != null) {
+                    log.warn("Connecting to {} failed: {}", uri, e.toString());
+                    reconnect();
+                }
+            });
+    }
+
+    /**
+     * Close the connection, it is not opened again.
+     */
+    public void close() {
+        closed = true;
+        WebSocket socket = webSocket;
+        if (socket != null) {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "").exceptionally(e -> null);
+        }
+    }
+
+    public boolean isConnected() {
+        WebSocket socket = webSocket;
+        return socket != null && !socket.isInputClosed();
+    }
+
+    /**
+     * @return the number of messages received.
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * @return the number of candles published.
+     */
+    public long getDecoded() {
+        return decoded.get();
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        log.info("Connected to {}, subscribing to {} pairs", uri, subscriptions.size());
+        this.webSocket = webSocket;
+        message.setLength(0);
+        CompletableFuture<WebSocket> sent = CompletableFuture.completedFuture(webSocket);
+        // a message can only be sent once the previous one is sent
+        for (FeedSubscription subscription : subscriptions) {
+            sent = sent.thenCompose(socket -> socket.sendText(subscribeMessage(subscription), true));
+        }
+        sent.exceptionally(e -> {
+            log.warn("Subscribing to {} failed: {}", uri, e.toString());
+            return null;
+        });
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        message.append(data);
+        if (last) {
+            received.incrementAndGet();
+            handle(message);
+            message.setLength(0);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        log.info("Connection to {} closed: {} {}", uri, statusCode, reason);
+        this.webSocket = null;
+        reconnect();
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        log.warn("Connection to {} failed: {}", uri, error.toString());
+        this.webSocket = null;
+        reconnect();
+    }
+
+    private void handle(CharSequence text) {
+        FeedCandle candle = ring.claim();
+        if (decoder.decode(text, candle)) {
+            ring.publish();
+            decoded.incrementAndGet();
+        } else if (text.length() > 0 && text.charAt(0) == '{') {
+            // the events are rare, mostly heartbeats and subscription statuses
+            String event = text.toString();
+            if (event.contains("\"status\":\"error\"")) {
+                log.warn("Error of {}: {}", uri, event);
+            } else {
+                log.debug("Event of {}: {}", uri, event);
+            }
+        }
+    }
+
+    private void reconnect() {
+        if (closed) {
+            return;
+        }
+        CompletableFuture.delayedExecutor(reconnectDelay.toMillis(), TimeUnit.MILLISECONDS).execute(this::connect);
+    }
+
+    static String subscribeMessage(FeedSubscription subscription) {
+        return (
+            "{\"event\":\"subscribe\",\"pair\":[\"" +
+            subscription.getPairName() +
+            "\"],\"subscription\":{\"name\":\"ohlc\",\"interval\":" +
+            subscription.getInterval() +
+            "}}"
+        );
+    }
+}
@@ -0,0 +1,157 @@
+package de.bitc.se.service.feed;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded ring of preallocated {@link FeedCandle}s handed from one producer to several consumers without locks.
+ * <p>
+ * Every consumer reads every published candle in order, with its own sequence. The producer fills the slot returned by
+ * {@link #claim()} and makes it visible with {@link #publish()}; it waits while the slot still holds a candle not read
+ * by the slowest consumer, so a slow consumer slows the feed down instead of losing candles. The slots are reused, a
+ * consumer must copy the values it keeps beyond its handler.
+ */
+public class FeedRingBuffer {
+
+    /**
+     * Reads the published candles of the ring.
+     */
+    public final class Consumer {
+
+        private final AtomicLong sequence;
+
+        private Consumer(long sequence) {
+            this.sequence = new AtomicLong(sequence);
+        }
+
+        /**
+         * Hand the published candles not read yet to a handler.
+         *
+         * @param handler the handler, the candle must not be kept.
+         * @param limit the maximum number of candles to read.
+         * @return the number of candles read.
+         */
+        public int poll(java.util.function.Consumer<FeedCandle> handler, int limit) {
+            long current = sequence.get();
+            long end = Math.min(published.get(), current + limit);
+            for (long next = current + 1; next <= end; next++) {
+                handler.accept(slots[(int) next & mask]);
+            }
+            if (end <= current) {
+                return 0;
+            }
+            sequence.lazySet(end);
+            return (int) (end - current);
+        }
+
+        /**
+         * @return the number of published candles not read yet.
+         */
+        public long getLag() {
+            return published.get() - sequence.get();
+        }
+
+        /**
+         * Stop reading, the producer no longer waits for this consumer.
+         */
+        public void close() {
+            consumers.remove(this);
+        }
+    }
+
+    private final FeedCandle[] slots;
+
+    private final int mask;
+
+    private final AtomicLong published = new AtomicLong(-1);
+
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+
+    // owned by the producer
+    private long next;
+
+    private long gate = -1;
+
+    /**
+     * @param size the number of slots, a power of two.
+     */
+    public FeedRingBuffer(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("The size of the ring must be a power of two: " + size);
+        }
+        this.slots = new FeedCandle[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new FeedCandle();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add a consumer reading the candles published from now on.
+     */
+    public Consumer addConsumer() {
+        Consumer consumer = new Consumer(published.get());
+        consumers.add(consumer);
+        return consumer;
+    }
+
+    /**
+     * Return the slot of the next candle, waiting until all consumers have read its previous candle. Until
+     * {@link #publish()} is called, the same slot is returned again.
+     *
+     * @return the slot to fill.
+     */
+    public FeedCandle claim() {
+        long wrap = next - slots.length;
+        if (wrap > gate) {
+            gate = awaitConsumers(wrap);
+        }
+        return slots[(int) next & mask];
+    }
+
+    /**
+     * Make the claimed candle visible to the consumers.
+     */
+    public void publish() {
+        published.lazySet(next++);
+    }
+
+    public int getSize() {
+        return slots.length;
+    }
+
+    private long awaitConsumers(long wrap) {
+        int idles = 0;
+        while (true) {
+            long min = Long.MAX_VALUE;
+            for (Consumer consumer : consumers) {
+                min = Math.min(min, consumer.sequence.get());
+            }
+            if (min == Long.MAX_VALUE) {
+                // without consumers the candles are overwritten
+                return next - 1;
+            }
+            if (min >= wrap) {
+                return min;
+            }
+            idle(idles++);
+        }
+    }
+
+    /**
+     * Wait a little for the other side: spin first, then yield and finally park.
+     *
+     * @param idles the number of times waited in a row.
+     */
+    public static void idle(int idles) {
+        if (idles < 100) {
+            Thread.onSpinWait();
+        } else if (idles < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(100_000L);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package de.bitc.se.service.feed;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.projection.ChartReference;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.service.OhlcService;
+import de.bitc.se.service.reference.ReferenceDataService;
+import de.bitc.se.service.reference.ReferencePair;
+import de.bitc.se.service.reference.ReferenceTimeRange;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service ingesting the candles of the exchange WebSocket feed, enabled by {@code application.feed.enabled}.
+ * <p>
+ * Each pair of the {@link ReferenceDataService} with a {@link ReferencePair#getWebSocketPairName()} is subscribed
+ * with the time range of its base chart, its enabled chart with the shortest time range. The {@link FeedClient}
+ * publishes the received candles into a {@link FeedRingBuffer}, which is read by the {@link FeedCandleWriter} on its
+ * own thread. The candles are written with {@link OhlcService#saveAll(Long, List)}, so the derived charts are rolled
+ * up, the calculations computed and the subscribers of the chart updated from their
+ * {@link de.bitc.se.service.event.CandlesWrittenEvent}s.
+ */
+@Service
+public class FeedService {
+
+    private static final long IDLE_NANOS = 1_000_000L;
+
+    private final Logger log = LoggerFactory.getLogger(FeedService.class);
+
+    private final ApplicationProperties.Feed properties;
+
+    private final ReferenceDataService referenceDataService;
+
+    private final ChartRepository chartRepository;
+
+    private final OhlcService ohlcService;
+
+    private FeedClient client;
+
+    private FeedCandleWriter writer;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    public FeedService(
+        ApplicationProperties applicationProperties,
+        ReferenceDataService referenceDataService,
+        ChartRepository chartRepository,
+        OhlcService ohlcService
+    ) {
+        this.properties = applicationProperties.getFeed();
+        this.referenceDataService = referenceDataService;
+        this.chartRepository = chartRepository;
+        this.ohlcService = ohlcService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * Subscribe the pairs on the feed of {@code application.feed.url} and write their candles.
+     *
+     * @return {@code true} if the feed is started, {@code false} if it is running or there is no pair to subscribe.
+     */
+    public synchronized boolean start() {
+        if (running) {
+            return false;
+        }
+        List<FeedSubscription> subscriptions = subscriptions();
+        if (subscriptions.isEmpty()) {
+            log.warn("No Pair with a WebSocket pair name and a Chart to subscribe to on the feed");
+            return false;
+        }
+        FeedRingBuffer ring = new FeedRingBuffer(properties.getRingSize());
+        writer = new FeedCandleWriter(
+            ring.addConsumer(),
+            ohlcService::saveAll,
+            properties.getBatchSize(),
+            properties.getFlushInterval().toNanos()
+        );
+        running = true;
+        writerThread = new Thread(this::write, "querybug-feed-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        client = new FeedClient(
+            URI.create(properties.getUrl()),
+            subscriptions,
+            ring,
+            properties.getConnectTimeout(),
+            properties.getReconnectDelay()
+        );
+        client.connect();
+        log.info("Started the feed of {} with {} subscriptions", properties.getUrl(), subscriptions.size());
+        return true;
+    }
+
+    /**
+     * Close the feed, the waiting candles are written.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        client.close();
+        running = false;
+        try {
+            writerThread.join(properties.getFlushInterval().toMillis() + 10_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Stopped the feed of {} after {} candles", properties.getUrl(), writer.getWritten());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return the subscriptions of the pairs with a WebSocket pair name, one per pair with an enabled chart.
+     */
+    public List<FeedSubscription> subscriptions() {
+        // the charts of all pairs are read at once, their range sizes are looked up in the reference data
+        Map<Long, List<ChartReference>> chartsByPair = chartRepository
+            .findAllReferences()
+            .stream()
+            .filter(chart -> chart.getPairId() != null && !Boolean.TRUE.equals(chart.getDisabled()))
+            .collect(Collectors.groupingBy(ChartReference::getPairId));
+        List<FeedSubscription> subscriptions = new ArrayList<>();
+        for (ReferencePair pair : referenceDataService.getSnapshot().getPairs()) {
+            if (pair.getWebSocketPairName() == null || pair.getWebSocketPairName().isBlank()) {
+                continue;
+            }
+            subscription(pair, chartsByPair.getOrDefault(pair.getId(), List.of())).ifPresent(subscriptions::add);
+        }
+        return subscriptions;
+    }
+
+    /**
+     * @return the subscription of the pair to its base chart, the enabled chart with the shortest time range.
+     */
+    private Optional<FeedSubscription> subscription(ReferencePair pair, List<ChartReference> charts) {
+        ChartReference base = null;
+        int baseSize = Integer.MAX_VALUE;
+        for (ChartReference chart : charts) {
+            Integer rangeSize = referenceDataService
+                .findTimeRange(chart.getTimeRangeId())
+                .map(ReferenceTimeRange::getRangeSize)
+                .orElse(null);
+            if (rangeSize != null && rangeSize > 0 && rangeSize < baseSize) {
+                base = chart;
+                baseSize = rangeSize;
+            }
+        }
+        return base != null ? Optional.of(new FeedSubscription(pair.getWebSocketPairName(), base.getId(), baseSize)) : Optional.empty();
+    }
+
+    private void write() {
+        try {
+            while (running) {
+                if (writer.drain() == 0) {
+                    // the feed sends a few messages per second, a millisecond is short enough
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+            writer.drain();
+        } finally {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package de.bitc.se.service.feed;
+
+import java.util.Objects;
+
+/**
+ * The subscription of the candles of a pair on the exchange feed, written to the base chart of the pair.
+ */
+public class FeedSubscription {
+
+    private final String pairName;
+
+    private final long chartId;
+
+    private final int interval;
+
+    /**
+     * @param pairName the name of the pair on the feed, {@link de.bitc.se.domain.Pair#getWebSocketPairName()}.
+     * @param chartId the id of the chart the candles are written to.
+     * @param interval the time range of the candles in minutes.
+     */
+    public FeedSubscription(String pairName, long chartId, int interval) {
+        this.pairName = pairName;
+        this.chartId = chartId;
+        this.interval = interval;
+    }
+
+    public String getPairName() {
+        return pairName;
+    }
+
+    public long getChartId() {
+        return chartId;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FeedSubscription)) {
+            return false;
+        }
+        FeedSubscription that = (FeedSubscription) o;
+        return chartId == that.chartId && interval == that.interval && pairName.equals(that.pairName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(pairName, chartId, interval);
+    }
+
+    @Override
+    public String toString() {
+        return "FeedSubscription{" + "pairName='" + pairName + "'" + ", chartId=" + chartId + ", interval=" + interval + "}";
+    }
+}
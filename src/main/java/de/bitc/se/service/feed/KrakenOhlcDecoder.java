@@ -0,0 +1,219 @@
+package de.bitc.se.service.feed;
+
+import java.util.List;
+
+/**
+ * Decoder of the OHLC messages of the Kraken WebSocket API into {@link FeedCandle}s.
+ * <p>
+ * An OHLC message is an array of the channel id, the candle, the channel name and the pair name, e.g.
+ * {@code [42,["1542057314.748456","1542057360.435743","3586.7","3586.7","3586.6","3586.6","3586.68894","0.03373",2],"ohlc-5","XBT/EUR"]}.
+ * The candle holds the time of the update, the end of the time range, open, high, low, close, the volume weighted
+ * average price, the volume and the count. The message is scanned once without creating objects; the pair is looked
+ * up among the subscriptions and the time of the candle is the start of the time range of the update. Other messages,
+ * the events, are not decoded. A decoder must be used by one thread at a time.
+ */
+public class KrakenOhlcDecoder {
+
+    private static final String CHANNEL_PREFIX = "ohlc-";
+
+    private static final int MAX_DIGITS = 18;
+
+    private final String[] pairNames;
+
+    private final long[] chartIds;
+
+    private final int[] intervals;
+
+    private CharSequence message;
+
+    private int pos;
+
+    private long unscaled;
+
+    private int scale;
+
+    public KrakenOhlcDecoder(List<FeedSubscription> subscriptions) {
+        int size = subscriptions.size();
+        this.pairNames = new String[size];
+        this.chartIds = new long[size];
+        this.intervals = new int[size];
+        for (int i = 0; i < size; i++) {
+            FeedSubscription subscription = subscriptions.get(i);
+            pairNames[i] = subscription.getPairName();
+            chartIds[i] = subscription.getChartId();
+            intervals[i] = subscription.getInterval();
+        }
+    }
+
+    /**
+     * Decode a message into a candle.
+     *
+     * @param message the message.
+     * @param candle the candle, its values are undefined if the message is not decoded.
+     * @return {@code true} if the message is the OHLC message of a subscribed pair and interval.
+     */
+    public boolean decode(CharSequence message, FeedCandle candle) {
+        this.message = message;
+        this.pos = 0;
+        try {
+            return decode(candle);
+        } finally {
+            this.message = null;
+        }
+    }
+
+    private boolean decode(FeedCandle candle) {
+        if (!expect('[') || !number() || !expect(',') || !expect('[')) {
+            return false;
+        }
+        if (!decimal()) {
+            return false;
+        }
+        long seconds = scale == 0 ? unscaled : unscaled / pow10(scale);
+        // the end of the time range is not used
+        if (!expect(',') || !decimal()) {
+            return false;
+        }
+        for (int field = FeedCandle.OPEN; field <= FeedCandle.VOLUME; field++) {
+            if (!expect(',') || !decimal()) {
+                return false;
+            }
+            candle.setDecimal(field, unscaled, scale);
+        }
+        if (!expect(',') || !decimal() || scale != 0 || unscaled > Integer.MAX_VALUE) {
+            return false;
+        }
+        candle.setCount((int) unscaled);
+        if (!expect(']') || !expect(',') || !expect('"') || !skip(CHANNEL_PREFIX) || !number()) {
+            return false;
+        }
+        int interval = (int) unscaled;
+        if (!expect('"') || !expect(',') || !expect('"')) {
+            return false;
+        }
+        int subscription = pair(interval);
+        if (subscription < 0) {
+            return false;
+        }
+        long range = interval * 60L;
+        candle.setChartId(chartIds[subscription]);
+        candle.setTime((seconds - Math.floorMod(seconds, range)) * 1000L);
+        return true;
+    }
+
+    /**
+     * Read the quoted pair name up to the closing quote and look it up among the subscriptions of the interval.
+     *
+     * @return the index of the subscription, or -1.
+     */
+    private int pair(int interval) {
+        int start = pos;
+        int end = start;
+        while (end < message.length() && message.charAt(end) != '"') {
+            end++;
+        }
+        if (end == message.length()) {
+            return -1;
+        }
+        pos = end + 1;
+        for (int i = 0; i < pairNames.length; i++) {
+            if (intervals[i] == interval && matches(pairNames[i], start, end)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(String name, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != message.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a decimal, quoted or not, into {@link #unscaled} and {@link #scale}.
+     */
+    private boolean decimal() {
+        skipWhitespace();
+        boolean quoted = pos < message.length() && message.charAt(pos) == '"';
+        if (quoted) {
+            pos++;
+        }
+        boolean negative = pos < message.length() && message.charAt(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        int fraction = -1;
+        while (pos < message.length()) {
+            char c = message.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        if (digits == 0 || (quoted && !expect('"'))) {
+            return false;
+        }
+        unscaled = negative ? -value : value;
+        scale = Math.max(fraction, 0);
+        return true;
+    }
+
+    private boolean number() {
+        return decimal() && scale == 0;
+    }
+
+    private boolean expect(char expected) {
+        skipWhitespace();
+        if (pos < message.length() && message.charAt(pos) == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean skip(String prefix) {
+        if (message.length() - pos < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (message.charAt(pos + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        pos += prefix.length();
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (pos < message.length() && Character.isWhitespace(message.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,177 @@
+package de.bitc.se.service.generator;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Ohlc;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the candles of one chart from a seed, the same settings and seed generate the same candles.
+ * <p>
+ * The price follows a geometric Brownian motion sampled {@value #STEPS} times per candle: the open is the close of
+ * the previous candle, high and low are the extremes of the path and the volume weighted average price is its mean.
+ * The volume is log-normal around the median volume of a one minute candle, multiplied by the length of the time
+ * range. A volume burst multiplies the volume by {@code burst-factor} and the volatility by its square root for a
+ * geometrically distributed number of candles.
+ * <p>
+ * A left out candle is a gap, the price moves on unseen. A duplicate is an unfinished version of the next candle with
+ * the same time, it is returned right before the finished candle, so the last candle of a time wins as on the bulk
+ * path.
+ */
+public class MarketDataGenerator implements Iterator<Ohlc> {
+
+    private static final int STEPS = 4;
+
+    private static final double MINUTES_PER_YEAR = 365.25 * 24 * 60;
+
+    private static final double MIN_PRICE = 0.01;
+
+    /**
+     * Mean size of a trade, the count of a candle is its volume divided by it.
+     */
+    private static final double TRADE_SIZE = 0.05;
+
+    private final ApplicationProperties.Generator settings;
+
+    private final SplittableRandom random;
+
+    private final long rangeMillis;
+
+    private final double dt;
+
+    private final int candles;
+
+    private long time;
+
+    private double price;
+
+    private int burst;
+
+    private int generated;
+
+    private Ohlc next;
+
+    private Ohlc pending;
+
+    /**
+     * @param settings the settings of the generator.
+     * @param seed the seed of this chart.
+     * @param rangeSize the time range of a candle in minutes.
+     */
+    public MarketDataGenerator(ApplicationProperties.Generator settings, long seed, int rangeSize) {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("Invalid range size " + rangeSize);
+        }
+        this.settings = settings;
+        this.random = new SplittableRandom(seed);
+        this.rangeMillis = rangeSize * 60_000L;
+        this.dt = rangeSize / MINUTES_PER_YEAR;
+        this.candles = settings.getCandles();
+        long start = settings.getStart().toInstant().toEpochMilli();
+        this.time = start - Math.floorMod(start, rangeMillis);
+        this.price = settings.getInitialPrice();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending != null) {
+            return true;
+        }
+        while (next == null && generated < candles) {
+            generate();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Ohlc next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Ohlc result;
+        if (pending != null) {
+            result = pending;
+            pending = null;
+        } else {
+            result = next;
+            next = null;
+        }
+        return result;
+    }
+
+    private void generate() {
+        if (burst > 0) {
+            burst--;
+        } else if (random.nextDouble() < settings.getBurstProbability()) {
+            burst = geometric(settings.getBurstLength());
+        }
+        double factor = burst > 0 ? settings.getBurstFactor() : 1.0;
+        double sigma = settings.getVolatility() * Math.sqrt(factor);
+        double drift = (settings.getDrift() - sigma * sigma / 2) * dt / STEPS;
+        double diffusion = sigma * Math.sqrt(dt / STEPS);
+
+        double open = price;
+        double high = open;
+        double low = open;
+        double sum = 0;
+        double unfinished = open;
+        for (int i = 0; i < STEPS; i++) {
+            price = Math.max(MIN_PRICE, price * Math.exp(drift + diffusion * gaussian()));
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            sum += price;
+            if (i == STEPS / 2 - 1) {
+                unfinished = price;
+            }
+        }
+        double volume = settings.getVolume() * (rangeMillis / 60_000.0) * factor * Math.exp(0.5 * gaussian());
+
+        ZonedDateTime candleTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC);
+        time += rangeMillis;
+        generated++;
+        if (random.nextDouble() < settings.getGapProbability()) {
+            return;
+        }
+        next = candle(candleTime, open, high, low, price, sum / STEPS, volume);
+        if (random.nextDouble() < settings.getDuplicateProbability()) {
+            pending = candle(candleTime, open, Math.max(open, unfinished), Math.min(open, unfinished), unfinished, unfinished, volume / 2);
+        }
+    }
+
+    private static Ohlc candle(ZonedDateTime time, double open, double high, double low, double close, double vwap, double volume) {
+        return new Ohlc()
+            .time(time)
+            .open(decimal(open))
+            .high(decimal(high))
+            .low(decimal(low))
+            .close(decimal(close))
+            .volumeWeightedAveragePrice(decimal(vwap))
+            .volume(decimal(volume))
+            .count((int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(volume / TRADE_SIZE))));
+    }
+
+    private static BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(Math.round(value * 100), 2);
+    }
+
+    private int geometric(int mean) {
+        if (mean <= 1) {
+            return 1;
+        }
+        return 1 + (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - 1.0 / mean));
+    }
+
+    /**
+     * @return a standard normal value, by the Box-Muller transform.
+     */
+    private double gaussian() {
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+}
@@ -0,0 +1,49 @@
+package de.bitc.se.service.generator;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.config.Constants;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates the candles of {@code application.generator} on startup with the {@code generator} profile, like the
+ * {@code faker} context of Liquibase loads its sample data.
+ * <p>
+ * From the command line, with {@code application.generator.exit} the application exits once the candles are written:
+ * <pre>
+ * ./mvnw -Dspring-boot.run.profiles=dev,generator \
+ *     -Dspring-boot.run.arguments="--application.generator.pairs=10 --application.generator.candles=1000000 --application.generator.exit=true"
+ * </pre>
+ */
+@Component
+@Profile(Constants.SPRING_PROFILE_GENERATOR)
+public class MarketDataGeneratorRunner implements ApplicationRunner {
+
+    private final MarketDataGeneratorService marketDataGeneratorService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ConfigurableApplicationContext context;
+
+    public MarketDataGeneratorRunner(
+        MarketDataGeneratorService marketDataGeneratorService,
+        ApplicationProperties applicationProperties,
+        ConfigurableApplicationContext context
+    ) {
+        this.marketDataGeneratorService = marketDataGeneratorService;
+        this.applicationProperties = applicationProperties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        marketDataGeneratorService.generate();
+        if (applicationProperties.getGenerator().isExit()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package de.bitc.se.service.generator;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Asset;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Pair;
+import de.bitc.se.domain.TimeRange;
+import de.bitc.se.repository.AssetRepository;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.repository.PairRepository;
+import de.bitc.se.repository.TimeRangeRepository;
+import de.bitc.se.service.OhlcService;
+import de.bitc.se.service.dto.OhlcImportDTO;
+import de.bitc.se.service.event.ReferenceDataChangedEvent;
+import de.bitc.se.service.rollup.CandleRollupService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service writing synthetic candles generated by {@link MarketDataGenerator} for load and regression tests.
+ * <p>
+ * The generated pairs are named {@code GEN<n>/EUR}, each gets a chart per time range. The candles of a chart are
+ * imported on the bulk path, one transaction per chart. Only the charts not derived by {@link CandleRollupService} are
+ * generated, the base chart of a pair first, so its derived charts are rolled up from its candles once it is committed.
+ * The seed of a chart is derived from the seed of the settings, the pair and the time range, so generating again with
+ * the same settings writes the same candles.
+ */
+@Service
+public class MarketDataGeneratorService {
+
+    static final String QUOTE = "EUR";
+
+    static final String PREFIX = "GEN";
+
+    private final Logger log = LoggerFactory.getLogger(MarketDataGeneratorService.class);
+
+    private final ApplicationProperties.Generator properties;
+
+    private final AssetRepository assetRepository;
+
+    private final PairRepository pairRepository;
+
+    private final TimeRangeRepository timeRangeRepository;
+
+    private final ChartRepository chartRepository;
+
+    private final OhlcService ohlcService;
+
+    private final CandleRollupService candleRollupService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MarketDataGeneratorService(
+        ApplicationProperties applicationProperties,
+        AssetRepository assetRepository,
+        PairRepository pairRepository,
+        TimeRangeRepository timeRangeRepository,
+        ChartRepository chartRepository,
+        OhlcService ohlcService,
+        CandleRollupService candleRollupService,
+        ApplicationEventPublisher eventPublisher
+    ) {
+        this.properties = applicationProperties.getGenerator();
+        this.assetRepository = assetRepository;
+        this.pairRepository = pairRepository;
+        this.timeRangeRepository = timeRangeRepository;
+        this.chartRepository = chartRepository;
+        this.ohlcService = ohlcService;
+        this.candleRollupService = candleRollupService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Generate the candles of {@code application.generator}.
+     *
+     * @return the imports of the generated charts.
+     */
+    public List<OhlcImportDTO> generate() {
+        return generate(properties);
+    }
+
+    /**
+     * Generate the candles of the pairs of the settings for all time ranges.
+     *
+     * @param settings the settings of the generator.
+     * @return the imports of the generated charts.
+     */
+    public List<OhlcImportDTO> generate(ApplicationProperties.Generator settings) {
+        List<TimeRange> timeRanges = timeRangeRepository
+            .findAll()
+            .stream()
+            .filter(timeRange -> timeRange.getRangeSize() != null && timeRange.getRangeSize() > 0)
+            .sorted(Comparator.comparing(TimeRange::getRangeSize))
+            .collect(Collectors.toList());
+        long start = System.nanoTime();
+        List<OhlcImportDTO> imports = new ArrayList<>();
+        Asset quote = asset(QUOTE);
+        for (int i = 1; i <= settings.getPairs(); i++) {
+            Pair pair = pair(PREFIX + i, quote);
+            List<Chart> charts = charts(pair, timeRanges);
+            Set<Long> derived = new HashSet<>();
+            for (Chart chart : charts) {
+                if (derived.contains(chart.getId())) {
+                    continue;
+                }
+                int rangeSize = chart.getTimeRange().getRangeSize();
+                MarketDataGenerator generator = new MarketDataGenerator(settings, seed(settings.getSeed(), i, rangeSize), rangeSize);
+                imports.add(ohlcService.importOhlcs(chart.getId(), generator));
+                derived.addAll(candleRollupService.derivedChartIds(chart.getId()));
+            }
+        }
+        // the pairs and assets may be new
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent("pair"));
+        long rows = imports.stream().mapToLong(OhlcImportDTO::getRows).sum();
+        log.info(
+            "Generated {} Ohlcs of {} Charts of {} Pairs in {} ms",
+            rows,
+            imports.size(),
+            settings.getPairs(),
+            (System.nanoTime() - start) / 1_000_000
+        );
+        return imports;
+    }
+
+    /**
+     * @return the seed of the chart of a pair and time range.
+     */
+    static long seed(long seed, int pair, int rangeSize) {
+        return (seed * 31 + pair) * 31 + rangeSize;
+    }
+
+    private Asset asset(String name) {
+        return assetRepository
+            .findFirstByName(name)
+            .orElseGet(() -> assetRepository.saveAndFlush(new Asset().name(name).assetClass("currency")));
+    }
+
+    private Pair pair(String name, Asset quote) {
+        String pairName = name + "/" + quote.getName();
+        return pairRepository
+            .findFirstByName(pairName)
+            .orElseGet(() ->
+                pairRepository.saveAndFlush(new Pair().name(pairName).altname(name + quote.getName()).base(asset(name)).quote(quote))
+            );
+    }
+
+    /**
+     * @return the charts of the pair, one per time range, ordered by time range.
+     */
+    private List<Chart> charts(Pair pair, List<TimeRange> timeRanges) {
+        List<Chart> existing = chartRepository.findAllByPairId(pair.getId());
+        List<Chart> charts = new ArrayList<>(timeRanges.size());
+        for (TimeRange timeRange : timeRanges) {
+            charts.add(
+                existing
+                    .stream()
+                    .filter(chart -> chart.getTimeRange().getId().equals(timeRange.getId()))
+                    .findFirst()
+                    .orElseGet(() ->
+                        chartRepository.saveAndFlush(
+                            new Chart().name(pair.getName() + " " + timeRange.getName()).disabled(false).pair(pair).timeRange(timeRange)
+                        )
+                    )
+            );
+        }
+        return charts;
+    }
+}
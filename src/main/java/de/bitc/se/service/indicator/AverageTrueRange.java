@@ -0,0 +1,43 @@
+package de.bitc.se.service.indicator;
+
+/**
+ * Wilder's average of the true range, the range of a candle extended to the previous close.
+ */
+final class AverageTrueRange implements Indicator {
+
+    private final int period;
+
+    private double previousClose = Double.NaN;
+
+    private int count;
+
+    private double average;
+
+    AverageTrueRange(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public double next(double high, double low, double close, double volume) {
+        if (Double.isNaN(high) || Double.isNaN(low) || Double.isNaN(close)) {
+            return Double.NaN;
+        }
+        double trueRange = high - low;
+        if (!Double.isNaN(previousClose)) {
+            trueRange = Math.max(trueRange, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+        }
+        previousClose = close;
+        if (count < period) {
+            count++;
+            average += (trueRange - average) / count;
+            return count == period ? average : Double.NaN;
+        }
+        average = (average * (period - 1) + trueRange) / period;
+        return average;
+    }
+
+    @Override
+    public int warmUp() {
+        return 12 * period;
+    }
+}
@@ -0,0 +1,215 @@
+package de.bitc.se.service.indicator;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.projection.CalculationLag;
+import de.bitc.se.domain.projection.CalculationRange;
+import de.bitc.se.management.CalculationMetersService;
+import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Runs the computation of the calculations of the charts with new candles on the calculation executor.
+ * <p>
+ * The work is partitioned by chart: a chart is computed by one task at a time, which computes all its
+ * calculations in turn. A chart submitted while its task runs is computed once more by the same task, so a burst of
+ * candles results in at most one pending computation per chart. Charts are not submitted while threads wait for a
+ * database connection, nor when the queue of the executor is full; the next scheduled run picks them up.
+ * The scheduled run finds the indicator calculations lagging behind the closed candles of their chart, with one query
+ * per range size, and publishes their lag as a metric.
+ */
+@Service
+public class CalculationRunner {
+
+    private final Logger log = LoggerFactory.getLogger(CalculationRunner.class);
+
+    private final IndicatorService indicatorService;
+
+    private final CalculationRepository calculationRepository;
+
+    private final CalculationMetersService calculationMetersService;
+
+    private final Executor calculationExecutor;
+
+    private final HikariDataSource hikariDataSource;
+
+    private final boolean schedulerEnabled;
+
+    /**
+     * The charts submitted or being computed, mapped to whether they must be computed again.
+     */
+    private final Map<Long, Boolean> charts = new ConcurrentHashMap<>();
+
+    public CalculationRunner(
+        IndicatorService indicatorService,
+        CalculationRepository calculationRepository,
+        CalculationMetersService calculationMetersService,
+        @Qualifier("calculationExecutor") Executor calculationExecutor,
+        DataSource dataSource,
+        ApplicationProperties applicationProperties
+    ) {
+        this.indicatorService = indicatorService;
+        this.calculationRepository = calculationRepository;
+        this.calculationMetersService = calculationMetersService;
+        this.calculationExecutor = calculationExecutor;
+        this.hikariDataSource = unwrapHikari(dataSource);
+        this.schedulerEnabled = applicationProperties.getCalculation().isSchedulerEnabled();
+    }
+
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.calculation.scheduler-delay:PT5S}")
+    public void scheduledRun() {
+        if (schedulerEnabled) {
+            runLagging();
+        }
+    }
+
+    /**
+     * Submit the charts of the indicator calculations lagging behind their closed candles and track the lag of the
+     * calculations.
+     *
+     * @return the number of submitted charts.
+     */
+    public int runLagging() {
+        // only the indicators are computed, up to the last closed candle of their chart
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        Map<Integer, List<Long>> indicatorsByRangeSize = new HashMap<>();
+        for (CalculationRange calculation : calculationRepository.findEnabledRanges()) {
+            if (IndicatorType.fromName(calculation.getName()).isPresent()) {
+                indicatorsByRangeSize
+                    .computeIfAbsent(calculation.getRangeSize(), rangeSize -> new ArrayList<>())
+                    .add(calculation.getCalculationId());
+            }
+        }
+        List<CalculationLag> lagging = new ArrayList<>();
+        indicatorsByRangeSize.forEach((rangeSize, ids) ->
+            lagging.addAll(calculationRepository.findLagging(ids, IndicatorService.closedBefore(now, rangeSize)))
+        );
+        Set<Long> calculationIds = new HashSet<>();
+        Set<Long> chartIds = new LinkedHashSet<>();
+        for (CalculationLag lag : lagging) {
+            ZonedDateTime from = lag.getLast() != null ? lag.getLast() : lag.getFirst();
+            calculationMetersService.trackLag(lag.getCalculationId(), Duration.between(from, lag.getLatest()));
+            calculationIds.add(lag.getCalculationId());
+            chartIds.add(lag.getChartId());
+        }
+        calculationMetersService.resetLagExcept(calculationIds);
+        int submitted = 0;
+        for (Long chartId : chartIds) {
+            if (!submit(chartId)) {
+                break;
+            }
+            submitted++;
+        }
+        log.debug("Submitted {} of {} charts with lagging calculations", submitted, chartIds.size());
+        return submitted;
+    }
+
+    /**
+     * Submit the computation of the calculations of a chart.
+     *
+     * @param chartId the id of the chart.
+     * @return {@code false} if the computation was postponed because of backpressure.
+     */
+    public boolean submit(Long chartId) {
+        if (isPoolSaturated()) {
+            calculationMetersService.trackDeferredPoolSaturated();
+            return false;
+        }
+        boolean[] start = new boolean[1];
+        charts.compute(
+            chartId,
+            (id, again) -> {
+                start[0] = again == null;
+                return !start[0];
+            }
+        );
+        if (!start[0]) {
+            return true;
+        }
+        try {
+            calculationExecutor.execute(() -> run(chartId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            charts.remove(chartId);
+            calculationMetersService.trackDeferredExecutorFull();
+            return false;
+        }
+    }
+
+    private void run(Long chartId) {
+        do {
+            long start = System.nanoTime();
+            try {
+                indicatorService.calculateChart(chartId);
+            } catch (RuntimeException e) {
+                log.warn("Computation of the calculations of Chart {} failed: {}", chartId, e.getMessage());
+            }
+            calculationMetersService.trackRun(Duration.ofNanos(System.nanoTime() - start));
+        } while (finish(chartId));
+    }
+
+    /**
+     * @return {@code true} if the chart was submitted again while it was computed.
+     */
+    private boolean finish(Long chartId) {
+        boolean[] again = new boolean[1];
+        charts.compute(
+            chartId,
+            (id, submitted) -> {
+                again[0] = Boolean.TRUE.equals(submitted);
+                return again[0] ? Boolean.FALSE : null;
+            }
+        );
+        return again[0];
+    }
+
+    private boolean isPoolSaturated() {
+        HikariPoolMXBean pool = hikariDataSource != null ? hikariDataSource.getHikariPoolMXBean() : null;
+        return pool != null && pool.getThreadsAwaitingConnection() > 0;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCandlesWritten(CandlesWrittenEvent event) {
+        if (schedulerEnabled) {
+            submit(event.getChartId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCandlesInvalidated(CandlesInvalidatedEvent event) {
+        if (schedulerEnabled) {
+            submit(event.getChartId());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package de.bitc.se.service.indicator;
+
+/**
+ * The exponential moving average of the closes with the smoothing factor {@code 2 / (period + 1)}, seeded with the
+ * simple average of the first {@code period} closes.
+ */
+final class ExponentialMovingAverage implements Indicator {
+
+    private final int period;
+
+    private final double alpha;
+
+    private int count;
+
+    private double average;
+
+    ExponentialMovingAverage(int period) {
+        this.period = period;
+        this.alpha = 2.0 / (period + 1);
+    }
+
+    @Override
+    public double next(double high, double low, double close, double volume) {
+        if (Double.isNaN(close)) {
+            return Double.NaN;
+        }
+        if (count < period) {
+            count++;
+            average += (close - average) / count;
+            return count == period ? average : Double.NaN;
+        }
+        average += alpha * (close - average);
+        return average;
+    }
+
+    @Override
+    public int warmUp() {
+        return 6 * period;
+    }
+}
@@ -0,0 +1,27 @@
+package de.bitc.se.service.indicator;
+
+/**
+ * An indicator computed incrementally from the candles of a chart.
+ * <p>
+ * The candles are fed in time order, each one updates the rolling state in constant time and memory. An input
+ * needed by the indicator that is {@link Double#NaN} leaves the state unchanged.
+ */
+public interface Indicator {
+    /**
+     * Feed the next candle.
+     *
+     * @return the value of the indicator at this candle, {@link Double#NaN} while it has not seen enough candles.
+     */
+    double next(double high, double low, double close, double volume);
+
+    /**
+     * The number of candles to feed before the first computed one when the state is rebuilt, so that the values match
+     * those of an indicator fed with the whole history.
+     * <p>
+     * It is exact for the window indicators; for the exponentially smoothed ones the remaining weight of the
+     * older candles is below about {@code e^-10}.
+     *
+     * @return the number of candles.
+     */
+    int warmUp();
+}
@@ -0,0 +1,414 @@
+package de.bitc.se.service.indicator;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Calculation;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Tuple;
+import de.bitc.se.domain.projection.OhlcValues;
+import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.TupleJdbcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.CalculationService;
+import de.bitc.se.service.archive.CandleArchive;
+import de.bitc.se.service.archive.CandleArchiveService;
+import de.bitc.se.service.dto.CalculationRepairDTO;
+import de.bitc.se.service.dto.CalculationRepairResultDTO;
+import de.bitc.se.service.event.TuplesWrittenEvent;
+import de.bitc.se.service.reference.ReferenceDataService;
+import de.bitc.se.service.reference.ReferenceTimeRange;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service computing the {@link Tuple}s of the {@link Calculation}s whose name denotes an {@link IndicatorType}.
+ * <p>
+ * A calculation is computed from the first closed candle after {@link Calculation#getLast()} on, in chunks of
+ * {@code application.calculation.batch-size} candles with one transaction per chunk, which writes the tuples with one
+ * JDBC batch and moves {@code last} to the last candle of the chunk. The state of the indicator is kept in memory
+ * between the runs; it is rebuilt from the {@link Indicator#warmUp()} candles up to {@code last} after a restart or
+ * a failed chunk. The computations are run by the {@link CalculationRunner}.
+ * <p>
+ * Once the indicator has computed its first value, a candle it has no value for, e.g. a candle without volume for the
+ * {@link IndicatorType#VWAP}, gets a tuple without computation, so that the tuples of the calculation have no gap there.
+ * <p>
+ * The gaps of a calculation are repaired by recomputing only the windows around them, see
+ * {@link #repair(Long, CalculationRepairDTO)}.
+ * <p>
+ * The written tuples of a chunk or repaired window are published as a {@link TuplesWrittenEvent}.
+ */
+@Service
+public class IndicatorService {
+
+    private static final ZonedDateTime BEGINNING = ZonedDateTime.parse("1900-01-01T00:00:00Z");
+
+    private static final int COMPUTATION_SCALE = 2;
+
+    private final Logger log = LoggerFactory.getLogger(IndicatorService.class);
+
+    private final CalculationRepository calculationRepository;
+
+    private final OhlcRepository ohlcRepository;
+
+    private final TupleJdbcRepository tupleJdbcRepository;
+
+    private final TupleRepository tupleRepository;
+
+    private final CalculationService calculationService;
+
+    private final CandleArchiveService candleArchiveService;
+
+    private final ReferenceDataService referenceDataService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int batchSize;
+
+    private final Map<Long, State> states = new ConcurrentHashMap<>();
+
+    private final Map<Long, Object> locks = new ConcurrentHashMap<>();
+
+    public IndicatorService(
+        CalculationRepository calculationRepository,
+        OhlcRepository ohlcRepository,
+        TupleJdbcRepository tupleJdbcRepository,
+        TupleRepository tupleRepository,
+        CalculationService calculationService,
+        CandleArchiveService candleArchiveService,
+        ReferenceDataService referenceDataService,
+        TransactionTemplate transactionTemplate,
+        ApplicationEventPublisher eventPublisher,
+        ApplicationProperties applicationProperties
+    ) {
+        this.calculationRepository = calculationRepository;
+        this.ohlcRepository = ohlcRepository;
+        this.tupleJdbcRepository = tupleJdbcRepository;
+        this.tupleRepository = tupleRepository;
+        this.calculationService = calculationService;
+        this.candleArchiveService = candleArchiveService;
+        this.referenceDataService = referenceDataService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = applicationProperties.getCalculation().getBatchSize();
+    }
+
+    /**
+     * The indicator of a calculation, the time of the last candle it was fed with and whether it has computed a value.
+     */
+    private static final class State {
+
+        private final String name;
+
+        private final Indicator indicator;
+
+        private ZonedDateTime last;
+
+        private boolean started;
+
+        private State(String name, Indicator indicator) {
+            this.name = name;
+            this.indicator = indicator;
+        }
+    }
+
+    /**
+     * Compute the calculations of a chart.
+     *
+     * @param chartId the id of the chart.
+     * @return the number of tuples written.
+     */
+    public long calculateChart(Long chartId) {
+        long tuples = 0;
+        for (Calculation calculation : calculationRepository.findAllByChartId(chartId)) {
+            tuples += calculate(calculation.getId());
+        }
+        return tuples;
+    }
+
+    /**
+     * Compute the tuples of a calculation for the closed candles after its last computed one.
+     *
+     * @param calculationId the id of the calculation.
+     * @return the number of tuples written, 0 if the calculation does not exist, is disabled or is no indicator.
+     */
+    public long calculate(Long calculationId) {
+        Calculation calculation = calculationRepository.findById(calculationId).orElse(null);
+        if (calculation == null || Boolean.TRUE.equals(calculation.getDisabled())) {
+            return 0;
+        }
+        String name = calculation.getName();
+        if (IndicatorType.fromName(name).isEmpty()) {
+            return 0;
+        }
+        Long chartId = calculation.getChart().getId();
+        Integer rangeSize = referenceDataService
+            .findTimeRange(calculation.getChart().getTimeRange().getId())
+            .map(ReferenceTimeRange::getRangeSize)
+            .orElse(null);
+        ZonedDateTime before = closedBefore(ZonedDateTime.now(ZoneOffset.UTC), rangeSize);
+        long tuples = 0;
+        synchronized (locks.computeIfAbsent(calculationId, id -> new Object())) {
+            try {
+                State state = restore(calculationId, chartId, name, calculation.getLast());
+                int chunk;
+                do {
+                    int[] written = new int[1];
+                    Integer count = transactionTemplate.execute(status -> computeChunk(calculationId, chartId, state, before, written));
+                    chunk = count != null ? count : 0;
+                    tuples += written[0];
+                } while (chunk == batchSize);
+            } catch (RuntimeException e) {
+                // the indicator may be ahead of the committed tuples
+                states.remove(calculationId);
+                throw e;
+            }
+        }
+        log.debug("Computed {} tuples of Calculation {}", tuples, calculationId);
+        return tuples;
+    }
+
+    /**
+     * A candle is closed when its range has passed.
+     *
+     * @param now the current time.
+     * @param rangeSize the size of the time range of the chart in minutes, {@code null} for none.
+     * @return the time the closed candles are before.
+     */
+    static ZonedDateTime closedBefore(ZonedDateTime now, Integer rangeSize) {
+        return now.minusMinutes(rangeSize != null ? rangeSize : 0).plusNanos(1_000_000);
+    }
+
+    /**
+     * @return the kept state if it continues at {@code last}, else a state rebuilt from the warm-up candles.
+     */
+    private State restore(Long calculationId, Long chartId, String name, ZonedDateTime last) {
+        State state = states.get(calculationId);
+        if (state != null && state.name.equals(name) && sameTime(state.last, last)) {
+            return state;
+        }
+        state = new State(name, IndicatorType.fromName(name).orElseThrow());
+        state.last = last;
+        if (last != null) {
+            warmUp(state.indicator, chartId, last);
+            state.started = tupleRepository.findLatestTimeBefore(calculationId, last.plusNanos(1_000_000)) != null;
+        }
+        states.put(calculationId, state);
+        return state;
+    }
+
+    /**
+     * Feed the {@link Indicator#warmUp()} candles up to a time to an indicator, the missing ones from the
+     * {@link CandleArchive} of the chart when the older candles are archived.
+     */
+    private void warmUp(Indicator indicator, Long chartId, ZonedDateTime until) {
+        if (indicator.warmUp() == 0) {
+            return;
+        }
+        List<OhlcValues> candles = ohlcRepository.findValuesByChartIdUntilLatestFirst(
+            chartId,
+            until,
+            PageRequest.of(0, indicator.warmUp())
+        );
+        int missing = indicator.warmUp() - candles.size();
+        if (missing > 0) {
+            // the archived candles are all older than the stored ones
+            ZonedDateTime before = candles.isEmpty() ? until.plusNanos(1_000_000) : candles.get(candles.size() - 1).getTime();
+            candleArchiveService
+                .getArchivedCandles(chartId, BEGINNING, before)
+                .ifPresent(archived -> {
+                    for (int i = Math.max(0, archived.size() - missing); i < archived.size(); i++) {
+                        next(indicator, archived.values(i));
+                    }
+                });
+        }
+        for (int i = candles.size() - 1; i >= 0; i--) {
+            next(indicator, candles.get(i));
+        }
+    }
+
+    private int computeChunk(Long calculationId, Long chartId, State state, ZonedDateTime before, int[] written) {
+        ZonedDateTime after = state.last != null ? state.last : BEGINNING;
+        List<OhlcValues> candles = ohlcRepository.findValuesByChartIdBetween(chartId, after, before, PageRequest.of(0, batchSize));
+        if (candles.isEmpty()) {
+            return 0;
+        }
+        List<Tuple> tuples = compute(state.indicator, candles, state.started);
+        tupleJdbcRepository.insertAll(calculationId, tuples);
+        if (!tuples.isEmpty()) {
+            eventPublisher.publishEvent(new TuplesWrittenEvent(calculationId, tuples));
+            state.started = true;
+        }
+        ZonedDateTime last = candles.get(candles.size() - 1).getTime();
+        calculationRepository.findById(calculationId).ifPresent(calculation -> calculation.setLast(last));
+        state.last = last;
+        written[0] = tuples.size();
+        return candles.size();
+    }
+
+    /**
+     * Repair the tuples of a calculation at the gaps found by {@link CalculationService#calculationGaps}.
+     * <p>
+     * The gaps are detected and repaired in batches of {@code application.calculation.batch-size}, the detection of
+     * the next batch continues at the last repaired gap.
+     *
+     * @param calculationId the id of the calculation.
+     * @return the outcome of the repair, or empty if the calculation does not exist.
+     */
+    public Optional<CalculationRepairResultDTO> repair(Long calculationId) {
+        if (calculationRepository.findById(calculationId).isEmpty()) {
+            return Optional.empty();
+        }
+        List<CalculationRepairDTO> gaps = new ArrayList<>();
+        ZonedDateTime from = null;
+        long windows = 0;
+        long tuples = 0;
+        do {
+            gaps.clear();
+            calculationService.calculationGaps(calculationId, from, batchSize, gaps::add);
+            for (CalculationRepairDTO gap : gaps) {
+                long repaired = repair(calculationId, gap);
+                if (repaired >= 0) {
+                    windows++;
+                    tuples += repaired;
+                }
+            }
+            if (!gaps.isEmpty()) {
+                from = gaps.get(gaps.size() - 1).getTime();
+            }
+        } while (gaps.size() == batchSize);
+        log.debug("Repaired {} windows of Calculation {} with {} tuples", windows, calculationId, tuples);
+        return Optional.of(new CalculationRepairResultDTO(calculationId, windows, tuples));
+    }
+
+    /**
+     * Recompute the tuples of a calculation around a gap, in one transaction.
+     * <p>
+     * The window starts after the latest tuple before the gap, the indicator is warmed up with the candles up to it.
+     * It ends {@link Indicator#warmUp()} candles after the time of the gap, so that the values of the smoothed
+     * indicators after the gap are consistent again, but not after {@link Calculation#getLast()}. The tuples of the
+     * window are deleted and written again in batches. A window whose first candle is no longer in the database,
+     * because it was archived or deleted by the retention, is left as it is.
+     *
+     * @param calculationId the id of the calculation.
+     * @param gap the gap.
+     * @return the number of tuples written, -1 if the calculation cannot be repaired.
+     */
+    public long repair(Long calculationId, CalculationRepairDTO gap) {
+        Calculation calculation = calculationRepository.findById(calculationId).orElse(null);
+        if (calculation == null || Boolean.TRUE.equals(calculation.getDisabled())) {
+            return -1;
+        }
+        Optional<Indicator> indicator = IndicatorType.fromName(calculation.getName());
+        if (indicator.isEmpty()) {
+            return -1;
+        }
+        Long chartId = calculation.getChart().getId();
+        synchronized (locks.computeIfAbsent(calculationId, id -> new Object())) {
+            Long tuples = transactionTemplate.execute(status ->
+                repairWindow(calculationId, chartId, indicator.get(), gap.getTime(), calculation.getLast())
+            );
+            return tuples != null ? tuples : -1;
+        }
+    }
+
+    private long repairWindow(Long calculationId, Long chartId, Indicator indicator, ZonedDateTime time, ZonedDateTime last) {
+        ZonedDateTime previous = tupleRepository.findLatestTimeBefore(calculationId, time);
+        if (previous == null) {
+            return -1;
+        }
+        List<OhlcValues> first = ohlcRepository.findValuesByChartIdUntilLatestFirst(chartId, previous, PageRequest.of(0, 1));
+        if (first.isEmpty() || !first.get(0).getTime().isEqual(previous)) {
+            return -1;
+        }
+        ZonedDateTime until = time;
+        if (last != null && last.isAfter(time) && indicator.warmUp() > 0) {
+            List<OhlcValues> after = ohlcRepository.findValuesByChartIdBetween(
+                chartId,
+                time,
+                last.plusNanos(1_000_000),
+                PageRequest.of(0, indicator.warmUp())
+            );
+            if (!after.isEmpty()) {
+                until = after.get(after.size() - 1).getTime();
+            }
+        }
+        warmUp(indicator, chartId, previous);
+        tupleRepository.deleteByCalculationIdBetween(calculationId, previous, until);
+        ZonedDateTime before = until.plusNanos(1_000_000);
+        ZonedDateTime after = previous;
+        long written = 0;
+        List<OhlcValues> candles;
+        do {
+            candles = ohlcRepository.findValuesByChartIdBetween(chartId, after, before, PageRequest.of(0, batchSize));
+            // the window starts after a tuple, so the indicator has computed a value
+            List<Tuple> tuples = compute(indicator, candles, true);
+            tupleJdbcRepository.insertAll(calculationId, tuples);
+            if (!tuples.isEmpty()) {
+                eventPublisher.publishEvent(new TuplesWrittenEvent(calculationId, tuples));
+            }
+            written += tuples.size();
+            if (!candles.isEmpty()) {
+                after = candles.get(candles.size() - 1).getTime();
+            }
+        } while (candles.size() == batchSize);
+        log.debug("Repaired Calculation {} from {} until {} with {} tuples", calculationId, previous, until, written);
+        return written;
+    }
+
+    /**
+     * Feed candles to an indicator.
+     *
+     * @param started whether the indicator has computed a value before these candles.
+     * @return the tuples of the computed values, without calculation; once the indicator has computed a value, the
+     * tuples of the candles without value have no computation.
+     */
+    private static List<Tuple> compute(Indicator indicator, List<OhlcValues> candles, boolean started) {
+        List<Tuple> tuples = new ArrayList<>(candles.size());
+        for (OhlcValues candle : candles) {
+            double value = next(indicator, candle);
+            boolean computed = !Double.isNaN(value) && !Double.isInfinite(value);
+            if (computed || started) {
+                tuples.add(
+                    new Tuple()
+                        .time(candle.getTime())
+                        .computation(computed ? BigDecimal.valueOf(value).setScale(COMPUTATION_SCALE, RoundingMode.HALF_UP) : null)
+                        .ohlc(new Ohlc().id(candle.getId()))
+                );
+                started = true;
+            }
+        }
+        return tuples;
+    }
+
+    private static double next(Indicator indicator, OhlcValues candle) {
+        return indicator.next(
+            toDouble(candle.getHigh()),
+            toDouble(candle.getLow()),
+            toDouble(candle.getClose()),
+            toDouble(candle.getVolume())
+        );
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    private static boolean sameTime(ZonedDateTime a, ZonedDateTime b) {
+        return a == null ? b == null : b != null && a.toInstant().equals(b.toInstant());
+    }
+}
@@ -0,0 +1,73 @@
+package de.bitc.se.service.indicator;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The indicators a {@link de.bitc.se.domain.Calculation} can compute, selected by its name.
+ * <p>
+ * The name is the type, optionally followed by the period in parentheses, e.g. {@code SMA(50)}, {@code rsi} or
+ * {@code ATR (14)}. The period counts candles.
+ */
+public enum IndicatorType {
+    SMA(20, SimpleMovingAverage::new),
+    EMA(20, ExponentialMovingAverage::new),
+    RSI(14, RelativeStrengthIndex::new),
+    VWAP(20, VolumeWeightedAveragePrice::new),
+    ATR(14, AverageTrueRange::new);
+
+    private static final Pattern NAME = Pattern.compile("\\s*([A-Za-z]+)\\s*(?:\\(\\s*(\\d{1,6})\\s*\\))?\\s*");
+
+    private final int defaultPeriod;
+
+    private final IntFunction<Indicator> factory;
+
+    IndicatorType(int defaultPeriod, IntFunction<Indicator> factory) {
+        this.defaultPeriod = defaultPeriod;
+        this.factory = factory;
+    }
+
+    public int getDefaultPeriod() {
+        return defaultPeriod;
+    }
+
+    /**
+     * Create an indicator of this type.
+     *
+     * @param period the period, at least 1.
+     * @return the indicator, with an empty state.
+     */
+    public Indicator create(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("The period must be positive: " + period);
+        }
+        return factory.apply(period);
+    }
+
+    /**
+     * Create the indicator of a calculation name.
+     *
+     * @param name the name of the calculation.
+     * @return the indicator, or empty if the name does not denote one.
+     */
+    public static Optional<Indicator> fromName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = NAME.matcher(name);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        IndicatorType type;
+        try {
+            type = valueOf(matcher.group(1).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        int period = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : type.defaultPeriod;
+        return period < 1 ? Optional.empty() : Optional.of(type.create(period));
+    }
+}
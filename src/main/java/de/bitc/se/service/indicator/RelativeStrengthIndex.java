@@ -0,0 +1,57 @@
+package de.bitc.se.service.indicator;
+
+/**
+ * Wilder's relative strength index of the close changes, between 0 and 100.
+ */
+final class RelativeStrengthIndex implements Indicator {
+
+    private final int period;
+
+    private double previousClose = Double.NaN;
+
+    private int count;
+
+    private double averageGain;
+
+    private double averageLoss;
+
+    RelativeStrengthIndex(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public double next(double high, double low, double close, double volume) {
+        if (Double.isNaN(close)) {
+            return Double.NaN;
+        }
+        double previous = previousClose;
+        previousClose = close;
+        if (Double.isNaN(previous)) {
+            return Double.NaN;
+        }
+        double change = close - previous;
+        double gain = Math.max(change, 0);
+        double loss = Math.max(-change, 0);
+        if (count < period) {
+            // the first averages are simple averages
+            count++;
+            averageGain += (gain - averageGain) / count;
+            averageLoss += (loss - averageLoss) / count;
+            if (count < period) {
+                return Double.NaN;
+            }
+        } else {
+            averageGain = (averageGain * (period - 1) + gain) / period;
+            averageLoss = (averageLoss * (period - 1) + loss) / period;
+        }
+        if (averageLoss == 0) {
+            return averageGain == 0 ? 50 : 100;
+        }
+        return 100 - 100 / (1 + averageGain / averageLoss);
+    }
+
+    @Override
+    public int warmUp() {
+        return 12 * period;
+    }
+}
@@ -0,0 +1,38 @@
+package de.bitc.se.service.indicator;
+
+/**
+ * The average close of the last {@code period} candles.
+ */
+final class SimpleMovingAverage implements Indicator {
+
+    private final double[] closes;
+
+    private int index;
+
+    private int count;
+
+    private double sum;
+
+    SimpleMovingAverage(int period) {
+        this.closes = new double[period];
+    }
+
+    @Override
+    public double next(double high, double low, double close, double volume) {
+        if (Double.isNaN(close)) {
+            return Double.NaN;
+        }
+        sum += close - closes[index];
+        closes[index] = close;
+        index = (index + 1) % closes.length;
+        if (count < closes.length) {
+            count++;
+        }
+        return count == closes.length ? sum / closes.length : Double.NaN;
+    }
+
+    @Override
+    public int warmUp() {
+        return closes.length - 1;
+    }
+}
@@ -0,0 +1,47 @@
+package de.bitc.se.service.indicator;
+
+/**
+ * The average typical price {@code (high + low + close) / 3} of the last {@code period} candles weighted by their
+ * volume. The close is taken when the high or the low is missing.
+ */
+final class VolumeWeightedAveragePrice implements Indicator {
+
+    private final double[] prices;
+
+    private final double[] volumes;
+
+    private int index;
+
+    private int count;
+
+    private double priceVolume;
+
+    private double volume;
+
+    VolumeWeightedAveragePrice(int period) {
+        this.prices = new double[period];
+        this.volumes = new double[period];
+    }
+
+    @Override
+    public double next(double high, double low, double close, double volume) {
+        if (Double.isNaN(close) || Double.isNaN(volume)) {
+            return Double.NaN;
+        }
+        double price = Double.isNaN(high) || Double.isNaN(low) ? close : (high + low + close) / 3;
+        priceVolume += price * volume - prices[index] * volumes[index];
+        this.volume += volume - volumes[index];
+        prices[index] = price;
+        volumes[index] = volume;
+        index = (index + 1) % prices.length;
+        if (count < prices.length) {
+            count++;
+        }
+        return count == prices.length && this.volume > 0 ? priceVolume / this.volume : Double.NaN;
+    }
+
+    @Override
+    public int warmUp() {
+        return prices.length - 1;
+    }
+}
@@ -0,0 +1,198 @@
+package de.bitc.se.service.job;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Job;
+import de.bitc.se.domain.enumeration.JobType;
+import de.bitc.se.domain.projection.TupleTime;
+import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.TimeSeriesGapDetector;
+import de.bitc.se.service.dto.CalculationGapsResultDTO;
+import de.bitc.se.service.dto.CalculationRepairDTO;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Handler of the {@link JobType#CALCULATION_GAPS} jobs, the result is the {@link CalculationGapsResultDTO} with the
+ * number of gaps of the calculation and the first {@code application.job.max-gaps} of them.
+ * <p>
+ * The detection has the semantic of {@link de.bitc.se.service.CalculationService#calculationGaps}, but the candle and
+ * tuple times are read in chunks of {@code application.job.chunk-size}, each in its own transaction. The progress is
+ * the number of tuples read.
+ */
+@Service
+public class CalculationGapsJobHandler implements JobHandler {
+
+    private static final ZonedDateTime BEGINNING = ZonedDateTime.parse("1900-01-01T00:00:00Z");
+
+    private final Logger log = LoggerFactory.getLogger(CalculationGapsJobHandler.class);
+
+    private final CalculationRepository calculationRepository;
+
+    private final OhlcRepository ohlcRepository;
+
+    private final TupleRepository tupleRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final int maxGaps;
+
+    /**
+     * The series of a calculation, read before the detection.
+     */
+    private static final class Series {
+
+        private final Long chartId;
+
+        private final Integer rangeSize;
+
+        private final long tuples;
+
+        private Series(Long chartId, Integer rangeSize, long tuples) {
+            this.chartId = chartId;
+            this.rangeSize = rangeSize;
+            this.tuples = tuples;
+        }
+    }
+
+    public CalculationGapsJobHandler(
+        CalculationRepository calculationRepository,
+        OhlcRepository ohlcRepository,
+        TupleRepository tupleRepository,
+        TransactionTemplate transactionTemplate,
+        ApplicationProperties applicationProperties
+    ) {
+        this.calculationRepository = calculationRepository;
+        this.ohlcRepository = ohlcRepository;
+        this.tupleRepository = tupleRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = applicationProperties.getJob().getChunkSize();
+        this.maxGaps = applicationProperties.getJob().getMaxGaps();
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.CALCULATION_GAPS;
+    }
+
+    @Override
+    public Object run(Job job, JobProgress progress) {
+        List<CalculationRepairDTO> gaps = new ArrayList<>();
+        long[] count = new long[1];
+        detect(
+            job.getCalculationId(),
+            null,
+            Long.MAX_VALUE,
+            progress,
+            gap -> {
+                if (count[0]++ < maxGaps) {
+                    gaps.add(gap);
+                }
+            }
+        );
+        return new CalculationGapsResultDTO(job.getCalculationId(), count[0], gaps);
+    }
+
+    /**
+     * Find the times where the tuples of a calculation are inconsistent with the candles of its chart from a time on,
+     * in chunks, up to a number of inconsistencies. As with
+     * {@link de.bitc.se.service.CalculationService#calculationGaps(Long, ZonedDateTime, int, Consumer)}, the detection
+     * of the next inconsistencies continues at the time of the last one received.
+     *
+     * @param calculationId the id of the calculation.
+     * @param from the time to start at, {@code null} for the beginning of the series.
+     * @param limit the maximum number of inconsistencies, nothing is detected unless it is positive.
+     * @param progress the receiver of the number of tuples read.
+     * @param consumer the consumer receiving the inconsistencies in time order.
+     * @return the number of tuples read.
+     * @throws IllegalStateException if the calculation does not exist or the time range of its chart has no size.
+     */
+    public long detect(Long calculationId, ZonedDateTime from, long limit, JobProgress progress, Consumer<CalculationRepairDTO> consumer) {
+        if (limit <= 0) {
+            return 0;
+        }
+        Series series = transactionTemplate.execute(status ->
+            calculationRepository
+                .findById(calculationId)
+                .map(calculation ->
+                    new Series(
+                        calculation.getChart().getId(),
+                        calculation.getChart().getTimeRange().getRangeSize(),
+                        tupleRepository.countByCalculationId(calculationId)
+                    )
+                )
+                .orElse(null)
+        );
+        if (series == null) {
+            throw new IllegalStateException("Calculation " + calculationId + " does not exist");
+        }
+        if (series.rangeSize == null) {
+            throw new IllegalStateException("The time range of Calculation " + calculationId + " has no range size");
+        }
+        PageRequest chunk = PageRequest.of(0, chunkSize);
+        Iterator<ZonedDateTime> ohlcTimes = new ChunkedIterator<ZonedDateTime>(
+            last ->
+                transactionTemplate.execute(status -> {
+                    if (last == null && from != null) {
+                        return ohlcRepository.findTimesByChartIdFrom(series.chartId, from, chunk);
+                    }
+                    return ohlcRepository.findTimesByChartIdAfter(series.chartId, last != null ? last : BEGINNING, chunk);
+                }),
+            chunkSize
+        );
+        long[] read = new long[1];
+        Iterator<TupleTime> tuples = new ChunkedIterator<TupleTime>(
+            last -> {
+                progress.update(read[0], series.tuples);
+                List<TupleTime> times = transactionTemplate.execute(status ->
+                    // the key before all ids includes the tuples at the time to start at
+                    tupleRepository.findTimesByCalculationIdAfter(
+                        calculationId,
+                        last != null ? last.getTime() : from != null ? from : BEGINNING,
+                        last != null ? last.getId() : Long.MIN_VALUE,
+                        chunk
+                    )
+                );
+                read[0] += times.size();
+                return times;
+            },
+            chunkSize
+        );
+        Iterator<ZonedDateTime> tupleTimes = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return tuples.hasNext();
+            }
+
+            @Override
+            public ZonedDateTime next() {
+                return tuples.next().getTime();
+            }
+        };
+        long[] received = new long[1];
+        long gaps = TimeSeriesGapDetector.detect(
+            ohlcTimes,
+            tupleTimes,
+            Duration.ofMinutes(series.rangeSize),
+            (previous, time) -> {
+                consumer.accept(new CalculationRepairDTO(time.withZoneSameInstant(ZoneOffset.UTC), series.rangeSize));
+                return ++received[0] < limit;
+            }
+        );
+        log.debug("Calculation {} has {} inconsistencies in {} tuples", calculationId, gaps, read[0]);
+        return read[0];
+    }
+}
@@ -0,0 +1,89 @@
+package de.bitc.se.service.job;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Job;
+import de.bitc.se.domain.enumeration.JobType;
+import de.bitc.se.service.dto.CalculationRepairDTO;
+import de.bitc.se.service.dto.CalculationRepairResultDTO;
+import de.bitc.se.service.indicator.IndicatorService;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Handler of the {@link JobType#CALCULATION_REPAIR} jobs, the result is the {@link CalculationRepairResultDTO}.
+ * <p>
+ * The gaps are found by the {@link CalculationGapsJobHandler} in batches of {@code application.job.max-gaps}, then
+ * each gap of the batch is repaired by {@link IndicatorService#repair(Long, CalculationRepairDTO)} in its own
+ * transaction and the detection continues at the last gap. The progress is the number of tuples read, up to the
+ * number of tuples of the calculation at the start.
+ */
+@Service
+public class CalculationRepairJobHandler implements JobHandler {
+
+    private final Logger log = LoggerFactory.getLogger(CalculationRepairJobHandler.class);
+
+    private final CalculationGapsJobHandler calculationGapsJobHandler;
+
+    private final IndicatorService indicatorService;
+
+    private final int maxGaps;
+
+    public CalculationRepairJobHandler(
+        CalculationGapsJobHandler calculationGapsJobHandler,
+        IndicatorService indicatorService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.calculationGapsJobHandler = calculationGapsJobHandler;
+        this.indicatorService = indicatorService;
+        this.maxGaps = applicationProperties.getJob().getMaxGaps();
+    }
+
+    @Override
+    public JobType getType() {
+        return JobType.CALCULATION_REPAIR;
+    }
+
+    @Override
+    public Object run(Job job, JobProgress progress) {
+        Long calculationId = job.getCalculationId();
+        long windows = 0;
+        long tuples = 0;
+        long[] read = new long[1];
+        Long[] total = new Long[1];
+        ZonedDateTime from = null;
+        List<CalculationRepairDTO> gaps;
+        do {
+            gaps = new ArrayList<>(Math.min(maxGaps, 1024));
+            long offset = read[0];
+            // the detection of the next batch reads the tuples from the last gap on again
+            calculationGapsJobHandler.detect(
+                calculationId,
+                from,
+                maxGaps,
+                (done, tupleCount) -> {
+                    total[0] = tupleCount;
+                    read[0] = tupleCount != null ? Math.min(offset + done, tupleCount) : offset + done;
+                    progress.update(read[0], tupleCount);
+                },
+                gaps::add
+            );
+            for (CalculationRepairDTO gap : gaps) {
+                progress.update(read[0], total[0]);
+                long repaired = indicatorService.repair(calculationId, gap);
+                if (repaired >= 0) {
+                    windows++;
+                    tuples += repaired;
+                }
+            }
+            if (!gaps.isEmpty()) {
+                from = gaps.get(gaps.size() - 1).getTime();
+            }
+        } while (gaps.size() == maxGaps);
+        log.debug("Repaired {} windows of Calculation {} with {} tuples", windows, calculationId, tuples);
+        return new CalculationRepairResultDTO(calculationId, windows, tuples);
+    }
+}
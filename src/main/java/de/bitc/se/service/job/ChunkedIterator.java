@@ -0,0 +1,59 @@
+package de.bitc.se.service.job;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterator over a series read in chunks, each chunk is read by its own call of the reader, so that no transaction and
+ * database cursor is held between the chunks.
+ *
+ * @param <T> the type of the elements, the last element read is the key of the next chunk.
+ */
+final class ChunkedIterator<T> implements Iterator<T> {
+
+    private final Function<T, List<T>> reader;
+
+    private final int chunkSize;
+
+    private List<T> chunk = List.of();
+
+    private int index;
+
+    private T last;
+
+    private boolean exhausted;
+
+    /**
+     * @param reader the reader of the chunk after an element, or of the first chunk for {@code null}.
+     * @param chunkSize the number of elements of a full chunk, a smaller chunk is the last.
+     */
+    ChunkedIterator(Function<T, List<T>> reader, int chunkSize) {
+        this.reader = reader;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < chunk.size()) {
+            return true;
+        }
+        if (exhausted) {
+            return false;
+        }
+        chunk = reader.apply(last);
+        index = 0;
+        exhausted = chunk.size() < chunkSize;
+        return !chunk.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        last = chunk.get(index++);
+        return last;
+    }
+}
@@ -0,0 +1,13 @@
+package de.bitc.se.service.job;
+
+/**
+ * Thrown by {@link JobProgress#update(long, Long)} when the cancel of a running job was requested.
+ */
+public class JobCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JobCancelledException(Long jobId) {
+        super("Job " + jobId + " is cancelled");
+    }
+}
@@ -0,0 +1,26 @@
+package de.bitc.se.service.job;
+
+import de.bitc.se.domain.Job;
+import de.bitc.se.domain.enumeration.JobType;
+
+/**
+ * The work of a {@link JobType}, run by the {@link JobService} on the task executor.
+ * <p>
+ * The work must be split in chunks, each in its own short transaction, and report its progress between the chunks.
+ * It runs again from the start when the application is restarted while it is running.
+ */
+public interface JobHandler {
+    /**
+     * @return the type of the jobs run by this handler.
+     */
+    JobType getType();
+
+    /**
+     * Run a job.
+     *
+     * @param job the job, not attached to a transaction.
+     * @param progress the receiver of the progress, it stops the job when it is cancelled.
+     * @return the outcome of the job, written as JSON.
+     */
+    Object run(Job job, JobProgress progress);
+}
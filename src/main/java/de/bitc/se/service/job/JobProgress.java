@@ -0,0 +1,16 @@
+package de.bitc.se.service.job;
+
+/**
+ * Receives the progress of a running job, between two chunks of its work.
+ */
+@FunctionalInterface
+public interface JobProgress {
+    /**
+     * Record the progress of the job in its own transaction.
+     *
+     * @param progress the work done, in the units of the job type.
+     * @param total the total work, or {@code null} if it is unknown.
+     * @throws JobCancelledException if the cancel of the job was requested, the job must stop.
+     */
+    void update(long progress, Long total);
+}
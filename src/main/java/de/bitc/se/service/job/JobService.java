@@ -0,0 +1,324 @@
+package de.bitc.se.service.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Job;
+import de.bitc.se.domain.enumeration.JobStatus;
+import de.bitc.se.domain.enumeration.JobType;
+import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.repository.JobRepository;
+import de.bitc.se.service.event.JobSubmittedEvent;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service running the long operations on the series of the charts as {@link Job}s in the background.
+ * <p>
+ * A submitted job is queued in the {@code job} table and started on the {@code taskExecutor} after the commit, the
+ * caller polls its progress and reads its result when it succeeded. At most
+ * {@code application.job.max-concurrent-per-chart} jobs of a chart run at the same time, the other jobs of the chart
+ * wait in the queue and are started in submission order when a running job is done. The work is done by the
+ * {@link JobHandler} of the job type in short transactions; a cancel is requested on the job and the handler stops at
+ * its next progress update. The jobs left running by a stop of the application are queued again at the start, the
+ * jobs the task executor rejected are started by the dispatch every {@code application.job.dispatch-interval}.
+ * <p>
+ * The queue is dispatched by the instance of the application, the job statuses are only changed under its lock. The
+ * progress updates only write the progress of their job, outside of the lock.
+ */
+@Service
+public class JobService {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final Logger log = LoggerFactory.getLogger(JobService.class);
+
+    private final JobRepository jobRepository;
+
+    private final CalculationRepository calculationRepository;
+
+    private final Map<JobType, JobHandler> handlers = new EnumMap<>(JobType.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor executor;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int maxConcurrentPerChart;
+
+    private final Clock clock;
+
+    private final Object lock = new Object();
+
+    @Autowired
+    public JobService(
+        JobRepository jobRepository,
+        CalculationRepository calculationRepository,
+        List<JobHandler> handlers,
+        TransactionTemplate transactionTemplate,
+        @Qualifier("taskExecutor") Executor executor,
+        ObjectMapper objectMapper,
+        ApplicationEventPublisher eventPublisher,
+        ApplicationProperties applicationProperties
+    ) {
+        this(
+            jobRepository,
+            calculationRepository,
+            handlers,
+            transactionTemplate,
+            executor,
+            objectMapper,
+            eventPublisher,
+            applicationProperties.getJob().getMaxConcurrentPerChart(),
+            Clock.systemUTC()
+        );
+    }
+
+    JobService(
+        JobRepository jobRepository,
+        CalculationRepository calculationRepository,
+        List<JobHandler> handlers,
+        TransactionTemplate transactionTemplate,
+        Executor executor,
+        ObjectMapper objectMapper,
+        ApplicationEventPublisher eventPublisher,
+        int maxConcurrentPerChart,
+        Clock clock
+    ) {
+        this.jobRepository = jobRepository;
+        this.calculationRepository = calculationRepository;
+        handlers.forEach(handler -> this.handlers.put(handler.getType(), handler));
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.maxConcurrentPerChart = maxConcurrentPerChart;
+        this.clock = clock;
+    }
+
+    /**
+     * Queue a job on a calculation. A job of the same type and calculation that is queued or running is returned
+     * instead of a new one.
+     *
+     * @param type the type of the job.
+     * @param calculationId the id of the calculation.
+     * @return the queued or running job, or empty if the calculation does not exist.
+     */
+    public Optional<Job> submit(JobType type, Long calculationId) {
+        synchronized (lock) {
+            Job submitted = transactionTemplate.execute(status -> {
+                Optional<Job> pending = jobRepository.findFirstByTypeAndCalculationIdAndStatusInOrderByIdAsc(
+                    type,
+                    calculationId,
+                    List.of(JobStatus.QUEUED, JobStatus.RUNNING)
+                );
+                if (pending.isPresent()) {
+                    return pending.get();
+                }
+                return calculationRepository
+                    .findById(calculationId)
+                    .map(calculation -> {
+                        Job job = jobRepository.save(
+                            new Job()
+                                .type(type)
+                                .status(JobStatus.QUEUED)
+                                .chartId(calculation.getChart().getId())
+                                .calculationId(calculationId)
+                                .progress(0L)
+                                .cancelRequested(false)
+                                .createdDate(Instant.now(clock))
+                        );
+                        eventPublisher.publishEvent(new JobSubmittedEvent(job.getId()));
+                        log.debug("Queued {}", job);
+                        return job;
+                    })
+                    .orElse(null);
+            });
+            return Optional.ofNullable(submitted);
+        }
+    }
+
+    /**
+     * Cancel a job. A queued job is cancelled at once, the cancel of a running job is requested and it stops at its
+     * next progress update. A done job is left as it is.
+     *
+     * @param id the id of the job.
+     * @return the job, or empty if it does not exist.
+     */
+    public Optional<Job> cancel(Long id) {
+        synchronized (lock) {
+            return Optional.ofNullable(
+                transactionTemplate.execute(status ->
+                    jobRepository
+                        .findById(id)
+                        .map(job -> {
+                            if (job.getStatus() == JobStatus.QUEUED) {
+                                job.setStatus(JobStatus.CANCELLED);
+                                job.setFinishedDate(Instant.now(clock));
+                            }
+                            if (!job.getStatus().isDone()) {
+                                job.setCancelRequested(true);
+                            }
+                            log.debug("Cancelled {}", job);
+                            return job;
+                        })
+                        .orElse(null)
+                )
+            );
+        }
+    }
+
+    /**
+     * Start the queued jobs, in submission order, as long as their charts have less than
+     * {@code application.job.max-concurrent-per-chart} running jobs.
+     */
+    public void dispatch() {
+        List<Long> started;
+        synchronized (lock) {
+            started = transactionTemplate.execute(status -> {
+                List<Long> ids = new ArrayList<>();
+                Map<Long, Long> running = new HashMap<>();
+                for (Job job : jobRepository.findByStatusOrderByIdAsc(JobStatus.QUEUED)) {
+                    long count = running.computeIfAbsent(job.getChartId(), chartId ->
+                        jobRepository.countByChartIdAndStatus(chartId, JobStatus.RUNNING)
+                    );
+                    if (count < maxConcurrentPerChart) {
+                        job.setStatus(JobStatus.RUNNING);
+                        job.setStartedDate(Instant.now(clock));
+                        running.put(job.getChartId(), count + 1);
+                        ids.add(job.getId());
+                    }
+                }
+                return ids;
+            });
+        }
+        for (Long id : started) {
+            try {
+                executor.execute(() -> run(id));
+            } catch (TaskRejectedException e) {
+                log.warn("Job {} is queued again, the task executor is full: {}", id, e.getMessage());
+                synchronized (lock) {
+                    transactionTemplate.executeWithoutResult(status ->
+                        jobRepository.findById(id).ifPresent(job -> job.status(JobStatus.QUEUED).startedDate(null))
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Start the jobs left queued, e.g. because the task executor was full.
+     */
+    @Scheduled(fixedDelayString = "${application.job.dispatch-interval:PT1M}")
+    public void scheduledDispatch() {
+        dispatch();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobSubmitted(JobSubmittedEvent event) {
+        // the resources of the committed transaction are still bound to this thread
+        try {
+            executor.execute(this::dispatch);
+        } catch (TaskRejectedException e) {
+            log.warn("Job {} stays queued until the next dispatch, the task executor is full: {}", event.getJobId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Queue the jobs left running by the previous run of the application again and start the queue.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        synchronized (lock) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Job job : jobRepository.findByStatusOrderByIdAsc(JobStatus.RUNNING)) {
+                    log.info("Job {} was interrupted, it is queued again", job.getId());
+                    job.status(JobStatus.QUEUED).progress(0L).total(null).startedDate(null);
+                }
+            });
+        }
+        executor.execute(this::dispatch);
+    }
+
+    void run(Long id) {
+        Job job = transactionTemplate.execute(status -> jobRepository.findById(id).orElse(null));
+        if (job == null || job.getStatus() != JobStatus.RUNNING) {
+            return;
+        }
+        try {
+            JobHandler handler = handlers.get(job.getType());
+            if (handler == null) {
+                throw new IllegalStateException("No handler for job type " + job.getType());
+            }
+            JobProgress progress = (done, total) -> update(id, done, total);
+            progress.update(0, null);
+            Object result = handler.run(job, progress);
+            finish(id, JobStatus.SUCCEEDED, objectMapper.writeValueAsString(result), null);
+        } catch (JobCancelledException e) {
+            finish(id, JobStatus.CANCELLED, null, null);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Job {} failed", id, e);
+            finish(id, JobStatus.FAILED, null, e.toString());
+        } finally {
+            dispatch();
+        }
+    }
+
+    private void update(Long id, long progress, Long total) {
+        // the job is updated with only its changed columns, so the update does not overwrite a concurrent cancel
+        Boolean cancelled = transactionTemplate.execute(status ->
+            jobRepository
+                .findById(id)
+                .map(job -> {
+                    job.setProgress(progress);
+                    job.setTotal(total);
+                    return Boolean.TRUE.equals(job.getCancelRequested());
+                })
+                .orElse(true)
+        );
+        if (Boolean.TRUE.equals(cancelled)) {
+            throw new JobCancelledException(id);
+        }
+    }
+
+    private void finish(Long id, JobStatus jobStatus, String result, String error) {
+        synchronized (lock) {
+            transactionTemplate.executeWithoutResult(status ->
+                jobRepository
+                    .findById(id)
+                    .ifPresent(job -> {
+                        job.setStatus(jobStatus);
+                        job.setResult(result);
+                        job.setError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+                        job.setFinishedDate(Instant.now(clock));
+                        if (jobStatus == JobStatus.SUCCEEDED && job.getTotal() != null) {
+                            job.setProgress(job.getTotal());
+                        }
+                        log.debug("Finished {}", job);
+                    })
+            );
+        }
+    }
+}
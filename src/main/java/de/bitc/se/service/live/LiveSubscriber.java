@@ -0,0 +1,238 @@
+package de.bitc.se.service.live;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A subscriber of the updates of a chart or calculation, with the updates not sent yet.
+ * <p>
+ * The pending updates are keyed on the time of their candle or tuple: a new update of a pending time replaces the
+ * pending one, so a slow subscriber is only sent the latest state of the forming candle. The updates are sent in the
+ * order of their first time, by one task of the executor at a time. An invalidation drops the pending updates, it is
+ * sent before the updates offered after it. If the pending updates are dropped by an invalidation of a time range or
+ * because there are more than {@code maxPending} times, the subscriber is sent an invalidation of all times instead.
+ * <p>
+ * A send blocked for too long, by a client that does not read, is ended by {@link #expireSend(long, long)}.
+ */
+public class LiveSubscriber {
+
+    public static final String EVENT_INVALIDATED = "invalidated";
+
+    /**
+     * The data of an invalidation of all times.
+     */
+    public static final String INVALIDATED_ALL = "{}";
+
+    /**
+     * The transport of the updates to the client.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * Send an update, it may block until the client has read it or the send timed out.
+         *
+         * @param name the name of the event.
+         * @param data the update as JSON.
+         * @throws IOException if the client is gone.
+         */
+        void send(String name, String data) throws IOException;
+
+        /**
+         * Abort the transport, so that a blocked send fails. It is called from another thread than the send.
+         */
+        default void abort() {}
+    }
+
+    private final Logger log = LoggerFactory.getLogger(LiveSubscriber.class);
+
+    private final String name;
+
+    private final Sink sink;
+
+    private final Executor executor;
+
+    private final int maxPending;
+
+    private final Consumer<LiveSubscriber> onClose;
+
+    // guarded by this
+    private final Map<Long, String> pending = new LinkedHashMap<>();
+
+    private String invalidation;
+
+    private boolean draining;
+
+    private boolean closed;
+
+    private boolean sending;
+
+    private long sendStarted;
+
+    /**
+     * @param name the name of the update events.
+     * @param sink the transport of the updates.
+     * @param executor the executor sending the updates.
+     * @param maxPending the maximum number of pending times.
+     * @param onClose called once when the subscriber is closed.
+     */
+    public LiveSubscriber(String name, Sink sink, Executor executor, int maxPending, Consumer<LiveSubscriber> onClose) {
+        this.name = name;
+        this.sink = sink;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Send an update, replacing the pending update of the same time.
+     *
+     * @param time the time of the candle or tuple, in epoch milliseconds.
+     * @param data the update as JSON, shared by all subscribers.
+     */
+    public void offer(long time, String data) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (pending.size() >= maxPending && !pending.containsKey(time)) {
+                pending.clear();
+                invalidation = INVALIDATED_ALL;
+            } else {
+                pending.put(time, data);
+            }
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Send an invalidation, dropping the pending updates.
+     *
+     * @param data the invalidated time range as JSON, {@link #INVALIDATED_ALL} for all times.
+     */
+    public void invalidate(String data) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            invalidation = pending.isEmpty() && invalidation == null ? data : INVALIDATED_ALL;
+            pending.clear();
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Drop the pending updates and stop sending.
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+            invalidation = null;
+        }
+        onClose.accept(this);
+    }
+
+    /**
+     * Close the subscriber if its send has been blocked for longer than a timeout, and abort its transport, so that
+     * the send fails and its thread is free again.
+     *
+     * @param now the current {@link System#nanoTime()}.
+     * @param timeout the time a send may take, in nanoseconds.
+     * @return {@code true} if the subscriber was closed.
+     */
+    public boolean expireSend(long now, long timeout) {
+        long blocked;
+        synchronized (this) {
+            blocked = now - sendStarted;
+            if (closed || !sending || blocked < timeout) {
+                return false;
+            }
+        }
+        log.debug("Closing live subscriber, its send is blocked for {} ms", blocked / 1_000_000);
+        close();
+        sink.abort();
+        return true;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return the number of pending updates.
+     */
+    public synchronized int getPending() {
+        return pending.size() + (invalidation != null ? 1 : 0);
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // the pending updates are sent with the next one
+            log.warn("Cannot send the updates of a live subscriber: {}", e.getMessage());
+            synchronized (this) {
+                draining = false;
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            String event;
+            String data;
+            synchronized (this) {
+                sending = false;
+                if (closed) {
+                    draining = false;
+                    return;
+                }
+                if (invalidation != null) {
+                    event = EVENT_INVALIDATED;
+                    data = invalidation;
+                    invalidation = null;
+                } else {
+                    Iterator<String> updates = pending.values().iterator();
+                    if (!updates.hasNext()) {
+                        draining = false;
+                        return;
+                    }
+                    event = name;
+                    data = updates.next();
+                    updates.remove();
+                }
+                sending = true;
+                sendStarted = System.nanoTime();
+            }
+            try {
+                sink.send(event, data);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Closing live subscriber: {}", e.toString());
+                synchronized (this) {
+                    draining = false;
+                    sending = false;
+                }
+                close();
+                return;
+            }
+        }
+    }
+}
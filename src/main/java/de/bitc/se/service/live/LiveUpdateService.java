@@ -0,0 +1,216 @@
+package de.bitc.se.service.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Tuple;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import de.bitc.se.service.event.TuplesWrittenEvent;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service pushing the written candles of a chart and tuples of a calculation to their {@link LiveSubscriber}s.
+ * <p>
+ * The updates are pushed once their transaction is committed. Each candle or tuple is serialized once, the JSON is
+ * shared by all subscribers of its chart or calculation, which send it on the {@code liveExecutor}. The candles are
+ * sent without their chart and the tuples without their calculation and candle. Candles deleted, moved or written in
+ * bulk are not pushed, the subscribers of the chart are sent an invalidation of their time range to read them again.
+ * <p>
+ * The subscribers whose send is blocked for longer than {@code application.live.send-timeout} are closed, the other
+ * responses of the server are not affected by the timeout.
+ */
+@Service
+public class LiveUpdateService {
+
+    public static final String EVENT_OHLC = "ohlc";
+
+    public static final String EVENT_TUPLE = "tuple";
+
+    private final Logger log = LoggerFactory.getLogger(LiveUpdateService.class);
+
+    private final ObjectWriter writer;
+
+    private final Executor executor;
+
+    private final int maxPending;
+
+    private final long sendTimeout;
+
+    private final Map<Long, Set<LiveSubscriber>> chartSubscribers = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<LiveSubscriber>> calculationSubscribers = new ConcurrentHashMap<>();
+
+    public LiveUpdateService(
+        ObjectMapper objectMapper,
+        @Qualifier("liveExecutor") Executor executor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.writer = objectMapper.writer();
+        this.executor = executor;
+        this.maxPending = applicationProperties.getLive().getMaxPending();
+        this.sendTimeout = applicationProperties.getLive().getSendTimeout().toNanos();
+    }
+
+    /**
+     * Subscribe to the written candles of a chart, sent as {@link #EVENT_OHLC} events.
+     *
+     * @param chartId the id of the chart.
+     * @param sink the transport of the updates.
+     * @return the subscriber, to be closed when the client is gone.
+     */
+    public LiveSubscriber subscribeToChart(Long chartId, LiveSubscriber.Sink sink) {
+        log.debug("Subscribe to Ohlcs of Chart {}", chartId);
+        return subscribe(chartSubscribers, chartId, EVENT_OHLC, sink);
+    }
+
+    /**
+     * Subscribe to the written tuples of a calculation, sent as {@link #EVENT_TUPLE} events.
+     *
+     * @param calculationId the id of the calculation.
+     * @param sink the transport of the updates.
+     * @return the subscriber, to be closed when the client is gone.
+     */
+    public LiveSubscriber subscribeToCalculation(Long calculationId, LiveSubscriber.Sink sink) {
+        log.debug("Subscribe to Tuples of Calculation {}", calculationId);
+        return subscribe(calculationSubscribers, calculationId, EVENT_TUPLE, sink);
+    }
+
+    /**
+     * @return the number of open subscribers of a chart.
+     */
+    public int countChartSubscribers(Long chartId) {
+        Set<LiveSubscriber> subscribers = chartSubscribers.get(chartId);
+        return subscribers != null ? subscribers.size() : 0;
+    }
+
+    /**
+     * Close the subscribers whose send is blocked for longer than the send timeout.
+     */
+    @Scheduled(fixedDelayString = "${application.live.send-timeout:PT10S}")
+    public void expireBlockedSends() {
+        long now = System.nanoTime();
+        expireBlockedSends(chartSubscribers, now);
+        expireBlockedSends(calculationSubscribers, now);
+    }
+
+    private void expireBlockedSends(Map<Long, Set<LiveSubscriber>> subscribers, long now) {
+        for (Set<LiveSubscriber> set : subscribers.values()) {
+            for (LiveSubscriber subscriber : set) {
+                if (subscriber.expireSend(now, sendTimeout)) {
+                    log.warn("Closed a live subscriber blocked for more than {}", Duration.ofNanos(sendTimeout));
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCandlesWritten(CandlesWrittenEvent event) {
+        Set<LiveSubscriber> subscribers = chartSubscribers.get(event.getChartId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Ohlc ohlc : event.getOhlcs()) {
+            String data = serialize(copy(ohlc));
+            if (data != null) {
+                long time = ohlc.getTime().toInstant().toEpochMilli();
+                subscribers.forEach(subscriber -> subscriber.offer(time, data));
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCandlesInvalidated(CandlesInvalidatedEvent event) {
+        Set<LiveSubscriber> subscribers = chartSubscribers.get(event.getChartId());
+        if (subscribers == null) {
+            return;
+        }
+        String data = invalidation(event.getFrom(), event.getUntil());
+        subscribers.forEach(subscriber -> subscriber.invalidate(data));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTuplesWritten(TuplesWrittenEvent event) {
+        Set<LiveSubscriber> subscribers = calculationSubscribers.get(event.getCalculationId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Tuple tuple : event.getTuples()) {
+            String data = serialize(new Tuple().id(tuple.getId()).time(tuple.getTime()).computation(tuple.getComputation()));
+            if (data != null) {
+                long time = tuple.getTime().toInstant().toEpochMilli();
+                subscribers.forEach(subscriber -> subscriber.offer(time, data));
+            }
+        }
+    }
+
+    private LiveSubscriber subscribe(Map<Long, Set<LiveSubscriber>> subscribers, Long id, String name, LiveSubscriber.Sink sink) {
+        LiveSubscriber subscriber = new LiveSubscriber(name, sink, executor, maxPending, closed -> unsubscribe(subscribers, id, closed));
+        subscribers.compute(
+            id,
+            (key, set) -> {
+                Set<LiveSubscriber> result = set != null ? set : ConcurrentHashMap.newKeySet();
+                result.add(subscriber);
+                return result;
+            }
+        );
+        return subscriber;
+    }
+
+    private void unsubscribe(Map<Long, Set<LiveSubscriber>> subscribers, Long id, LiveSubscriber subscriber) {
+        subscribers.computeIfPresent(
+            id,
+            (key, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            }
+        );
+    }
+
+    private static Ohlc copy(Ohlc ohlc) {
+        return new Ohlc()
+            .id(ohlc.getId())
+            .time(ohlc.getTime())
+            .open(ohlc.getOpen())
+            .high(ohlc.getHigh())
+            .low(ohlc.getLow())
+            .close(ohlc.getClose())
+            .volumeWeightedAveragePrice(ohlc.getVolumeWeightedAveragePrice())
+            .volume(ohlc.getVolume())
+            .count(ohlc.getCount());
+    }
+
+    private String invalidation(ZonedDateTime from, ZonedDateTime until) {
+        if (from == null || until == null) {
+            return LiveSubscriber.INVALIDATED_ALL;
+        }
+        Map<String, ZonedDateTime> range = new LinkedHashMap<>();
+        range.put("from", from);
+        range.put("until", until);
+        String data = serialize(range);
+        return data != null ? data : LiveSubscriber.INVALIDATED_ALL;
+    }
+
+    private String serialize(Object value) {
+        try {
+            return writer.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot serialize live update: {}", e.getMessage());
+            return null;
+        }
+    }
+}
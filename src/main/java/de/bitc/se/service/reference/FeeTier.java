@@ -0,0 +1,42 @@
+package de.bitc.se.service.reference;
+
+import de.bitc.se.domain.Fee;
+import java.math.BigDecimal;
+
+/**
+ * Immutable copy of a {@link Fee}, the fee of a pair from a trade volume on.
+ */
+public final class FeeTier {
+
+    private final long id;
+
+    private final int volume;
+
+    private final BigDecimal percent;
+
+    FeeTier(Fee fee) {
+        this.id = fee.getId();
+        this.volume = fee.getVolume() != null ? fee.getVolume() : 0;
+        this.percent = fee.getPercent();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the volume the tier starts at, 0 if the fee has none.
+     */
+    public int getVolume() {
+        return volume;
+    }
+
+    public BigDecimal getPercent() {
+        return percent;
+    }
+
+    @Override
+    public String toString() {
+        return "FeeTier{" + "volume=" + volume + ", percent=" + percent + "}";
+    }
+}
@@ -0,0 +1,59 @@
+package de.bitc.se.service.reference;
+
+import de.bitc.se.domain.Asset;
+
+/**
+ * Immutable copy of an {@link Asset}.
+ */
+public final class ReferenceAsset {
+
+    private final long id;
+
+    private final String name;
+
+    private final String assetClass;
+
+    private final String alternativeName;
+
+    private final Integer decimals;
+
+    private final Integer displayDecimals;
+
+    ReferenceAsset(Asset asset) {
+        this.id = asset.getId();
+        this.name = asset.getName();
+        this.assetClass = asset.getAssetClass();
+        this.alternativeName = asset.getAlternativeName();
+        this.decimals = asset.getDecimals();
+        this.displayDecimals = asset.getDisplayDecimals();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAssetClass() {
+        return assetClass;
+    }
+
+    public String getAlternativeName() {
+        return alternativeName;
+    }
+
+    public Integer getDecimals() {
+        return decimals;
+    }
+
+    public Integer getDisplayDecimals() {
+        return displayDecimals;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceAsset{" + "id=" + id + ", name='" + name + "'" + "}";
+    }
+}
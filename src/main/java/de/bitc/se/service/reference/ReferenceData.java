@@ -0,0 +1,217 @@
+package de.bitc.se.service.reference;
+
+import de.bitc.se.domain.Asset;
+import de.bitc.se.domain.Fee;
+import de.bitc.se.domain.Pair;
+import de.bitc.se.domain.TimeRange;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of the reference data, the pairs with their assets and fees and the time ranges, indexed by
+ * their ids and natural keys.
+ * <p>
+ * A snapshot is never modified once built, so it can be read by any thread without locking. When several entities
+ * share a natural key, the one with the lowest id is found.
+ */
+public final class ReferenceData {
+
+    private static final ReferenceData EMPTY = new ReferenceData(0, List.of(), List.of(), List.of(), List.of());
+
+    private final long version;
+
+    private final List<ReferenceAsset> assets;
+
+    private final List<ReferencePair> pairs;
+
+    private final List<ReferenceTimeRange> timeRanges;
+
+    private final Map<Long, ReferenceAsset> assetsById;
+
+    private final Map<String, ReferenceAsset> assetsByName;
+
+    private final Map<String, ReferenceAsset> assetsByAlternativeName;
+
+    private final Map<Long, ReferencePair> pairsById;
+
+    private final Map<String, ReferencePair> pairsByName;
+
+    private final Map<String, ReferencePair> pairsByAltname;
+
+    private final Map<String, ReferencePair> pairsByWebSocketPairName;
+
+    private final Map<Long, ReferenceTimeRange> timeRangesById;
+
+    private final Map<String, ReferenceTimeRange> timeRangesByName;
+
+    private final Map<Integer, ReferenceTimeRange> timeRangesByRangeSize;
+
+    private final Map<Duration, ReferenceTimeRange> timeRangesByDuration;
+
+    private ReferenceData(long version, List<Asset> assets, List<Pair> pairs, List<TimeRange> timeRanges, List<Fee> fees) {
+        this.version = version;
+        List<ReferenceAsset> referenceAssets = new ArrayList<>(assets.size());
+        for (Asset asset : sortedById(assets, Asset::getId)) {
+            referenceAssets.add(new ReferenceAsset(asset));
+        }
+        this.assets = List.copyOf(referenceAssets);
+        this.assetsById = index(this.assets, ReferenceAsset::getId);
+        this.assetsByName = index(this.assets, ReferenceAsset::getName);
+        this.assetsByAlternativeName = index(this.assets, ReferenceAsset::getAlternativeName);
+
+        Map<Long, List<FeeTier>> feesByPair = new HashMap<>();
+        for (Fee fee : fees) {
+            if (fee.getPair() != null) {
+                feesByPair.computeIfAbsent(fee.getPair().getId(), pairId -> new ArrayList<>()).add(new FeeTier(fee));
+            }
+        }
+        List<ReferencePair> referencePairs = new ArrayList<>(pairs.size());
+        for (Pair pair : sortedById(pairs, Pair::getId)) {
+            List<FeeTier> pairFees = feesByPair.getOrDefault(pair.getId(), new ArrayList<>());
+            pairFees.sort(Comparator.comparingInt(FeeTier::getVolume).thenComparingLong(FeeTier::getId));
+            referencePairs.add(new ReferencePair(pair, asset(pair.getBase()), asset(pair.getQuote()), pairFees));
+        }
+        this.pairs = List.copyOf(referencePairs);
+        this.pairsById = index(this.pairs, ReferencePair::getId);
+        this.pairsByName = index(this.pairs, ReferencePair::getName);
+        this.pairsByAltname = index(this.pairs, ReferencePair::getAltname);
+        this.pairsByWebSocketPairName = index(this.pairs, ReferencePair::getWebSocketPairName);
+
+        List<ReferenceTimeRange> referenceTimeRanges = new ArrayList<>(timeRanges.size());
+        for (TimeRange timeRange : sortedById(timeRanges, TimeRange::getId)) {
+            referenceTimeRanges.add(new ReferenceTimeRange(timeRange));
+        }
+        this.timeRanges = List.copyOf(referenceTimeRanges);
+        this.timeRangesById = index(this.timeRanges, ReferenceTimeRange::getId);
+        this.timeRangesByName = index(this.timeRanges, ReferenceTimeRange::getName);
+        this.timeRangesByRangeSize = index(this.timeRanges, ReferenceTimeRange::getRangeSize);
+        this.timeRangesByDuration = index(this.timeRanges, ReferenceTimeRange::getDuration);
+    }
+
+    /**
+     * @return a snapshot without reference data.
+     */
+    public static ReferenceData empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build a snapshot of the entities, which are copied.
+     *
+     * @param version the version of the snapshot.
+     * @param assets all assets.
+     * @param pairs all pairs, their assets must be among the assets.
+     * @param timeRanges all time ranges.
+     * @param fees all fees.
+     * @return the snapshot.
+     */
+    public static ReferenceData of(long version, List<Asset> assets, List<Pair> pairs, List<TimeRange> timeRanges, List<Fee> fees) {
+        return new ReferenceData(version, assets, pairs, timeRanges, fees);
+    }
+
+    /**
+     * @return the version of the snapshot, increasing with each snapshot loaded.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the assets, ordered by id.
+     */
+    public List<ReferenceAsset> getAssets() {
+        return assets;
+    }
+
+    /**
+     * @return the pairs, ordered by id.
+     */
+    public List<ReferencePair> getPairs() {
+        return pairs;
+    }
+
+    /**
+     * @return the time ranges, ordered by id.
+     */
+    public List<ReferenceTimeRange> getTimeRanges() {
+        return timeRanges;
+    }
+
+    public Optional<ReferenceAsset> findAsset(long id) {
+        return Optional.ofNullable(assetsById.get(id));
+    }
+
+    public Optional<ReferenceAsset> findAssetByName(String name) {
+        return Optional.ofNullable(assetsByName.get(name));
+    }
+
+    public Optional<ReferenceAsset> findAssetByAlternativeName(String alternativeName) {
+        return Optional.ofNullable(assetsByAlternativeName.get(alternativeName));
+    }
+
+    public Optional<ReferencePair> findPair(long id) {
+        return Optional.ofNullable(pairsById.get(id));
+    }
+
+    public Optional<ReferencePair> findPairByName(String name) {
+        return Optional.ofNullable(pairsByName.get(name));
+    }
+
+    public Optional<ReferencePair> findPairByAltname(String altname) {
+        return Optional.ofNullable(pairsByAltname.get(altname));
+    }
+
+    public Optional<ReferencePair> findPairByWebSocketPairName(String webSocketPairName) {
+        return Optional.ofNullable(pairsByWebSocketPairName.get(webSocketPairName));
+    }
+
+    public Optional<ReferenceTimeRange> findTimeRange(long id) {
+        return Optional.ofNullable(timeRangesById.get(id));
+    }
+
+    public Optional<ReferenceTimeRange> findTimeRangeByName(String name) {
+        return Optional.ofNullable(timeRangesByName.get(name));
+    }
+
+    /**
+     * @param rangeSize the size of the time range in minutes.
+     */
+    public Optional<ReferenceTimeRange> findTimeRangeByRangeSize(int rangeSize) {
+        return Optional.ofNullable(timeRangesByRangeSize.get(rangeSize));
+    }
+
+    public Optional<ReferenceTimeRange> findTimeRangeByDuration(Duration duration) {
+        return Optional.ofNullable(timeRangesByDuration.get(duration));
+    }
+
+    private ReferenceAsset asset(Asset asset) {
+        return asset == null ? null : assetsById.get(asset.getId());
+    }
+
+    private static <T> List<T> sortedById(Collection<T> entities, Function<T, Long> id) {
+        List<T> sorted = new ArrayList<>(entities);
+        sorted.sort(Comparator.comparing(id));
+        return sorted;
+    }
+
+    /**
+     * Index the values by a key, the first value of a key wins and values without a key are left out.
+     */
+    private static <K, V> Map<K, V> index(List<V> values, Function<V, K> key) {
+        Map<K, V> index = new HashMap<>();
+        for (V value : values) {
+            K k = key.apply(value);
+            if (k != null) {
+                index.putIfAbsent(k, value);
+            }
+        }
+        return Map.copyOf(index);
+    }
+}
@@ -0,0 +1,106 @@
+package de.bitc.se.service.reference;
+
+import de.bitc.se.repository.AssetRepository;
+import de.bitc.se.repository.FeeRepository;
+import de.bitc.se.repository.PairRepository;
+import de.bitc.se.repository.TimeRangeRepository;
+import de.bitc.se.service.event.ReferenceDataChangedEvent;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service holding the {@link ReferenceData} snapshot of the pairs, assets, time ranges and fees.
+ * <p>
+ * The snapshot is loaded on startup and again after each committed {@link ReferenceDataChangedEvent}; the loaded
+ * snapshot replaces the previous one at once, so the lookups of a snapshot read maps without locks or database
+ * access. The snapshot is loaded from the primary database, a replica could miss the committed change.
+ */
+@Service
+public class ReferenceDataService {
+
+    private final Logger log = LoggerFactory.getLogger(ReferenceDataService.class);
+
+    private final AssetRepository assetRepository;
+
+    private final PairRepository pairRepository;
+
+    private final TimeRangeRepository timeRangeRepository;
+
+    private final FeeRepository feeRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile ReferenceData snapshot;
+
+    public ReferenceDataService(
+        AssetRepository assetRepository,
+        PairRepository pairRepository,
+        TimeRangeRepository timeRangeRepository,
+        FeeRepository feeRepository,
+        TransactionTemplate transactionTemplate
+    ) {
+        this.assetRepository = assetRepository;
+        this.pairRepository = pairRepository;
+        this.timeRangeRepository = timeRangeRepository;
+        this.feeRepository = feeRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * @return the current snapshot, loaded on first use.
+     */
+    public ReferenceData getSnapshot() {
+        ReferenceData current = snapshot;
+        return current != null ? current : reload();
+    }
+
+    /**
+     * Find a time range in the current snapshot. A time range missing from the snapshot, e.g. one written without a
+     * {@link ReferenceDataChangedEvent}, is looked up in a new snapshot.
+     *
+     * @param id the id of the time range.
+     * @return the time range, or empty if it does not exist.
+     */
+    public Optional<ReferenceTimeRange> findTimeRange(Long id) {
+        Optional<ReferenceTimeRange> timeRange = getSnapshot().findTimeRange(id);
+        return timeRange.isPresent() ? timeRange : reload().findTimeRange(id);
+    }
+
+    /**
+     * Load a new snapshot and replace the current one.
+     *
+     * @return the loaded snapshot.
+     */
+    public synchronized ReferenceData reload() {
+        long version = snapshot != null ? snapshot.getVersion() + 1 : 1;
+        ReferenceData loaded = transactionTemplate.execute(status ->
+            ReferenceData.of(version, assetRepository.findAll(), pairRepository.findAll(), timeRangeRepository.findAll(), feeRepository.findAll())
+        );
+        snapshot = loaded;
+        log.debug(
+            "Loaded reference data {} with {} Pairs, {} Assets and {} TimeRanges",
+            version,
+            loaded.getPairs().size(),
+            loaded.getAssets().size(),
+            loaded.getTimeRanges().size()
+        );
+        return loaded;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        log.debug("Reloading reference data after {}", event);
+        reload();
+    }
+}
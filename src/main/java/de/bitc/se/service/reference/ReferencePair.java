@@ -0,0 +1,127 @@
+package de.bitc.se.service.reference;
+
+import de.bitc.se.domain.Pair;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable copy of a {@link Pair} with its assets and its fees ordered by volume.
+ */
+public final class ReferencePair {
+
+    private final long id;
+
+    private final String name;
+
+    private final String altname;
+
+    private final String webSocketPairName;
+
+    private final String lot;
+
+    private final Integer pairDecimal;
+
+    private final Integer lotDecimals;
+
+    private final Integer lotMultiplier;
+
+    private final ReferenceAsset base;
+
+    private final ReferenceAsset quote;
+
+    private final List<FeeTier> fees;
+
+    private final int[] feeVolumes;
+
+    /**
+     * @param fees the fees of the pair, ordered by volume.
+     */
+    ReferencePair(Pair pair, ReferenceAsset base, ReferenceAsset quote, List<FeeTier> fees) {
+        this.id = pair.getId();
+        this.name = pair.getName();
+        this.altname = pair.getAltname();
+        this.webSocketPairName = pair.getWebSocketPairName();
+        this.lot = pair.getLot();
+        this.pairDecimal = pair.getPairDecimal();
+        this.lotDecimals = pair.getLotDecimals();
+        this.lotMultiplier = pair.getLotMultiplier();
+        this.base = base;
+        this.quote = quote;
+        this.fees = List.copyOf(fees);
+        this.feeVolumes = fees.stream().mapToInt(FeeTier::getVolume).toArray();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAltname() {
+        return altname;
+    }
+
+    public String getWebSocketPairName() {
+        return webSocketPairName;
+    }
+
+    public String getLot() {
+        return lot;
+    }
+
+    public Integer getPairDecimal() {
+        return pairDecimal;
+    }
+
+    public Integer getLotDecimals() {
+        return lotDecimals;
+    }
+
+    public Integer getLotMultiplier() {
+        return lotMultiplier;
+    }
+
+    public ReferenceAsset getBase() {
+        return base;
+    }
+
+    public ReferenceAsset getQuote() {
+        return quote;
+    }
+
+    /**
+     * @return the fees, ordered by volume.
+     */
+    public List<FeeTier> getFees() {
+        return fees;
+    }
+
+    /**
+     * Look up the fee of a trade volume.
+     *
+     * @param volume the trade volume.
+     * @return the tier with the highest volume up to the trade volume, empty if the volume is below all tiers.
+     */
+    public Optional<FeeTier> fee(long volume) {
+        int low = 0;
+        int high = feeVolumes.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (feeVolumes[mid] <= volume) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? Optional.empty() : Optional.of(fees.get(found));
+    }
+
+    @Override
+    public String toString() {
+        return "ReferencePair{" + "id=" + id + ", name='" + name + "'" + ", altname='" + altname + "'" + "}";
+    }
+}
@@ -0,0 +1,56 @@
+package de.bitc.se.service.reference;
+
+import de.bitc.se.domain.TimeRange;
+import java.time.Duration;
+
+/**
+ * Immutable copy of a {@link TimeRange}.
+ */
+public final class ReferenceTimeRange {
+
+    private final long id;
+
+    private final String name;
+
+    private final Integer rangeSize;
+
+    private final Duration duration;
+
+    private final String description;
+
+    ReferenceTimeRange(TimeRange timeRange) {
+        this.id = timeRange.getId();
+        this.name = timeRange.getName();
+        this.rangeSize = timeRange.getRangeSize();
+        this.duration = timeRange.getDuration();
+        this.description = timeRange.getDescription();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the size of the time range in minutes.
+     */
+    public Integer getRangeSize() {
+        return rangeSize;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceTimeRange{" + "id=" + id + ", name='" + name + "'" + ", rangeSize=" + rangeSize + "}";
+    }
+}
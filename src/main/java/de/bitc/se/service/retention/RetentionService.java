@@ -0,0 +1,212 @@
+package de.bitc.se.service.retention;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.PartitionJdbcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service removing old candles and their tuples, so that the {@code ohlc} and {@code tuple} tables do not grow without
+ * bound.
+ * <p>
+ * Candles older than {@code application.retention.horizon} are removed from all charts, and a chart with a
+ * {@link Chart#getMaxCount()} keeps only its latest candles. On PostgreSQL the tables are partitioned by month, the
+ * partitions of the months past the horizon are dropped or detached as a whole, tuples first, and the partitions of the
+ * coming months are created ahead. The remaining candles are deleted one chart at a time, in chunks of
+ * {@code application.retention.batch-size} candles with one transaction per chunk, deleting their tuples first.
+ */
+@Service
+public class RetentionService {
+
+    private final Logger log = LoggerFactory.getLogger(RetentionService.class);
+
+    private final ApplicationProperties.Retention properties;
+
+    private final ChartRepository chartRepository;
+
+    private final OhlcRepository ohlcRepository;
+
+    private final TupleRepository tupleRepository;
+
+    private final PartitionJdbcRepository partitionJdbcRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public RetentionService(
+        ApplicationProperties applicationProperties,
+        ChartRepository chartRepository,
+        OhlcRepository ohlcRepository,
+        TupleRepository tupleRepository,
+        PartitionJdbcRepository partitionJdbcRepository,
+        TransactionTemplate transactionTemplate,
+        ApplicationEventPublisher applicationEventPublisher
+    ) {
+        this.properties = applicationProperties.getRetention();
+        this.chartRepository = chartRepository;
+        this.ohlcRepository = ohlcRepository;
+        this.tupleRepository = tupleRepository;
+        this.partitionJdbcRepository = partitionJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @Scheduled(cron = "${application.retention.cron:0 0 2 * * ?}")
+    public void scheduledRun() {
+        if (properties.isEnabled()) {
+            enforce();
+        }
+    }
+
+    /**
+     * Remove the candles past the horizon and the candles exceeding the maximum count of their chart. A failure of the
+     * partitions or of a chart is logged and the other charts are still trimmed.
+     *
+     * @return the number of candles deleted one chart at a time, without those of the removed partitions.
+     */
+    public long enforce() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        ZonedDateTime horizon = properties.getHorizon() != null ? now.minus(properties.getHorizon()) : null;
+        List<Chart> charts = chartRepository.findAll();
+        if (partitionJdbcRepository.isPartitioned(PartitionJdbcRepository.OHLC_TABLE)) {
+            try {
+                createPartitionsAhead(YearMonth.from(now));
+                if (horizon != null && removePartitionsBefore(YearMonth.from(horizon)) > 0) {
+                    charts.forEach(chart -> applicationEventPublisher.publishEvent(new CandlesInvalidatedEvent(chart.getId())));
+                }
+            } catch (RuntimeException e) {
+                log.error("Retention of the partitions failed", e);
+            }
+        }
+        long deleted = 0;
+        int failed = 0;
+        for (Chart chart : charts) {
+            try {
+                deleted += enforce(chart, horizon);
+            } catch (RuntimeException e) {
+                // the chunks deleted before the failure are committed, the chart is trimmed again by the next run
+                log.error("Retention of Chart {} failed", chart.getId(), e);
+                failed++;
+            }
+        }
+        log.debug("Retention deleted {} candles of {} charts, {} failed", deleted, charts.size(), failed);
+        return deleted;
+    }
+
+    private long enforce(Chart chart, ZonedDateTime horizon) {
+        long deleted = 0;
+        if (horizon != null) {
+            deleted += trim(chart.getId(), horizon);
+        }
+        return deleted + trimToMaxCount(chart);
+    }
+
+    /**
+     * Delete the candles of a chart exceeding its maximum count, the latest candles are kept.
+     *
+     * @param chart the chart.
+     * @return the number of deleted candles.
+     */
+    public long trimToMaxCount(Chart chart) {
+        Integer maxCount = chart.getMaxCount();
+        if (maxCount == null || maxCount <= 0) {
+            return 0;
+        }
+        List<ZonedDateTime> oldestKept = ohlcRepository.findTimesByChartIdLatestFirst(chart.getId(), PageRequest.of(maxCount - 1, 1));
+        return oldestKept.isEmpty() ? 0 : trim(chart.getId(), oldestKept.get(0));
+    }
+
+    /**
+     * Delete the candles of a chart before a time with their tuples.
+     *
+     * @param chartId the id of the chart.
+     * @param before the time the candles are before, exclusive.
+     * @return the number of deleted candles.
+     */
+    public long trim(Long chartId, ZonedDateTime before) {
+        long deleted = 0;
+        int chunk;
+        do {
+            Integer count = transactionTemplate.execute(status -> deleteChunk(chartId, before));
+            chunk = count != null ? count : 0;
+            deleted += chunk;
+        } while (chunk == properties.getBatchSize());
+        if (deleted > 0) {
+            log.debug("Deleted {} candles of Chart {} before {}", deleted, chartId, before);
+            applicationEventPublisher.publishEvent(new CandlesInvalidatedEvent(chartId));
+        }
+        return deleted;
+    }
+
+    private int deleteChunk(Long chartId, ZonedDateTime before) {
+        List<Long> ids = ohlcRepository.findIdsByChartIdBefore(chartId, before, PageRequest.of(0, properties.getBatchSize()));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        tupleRepository.deleteByOhlcIdIn(ids);
+        return ohlcRepository.deleteByIdIn(ids);
+    }
+
+    private void createPartitionsAhead(YearMonth current) {
+        for (int i = 0; i <= properties.getPartitionsAhead(); i++) {
+            for (String table : List.of(PartitionJdbcRepository.OHLC_TABLE, PartitionJdbcRepository.TUPLE_TABLE)) {
+                try {
+                    partitionJdbcRepository.createMonthlyPartition(table, current.plusMonths(i));
+                } catch (DataAccessException e) {
+                    // the default partition already holds rows of the month
+                    log.warn("Partition of {} for {} not created: {}", table, current.plusMonths(i), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of removed candle partitions.
+     */
+    private int removePartitionsBefore(YearMonth month) {
+        if (partitionJdbcRepository.isPartitioned(PartitionJdbcRepository.TUPLE_TABLE)) {
+            for (YearMonth expired : partitionJdbcRepository.findMonthlyPartitions(PartitionJdbcRepository.TUPLE_TABLE)) {
+                if (expired.isBefore(month)) {
+                    removePartition(PartitionJdbcRepository.TUPLE_TABLE, expired);
+                }
+            }
+        }
+        int removed = 0;
+        for (YearMonth expired : partitionJdbcRepository.findMonthlyPartitions(PartitionJdbcRepository.OHLC_TABLE)) {
+            if (expired.isBefore(month)) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    // the tuples of the month are gone with their partition, these refer to its candles from other months
+                    int tuples = partitionJdbcRepository.deleteTuplesOfOhlcPartition(expired);
+                    removePartition(PartitionJdbcRepository.OHLC_TABLE, expired);
+                    log.info("Removed the candles of {} and {} tuples of other months", expired, tuples);
+                });
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void removePartition(String table, YearMonth month) {
+        if (properties.isDropPartitions()) {
+            partitionJdbcRepository.dropMonthlyPartition(table, month);
+        } else {
+            partitionJdbcRepository.detachMonthlyPartition(table, month);
+        }
+    }
+}
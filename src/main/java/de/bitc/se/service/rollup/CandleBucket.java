@@ -0,0 +1,148 @@
+package de.bitc.se.service.rollup;
+
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.projection.OhlcValues;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * The candle of a derived chart aggregated from the candles of its base chart within one time range.
+ * <p>
+ * The candles must be added in time order: the first open and the last close win, high and low are the extremes,
+ * volume and count are summed and the volume weighted average price is weighted by the volume of each candle.
+ * Missing values of a candle are skipped.
+ */
+class CandleBucket {
+
+    private static final int SCALE = 2;
+
+    private final long start;
+
+    private long lastTime = Long.MIN_VALUE;
+
+    private BigDecimal open;
+
+    private BigDecimal high;
+
+    private BigDecimal low;
+
+    private BigDecimal close;
+
+    private BigDecimal volume;
+
+    private BigDecimal weightedPrices = BigDecimal.ZERO;
+
+    private BigDecimal weightedVolume = BigDecimal.ZERO;
+
+    private Integer count;
+
+    private boolean dirty = true;
+
+    CandleBucket(long start) {
+        this.start = start;
+    }
+
+    /**
+     * @return the start of the time range in epoch milliseconds, the time of the aggregated candle.
+     */
+    long getStart() {
+        return start;
+    }
+
+    /**
+     * @return the time of the latest added candle in epoch milliseconds.
+     */
+    long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * @return {@code true} if a candle was added since the last {@link #toOhlc()}.
+     */
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void add(Ohlc ohlc) {
+        add(
+            ohlc.getTime(),
+            ohlc.getOpen(),
+            ohlc.getHigh(),
+            ohlc.getLow(),
+            ohlc.getClose(),
+            ohlc.getVolumeWeightedAveragePrice(),
+            ohlc.getVolume(),
+            ohlc.getCount()
+        );
+    }
+
+    void add(OhlcValues ohlc) {
+        add(
+            ohlc.getTime(),
+            ohlc.getOpen(),
+            ohlc.getHigh(),
+            ohlc.getLow(),
+            ohlc.getClose(),
+            ohlc.getVolumeWeightedAveragePrice(),
+            ohlc.getVolume(),
+            ohlc.getCount()
+        );
+    }
+
+    void add(
+        ZonedDateTime time,
+        BigDecimal open,
+        BigDecimal high,
+        BigDecimal low,
+        BigDecimal close,
+        BigDecimal volumeWeightedAveragePrice,
+        BigDecimal volume,
+        Integer count
+    ) {
+        lastTime = Math.max(lastTime, time.toInstant().toEpochMilli());
+        if (this.open == null) {
+            this.open = open;
+        }
+        if (high != null && (this.high == null || high.compareTo(this.high) > 0)) {
+            this.high = high;
+        }
+        if (low != null && (this.low == null || low.compareTo(this.low) < 0)) {
+            this.low = low;
+        }
+        if (close != null) {
+            this.close = close;
+        }
+        if (volume != null) {
+            this.volume = this.volume == null ? volume : this.volume.add(volume);
+            if (volumeWeightedAveragePrice != null) {
+                weightedPrices = weightedPrices.add(volumeWeightedAveragePrice.multiply(volume));
+                weightedVolume = weightedVolume.add(volume);
+            }
+        }
+        if (count != null) {
+            this.count = this.count == null ? count : this.count + count;
+        }
+        dirty = true;
+    }
+
+    /**
+     * @return the aggregated candle, without chart and id.
+     */
+    Ohlc toOhlc() {
+        dirty = false;
+        return new Ohlc()
+            .time(ZonedDateTime.ofInstant(Instant.ofEpochMilli(start), ZoneOffset.UTC))
+            .open(open)
+            .high(high)
+            .low(low)
+            .close(close)
+            .volumeWeightedAveragePrice(
+                weightedVolume.signum() == 0 ? null : weightedPrices.divide(weightedVolume, SCALE, RoundingMode.HALF_UP)
+            )
+            .volume(volume)
+            .count(count);
+    }
+}
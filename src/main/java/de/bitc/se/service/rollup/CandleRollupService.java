@@ -0,0 +1,350 @@
+package de.bitc.se.service.rollup;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.projection.ChartReference;
+import de.bitc.se.domain.projection.OhlcValues;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.service.OhlcService;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import de.bitc.se.service.reference.ReferenceDataService;
+import de.bitc.se.service.reference.ReferenceTimeRange;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service deriving the candles of the longer time ranges of a {@link de.bitc.se.domain.Pair} from its base chart.
+ * <p>
+ * The base chart of a pair is its chart with the shortest time range, the charts of the pair with a multiple of that
+ * range are derived from it, so only the base chart needs to be ingested. A derived candle covers the time range
+ * starting at its time, aligned to the epoch in UTC.
+ * <p>
+ * The open candle of each derived chart is kept in memory and updated incrementally by the committed
+ * {@link CandlesWrittenEvent}s of the base chart. A candle is written to its derived chart once its time range is
+ * complete or a later range has started; the candles closed by one event are written in batches of
+ * {@code application.bulk.batch-size}. An open candle missing from memory, or one whose base candles were written
+ * again, is read again from the base candles of its range. A {@link CandlesInvalidatedEvent} with a time range,
+ * published by a bulk import, rebuilds the derived candles of that range from the database.
+ * <p>
+ * The charts of a pair are read without their pair and time range, the range sizes are looked up in the
+ * {@link ReferenceDataService} snapshot.
+ */
+@Service
+public class CandleRollupService {
+
+    private final Logger log = LoggerFactory.getLogger(CandleRollupService.class);
+
+    private final ChartRepository chartRepository;
+
+    private final OhlcRepository ohlcRepository;
+
+    private final OhlcService ohlcService;
+
+    private final ReferenceDataService referenceDataService;
+
+    private final int batchSize;
+
+    /**
+     * The open candle of each derived chart, by the id of the derived chart.
+     */
+    private final Map<Long, CandleBucket> openBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * The locks serializing the rollups of a base chart, by the id of the base chart.
+     */
+    private final Map<Long, Object> locks = new ConcurrentHashMap<>();
+
+    public CandleRollupService(
+        ChartRepository chartRepository,
+        OhlcRepository ohlcRepository,
+        OhlcService ohlcService,
+        ReferenceDataService referenceDataService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.chartRepository = chartRepository;
+        this.ohlcRepository = ohlcRepository;
+        this.ohlcService = ohlcService;
+        this.referenceDataService = referenceDataService;
+        this.batchSize = applicationProperties.getBulk().getBatchSize();
+    }
+
+    /**
+     * Roll written candles of a chart up into the derived charts of its pair.
+     *
+     * @param chartId the id of the chart, nothing is derived unless it is the base chart of its pair.
+     * @param ohlcs the written candles of the chart.
+     * @return the number of derived candles written.
+     */
+    @Transactional
+    public int rollup(Long chartId, List<Ohlc> ohlcs) {
+        RangedChart base = chartRepository.findReferenceById(chartId).flatMap(this::ranged).orElse(null);
+        List<RangedChart> derived = base != null ? derivedCharts(base) : List.of();
+        if (derived.isEmpty() || ohlcs.isEmpty()) {
+            return 0;
+        }
+        List<Ohlc> sorted = ohlcs.stream().sorted(Comparator.comparing(Ohlc::getTime)).collect(Collectors.toList());
+        int written = 0;
+        synchronized (lock(chartId)) {
+            try {
+                for (RangedChart chart : derived) {
+                    written += rollup(base, chart, sorted);
+                }
+            } catch (RuntimeException e) {
+                evict(derived);
+                throw e;
+            }
+        }
+        log.debug("Rolled {} Ohlcs of Chart {} up into {} Ohlcs of {} derived Charts", ohlcs.size(), chartId, written, derived.size());
+        return written;
+    }
+
+    /**
+     * Rebuild the derived candles of the time ranges covering candles of a chart.
+     *
+     * @param chartId the id of the chart, nothing is derived unless it is the base chart of its pair.
+     * @param from the time of the first candle, inclusive.
+     * @param until the time of the last candle, inclusive.
+     * @return the number of derived candles written.
+     */
+    @Transactional
+    public int rebuild(Long chartId, ZonedDateTime from, ZonedDateTime until) {
+        RangedChart base = chartRepository.findReferenceById(chartId).flatMap(this::ranged).orElse(null);
+        List<RangedChart> derived = base != null ? derivedCharts(base) : List.of();
+        int written = 0;
+        synchronized (lock(chartId)) {
+            try {
+                for (RangedChart chart : derived) {
+                    written += rebuild(base, chart, millis(from), millis(until));
+                }
+            } catch (RuntimeException e) {
+                evict(derived);
+                throw e;
+            }
+        }
+        log.debug("Rebuilt {} Ohlcs of {} Charts derived from Chart {} between {} and {}", written, derived.size(), chartId, from, until);
+        return written;
+    }
+
+    /**
+     * Forget the open candles of all derived charts, they are read again on next use.
+     */
+    public void clear() {
+        openBuckets.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onCandlesWritten(CandlesWrittenEvent event) {
+        rollup(event.getChartId(), event.getOhlcs());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onCandlesInvalidated(CandlesInvalidatedEvent event) {
+        if (event.getFrom() != null && event.getUntil() != null) {
+            rebuild(event.getChartId(), event.getFrom(), event.getUntil());
+        }
+    }
+
+    private int rollup(RangedChart base, RangedChart chart, List<Ohlc> ohlcs) {
+        long range = chart.rangeMillis();
+        long baseRange = base.rangeMillis();
+        List<Ohlc> closed = new ArrayList<>();
+        Set<Long> rewritten = new HashSet<>();
+        CandleBucket open = openBuckets.get(chart.id);
+        // a bucket read in this call already holds all committed candles of its range
+        CandleBucket read = null;
+        for (Ohlc ohlc : ohlcs) {
+            long time = millis(ohlc.getTime());
+            long start = time - Math.floorMod(time, range);
+            if (open != null && open.getStart() == start) {
+                if (time > open.getLastTime()) {
+                    open.add(ohlc);
+                } else if (open != read) {
+                    // a candle already added was written again
+                    open = read = read(base.id, start, range);
+                }
+            } else if (open == null || start > open.getStart()) {
+                if (open != null && open.isDirty()) {
+                    closed.add(open.toOhlc());
+                }
+                open = read = read(base.id, start, range);
+            } else if (rewritten.add(start)) {
+                // a candle of a closed range was written again
+                closed.add(read(base.id, start, range).toOhlc());
+            }
+        }
+        if (open != null) {
+            if (open.isDirty() && open.getLastTime() + baseRange >= open.getStart() + range) {
+                closed.add(open.toOhlc());
+            }
+            openBuckets.put(chart.id, open);
+        }
+        return write(chart.id, closed);
+    }
+
+    private int rebuild(RangedChart base, RangedChart chart, long from, long until) {
+        long range = chart.rangeMillis();
+        long baseRange = base.rangeMillis();
+        long start = from - Math.floorMod(from, range);
+        long end = until - Math.floorMod(until, range) + range;
+        List<Ohlc> batch = new ArrayList<>(Math.min(batchSize, 1024));
+        int written = 0;
+        CandleBucket bucket = null;
+        try (Stream<OhlcValues> values = ohlcRepository.streamValuesByChartIdAndTimeRange(base.id, utc(start), utc(end))) {
+            for (OhlcValues ohlc : (Iterable<OhlcValues>) values::iterator) {
+                long time = millis(ohlc.getTime());
+                long bucketStart = time - Math.floorMod(time, range);
+                if (bucket == null || bucket.getStart() != bucketStart) {
+                    if (bucket != null) {
+                        batch.add(bucket.toOhlc());
+                        if (batch.size() == batchSize) {
+                            written += write(chart.id, batch);
+                            batch.clear();
+                        }
+                    }
+                    bucket = new CandleBucket(bucketStart);
+                }
+                bucket.add(ohlc);
+            }
+        }
+        if (bucket != null) {
+            CandleBucket open = openBuckets.get(chart.id);
+            if (open == null || open.getStart() <= bucket.getStart()) {
+                openBuckets.put(chart.id, bucket);
+                if (bucket.getLastTime() + baseRange >= bucket.getStart() + range) {
+                    batch.add(bucket.toOhlc());
+                }
+            } else {
+                batch.add(bucket.toOhlc());
+            }
+        }
+        return written + write(chart.id, batch);
+    }
+
+    private CandleBucket read(Long baseChartId, long start, long range) {
+        CandleBucket bucket = new CandleBucket(start);
+        try (Stream<OhlcValues> values = ohlcRepository.streamValuesByChartIdAndTimeRange(baseChartId, utc(start), utc(start + range))) {
+            values.forEach(bucket::add);
+        }
+        return bucket;
+    }
+
+    private int write(Long chartId, List<Ohlc> ohlcs) {
+        int written = 0;
+        for (int from = 0; from < ohlcs.size(); from += batchSize) {
+            written += ohlcService.saveAll(chartId, ohlcs.subList(from, Math.min(from + batchSize, ohlcs.size()))).size();
+        }
+        return written;
+    }
+
+    /**
+     * Get the charts of the pair of a chart whose candles are derived from it.
+     *
+     * @param chartId the id of the chart.
+     * @return the ids of the charts of the pair derived from the chart, empty unless the chart is the base chart of its pair.
+     */
+    public List<Long> derivedChartIds(Long chartId) {
+        return chartRepository
+            .findReferenceById(chartId)
+            .flatMap(this::ranged)
+            .map(this::derivedCharts)
+            .orElse(List.of())
+            .stream()
+            .map(chart -> chart.id)
+            .collect(Collectors.toList());
+    }
+
+    private List<RangedChart> derivedCharts(RangedChart base) {
+        if (base.pairId == null) {
+            return List.of();
+        }
+        List<RangedChart> derived = new ArrayList<>();
+        for (ChartReference reference : chartRepository.findReferencesByPairId(base.pairId)) {
+            Optional<RangedChart> ranged = ranged(reference);
+            if (ranged.isEmpty() || ranged.get().id.equals(base.id)) {
+                continue;
+            }
+            RangedChart chart = ranged.get();
+            if (chart.rangeSize < base.rangeSize || (chart.rangeSize == base.rangeSize && chart.id < base.id)) {
+                // the chart is not the base chart of its pair
+                return List.of();
+            }
+            if (chart.rangeSize > base.rangeSize && chart.rangeSize % base.rangeSize == 0 && !chart.disabled) {
+                derived.add(chart);
+            }
+        }
+        return derived;
+    }
+
+    /**
+     * @return the chart with the range size of its time range, or empty if the range size is missing or not positive.
+     */
+    private Optional<RangedChart> ranged(ChartReference chart) {
+        return referenceDataService
+            .findTimeRange(chart.getTimeRangeId())
+            .map(ReferenceTimeRange::getRangeSize)
+            .filter(rangeSize -> rangeSize > 0)
+            .map(rangeSize -> new RangedChart(chart, rangeSize));
+    }
+
+    private void evict(List<RangedChart> charts) {
+        charts.forEach(chart -> openBuckets.remove(chart.id));
+    }
+
+    private Object lock(Long chartId) {
+        return locks.computeIfAbsent(chartId, id -> new Object());
+    }
+
+    private static long millis(ZonedDateTime time) {
+        return time.toInstant().toEpochMilli();
+    }
+
+    private static ZonedDateTime utc(long millis) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /**
+     * A chart with the range size of its time range.
+     */
+    private static final class RangedChart {
+
+        private final Long id;
+
+        private final Long pairId;
+
+        private final int rangeSize;
+
+        private final boolean disabled;
+
+        private RangedChart(ChartReference chart, int rangeSize) {
+            this.id = chart.getId();
+            this.pairId = chart.getPairId();
+            this.rangeSize = rangeSize;
+            this.disabled = Boolean.TRUE.equals(chart.getDisabled());
+        }
+
+        private long rangeMillis() {
+            return rangeSize * 60_000L;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package de.bitc.se.service.series;
+
+/**
+ * A closed window of the candles of a chart, in one response format.
+ * <p>
+ * The window ends before the open candle of its chart, so it only changes when closed candles of the chart are
+ * written, e.g. by a repair. Its strong ETag is made of the version of these changes, which starts anew with each
+ * start of the application.
+ */
+public final class CandleWindow {
+
+    private final long chartId;
+
+    private final String eTag;
+
+    private final String key;
+
+    CandleWindow(long chartId, String eTag, String key) {
+        this.chartId = chartId;
+        this.eTag = eTag;
+        this.key = key;
+    }
+
+    public long getChartId() {
+        return chartId;
+    }
+
+    /**
+     * @return the quoted strong ETag.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Check an {@code If-None-Match} header, with the weak comparison of RFC 7232.
+     *
+     * @param ifNoneMatch the header, may be {@code null}.
+     * @return {@code true} if the header names the ETag of the window.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "CandleWindow{" + "chartId=" + chartId + ", eTag=" + eTag + ", key='" + key + "'" + "}";
+    }
+}
@@ -0,0 +1,231 @@
+package de.bitc.se.service.series;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.service.dto.TimeSeriesQueryDTO;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service keeping the versions of the closed candles of the charts and the responses of their hot closed windows.
+ * <p>
+ * A window is closed when it ends before the open candle of its chart, the candle of the current time range. The
+ * version of a chart is changed by the committed {@link CandlesWrittenEvent}s and {@link CandlesInvalidatedEvent}s that
+ * touch candles before the open candle, writes to the open candle leave the closed windows as they are. The time range
+ * of a chart is read from the database once; the versions and the responses are only kept in memory, so the ETags of
+ * the windows change with each start of the application. The responses are kept up to {@code application.window-cache}
+ * in total, the least recently used are dropped first.
+ * <p>
+ * The version is changed after the commit of the candles, so the closed windows must be read from the primary
+ * database: a replica lagging behind would return the candles of the previous version under the ETag of the new one.
+ */
+@Service
+public class CandleWindowCache {
+
+    private final Logger log = LoggerFactory.getLogger(CandleWindowCache.class);
+
+    private final ChartRepository chartRepository;
+
+    private final long maxSize;
+
+    private final long maxEntrySize;
+
+    private final Clock clock;
+
+    private final String epoch;
+
+    private final Map<Long, Long> rangeMillis = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    private static final class Entry {
+
+        private final long chartId;
+
+        private final byte[] bytes;
+
+        private Entry(long chartId, byte[] bytes) {
+            this.chartId = chartId;
+            this.bytes = bytes;
+        }
+    }
+
+    @Autowired
+    public CandleWindowCache(ChartRepository chartRepository, ApplicationProperties applicationProperties) {
+        this(
+            chartRepository,
+            applicationProperties.getWindowCache().getMaxSize().toBytes(),
+            applicationProperties.getWindowCache().getMaxEntrySize().toBytes(),
+            Clock.systemUTC()
+        );
+    }
+
+    CandleWindowCache(ChartRepository chartRepository, long maxSize, long maxEntrySize, Clock clock) {
+        this.chartRepository = chartRepository;
+        this.maxSize = maxSize;
+        this.maxEntrySize = Math.min(maxEntrySize, maxSize);
+        this.clock = clock;
+        this.epoch = Long.toString(clock.millis(), 36);
+    }
+
+    /**
+     * Get the closed window of a query.
+     *
+     * @param query the query of the candles of a chart.
+     * @param format the name of the response format, part of the ETag.
+     * @return the window, or empty if the query has no chart or end, or it ends after the start of the open candle.
+     */
+    public Optional<CandleWindow> getClosedWindow(TimeSeriesQueryDTO query, String format) {
+        if (query.getSeriesId() == null || query.getTo() == null) {
+            return Optional.empty();
+        }
+        long chartId = query.getSeriesId();
+        Long range = rangeMillis.computeIfAbsent(chartId, this::loadRangeMillis);
+        if (range == null || query.getTo().toInstant().toEpochMilli() > openCandleTime(range)) {
+            return Optional.empty();
+        }
+        long version = versions.getOrDefault(chartId, 0L);
+        String eTag = "\"" + chartId + "-" + epoch + "-" + version + "-" + format + "\"";
+        String key =
+            chartId +
+            ":" +
+            version +
+            ":" +
+            format +
+            ":" +
+            millis(query.getFrom()) +
+            ":" +
+            millis(query.getTo()) +
+            ":" +
+            millis(query.getAfterTime()) +
+            ":" +
+            query.getAfterId() +
+            ":" +
+            query.getLimit();
+        return Optional.of(new CandleWindow(chartId, eTag, key));
+    }
+
+    /**
+     * Get the kept response of a window.
+     *
+     * @param window the window.
+     * @return the bytes of the response, they must not be modified.
+     */
+    public synchronized Optional<byte[]> get(CandleWindow window) {
+        Entry entry = entries.get(window.getKey());
+        return entry != null ? Optional.of(entry.bytes) : Optional.empty();
+    }
+
+    /**
+     * Keep the response of a window, unless it is larger than {@code application.window-cache.max-entry-size}.
+     *
+     * @param window the window.
+     * @param bytes the bytes of the response, they must not be modified.
+     */
+    public synchronized void put(CandleWindow window, byte[] bytes) {
+        if (bytes.length > maxEntrySize) {
+            return;
+        }
+        Entry previous = entries.put(window.getKey(), new Entry(window.getChartId(), bytes));
+        size += bytes.length - (previous != null ? previous.bytes.length : 0);
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            size -= eldest.next().bytes.length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return the maximum size of a kept response, in bytes.
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * @return the total size of the kept responses, in bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCandlesWritten(CandlesWrittenEvent event) {
+        ZonedDateTime first = null;
+        for (Ohlc ohlc : event.getOhlcs()) {
+            if (ohlc.getTime() != null && (first == null || ohlc.getTime().isBefore(first))) {
+                first = ohlc.getTime();
+            }
+        }
+        if (first == null || isClosed(event.getChartId(), first)) {
+            changed(event.getChartId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCandlesInvalidated(CandlesInvalidatedEvent event) {
+        // the time range of the chart may have changed as well
+        rangeMillis.remove(event.getChartId());
+        changed(event.getChartId());
+    }
+
+    private boolean isClosed(Long chartId, ZonedDateTime time) {
+        Long range = rangeMillis.get(chartId);
+        return range == null || time.toInstant().toEpochMilli() < openCandleTime(range);
+    }
+
+    private void changed(Long chartId) {
+        long version = versions.merge(chartId, 1L, Long::sum);
+        log.debug("Closed candles of Chart {} changed, version {}", chartId, version);
+        synchronized (this) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.chartId == chartId) {
+                    size -= entry.bytes.length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private long openCandleTime(long range) {
+        long now = clock.millis();
+        return now - Math.floorMod(now, range);
+    }
+
+    /**
+     * @return the size of the time range of the chart in milliseconds, or {@code null} if the chart does not exist or
+     * has no time range.
+     */
+    private Long loadRangeMillis(Long chartId) {
+        return chartRepository
+            .findById(chartId)
+            .map(Chart::getTimeRange)
+            .filter(timeRange -> timeRange.getRangeSize() != null && timeRange.getRangeSize() > 0)
+            .map(timeRange -> timeRange.getRangeSize() * 60_000L)
+            .orElse(null);
+    }
+
+    private static Long millis(ZonedDateTime time) {
+        return time != null ? time.toInstant().toEpochMilli() : null;
+    }
+}
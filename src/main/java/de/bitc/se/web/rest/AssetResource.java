@@ -2,6 +2,7 @@ package de.bitc.se.web.rest;
 
 import de.bitc.se.domain.Asset;
 import de.bitc.se.repository.AssetRepository;
+import de.bitc.se.service.event.ReferenceDataChangedEvent;
 import de.bitc.se.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -11,6 +12,7 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -34,8 +36,11 @@ public class AssetResource {
 
     private final AssetRepository assetRepository;
 
-    public AssetResource(AssetRepository assetRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AssetResource(AssetRepository assetRepository, ApplicationEventPublisher eventPublisher) {
         this.assetRepository = assetRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -52,6 +57,7 @@ public class AssetResource {
             throw new BadRequestAlertException("A new asset cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Asset result = assetRepository.save(asset);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .created(new URI("/api/assets/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -84,6 +90,7 @@ public class AssetResource {
         }
 
         Asset result = assetRepository.save(asset);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, asset.getId().toString()))
@@ -141,6 +148,7 @@ public class AssetResource {
                 return existingAsset;
             })
             .map(assetRepository::save);
+        result.ifPresent(saved -> eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME)));
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -182,6 +190,7 @@ public class AssetResource {
     public ResponseEntity<Void> deleteAsset(@PathVariable Long id) {
         log.debug("REST request to delete Asset : {}", id);
         assetRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
@@ -2,6 +2,8 @@ package de.bitc.se.web.rest;
 
 import de.bitc.se.domain.Calculation;
 import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.service.dto.CalculationRepairResultDTO;
+import de.bitc.se.service.indicator.IndicatorService;
 import de.bitc.se.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -14,6 +16,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import tech.jhipster.web.util.HeaderUtil;
@@ -36,8 +39,11 @@ public class CalculationResource {
 
     private final CalculationRepository calculationRepository;
 
-    public CalculationResource(CalculationRepository calculationRepository) {
+    private final IndicatorService indicatorService;
+
+    public CalculationResource(CalculationRepository calculationRepository, IndicatorService indicatorService) {
         this.calculationRepository = calculationRepository;
+        this.indicatorService = indicatorService;
     }
 
     /**
@@ -169,6 +175,21 @@ public class CalculationResource {
         return ResponseUtil.wrapOrNotFound(calculation);
     }
 
+    /**
+     * {@code POST  /calculations/:id/repair} : recompute the tuples of the "id" calculation around its gaps.
+     * Each gap is repaired in its own transaction. The repair of a large chart is submitted as a
+     * {@link de.bitc.se.domain.enumeration.JobType#CALCULATION_REPAIR} job instead, see {@link JobResource}.
+     *
+     * @param id the id of the calculation to repair.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of the repair, or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/calculations/{id}/repair")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<CalculationRepairResultDTO> repairCalculation(@PathVariable Long id) {
+        log.debug("REST request to repair Calculation : {}", id);
+        return ResponseUtil.wrapOrNotFound(indicatorService.repair(id));
+    }
+
     /**
      * {@code DELETE  /calculations/:id} : delete the "id" calculation.
      *
@@ -2,6 +2,7 @@ package de.bitc.se.web.rest;
 
 import de.bitc.se.domain.Fee;
 import de.bitc.se.repository.FeeRepository;
+import de.bitc.se.service.event.ReferenceDataChangedEvent;
 import de.bitc.se.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -11,6 +12,7 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -34,8 +36,11 @@ public class FeeResource {
 
     private final FeeRepository feeRepository;
 
-    public FeeResource(FeeRepository feeRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public FeeResource(FeeRepository feeRepository, ApplicationEventPublisher eventPublisher) {
         this.feeRepository = feeRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -52,6 +57,7 @@ public class FeeResource {
             throw new BadRequestAlertException("A new fee cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Fee result = feeRepository.save(fee);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .created(new URI("/api/fees/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -84,6 +90,7 @@ public class FeeResource {
         }
 
         Fee result = feeRepository.save(fee);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, fee.getId().toString()))
@@ -129,6 +136,7 @@ public class FeeResource {
                 return existingFee;
             })
             .map(feeRepository::save);
+        result.ifPresent(saved -> eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME)));
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -170,6 +178,7 @@ public class FeeResource {
     public ResponseEntity<Void> deleteFee(@PathVariable Long id) {
         log.debug("REST request to delete Fee : {}", id);
         feeRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
@@ -0,0 +1,114 @@
+package de.bitc.se.web.rest;
+
+import de.bitc.se.domain.Job;
+import de.bitc.se.domain.enumeration.JobStatus;
+import de.bitc.se.repository.JobRepository;
+import de.bitc.se.service.job.JobService;
+import de.bitc.se.web.rest.errors.BadRequestAlertException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for managing {@link de.bitc.se.domain.Job}.
+ */
+@RestController
+@RequestMapping("/api")
+public class JobResource {
+
+    private final Logger log = LoggerFactory.getLogger(JobResource.class);
+
+    private static final String ENTITY_NAME = "job";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final JobRepository jobRepository;
+
+    private final JobService jobService;
+
+    public JobResource(JobRepository jobRepository, JobService jobService) {
+        this.jobRepository = jobRepository;
+        this.jobService = jobService;
+    }
+
+    /**
+     * {@code POST  /jobs} : Submit a new job, it runs in the background.
+     *
+     * @param job the job to submit, with its type and calculation.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the queued job, or the queued or running job of the same type and calculation,
+     * or with status {@code 400 (Bad Request)} if the job has already an ID or the calculation does not exist.
+     * @throws URISyntaxException if the Location URI syntax is incorrect.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<Job> submitJob(@RequestBody Job job) throws URISyntaxException {
+        log.debug("REST request to submit Job : {}", job);
+        if (job.getId() != null) {
+            throw new BadRequestAlertException("A new job cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        if (job.getType() == null || job.getCalculationId() == null) {
+            throw new BadRequestAlertException("A job needs a type and a calculation", ENTITY_NAME, "invalidjob");
+        }
+        Job result = jobService
+            .submit(job.getType(), job.getCalculationId())
+            .orElseThrow(() -> new BadRequestAlertException("Calculation not found", ENTITY_NAME, "calculationnotfound"));
+        return ResponseEntity
+            .accepted()
+            .location(new URI("/api/jobs/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /jobs/:id} : get the "id" job, its status and progress.
+     *
+     * @param id the id of the job to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the job, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<Job> getJob(@PathVariable Long id) {
+        log.debug("REST request to get Job : {}", id);
+        return ResponseUtil.wrapOrNotFound(jobRepository.findById(id));
+    }
+
+    /**
+     * {@code POST  /jobs/:id/cancel} : cancel the "id" job. A running job stops at its next chunk.
+     *
+     * @param id the id of the job to cancel.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the job, or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/jobs/{id}/cancel")
+    public ResponseEntity<Job> cancelJob(@PathVariable Long id) {
+        log.debug("REST request to cancel Job : {}", id);
+        return ResponseUtil.wrapOrNotFound(jobService.cancel(id));
+    }
+
+    /**
+     * {@code GET  /jobs/:id/result} : get the result of the "id" job.
+     *
+     * @param id the id of the job.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the JSON of the result,
+     * or with status {@code 409 (Conflict)} if the job has not succeeded, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping(value = "/jobs/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getJobResult(@PathVariable Long id) {
+        log.debug("REST request to get the result of Job : {}", id);
+        Optional<Job> job = jobRepository.findById(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.get().getStatus() != JobStatus.SUCCEEDED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(job.get().getResult());
+    }
+}
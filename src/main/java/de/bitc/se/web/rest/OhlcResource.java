@@ -1,21 +1,46 @@
 package de.bitc.se.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.config.ApplicationProperties;
 import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.projection.OhlcValues;
+import de.bitc.se.repository.ChartRepository;
 import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.service.OhlcImportException;
+import de.bitc.se.service.OhlcService;
+import de.bitc.se.service.coalescing.CoalescingKey;
+import de.bitc.se.service.coalescing.RequestCoalescer;
+import de.bitc.se.service.dto.OhlcImportDTO;
+import de.bitc.se.service.dto.TimeSeriesQueryDTO;
+import de.bitc.se.service.live.LiveUpdateService;
+import de.bitc.se.service.series.CandleWindow;
+import de.bitc.se.service.series.CandleWindowCache;
 import de.bitc.se.web.rest.errors.BadRequestAlertException;
+import de.bitc.se.web.rest.util.ColumnarResponseUtil;
+import de.bitc.se.web.rest.util.LiveResponseUtil;
+import de.bitc.se.web.rest.util.StreamingResponseUtil;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.List;
+import java.time.ZonedDateTime;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -36,15 +61,46 @@ public class OhlcResource {
 
     private final OhlcRepository ohlcRepository;
 
-    public OhlcResource(OhlcRepository ohlcRepository) {
+    private final OhlcService ohlcService;
+
+    private final ChartRepository chartRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final LiveUpdateService liveUpdateService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final CandleWindowCache candleWindowCache;
+
+    private final RequestCoalescer requestCoalescer;
+
+    public OhlcResource(
+        OhlcRepository ohlcRepository,
+        OhlcService ohlcService,
+        ChartRepository chartRepository,
+        ObjectMapper objectMapper,
+        LiveUpdateService liveUpdateService,
+        ApplicationProperties applicationProperties,
+        CandleWindowCache candleWindowCache,
+        RequestCoalescer requestCoalescer
+    ) {
         this.ohlcRepository = ohlcRepository;
+        this.ohlcService = ohlcService;
+        this.chartRepository = chartRepository;
+        this.objectMapper = objectMapper;
+        this.liveUpdateService = liveUpdateService;
+        this.applicationProperties = applicationProperties;
+        this.candleWindowCache = candleWindowCache;
+        this.requestCoalescer = requestCoalescer;
     }
 
     /**
      * {@code POST  /ohlcs} : Create a new ohlc.
      *
      * @param ohlc the ohlc to create.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new ohlc, or with status {@code 400 (Bad Request)} if the ohlc has already an ID.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new ohlc, or with status {@code 400 (Bad Request)} if the ohlc has already an ID
+     * or its chart has already an ohlc at its time.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/ohlcs")
@@ -53,20 +109,95 @@ public class OhlcResource {
         if (ohlc.getId() != null) {
             throw new BadRequestAlertException("A new ohlc cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Ohlc result = ohlcRepository.save(ohlc);
+        if (existsAtTime(ohlc)) {
+            throw new BadRequestAlertException("The chart has already an ohlc at this time", ENTITY_NAME, "timeexists");
+        }
+        Ohlc result = ohlcService.save(ohlc);
         return ResponseEntity
             .created(new URI("/api/ohlcs/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    private boolean existsAtTime(Ohlc ohlc) {
+        return (
+            ohlc.getChart() != null &&
+            ohlc.getChart().getId() != null &&
+            ohlc.getTime() != null &&
+            ohlcRepository.existsByChartIdAndTime(ohlc.getChart().getId(), ohlc.getTime())
+        );
+    }
+
+    /**
+     * {@code POST  /charts/:id/ohlcs:bulk} : Import the ohlcs of a chart, one JSON object per line.
+     *
+     * @param id the id of the chart.
+     * @param inputStream the ohlcs as newline delimited JSON.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of imported ohlcs and the rows per second,
+     * or with status {@code 400 (Bad Request)} if the chart does not exist or a line is not a valid ohlc.
+     */
+    @PostMapping(value = "/charts/{id}/ohlcs:bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<OhlcImportDTO> importOhlcsFromNdjson(@PathVariable Long id, InputStream inputStream) {
+        log.debug("REST request to import NDJSON Ohlcs of Chart : {}", id);
+        return importOhlcs(id, OhlcService.ImportFormat.NDJSON, inputStream);
+    }
+
+    /**
+     * {@code POST  /charts/:id/ohlcs:bulk} : Import the ohlcs of a chart from CSV.
+     * <p>
+     * The first line names the columns, e.g. {@code time,open,high,low,close,volumeWeightedAveragePrice,volume,count}.
+     *
+     * @param id the id of the chart.
+     * @param inputStream the ohlcs as comma separated values.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of imported ohlcs and the rows per second,
+     * or with status {@code 400 (Bad Request)} if the chart does not exist or a line is not a valid ohlc.
+     */
+    @PostMapping(value = "/charts/{id}/ohlcs:bulk", consumes = "text/csv")
+    public ResponseEntity<OhlcImportDTO> importOhlcsFromCsv(@PathVariable Long id, InputStream inputStream) {
+        log.debug("REST request to import CSV Ohlcs of Chart : {}", id);
+        return importOhlcs(id, OhlcService.ImportFormat.CSV, inputStream);
+    }
+
+    private ResponseEntity<OhlcImportDTO> importOhlcs(Long chartId, OhlcService.ImportFormat format, InputStream inputStream) {
+        if (!chartRepository.existsById(chartId)) {
+            throw new BadRequestAlertException("Entity not found", "chart", "idnotfound");
+        }
+        try {
+            return ResponseEntity.ok(ohlcService.importOhlcs(chartId, format, inputStream));
+        } catch (OhlcImportException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "importinvalid");
+        }
+    }
+
+    /**
+     * {@code GET  /charts/:id/ohlcs:live} : Subscribe to the written ohlcs of a chart.
+     * <p>
+     * Each new or updated ohlc is sent as an {@code ohlc} event; while the client is slow, only the latest state of an
+     * ohlc is sent. When ohlcs are deleted, moved or imported, an {@code invalidated} event with the time range
+     * {@code from}, {@code until}, or without one for all times, is sent instead; the client reads them again.
+     *
+     * @param id the id of the chart.
+     * @return the stream of server-sent events, or with status {@code 400 (Bad Request)} if the chart does not exist.
+     */
+    @GetMapping(value = "/charts/{id}/ohlcs:live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToOhlcs(@PathVariable Long id) {
+        log.debug("REST request to subscribe to Ohlcs of Chart : {}", id);
+        if (!chartRepository.existsById(id)) {
+            throw new BadRequestAlertException("Entity not found", "chart", "idnotfound");
+        }
+        return LiveResponseUtil.serverSentEvents(
+            applicationProperties.getLive().getTimeout(),
+            sink -> liveUpdateService.subscribeToChart(id, sink)
+        );
+    }
+
     /**
      * {@code PUT  /ohlcs/:id} : Updates an existing ohlc.
      *
      * @param id the id of the ohlc to save.
      * @param ohlc the ohlc to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ohlc,
-     * or with status {@code 400 (Bad Request)} if the ohlc is not valid,
+     * or with status {@code 400 (Bad Request)} if the ohlc is not valid or its chart has already an ohlc at its time,
      * or with status {@code 500 (Internal Server Error)} if the ohlc couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
@@ -85,7 +216,7 @@ public class OhlcResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
-        Ohlc result = ohlcRepository.save(ohlc);
+        Ohlc result = ohlcService.update(ohlc);
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, ohlc.getId().toString()))
@@ -98,7 +229,7 @@ public class OhlcResource {
      * @param id the id of the ohlc to save.
      * @param ohlc the ohlc to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ohlc,
-     * or with status {@code 400 (Bad Request)} if the ohlc is not valid,
+     * or with status {@code 400 (Bad Request)} if the ohlc is not valid or its chart has already an ohlc at its time,
      * or with status {@code 404 (Not Found)} if the ohlc is not found,
      * or with status {@code 500 (Internal Server Error)} if the ohlc couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
@@ -120,37 +251,7 @@ public class OhlcResource {
             throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
         }
 
-        Optional<Ohlc> result = ohlcRepository
-            .findById(ohlc.getId())
-            .map(existingOhlc -> {
-                if (ohlc.getTime() != null) {
-                    existingOhlc.setTime(ohlc.getTime());
-                }
-                if (ohlc.getOpen() != null) {
-                    existingOhlc.setOpen(ohlc.getOpen());
-                }
-                if (ohlc.getHigh() != null) {
-                    existingOhlc.setHigh(ohlc.getHigh());
-                }
-                if (ohlc.getLow() != null) {
-                    existingOhlc.setLow(ohlc.getLow());
-                }
-                if (ohlc.getClose() != null) {
-                    existingOhlc.setClose(ohlc.getClose());
-                }
-                if (ohlc.getVolumeWeightedAveragePrice() != null) {
-                    existingOhlc.setVolumeWeightedAveragePrice(ohlc.getVolumeWeightedAveragePrice());
-                }
-                if (ohlc.getVolume() != null) {
-                    existingOhlc.setVolume(ohlc.getVolume());
-                }
-                if (ohlc.getCount() != null) {
-                    existingOhlc.setCount(ohlc.getCount());
-                }
-
-                return existingOhlc;
-            })
-            .map(ohlcRepository::save);
+        Optional<Ohlc> result = ohlcService.partialUpdate(ohlc);
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -159,14 +260,197 @@ public class OhlcResource {
     }
 
     /**
-     * {@code GET  /ohlcs} : get all the ohlcs.
+     * {@code GET  /ohlcs} : get the ohlcs, streamed as a JSON array.
+     * <p>
+     * With a {@code chartId} the ohlcs of the chart are returned ordered by {@code (time, id)}, restricted to the
+     * window {@code [from, to)}. To read the next page, pass the {@code time} and {@code id} of the last ohlc received
+     * as {@code afterTime} and {@code afterId}. The archived ohlcs of the chart come without id, after one of them pass
+     * its {@code time} alone. Without a {@code chartId} all ohlcs are returned ordered by id.
+     * <p>
+     * A window of a chart ending before the open ohlc of the chart is closed: its response has a strong {@code ETag}
+     * and a {@code Cache-Control} of {@code application.window-cache.max-age}, a matching {@code If-None-Match} is
+     * answered with {@code 304 (Not Modified)} and hot closed windows are written from memory, see
+     * {@link CandleWindowCache}. The closed windows are read from the primary database, not from the replica.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ohlcs in body.
+     * @param chartId the id of the chart.
+     * @param from the first time of the window, inclusive.
+     * @param to the last time of the window, exclusive.
+     * @param afterTime the time of the keyset cursor.
+     * @param afterId the id of the keyset cursor.
+     * @param limit the maximum number of ohlcs to return.
+     * @param ifNoneMatch the ETags of the window known to the client.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ohlcs in body,
+     * or with status {@code 304 (Not Modified)} if the closed window is known to the client,
+     * or with status {@code 400 (Bad Request)} if the window is not valid.
      */
     @GetMapping("/ohlcs")
-    public List<Ohlc> getAllOhlcs() {
+    public ResponseEntity<StreamingResponseBody> getAllOhlcs(
+        @RequestParam(required = false) Long chartId,
+        @RequestParam(required = false) ZonedDateTime from,
+        @RequestParam(required = false) ZonedDateTime to,
+        @RequestParam(required = false) ZonedDateTime afterTime,
+        @RequestParam(required = false) Long afterId,
+        @RequestParam(required = false) Integer limit,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get all Ohlcs");
-        return ohlcRepository.findAll();
+        TimeSeriesQueryDTO query = query(chartId, from, to, afterTime, afterId, limit);
+        return window(
+            query,
+            MediaType.APPLICATION_JSON,
+            "json",
+            ifNoneMatch,
+            closed -> StreamingResponseUtil.jsonArray(objectMapper, Ohlc.class, consumer -> streamOhlcs(query, closed, consumer))
+        );
+    }
+
+    /**
+     * {@code GET  /ohlcs} : get the ohlcs in columns, in the columnar JSON or binary format of {@link ColumnarResponseUtil}.
+     * <p>
+     * The window of a chart is selected and cached like the JSON array of {@link #getAllOhlcs}, the concurrent requests
+     * of the same window are read once by the {@link RequestCoalescer}. The columns are {@code t} (the time in epoch
+     * milliseconds), {@code o}, {@code h}, {@code l}, {@code c} (open, high, low and close), {@code w} (the volume weighted
+     * average price), {@code v} (the volume), {@code n} (the count) and {@code i} (the id, for the keyset cursor).
+     * <p>
+     * The columns are read into memory before they are written, so a response has at most
+     * {@code application.columnar.max-rows} rows: to read the next rows, pass the {@code t} and {@code i} of the last
+     * row as {@code afterTime} and {@code afterId}, or its {@code t} alone if it is archived and has no {@code i}. The
+     * decimals are written as doubles, which keep about 15 significant digits; the JSON array has the exact decimals.
+     *
+     * @param chartId the id of the chart, required.
+     * @param from the first time of the window, inclusive.
+     * @param to the last time of the window, exclusive.
+     * @param afterTime the time of the keyset cursor.
+     * @param afterId the id of the keyset cursor.
+     * @param limit the maximum number of ohlcs to return.
+     * @param accept the accepted media types.
+     * @param ifNoneMatch the ETags of the window known to the client.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the columns of the ohlcs in body,
+     * or with status {@code 304 (Not Modified)} if the closed window is known to the client,
+     * or with status {@code 400 (Bad Request)} if the chart is missing or the window is not valid.
+     */
+    @GetMapping(value = "/ohlcs", produces = { ColumnarResponseUtil.COLUMNAR_JSON_VALUE, ColumnarResponseUtil.COLUMNAR_BINARY_VALUE })
+    public ResponseEntity<StreamingResponseBody> getAllOhlcsColumnar(
+        @RequestParam(required = false) Long chartId,
+        @RequestParam(required = false) ZonedDateTime from,
+        @RequestParam(required = false) ZonedDateTime to,
+        @RequestParam(required = false) ZonedDateTime afterTime,
+        @RequestParam(required = false) Long afterId,
+        @RequestParam(required = false) Integer limit,
+        @RequestHeader(HttpHeaders.ACCEPT) String accept,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        log.debug("REST request to get all Ohlcs in columns");
+        if (chartId == null) {
+            throw new BadRequestAlertException("The columns require a chartId", ENTITY_NAME, "chartidnull");
+        }
+        int maxRows = applicationProperties.getColumnar().getMaxRows();
+        TimeSeriesQueryDTO query = query(chartId, from, to, afterTime, afterId, limit == null || limit > maxRows ? maxRows : limit);
+        MediaType mediaType = ColumnarResponseUtil.selectMediaType(accept);
+        return window(
+            query,
+            mediaType,
+            ColumnarResponseUtil.COLUMNAR_JSON.equals(mediaType) ? "columnar-json" : "columnar",
+            ifNoneMatch,
+            closed -> ColumnarResponseUtil.body(mediaType, objectMapper, () -> ohlcColumns(query, closed))
+        );
+    }
+
+    /**
+     * Stream the ohlcs of a window, a closed window from the primary database: it is cached under the version of the
+     * committed ohlcs, which the replica may not have yet.
+     */
+    private long streamOhlcs(TimeSeriesQueryDTO query, boolean closed, Consumer<Ohlc> consumer) {
+        return closed ? ohlcService.streamOhlcsFromPrimary(query, consumer) : ohlcService.streamOhlcs(query, consumer);
+    }
+
+    private ColumnarResponseUtil.Columns ohlcColumns(TimeSeriesQueryDTO query, boolean closed) {
+        // concurrent requests of the same window, e.g. the dashboards showing a chart, read it once
+        return requestCoalescer.execute(
+            CoalescingKey.ofChart(closed ? "ohlc-columns-closed" : "ohlc-columns", query.getSeriesId(), query),
+            () -> readOhlcColumns(query, closed)
+        );
+    }
+
+    private ColumnarResponseUtil.Columns readOhlcColumns(TimeSeriesQueryDTO query, boolean closed) {
+        ColumnarResponseUtil.Columns columns = new ColumnarResponseUtil.Columns();
+        ColumnarResponseUtil.LongColumn time = columns.longs("t");
+        ColumnarResponseUtil.DoubleColumn open = columns.doubles("o");
+        ColumnarResponseUtil.DoubleColumn high = columns.doubles("h");
+        ColumnarResponseUtil.DoubleColumn low = columns.doubles("l");
+        ColumnarResponseUtil.DoubleColumn close = columns.doubles("c");
+        ColumnarResponseUtil.DoubleColumn volumeWeightedAveragePrice = columns.doubles("w");
+        ColumnarResponseUtil.DoubleColumn volume = columns.doubles("v");
+        ColumnarResponseUtil.IntColumn count = columns.ints("n");
+        ColumnarResponseUtil.LongColumn id = columns.longs("i");
+        Consumer<OhlcValues> row = ohlc -> {
+            time.add(ohlc.getTime());
+            open.add(ohlc.getOpen());
+            high.add(ohlc.getHigh());
+            low.add(ohlc.getLow());
+            close.add(ohlc.getClose());
+            volumeWeightedAveragePrice.add(ohlc.getVolumeWeightedAveragePrice());
+            volume.add(ohlc.getVolume());
+            count.add(ohlc.getCount());
+            id.add(ohlc.getId());
+        };
+        // a closed window is read from the primary, like the JSON array
+        if (closed) {
+            ohlcService.streamOhlcValuesFromPrimary(query, row);
+        } else {
+            ohlcService.streamOhlcValues(query, row);
+        }
+        return columns.seal();
+    }
+
+    private TimeSeriesQueryDTO query(Long chartId, ZonedDateTime from, ZonedDateTime to, ZonedDateTime afterTime, Long afterId, Integer limit) {
+        TimeSeriesQueryDTO query = new TimeSeriesQueryDTO(chartId, from, to, afterTime, afterId, limit);
+        if (chartId == null && !query.isUnrestricted()) {
+            throw new BadRequestAlertException("A time window requires a chartId", ENTITY_NAME, "chartidnull");
+        }
+        if (afterTime == null && afterId != null) {
+            throw new BadRequestAlertException("afterId requires afterTime", ENTITY_NAME, "cursorinvalid");
+        }
+        if (limit != null && limit < 1) {
+            throw new BadRequestAlertException("Invalid limit", ENTITY_NAME, "limitinvalid");
+        }
+        return query;
+    }
+
+    private ResponseEntity<StreamingResponseBody> window(
+        TimeSeriesQueryDTO query,
+        MediaType mediaType,
+        String format,
+        String ifNoneMatch,
+        Function<Boolean, StreamingResponseBody> bodyOfWindow
+    ) {
+        Optional<CandleWindow> closed = candleWindowCache.getClosedWindow(query, format);
+        if (closed.isEmpty()) {
+            return ResponseEntity.ok().contentType(mediaType).body(bodyOfWindow.apply(false));
+        }
+        CandleWindow window = closed.get();
+        CacheControl cacheControl = CacheControl.maxAge(applicationProperties.getWindowCache().getMaxAge()).cachePrivate();
+        if (window.matches(ifNoneMatch)) {
+            log.debug("Closed window {} not modified", window);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(window.getETag()).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        StreamingResponseBody cached = candleWindowCache
+            .get(window)
+            .map(StreamingResponseUtil::bytes)
+            .orElseGet(() ->
+                StreamingResponseUtil.copying(
+                    bodyOfWindow.apply(true),
+                    candleWindowCache.getMaxEntrySize(),
+                    bytes -> candleWindowCache.put(window, bytes)
+                )
+            );
+        return ResponseEntity
+            .ok()
+            .contentType(mediaType)
+            .eTag(window.getETag())
+            .cacheControl(cacheControl)
+            .varyBy(HttpHeaders.ACCEPT)
+            .body(cached);
     }
 
     /**
@@ -191,7 +475,7 @@ public class OhlcResource {
     @DeleteMapping("/ohlcs/{id}")
     public ResponseEntity<Void> deleteOhlc(@PathVariable Long id) {
         log.debug("REST request to delete Ohlc : {}", id);
-        ohlcRepository.deleteById(id);
+        ohlcService.delete(id);
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
@@ -2,6 +2,7 @@ package de.bitc.se.web.rest;
 
 import de.bitc.se.domain.Pair;
 import de.bitc.se.repository.PairRepository;
+import de.bitc.se.service.event.ReferenceDataChangedEvent;
 import de.bitc.se.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -13,6 +14,7 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -36,8 +38,11 @@ public class PairResource {
 
     private final PairRepository pairRepository;
 
-    public PairResource(PairRepository pairRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PairResource(PairRepository pairRepository, ApplicationEventPublisher eventPublisher) {
         this.pairRepository = pairRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -54,6 +59,7 @@ public class PairResource {
             throw new BadRequestAlertException("A new pair cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Pair result = pairRepository.save(pair);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .created(new URI("/api/pairs/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -86,6 +92,7 @@ public class PairResource {
         }
 
         Pair result = pairRepository.save(pair);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, pair.getId().toString()))
@@ -148,6 +155,7 @@ public class PairResource {
                 return existingPair;
             })
             .map(pairRepository::save);
+        result.ifPresent(saved -> eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME)));
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -189,6 +197,7 @@ public class PairResource {
     public ResponseEntity<Void> deletePair(@PathVariable Long id) {
         log.debug("REST request to delete Pair : {}", id);
         pairRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
@@ -2,6 +2,7 @@ package de.bitc.se.web.rest;
 
 import de.bitc.se.domain.TimeRange;
 import de.bitc.se.repository.TimeRangeRepository;
+import de.bitc.se.service.event.ReferenceDataChangedEvent;
 import de.bitc.se.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -11,6 +12,7 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -34,8 +36,11 @@ public class TimeRangeResource {
 
     private final TimeRangeRepository timeRangeRepository;
 
-    public TimeRangeResource(TimeRangeRepository timeRangeRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TimeRangeResource(TimeRangeRepository timeRangeRepository, ApplicationEventPublisher eventPublisher) {
         this.timeRangeRepository = timeRangeRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -52,6 +57,7 @@ public class TimeRangeResource {
             throw new BadRequestAlertException("A new timeRange cannot already have an ID", ENTITY_NAME, "idexists");
         }
         TimeRange result = timeRangeRepository.save(timeRange);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .created(new URI("/api/time-ranges/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
@@ -86,6 +92,7 @@ public class TimeRangeResource {
         }
 
         TimeRange result = timeRangeRepository.save(timeRange);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, timeRange.getId().toString()))
@@ -139,6 +146,7 @@ public class TimeRangeResource {
                 return existingTimeRange;
             })
             .map(timeRangeRepository::save);
+        result.ifPresent(saved -> eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME)));
 
         return ResponseUtil.wrapOrNotFound(
             result,
@@ -180,6 +188,7 @@ public class TimeRangeResource {
     public ResponseEntity<Void> deleteTimeRange(@PathVariable Long id) {
         log.debug("REST request to delete TimeRange : {}", id);
         timeRangeRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ENTITY_NAME));
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
@@ -1,19 +1,32 @@
 package de.bitc.se.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.config.ApplicationProperties;
 import de.bitc.se.domain.Tuple;
+import de.bitc.se.repository.CalculationRepository;
 import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.TupleService;
+import de.bitc.se.service.dto.TimeSeriesQueryDTO;
+import de.bitc.se.service.live.LiveUpdateService;
 import de.bitc.se.web.rest.errors.BadRequestAlertException;
+import de.bitc.se.web.rest.util.ColumnarResponseUtil;
+import de.bitc.se.web.rest.util.LiveResponseUtil;
+import de.bitc.se.web.rest.util.StreamingResponseUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.List;
+import java.time.ZonedDateTime;
 import java.util.Objects;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.ResponseUtil;
 
@@ -34,8 +47,30 @@ public class TupleResource {
 
     private final TupleRepository tupleRepository;
 
-    public TupleResource(TupleRepository tupleRepository) {
+    private final TupleService tupleService;
+
+    private final ObjectMapper objectMapper;
+
+    private final CalculationRepository calculationRepository;
+
+    private final LiveUpdateService liveUpdateService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public TupleResource(
+        TupleRepository tupleRepository,
+        TupleService tupleService,
+        ObjectMapper objectMapper,
+        CalculationRepository calculationRepository,
+        LiveUpdateService liveUpdateService,
+        ApplicationProperties applicationProperties
+    ) {
         this.tupleRepository = tupleRepository;
+        this.tupleService = tupleService;
+        this.objectMapper = objectMapper;
+        this.calculationRepository = calculationRepository;
+        this.liveUpdateService = liveUpdateService;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -58,6 +93,28 @@ public class TupleResource {
             .body(result);
     }
 
+    /**
+     * {@code GET  /calculations/:id/tuples:live} : Subscribe to the computed tuples of a calculation.
+     * <p>
+     * Each new or recomputed tuple is sent as a {@code tuple} event; while the client is slow, only the latest value
+     * of a tuple is sent. If too many tuples are waiting, an {@code invalidated} event is sent instead and the client
+     * reads them again.
+     *
+     * @param id the id of the calculation.
+     * @return the stream of server-sent events, or with status {@code 400 (Bad Request)} if the calculation does not exist.
+     */
+    @GetMapping(value = "/calculations/{id}/tuples:live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToTuples(@PathVariable Long id) {
+        log.debug("REST request to subscribe to Tuples of Calculation : {}", id);
+        if (!calculationRepository.existsById(id)) {
+            throw new BadRequestAlertException("Entity not found", "calculation", "idnotfound");
+        }
+        return LiveResponseUtil.serverSentEvents(
+            applicationProperties.getLive().getTimeout(),
+            sink -> liveUpdateService.subscribeToCalculation(id, sink)
+        );
+    }
+
     /**
      * {@code PUT  /tuples/:id} : Updates an existing tuple.
      *
@@ -137,14 +194,114 @@ public class TupleResource {
     }
 
     /**
-     * {@code GET  /tuples} : get all the tuples.
+     * {@code GET  /tuples} : get the tuples, streamed as a JSON array.
+     * <p>
+     * With a {@code calculationId} the tuples of the calculation are returned ordered by {@code (time, id)}, restricted to the
+     * window {@code [from, to)}. To read the next page, pass the {@code time} and {@code id} of the last tuple received
+     * as {@code afterTime} and {@code afterId}. Without a {@code calculationId} all tuples are returned ordered by id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tuples in body.
+     * @param calculationId the id of the calculation.
+     * @param from the first time of the window, inclusive.
+     * @param to the last time of the window, exclusive.
+     * @param afterTime the time of the keyset cursor.
+     * @param afterId the id of the keyset cursor.
+     * @param limit the maximum number of tuples to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tuples in body,
+     * or with status {@code 400 (Bad Request)} if the window is not valid.
      */
     @GetMapping("/tuples")
-    public List<Tuple> getAllTuples() {
+    public ResponseEntity<StreamingResponseBody> getAllTuples(
+        @RequestParam(required = false) Long calculationId,
+        @RequestParam(required = false) ZonedDateTime from,
+        @RequestParam(required = false) ZonedDateTime to,
+        @RequestParam(required = false) ZonedDateTime afterTime,
+        @RequestParam(required = false) Long afterId,
+        @RequestParam(required = false) Integer limit
+    ) {
         log.debug("REST request to get all Tuples");
-        return tupleRepository.findAll();
+        TimeSeriesQueryDTO query = query(calculationId, from, to, afterTime, afterId, limit);
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(StreamingResponseUtil.jsonArray(objectMapper, Tuple.class, consumer -> tupleService.streamTuples(query, consumer)));
+    }
+
+    /**
+     * {@code GET  /tuples} : get the tuples in columns, in the columnar JSON or binary format of {@link ColumnarResponseUtil}.
+     * <p>
+     * The window of a calculation is selected like the JSON array of {@link #getAllTuples}. The columns are {@code t}
+     * (the time in epoch milliseconds), {@code v} (the computation) and {@code i} (the id, for the keyset cursor).
+     * <p>
+     * The columns are read into memory before they are written, so a response has at most
+     * {@code application.columnar.max-rows} rows: to read the next rows, pass the {@code t} and {@code i} of the last
+     * row as {@code afterTime} and {@code afterId}. The computations are written as doubles, which keep about 15
+     * significant digits; the JSON array has the exact decimals.
+     *
+     * @param calculationId the id of the calculation, required.
+     * @param from the first time of the window, inclusive.
+     * @param to the last time of the window, exclusive.
+     * @param afterTime the time of the keyset cursor.
+     * @param afterId the id of the keyset cursor.
+     * @param limit the maximum number of tuples to return.
+     * @param accept the accepted media types.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the columns of the tuples in body,
+     * or with status {@code 400 (Bad Request)} if the calculation is missing or the window is not valid.
+     */
+    @GetMapping(value = "/tuples", produces = { ColumnarResponseUtil.COLUMNAR_JSON_VALUE, ColumnarResponseUtil.COLUMNAR_BINARY_VALUE })
+    public ResponseEntity<StreamingResponseBody> getAllTuplesColumnar(
+        @RequestParam(required = false) Long calculationId,
+        @RequestParam(required = false) ZonedDateTime from,
+        @RequestParam(required = false) ZonedDateTime to,
+        @RequestParam(required = false) ZonedDateTime afterTime,
+        @RequestParam(required = false) Long afterId,
+        @RequestParam(required = false) Integer limit,
+        @RequestHeader(HttpHeaders.ACCEPT) String accept
+    ) {
+        log.debug("REST request to get all Tuples in columns");
+        if (calculationId == null) {
+            throw new BadRequestAlertException("The columns require a calculationId", ENTITY_NAME, "calculationidnull");
+        }
+        int maxRows = applicationProperties.getColumnar().getMaxRows();
+        TimeSeriesQueryDTO query = query(calculationId, from, to, afterTime, afterId, limit == null || limit > maxRows ? maxRows : limit);
+        MediaType mediaType = ColumnarResponseUtil.selectMediaType(accept);
+        return ResponseEntity.ok().contentType(mediaType).body(ColumnarResponseUtil.body(mediaType, objectMapper, () -> tupleColumns(query)));
+    }
+
+    private ColumnarResponseUtil.Columns tupleColumns(TimeSeriesQueryDTO query) {
+        ColumnarResponseUtil.Columns columns = new ColumnarResponseUtil.Columns();
+        ColumnarResponseUtil.LongColumn time = columns.longs("t");
+        ColumnarResponseUtil.DoubleColumn computation = columns.doubles("v");
+        ColumnarResponseUtil.LongColumn id = columns.longs("i");
+        tupleService.streamTupleValues(
+            query,
+            tuple -> {
+                time.add(tuple.getTime());
+                computation.add(tuple.getComputation());
+                id.add(tuple.getId());
+            }
+        );
+        return columns.seal();
+    }
+
+    private TimeSeriesQueryDTO query(
+        Long calculationId,
+        ZonedDateTime from,
+        ZonedDateTime to,
+        ZonedDateTime afterTime,
+        Long afterId,
+        Integer limit
+    ) {
+        TimeSeriesQueryDTO query = new TimeSeriesQueryDTO(calculationId, from, to, afterTime, afterId, limit);
+        if (calculationId == null && !query.isUnrestricted()) {
+            throw new BadRequestAlertException("A time window requires a calculationId", ENTITY_NAME, "calculationidnull");
+        }
+        if ((afterTime == null) != (afterId == null)) {
+            throw new BadRequestAlertException("afterTime and afterId must be given together", ENTITY_NAME, "cursorinvalid");
+        }
+        if (limit != null && limit < 1) {
+            throw new BadRequestAlertException("Invalid limit", ENTITY_NAME, "limitinvalid");
+        }
+        return query;
     }
 
     /**
@@ -4,16 +4,19 @@ import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.validation.BindingResult;
@@ -43,6 +46,7 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
     private static final String MESSAGE_KEY = "message";
     private static final String PATH_KEY = "path";
     private static final String VIOLATIONS_KEY = "violations";
+    private static final String OHLC_CHART_TIME_CONSTRAINT = "ux_ohlc__chart_id_time";
 
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
@@ -164,6 +168,33 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(ex, problem, request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleDataIntegrityViolation(DataIntegrityViolationException ex, NativeWebRequest request) {
+        if (isOhlcChartTimeViolation(ex)) {
+            return handleBadRequestAlertException(
+                new BadRequestAlertException("The chart has already an ohlc at this time", "ohlc", "timeexists"),
+                request
+            );
+        }
+        return create(ex, request);
+    }
+
+    /**
+     * The unique constraint of the ohlcs on {@code (chart_id, time)} is reported by H2 with its name and index, and by
+     * PostgreSQL with the name of the index of the partition, e.g. {@code ohlc_p2022_10_chart_id_time_key}.
+     */
+    private boolean isOhlcChartTimeViolation(DataIntegrityViolationException ex) {
+        if (!(ex.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+        String constraintName = ((ConstraintViolationException) ex.getCause()).getConstraintName();
+        if (constraintName == null) {
+            return false;
+        }
+        String name = constraintName.toLowerCase(Locale.ROOT);
+        return name.contains(OHLC_CHART_TIME_CONSTRAINT) || (name.startsWith("ohlc_") && name.endsWith("_chart_id_time_key"));
+    }
+
     @Override
     public ProblemBuilder prepare(final Throwable throwable, final StatusType status, final URI type) {
         Collection<String> activeProfiles = Arrays.asList(env.getActiveProfiles());
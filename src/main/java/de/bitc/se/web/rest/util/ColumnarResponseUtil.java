@@ -0,0 +1,433 @@
+package de.bitc.se.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Utility class for responses of a time series written column by column.
+ * <p>
+ * The rows are read into primitive {@link Columns} first and then written without an object per row, either as a
+ * JSON object with an array per column, e.g. {@code {"t":[1542057300000],"o":[3586.7]}}, or in a binary format. The
+ * binary format is little-endian: a header of 16 bytes (the magic {@code QBCF}, the version, the number of columns,
+ * 2 reserved bytes, the number of rows and 4 reserved bytes), a descriptor of 8 bytes per column (the type, the length
+ * of the name and the name padded with zeros) and the values of each column, padded to a multiple of 8 bytes. Each
+ * column starts at a multiple of 8 bytes, so a client can read it as a typed array without copying.
+ * <p>
+ * Missing values are written as {@code null} in JSON. In the binary format missing decimals are written as {@code NaN},
+ * missing longs and integers as {@link Long#MIN_VALUE} and {@link Integer#MIN_VALUE}. Decimals are written as doubles.
+ */
+public final class ColumnarResponseUtil {
+
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.querybug.columnar+json";
+
+    public static final MediaType COLUMNAR_JSON = MediaType.valueOf(COLUMNAR_JSON_VALUE);
+
+    public static final String COLUMNAR_BINARY_VALUE = "application/vnd.querybug.columnar";
+
+    public static final MediaType COLUMNAR_BINARY = MediaType.valueOf(COLUMNAR_BINARY_VALUE);
+
+    static final byte[] MAGIC = { 'Q', 'B', 'C', 'F' };
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    static final int DESCRIPTOR_SIZE = 8;
+
+    static final int MAX_NAME_LENGTH = DESCRIPTOR_SIZE - 2;
+
+    static final byte TYPE_INT64 = 1;
+
+    static final byte TYPE_FLOAT64 = 2;
+
+    static final byte TYPE_INT32 = 3;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private ColumnarResponseUtil() {}
+
+    /**
+     * The columns of a time series, filled row by row. Once filled, the columns are sealed and can be shared and
+     * written by several threads.
+     */
+    public static final class Columns {
+
+        private final List<Column> columns = new ArrayList<>();
+
+        private boolean sealed;
+
+        /**
+         * Add a column of longs, e.g. times in epoch milliseconds or ids.
+         *
+         * @param name the name of the column.
+         * @return the column.
+         */
+        public LongColumn longs(String name) {
+            return add(new LongColumn(name));
+        }
+
+        /**
+         * Add a column of decimals.
+         *
+         * @param name the name of the column.
+         * @return the column.
+         */
+        public DoubleColumn doubles(String name) {
+            return add(new DoubleColumn(name));
+        }
+
+        /**
+         * Add a column of integers.
+         *
+         * @param name the name of the column.
+         * @return the column.
+         */
+        public IntColumn ints(String name) {
+            return add(new IntColumn(name));
+        }
+
+        /**
+         * @return the number of rows.
+         */
+        public int getRows() {
+            if (columns.isEmpty()) {
+                return 0;
+            }
+            int rows = columns.get(0).size;
+            for (Column column : columns) {
+                if (column.size != rows) {
+                    throw new IllegalStateException("The column " + column.name + " has " + column.size + " rows instead of " + rows);
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * Make the columns read-only, a value or column added afterwards fails.
+         *
+         * @return these columns.
+         */
+        public Columns seal() {
+            for (Column column : columns) {
+                column.sealed = true;
+            }
+            sealed = true;
+            return this;
+        }
+
+        public boolean isSealed() {
+            return sealed;
+        }
+
+        List<Column> getColumns() {
+            return Collections.unmodifiableList(columns);
+        }
+
+        private <C extends Column> C add(C column) {
+            if (sealed) {
+                throw new IllegalStateException("The columns are sealed");
+            }
+            if (column.name.isEmpty() || column.name.length() > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Invalid column name: " + column.name);
+            }
+            columns.add(column);
+            return column;
+        }
+    }
+
+    abstract static class Column {
+
+        final String name;
+
+        final byte type;
+
+        int size;
+
+        boolean sealed;
+
+        Column(String name, byte type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        void checkNotSealed() {
+            if (sealed) {
+                throw new IllegalStateException("The column " + name + " is sealed");
+            }
+        }
+
+        abstract void writeJson(JsonGenerator generator, int rows) throws IOException;
+
+        abstract void writeBinary(BinaryWriter writer, int rows) throws IOException;
+    }
+
+    /**
+     * A column of longs.
+     */
+    public static final class LongColumn extends Column {
+
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        LongColumn(String name) {
+            super(name, TYPE_INT64);
+        }
+
+        public void add(Long value) {
+            add(value == null ? Long.MIN_VALUE : value.longValue());
+        }
+
+        /**
+         * Add a time in epoch milliseconds.
+         *
+         * @param time the time.
+         */
+        public void add(ZonedDateTime time) {
+            add(time == null ? Long.MIN_VALUE : time.toInstant().toEpochMilli());
+        }
+
+        public void add(long value) {
+            checkNotSealed();
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void writeJson(JsonGenerator generator, int rows) throws IOException {
+            generator.writeStartArray(values, rows);
+            for (int i = 0; i < rows; i++) {
+                if (values[i] == Long.MIN_VALUE) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(values[i]);
+                }
+            }
+            generator.writeEndArray();
+        }
+
+        @Override
+        void writeBinary(BinaryWriter writer, int rows) throws IOException {
+            for (int i = 0; i < rows; i++) {
+                writer.ensure(Long.BYTES).putLong(values[i]);
+            }
+        }
+    }
+
+    /**
+     * A column of decimals, written as doubles.
+     */
+    public static final class DoubleColumn extends Column {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleColumn(String name) {
+            super(name, TYPE_FLOAT64);
+        }
+
+        public void add(BigDecimal value) {
+            add(value == null ? Double.NaN : value.doubleValue());
+        }
+
+        public void add(double value) {
+            checkNotSealed();
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void writeJson(JsonGenerator generator, int rows) throws IOException {
+            generator.writeStartArray(values, rows);
+            for (int i = 0; i < rows; i++) {
+                if (Double.isNaN(values[i])) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(values[i]);
+                }
+            }
+            generator.writeEndArray();
+        }
+
+        @Override
+        void writeBinary(BinaryWriter writer, int rows) throws IOException {
+            for (int i = 0; i < rows; i++) {
+                writer.ensure(Double.BYTES).putDouble(values[i]);
+            }
+        }
+    }
+
+    /**
+     * A column of integers.
+     */
+    public static final class IntColumn extends Column {
+
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        IntColumn(String name) {
+            super(name, TYPE_INT32);
+        }
+
+        public void add(Integer value) {
+            add(value == null ? Integer.MIN_VALUE : value.intValue());
+        }
+
+        public void add(int value) {
+            checkNotSealed();
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        @Override
+        void writeJson(JsonGenerator generator, int rows) throws IOException {
+            generator.writeStartArray(values, rows);
+            for (int i = 0; i < rows; i++) {
+                if (values[i] == Integer.MIN_VALUE) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(values[i]);
+                }
+            }
+            generator.writeEndArray();
+        }
+
+        @Override
+        void writeBinary(BinaryWriter writer, int rows) throws IOException {
+            for (int i = 0; i < rows; i++) {
+                writer.ensure(Integer.BYTES).putInt(values[i]);
+            }
+            if (rows % 2 != 0) {
+                writer.ensure(Integer.BYTES).putInt(0);
+            }
+        }
+    }
+
+    /**
+     * Writes through a reused little-endian buffer.
+     */
+    static final class BinaryWriter {
+
+        private final OutputStream outputStream;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        BinaryWriter(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        void flush() throws IOException {
+            outputStream.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Select the columnar media type of an {@code Accept} header, the binary format unless the JSON format is preferred.
+     *
+     * @param accept the {@code Accept} header.
+     * @return {@link #COLUMNAR_JSON} or {@link #COLUMNAR_BINARY}.
+     */
+    public static MediaType selectMediaType(String accept) {
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (COLUMNAR_JSON.equalsTypeAndSubtype(mediaType)) {
+                return COLUMNAR_JSON;
+            }
+            if (COLUMNAR_BINARY.equalsTypeAndSubtype(mediaType)) {
+                return COLUMNAR_BINARY;
+            }
+        }
+        return COLUMNAR_BINARY;
+    }
+
+    /**
+     * Create a body writing the columns in the given media type.
+     *
+     * @param mediaType {@link #COLUMNAR_JSON} or {@link #COLUMNAR_BINARY}.
+     * @param objectMapper the mapper whose factory creates the JSON generator.
+     * @param source reads the columns, called once the response is written.
+     * @return the streaming body.
+     */
+    public static StreamingResponseBody body(MediaType mediaType, ObjectMapper objectMapper, Supplier<Columns> source) {
+        if (COLUMNAR_BINARY.equalsTypeAndSubtype(mediaType)) {
+            return binary(source);
+        }
+        if (COLUMNAR_JSON.equalsTypeAndSubtype(mediaType)) {
+            return json(objectMapper, source);
+        }
+        throw new IllegalArgumentException("Not a columnar media type: " + mediaType);
+    }
+
+    /**
+     * Create a body writing the columns as a JSON object with an array per column.
+     *
+     * @param objectMapper the mapper whose factory creates the JSON generator.
+     * @param source reads the columns, called once the response is written.
+     * @return the streaming body.
+     */
+    public static StreamingResponseBody json(ObjectMapper objectMapper, Supplier<Columns> source) {
+        return outputStream -> {
+            Columns columns = source.get();
+            int rows = columns.getRows();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                for (Column column : columns.getColumns()) {
+                    generator.writeFieldName(column.name);
+                    column.writeJson(generator, rows);
+                }
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    /**
+     * Create a body writing the columns in the binary format.
+     *
+     * @param source reads the columns, called once the response is written.
+     * @return the streaming body.
+     */
+    public static StreamingResponseBody binary(Supplier<Columns> source) {
+        return outputStream -> {
+            Columns columns = source.get();
+            int rows = columns.getRows();
+            BinaryWriter writer = new BinaryWriter(outputStream);
+            ByteBuffer header = writer.ensure(HEADER_SIZE);
+            header.put(MAGIC).put((byte) VERSION).put((byte) columns.getColumns().size()).putShort((short) 0).putInt(rows).putInt(0);
+            for (Column column : columns.getColumns()) {
+                byte[] name = Arrays.copyOf(column.name.getBytes(StandardCharsets.US_ASCII), MAX_NAME_LENGTH);
+                writer.ensure(DESCRIPTOR_SIZE).put(column.type).put((byte) column.name.length()).put(name);
+            }
+            for (Column column : columns.getColumns()) {
+                column.writeBinary(writer, rows);
+            }
+            writer.flush();
+        };
+    }
+}
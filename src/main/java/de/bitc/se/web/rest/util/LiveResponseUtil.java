@@ -0,0 +1,59 @@
+package de.bitc.se.web.rest.util;
+
+import de.bitc.se.service.live.LiveSubscriber;
+import io.undertow.servlet.handlers.ServletRequestContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.Function;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.xnio.IoUtils;
+
+/**
+ * Utility class for responses pushing the updates of a {@link LiveSubscriber} as server-sent events.
+ */
+public final class LiveResponseUtil {
+
+    private LiveResponseUtil() {}
+
+    /**
+     * Create an emitter sending the updates of a subscriber, the subscriber is closed with the emitter. A blocked send
+     * is aborted by closing the connection of the request.
+     *
+     * @param timeout the time after which the emitter is completed.
+     * @param subscribe subscribes the transport of the emitter.
+     * @return the emitter.
+     */
+    public static SseEmitter serverSentEvents(Duration timeout, Function<LiveSubscriber.Sink, LiveSubscriber> subscribe) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Closeable connection = currentConnection();
+        LiveSubscriber subscriber = subscribe.apply(
+            new LiveSubscriber.Sink() {
+                @Override
+                public void send(String name, String data) throws IOException {
+                    // the data is already serialized, it is written as it is
+                    emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void abort() {
+                    // the emitter cannot be completed while a send is blocked, its methods wait for the send
+                    IoUtils.safeClose(connection);
+                }
+            }
+        );
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+
+    /**
+     * @return the connection of the request of the current thread, {@code null} outside of an Undertow request.
+     */
+    private static Closeable currentConnection() {
+        ServletRequestContext context = ServletRequestContext.current();
+        return context != null ? context.getExchange().getConnection() : null;
+    }
+}
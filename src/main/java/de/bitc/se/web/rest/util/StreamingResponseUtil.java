@@ -0,0 +1,129 @@
+package de.bitc.se.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Utility class for responses written while the rows are read from the database.
+ */
+public final class StreamingResponseUtil {
+
+    /**
+     * Reads rows and hands each of them to the consumer.
+     *
+     * @param <T> the type of the rows.
+     */
+    @FunctionalInterface
+    public interface RowSource<T> {
+        void forEach(Consumer<T> consumer);
+    }
+
+    private StreamingResponseUtil() {}
+
+    /**
+     * Create a body writing the rows as a JSON array, one row at a time.
+     *
+     * @param objectMapper the mapper used to serialize the rows.
+     * @param type the type of the rows.
+     * @param source the source of the rows, called once the response is written.
+     * @param <T> the type of the rows.
+     * @return the streaming body.
+     */
+    public static <T> StreamingResponseBody jsonArray(ObjectMapper objectMapper, Class<T> type, RowSource<T> source) {
+        // flushing after every row would turn each row into a chunk of its own
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                source.forEach(row -> {
+                    try {
+                        writer.writeValue(generator, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    /**
+     * Create a body writing the given bytes.
+     *
+     * @param bytes the bytes.
+     * @return the body.
+     */
+    public static StreamingResponseBody bytes(byte[] bytes) {
+        return outputStream -> outputStream.write(bytes);
+    }
+
+    /**
+     * Create a body keeping a copy of the bytes written by another body.
+     *
+     * @param body the body.
+     * @param maxSize the maximum number of bytes copied; the copy of a larger body is dropped.
+     * @param consumer receives the copy once the body is completely written.
+     * @return the body.
+     */
+    public static StreamingResponseBody copying(StreamingResponseBody body, long maxSize, Consumer<byte[]> consumer) {
+        return outputStream -> {
+            CopyingOutputStream copying = new CopyingOutputStream(outputStream, maxSize);
+            body.writeTo(copying);
+            if (copying.copy != null) {
+                consumer.accept(copying.copy.toByteArray());
+            }
+        };
+    }
+
+    private static final class CopyingOutputStream extends FilterOutputStream {
+
+        private final long maxSize;
+
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private CopyingOutputStream(OutputStream outputStream, long maxSize) {
+            super(outputStream);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the response is closed by the container
+            flush();
+        }
+
+        private void copy(byte[] b, int off, int len) {
+            if (copy == null) {
+                return;
+            }
+            if (copy.size() + (long) len > maxSize) {
+                copy = null;
+            } else {
+                copy.write(b, off, len);
+            }
+        }
+    }
+}
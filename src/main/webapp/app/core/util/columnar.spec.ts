@@ -0,0 +1,51 @@
+import { decodeColumns } from './columnar';
+
+const encode = (rows: number, columns: { name: string; type: number; values: number[] }[]): ArrayBuffer => {
+  const size = columns.reduce((total, column) => total + Math.ceil((rows * (column.type === 3 ? 4 : 8)) / 8) * 8, 16 + columns.length * 8);
+  const buffer = new ArrayBuffer(size);
+  const view = new DataView(buffer);
+  'QBCF'.split('').forEach((c, i) => view.setUint8(i, c.charCodeAt(0)));
+  view.setUint8(4, 1);
+  view.setUint8(5, columns.length);
+  view.setInt32(8, rows, true);
+  let offset = 16 + columns.length * 8;
+  columns.forEach((column, index) => {
+    view.setUint8(16 + index * 8, column.type);
+    view.setUint8(16 + index * 8 + 1, column.name.length);
+    column.name.split('').forEach((c, i) => view.setUint8(16 + index * 8 + 2 + i, c.charCodeAt(0)));
+    column.values.forEach((value, i) => {
+      if (column.type === 1) {
+        view.setUint32(offset + i * 8, value % 0x100000000, true);
+        view.setInt32(offset + i * 8 + 4, Math.floor(value / 0x100000000), true);
+      } else if (column.type === 2) {
+        view.setFloat64(offset + i * 8, value, true);
+      } else {
+        view.setInt32(offset + i * 4, value, true);
+      }
+    });
+    offset += Math.ceil((rows * (column.type === 3 ? 4 : 8)) / 8) * 8;
+  });
+  return buffer;
+};
+
+describe('Columnar Test', () => {
+  describe('decodeColumns', () => {
+    it('should decode the columns', () => {
+      const buffer = encode(3, [
+        { name: 't', type: 1, values: [0, 1542057300000, 1542057360000] },
+        { name: 'o', type: 2, values: [3586.7, NaN, 1.5] },
+        { name: 'n', type: 3, values: [2, -0x80000000, 7] },
+      ]);
+
+      const columns = decodeColumns(buffer);
+
+      expect(Array.from(columns.t)).toEqual([0, 1542057300000, 1542057360000]);
+      expect(Array.from(columns.o)).toEqual([3586.7, NaN, 1.5]);
+      expect(Array.from(columns.n)).toEqual([2, NaN, 7]);
+    });
+
+    it('should reject an unknown format', () => {
+      expect(() => decodeColumns(new ArrayBuffer(16))).toThrow();
+    });
+  });
+});
@@ -0,0 +1,77 @@
+/*
+ * Decoder of the binary columnar format of the time series endpoints.
+ *
+ * The format is little-endian: a header of 16 bytes (the magic 'QBCF', the version, the number of columns, 2 reserved
+ * bytes, the number of rows and 4 reserved bytes), a descriptor of 8 bytes per column (the type, the length of the name
+ * and the name) and the values of each column, padded to a multiple of 8 bytes.
+ */
+export const COLUMNAR_JSON = 'application/vnd.querybug.columnar+json';
+export const COLUMNAR_BINARY = 'application/vnd.querybug.columnar';
+
+const MAGIC = 'QBCF';
+const VERSION = 1;
+const HEADER_SIZE = 16;
+const DESCRIPTOR_SIZE = 8;
+const TYPE_INT64 = 1;
+const TYPE_FLOAT64 = 2;
+const TYPE_INT32 = 3;
+const INT32_NULL = -0x80000000;
+const INT64_NULL_HIGH = -0x80000000;
+const TWO_POW_32 = 0x100000000;
+
+/**
+ * The columns by name, missing values are NaN.
+ */
+export type Columns = Record<string, Float64Array>;
+
+/**
+ * The value of a column, null when it is missing.
+ */
+export const valueOf = (value: number): number | null => (Number.isNaN(value) ? null : value);
+
+const padded = (bytes: number): number => Math.ceil(bytes / 8) * 8;
+
+export const decodeColumns = (buffer: ArrayBuffer): Columns => {
+  const view = new DataView(buffer);
+  const magic = String.fromCharCode(view.getUint8(0), view.getUint8(1), view.getUint8(2), view.getUint8(3));
+  if (magic !== MAGIC || view.getUint8(4) !== VERSION) {
+    throw new Error(`Unsupported columnar format: ${magic} ${view.getUint8(4)}`);
+  }
+  const columnCount = view.getUint8(5);
+  const rows = view.getInt32(8, true);
+  const columns: Columns = {};
+  let offset = HEADER_SIZE + columnCount * DESCRIPTOR_SIZE;
+  for (let column = 0; column < columnCount; column++) {
+    const descriptor = HEADER_SIZE + column * DESCRIPTOR_SIZE;
+    const type = view.getUint8(descriptor);
+    let name = '';
+    for (let i = 0; i < view.getUint8(descriptor + 1); i++) {
+      name += String.fromCharCode(view.getUint8(descriptor + 2 + i));
+    }
+    if (type === TYPE_FLOAT64) {
+      // the columns are aligned, the doubles are read without copying
+      columns[name] = new Float64Array(buffer, offset, rows);
+      offset += rows * 8;
+    } else if (type === TYPE_INT64) {
+      const values = new Float64Array(rows);
+      for (let i = 0; i < rows; i++) {
+        const low = view.getUint32(offset + i * 8, true);
+        const high = view.getInt32(offset + i * 8 + 4, true);
+        values[i] = high === INT64_NULL_HIGH && low === 0 ? NaN : high * TWO_POW_32 + low;
+      }
+      columns[name] = values;
+      offset += rows * 8;
+    } else if (type === TYPE_INT32) {
+      const values = new Float64Array(rows);
+      for (let i = 0; i < rows; i++) {
+        const value = view.getInt32(offset + i * 4, true);
+        values[i] = value === INT32_NULL ? NaN : value;
+      }
+      columns[name] = values;
+      offset += padded(rows * 4);
+    } else {
+      throw new Error(`Unsupported column type: ${type}`);
+    }
+  }
+  return columns;
+};
@@ -64,6 +64,23 @@ describe('Ohlc Management Component', () => {
     expect(comp.ohlcs?.[0]).toEqual(expect.objectContaining({ id: 123 }));
   });
 
+  it('Should load the ohlcs of a chart in the columnar format', () => {
+    // GIVEN
+    const activatedRoute = TestBed.inject(ActivatedRoute);
+    Object.assign(activatedRoute, {
+      queryParamMap: of(jest.requireActual('@angular/router').convertToParamMap({ sort: 'id,desc', chartId: '7' })),
+    });
+    jest.spyOn(service, 'queryChart').mockReturnValue(of(new HttpResponse({ body: [{ id: 123, chart: { id: 7 } }] })));
+
+    // WHEN
+    comp.ngOnInit();
+
+    // THEN
+    expect(service.queryChart).toHaveBeenCalledWith(7);
+    expect(service.query).not.toHaveBeenCalled();
+    expect(comp.ohlcs?.[0]).toEqual(expect.objectContaining({ id: 123 }));
+  });
+
   describe('trackId', () => {
     it('Should forward to ohlcService', () => {
       const entity = { id: 123 };
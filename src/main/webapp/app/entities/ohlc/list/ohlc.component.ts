@@ -19,6 +19,7 @@ export class OhlcComponent implements OnInit {
 
   predicate = 'id';
   ascending = true;
+  chartId: number | null = null;
 
   constructor(
     protected ohlcService: OhlcService,
@@ -73,6 +74,8 @@ export class OhlcComponent implements OnInit {
     const sort = (params.get(SORT) ?? data[DEFAULT_SORT_DATA]).split(',');
     this.predicate = sort[0];
     this.ascending = sort[1] === ASC;
+    const chartId = params.get('chartId');
+    this.chartId = chartId ? Number(chartId) : null;
   }
 
   protected onResponseSuccess(response: EntityArrayResponseType): void {
@@ -93,12 +96,15 @@ export class OhlcComponent implements OnInit {
     const queryObject = {
       sort: this.getSortQueryParam(predicate, ascending),
     };
-    return this.ohlcService.query(queryObject).pipe(tap(() => (this.isLoading = false)));
+    // the ohlcs of a chart are read in the binary columnar format
+    const response = this.chartId !== null ? this.ohlcService.queryChart(this.chartId) : this.ohlcService.query(queryObject);
+    return response.pipe(tap(() => (this.isLoading = false)));
   }
 
   protected handleNavigation(predicate?: string, ascending?: boolean): void {
     const queryParamsObj = {
       sort: this.getSortQueryParam(predicate, ascending),
+      chartId: this.chartId ?? undefined,
     };
 
     this.router.navigate(['./'], {
@@ -14,4 +14,19 @@ export interface IOhlc {
   chart?: Pick<IChart, 'id'> | null;
 }
 
+/**
+ * The ohlcs of a window in columns, the times in epoch milliseconds and missing values NaN.
+ */
+export interface IOhlcColumns {
+  time: Float64Array;
+  open: Float64Array;
+  high: Float64Array;
+  low: Float64Array;
+  close: Float64Array;
+  volumeWeightedAveragePrice: Float64Array;
+  volume: Float64Array;
+  count: Float64Array;
+  id: Float64Array;
+}
+
 export type NewOhlc = Omit<IOhlc, 'id'> & { id: null };
@@ -1,6 +1,8 @@
 import { TestBed } from '@angular/core/testing';
 import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
 
+import { COLUMNAR_BINARY } from 'app/core/util/columnar';
+
 import { IOhlc } from '../ohlc.model';
 import { sampleWithRequiredData, sampleWithNewData, sampleWithPartialData, sampleWithFullData } from '../ohlc.test-samples';
 
@@ -74,6 +76,15 @@ describe('Ohlc Service', () => {
       expect(expectedResult).toMatchObject(expected);
     });
 
+    it('should query the columns of a window', () => {
+      service.queryColumns({ chartId: 1 }).subscribe();
+
+      const req = httpMock.expectOne({ method: 'GET' });
+      expect(req.request.headers.get('Accept')).toBe(COLUMNAR_BINARY);
+      expect(req.request.responseType).toBe('arraybuffer');
+      expect(req.request.params.get('chartId')).toBe('1');
+    });
+
     it('should return a list of Ohlc', () => {
       const returnedFromService = { ...requireRestSample };
 
@@ -7,7 +7,8 @@ import dayjs from 'dayjs/esm';
 import { isPresent } from 'app/core/util/operators';
 import { ApplicationConfigService } from 'app/core/config/application-config.service';
 import { createRequestOption } from 'app/core/request/request-util';
-import { IOhlc, NewOhlc } from '../ohlc.model';
+import { COLUMNAR_BINARY, Columns, decodeColumns, valueOf } from 'app/core/util/columnar';
+import { IOhlc, IOhlcColumns, NewOhlc } from '../ohlc.model';
 
 export type PartialUpdateOhlc = Partial<IOhlc> & Pick<IOhlc, 'id'>;
 
@@ -62,6 +63,25 @@ export class OhlcService {
       .pipe(map(res => this.convertResponseArrayFromServer(res)));
   }
 
+  /**
+   * Query the ohlcs of a chart window in the binary columnar format, without an object per ohlc.
+   */
+  queryColumns(req?: any): Observable<IOhlcColumns> {
+    const options = createRequestOption(req);
+    return this.http
+      .get(this.resourceUrl, { params: options, headers: { Accept: COLUMNAR_BINARY }, responseType: 'arraybuffer' })
+      .pipe(map(body => this.convertColumnsFromServer(decodeColumns(body))));
+  }
+
+  /**
+   * Query the ohlcs of a chart in the binary columnar format and convert the columns into the ohlcs of a list.
+   */
+  queryChart(chartId: number, req?: any): Observable<EntityArrayResponseType> {
+    return this.queryColumns({ ...req, chartId }).pipe(
+      map(columns => new HttpResponse({ body: this.convertColumnsToOhlcs(columns, chartId) }))
+    );
+  }
+
   delete(id: number): Observable<HttpResponse<{}>> {
     return this.http.delete(`${this.resourceUrl}/${id}`, { observe: 'response' });
   }
@@ -108,6 +128,39 @@ export class OhlcService {
     };
   }
 
+  protected convertColumnsFromServer(columns: Columns): IOhlcColumns {
+    return {
+      time: columns.t,
+      open: columns.o,
+      high: columns.h,
+      low: columns.l,
+      close: columns.c,
+      volumeWeightedAveragePrice: columns.w,
+      volume: columns.v,
+      count: columns.n,
+      id: columns.i,
+    };
+  }
+
+  protected convertColumnsToOhlcs(columns: IOhlcColumns, chartId: number): IOhlc[] {
+    const ohlcs: IOhlc[] = [];
+    for (let row = 0; row < columns.id.length; row++) {
+      ohlcs.push({
+        id: columns.id[row],
+        time: dayjs(columns.time[row]),
+        open: valueOf(columns.open[row]),
+        high: valueOf(columns.high[row]),
+        low: valueOf(columns.low[row]),
+        close: valueOf(columns.close[row]),
+        volumeWeightedAveragePrice: valueOf(columns.volumeWeightedAveragePrice[row]),
+        volume: valueOf(columns.volume[row]),
+        count: valueOf(columns.count[row]),
+        chart: { id: chartId },
+      });
+    }
+    return ohlcs;
+  }
+
   protected convertResponseFromServer(res: HttpResponse<RestOhlc>): HttpResponse<IOhlc> {
     return res.clone({
       body: res.body ? this.convertDateFromServer(res.body) : null,
@@ -64,6 +64,23 @@ describe('Tuple Management Component', () => {
     expect(comp.tuples?.[0]).toEqual(expect.objectContaining({ id: 123 }));
   });
 
+  it('Should load the tuples of a calculation in the columnar format', () => {
+    // GIVEN
+    const activatedRoute = TestBed.inject(ActivatedRoute);
+    Object.assign(activatedRoute, {
+      queryParamMap: of(jest.requireActual('@angular/router').convertToParamMap({ sort: 'id,desc', calculationId: '7' })),
+    });
+    jest.spyOn(service, 'queryCalculation').mockReturnValue(of(new HttpResponse({ body: [{ id: 123, calculation: { id: 7 } }] })));
+
+    // WHEN
+    comp.ngOnInit();
+
+    // THEN
+    expect(service.queryCalculation).toHaveBeenCalledWith(7);
+    expect(service.query).not.toHaveBeenCalled();
+    expect(comp.tuples?.[0]).toEqual(expect.objectContaining({ id: 123 }));
+  });
+
   describe('trackId', () => {
     it('Should forward to tupleService', () => {
       const entity = { id: 123 };
@@ -19,6 +19,7 @@ export class TupleComponent implements OnInit {
 
   predicate = 'id';
   ascending = true;
+  calculationId: number | null = null;
 
   constructor(
     protected tupleService: TupleService,
@@ -73,6 +74,8 @@ export class TupleComponent implements OnInit {
     const sort = (params.get(SORT) ?? data[DEFAULT_SORT_DATA]).split(',');
     this.predicate = sort[0];
     this.ascending = sort[1] === ASC;
+    const calculationId = params.get('calculationId');
+    this.calculationId = calculationId ? Number(calculationId) : null;
   }
 
   protected onResponseSuccess(response: EntityArrayResponseType): void {
@@ -93,12 +96,16 @@ export class TupleComponent implements OnInit {
     const queryObject = {
       sort: this.getSortQueryParam(predicate, ascending),
     };
-    return this.tupleService.query(queryObject).pipe(tap(() => (this.isLoading = false)));
+    // the tuples of a calculation are read in the binary columnar format
+    const response =
+      this.calculationId !== null ? this.tupleService.queryCalculation(this.calculationId) : this.tupleService.query(queryObject);
+    return response.pipe(tap(() => (this.isLoading = false)));
   }
 
   protected handleNavigation(predicate?: string, ascending?: boolean): void {
     const queryParamsObj = {
       sort: this.getSortQueryParam(predicate, ascending),
+      calculationId: this.calculationId ?? undefined,
     };
 
     this.router.navigate(['./'], {
@@ -1,6 +1,8 @@
 import { TestBed } from '@angular/core/testing';
 import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
 
+import { COLUMNAR_BINARY } from 'app/core/util/columnar';
+
 import { ITuple } from '../tuple.model';
 import { sampleWithRequiredData, sampleWithNewData, sampleWithPartialData, sampleWithFullData } from '../tuple.test-samples';
 
@@ -74,6 +76,15 @@ describe('Tuple Service', () => {
       expect(expectedResult).toMatchObject(expected);
     });
 
+    it('should query the columns of a window', () => {
+      service.queryColumns({ calculationId: 1 }).subscribe();
+
+      const req = httpMock.expectOne({ method: 'GET' });
+      expect(req.request.headers.get('Accept')).toBe(COLUMNAR_BINARY);
+      expect(req.request.responseType).toBe('arraybuffer');
+      expect(req.request.params.get('calculationId')).toBe('1');
+    });
+
     it('should return a list of Tuple', () => {
       const returnedFromService = { ...requireRestSample };
 
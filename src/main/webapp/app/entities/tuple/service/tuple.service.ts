@@ -7,7 +7,8 @@ import dayjs from 'dayjs/esm';
 import { isPresent } from 'app/core/util/operators';
 import { ApplicationConfigService } from 'app/core/config/application-config.service';
 import { createRequestOption } from 'app/core/request/request-util';
-import { ITuple, NewTuple } from '../tuple.model';
+import { COLUMNAR_BINARY, Columns, decodeColumns, valueOf } from 'app/core/util/columnar';
+import { ITuple, ITupleColumns, NewTuple } from '../tuple.model';
 
 export type PartialUpdateTuple = Partial<ITuple> & Pick<ITuple, 'id'>;
 
@@ -62,6 +63,25 @@ export class TupleService {
       .pipe(map(res => this.convertResponseArrayFromServer(res)));
   }
 
+  /**
+   * Query the tuples of a calculation window in the binary columnar format, without an object per tuple.
+   */
+  queryColumns(req?: any): Observable<ITupleColumns> {
+    const options = createRequestOption(req);
+    return this.http
+      .get(this.resourceUrl, { params: options, headers: { Accept: COLUMNAR_BINARY }, responseType: 'arraybuffer' })
+      .pipe(map(body => this.convertColumnsFromServer(decodeColumns(body))));
+  }
+
+  /**
+   * Query the tuples of a calculation in the binary columnar format and convert the columns into the tuples of a list.
+   */
+  queryCalculation(calculationId: number, req?: any): Observable<EntityArrayResponseType> {
+    return this.queryColumns({ ...req, calculationId }).pipe(
+      map(columns => new HttpResponse({ body: this.convertColumnsToTuples(columns, calculationId) }))
+    );
+  }
+
   delete(id: number): Observable<HttpResponse<{}>> {
     return this.http.delete(`${this.resourceUrl}/${id}`, { observe: 'response' });
   }
@@ -108,6 +128,27 @@ export class TupleService {
     };
   }
 
+  protected convertColumnsFromServer(columns: Columns): ITupleColumns {
+    return {
+      time: columns.t,
+      computation: columns.v,
+      id: columns.i,
+    };
+  }
+
+  protected convertColumnsToTuples(columns: ITupleColumns, calculationId: number): ITuple[] {
+    const tuples: ITuple[] = [];
+    for (let row = 0; row < columns.id.length; row++) {
+      tuples.push({
+        id: columns.id[row],
+        time: dayjs(columns.time[row]),
+        computation: valueOf(columns.computation[row]),
+        calculation: { id: calculationId },
+      });
+    }
+    return tuples;
+  }
+
   protected convertResponseFromServer(res: HttpResponse<RestTuple>): HttpResponse<ITuple> {
     return res.clone({
       body: res.body ? this.convertDateFromServer(res.body) : null,
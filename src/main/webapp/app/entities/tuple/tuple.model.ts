@@ -10,4 +10,13 @@ export interface ITuple {
   ohlc?: Pick<IOhlc, 'id'> | null;
 }
 
+/**
+ * The tuples of a window in columns, the times in epoch milliseconds and missing values NaN.
+ */
+export interface ITupleColumns {
+  time: Float64Array;
+  computation: Float64Array;
+  id: Float64Array;
+}
+
 export type NewTuple = Omit<ITuple, 'id'> & { id: null };
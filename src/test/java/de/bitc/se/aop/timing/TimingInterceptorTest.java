@@ -0,0 +1,157 @@
+package de.bitc.se.aop.timing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import de.bitc.se.config.ApplicationProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Test class for the {@link TimingInterceptor}.
+ */
+class TimingInterceptorTest {
+
+    @Service
+    static class TimedService {
+
+        public String echo(String value) {
+            return value;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("failed");
+        }
+    }
+
+    interface TimedRepository extends CrudRepository<String, Long> {}
+
+    static class UntimedBean {
+
+        public String echo(String value) {
+            return value;
+        }
+    }
+
+    private SimpleMeterRegistry registry;
+
+    private ApplicationProperties.Timing properties;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        properties = new ApplicationProperties.Timing();
+        properties.setMaxArgumentLength(5);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T advise(T target, List<String> packages) {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(TimingInterceptor.pointcut(packages));
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(!(target instanceof TimedRepository));
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(pointcut, new TimingInterceptor(() -> registry, properties)));
+        return (T) proxyFactory.getProxy();
+    }
+
+    private Timer timer(String method, String exception) {
+        return timer("TimedService", method, exception);
+    }
+
+    private Timer timer(String type, String method, String exception) {
+        return registry
+            .find(TimingInterceptor.METER_NAME)
+            .tags(TimingInterceptor.METER_CLASS_DIMENSION, type, TimingInterceptor.METER_METHOD_DIMENSION, method)
+            .tag(TimingInterceptor.METER_EXCEPTION_DIMENSION, exception)
+            .timer();
+    }
+
+    @Test
+    void testRecordsATimerPerMethod() {
+        TimedService service = advise(new TimedService(), List.of("de.bitc.se.aop.timing"));
+
+        assertThat(service.echo("a")).isEqualTo("a");
+        assertThat(service.echo("b")).isEqualTo("b");
+
+        assertThat(timer("echo", "none")).isNotNull();
+        assertThat(timer("echo", "none").count()).isEqualTo(2);
+    }
+
+    @Test
+    void testTagsTheException() {
+        TimedService service = advise(new TimedService(), List.of("de.bitc.se.aop.timing"));
+
+        assertThatThrownBy(service::fail).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timer("fail", "IllegalStateException").count()).isEqualTo(1);
+        assertThat(timer("fail", "none").count()).isZero();
+    }
+
+    @Test
+    void testLogsTheExceptions() {
+        properties.setLogExceptions(true);
+        TimedService service = advise(new TimedService(), List.of("de.bitc.se.aop.timing"));
+        Logger logger = (Logger) LoggerFactory.getLogger(TimedService.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            assertThatThrownBy(service::fail).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(service::fail).isInstanceOf(IllegalStateException.class);
+        } finally {
+            logger.detachAppender(appender);
+        }
+
+        assertThat(timer("fail", "IllegalStateException").count()).isEqualTo(2);
+        assertThat(appender.list).hasSize(2).allMatch(event -> event.getLevel() == Level.ERROR && event.getThrowableProxy() != null);
+    }
+
+    @Test
+    void testTimesTheInheritedMethodsPerRepository() {
+        // the repository proxy of Spring Data, the inherited methods are declared by CrudRepository
+        TimedRepository repository = advise(
+            (TimedRepository) new ProxyFactory(TimedRepository.class, (MethodInterceptor) invocation -> 0L).getProxy(),
+            List.of("de.bitc.se.aop.timing")
+        );
+
+        assertThat(repository.count()).isZero();
+
+        assertThat(timer("TimedRepository", "count", "none").count()).isEqualTo(1);
+        assertThat(registry.find(TimingInterceptor.METER_NAME).tag(TimingInterceptor.METER_CLASS_DIMENSION, "CrudRepository").timer())
+            .isNull();
+    }
+
+    @Test
+    void testTimesOnlyTheIncludedPackages() {
+        TimedService service = advise(new TimedService(), List.of("de.bitc.se.service"));
+        UntimedBean bean = advise(new UntimedBean(), List.of("de.bitc.se.aop.timing"));
+
+        service.echo("a");
+        bean.echo("a");
+
+        assertThat(registry.find(TimingInterceptor.METER_NAME).timers()).isEmpty();
+    }
+
+    @Test
+    void testDescribesTheArguments() {
+        TimingInterceptor interceptor = new TimingInterceptor(() -> registry, properties);
+
+        assertThat(interceptor.describe(new Object[] { new ArrayList<>(List.of(1, 2, 3)), new long[4], "abcdefgh", null }))
+            .isEqualTo("[ArrayList(size=3), long[4], abcde..., null]");
+    }
+}
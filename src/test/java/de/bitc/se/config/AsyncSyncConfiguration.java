@@ -13,4 +13,14 @@ public class AsyncSyncConfiguration {
     public Executor taskExecutor() {
         return new SyncTaskExecutor();
     }
+
+    @Bean(name = "calculationExecutor")
+    public Executor calculationExecutor() {
+        return new SyncTaskExecutor();
+    }
+
+    @Bean(name = "liveExecutor")
+    public Executor liveExecutor() {
+        return new SyncTaskExecutor();
+    }
 }
@@ -0,0 +1,71 @@
+package de.bitc.se.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Authority;
+import de.bitc.se.domain.Ohlc;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.MemoryUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for the cache regions of {@link CacheConfiguration}.
+ */
+@IntegrationTest
+class CacheConfigurationIT {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void configuredRegionHasOffHeapTier() {
+        ResourcePools resourcePools = resourcePools(Ohlc.class.getName());
+
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(10000);
+        SizedResourcePool offHeap = resourcePools.getPoolForResource(ResourceType.Core.OFFHEAP);
+        assertThat(((MemoryUnit) offHeap.getUnit()).toBytes(offHeap.getSize())).isEqualTo(MemoryUnit.MB.toBytes(16));
+    }
+
+    @Test
+    void otherRegionOnlyHasHeapTier() {
+        ResourcePools resourcePools = resourcePools(Authority.class.getName());
+
+        assertThat(resourcePools.getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+    }
+
+    @Test
+    void regionStatisticsArePublished() {
+        Cache<Object, Object> cache = cacheManager.getCache(Ohlc.class.getName());
+        double hits = gets(Ohlc.class.getName(), "hit");
+        double misses = gets(Ohlc.class.getName(), "miss");
+
+        assertThat(cache.get(-1L)).isNull();
+        cache.put(-1L, "cached");
+        assertThat(cache.get(-1L)).isEqualTo("cached");
+        cache.remove(-1L);
+
+        assertThat(gets(Ohlc.class.getName(), "hit")).isEqualTo(hits + 1);
+        assertThat(gets(Ohlc.class.getName(), "miss")).isEqualTo(misses + 1);
+        assertThat(meterRegistry.find("cache.evictions").tag("cache", Ohlc.class.getName()).functionCounter()).isNotNull();
+    }
+
+    private ResourcePools resourcePools(String cacheName) {
+        @SuppressWarnings("unchecked")
+        org.ehcache.Cache<Object, Object> cache = cacheManager.getCache(cacheName).unwrap(org.ehcache.Cache.class);
+        return cache.getRuntimeConfiguration().getResourcePools();
+    }
+
+    private double gets(String cacheName, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cacheName).tag("result", result).functionCounter().count();
+    }
+}
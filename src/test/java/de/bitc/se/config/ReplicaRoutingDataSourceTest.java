@@ -0,0 +1,99 @@
+package de.bitc.se.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Unit tests for the {@link ReplicaRoutingDataSource} and the {@link ReplicaLagMonitor}, on two in-memory databases
+ * telling their role.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final String ROLE_QUERY = "select name from role";
+
+    private DataSource primary;
+
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @Test
+    void readOnlyTransactionReadsFromReplica() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "select 1", Duration.ofSeconds(5));
+        assertThat(monitor.check()).isTrue();
+        assertThat(monitor.getLagSeconds()).isEqualTo(1.0);
+        Routing routing = new Routing(monitor);
+
+        assertThat(routing.role(true)).isEqualTo("replica");
+        assertThat(routing.role(false)).isEqualTo("primary");
+        assertThat(routing.jdbcTemplate.queryForObject(ROLE_QUERY, String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "select 30", Duration.ofSeconds(5));
+        Routing routing = new Routing(monitor);
+
+        // not usable before the first check
+        assertThat(routing.role(true)).isEqualTo("primary");
+        assertThat(monitor.check()).isFalse();
+        assertThat(routing.role(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToPrimary() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "select 0", Duration.ofSeconds(5));
+        assertThat(monitor.check()).isTrue();
+        Routing routing = new Routing(monitor);
+        assertThat(routing.role(true)).isEqualTo("replica");
+
+        new JdbcTemplate(replica).execute("shutdown");
+
+        assertThat(monitor.check()).isFalse();
+        assertThat(monitor.getLagSeconds()).isNaN();
+        assertThat(routing.role(true)).isEqualTo("primary");
+    }
+
+    /**
+     * Create a database, the returned data source fails once the database is shut down.
+     */
+    private static DataSource database(String name) {
+        String url = "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        jdbcTemplate.execute("drop table if exists role");
+        jdbcTemplate.execute("create table role (name varchar(16))");
+        jdbcTemplate.update("insert into role (name) values (?)", name);
+        return new DriverManagerDataSource(url + ";IFEXISTS=TRUE", "sa", "");
+    }
+
+    private class Routing {
+
+        private final JdbcTemplate jdbcTemplate;
+
+        private final TransactionTemplate transactionTemplate;
+
+        Routing(ReplicaLagMonitor monitor) {
+            DataSource dataSource = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, monitor::isUsable));
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        }
+
+        String role(boolean readOnly) {
+            transactionTemplate.setReadOnly(readOnly);
+            return transactionTemplate.execute(status -> jdbcTemplate.queryForObject(ROLE_QUERY, String.class));
+        }
+    }
+}
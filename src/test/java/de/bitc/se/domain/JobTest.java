@@ -0,0 +1,23 @@
+package de.bitc.se.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.bitc.se.web.rest.TestUtil;
+import org.junit.jupiter.api.Test;
+
+class JobTest {
+
+    @Test
+    void equalsVerifier() throws Exception {
+        TestUtil.equalsVerifier(Job.class);
+        Job job1 = new Job();
+        job1.setId(1L);
+        Job job2 = new Job();
+        job2.setId(job1.getId());
+        assertThat(job1).isEqualTo(job2);
+        job2.setId(2L);
+        assertThat(job1).isNotEqualTo(job2);
+        job1.setId(null);
+        assertThat(job1).isNotEqualTo(job2);
+    }
+}
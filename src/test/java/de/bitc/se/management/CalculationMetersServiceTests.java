@@ -0,0 +1,60 @@
+package de.bitc.se.management;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CalculationMetersServiceTests {
+
+    private static final String LAG_METER_EXPECTED_NAME = "calculation.lag";
+
+    private static final String DEFERRED_METER_EXPECTED_NAME = "calculation.deferred";
+
+    private MeterRegistry meterRegistry;
+
+    private CalculationMetersService calculationMetersService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        calculationMetersService = new CalculationMetersService(meterRegistry);
+    }
+
+    @Test
+    void testLagGaugesArePerCalculation() {
+        calculationMetersService.trackLag(1L, Duration.ofMinutes(2));
+        calculationMetersService.trackLag(2L, Duration.ofSeconds(5));
+
+        assertThat(meterRegistry.get(LAG_METER_EXPECTED_NAME).tag("calculation", "1").gauge().value()).isEqualTo(120.0);
+        assertThat(meterRegistry.get(LAG_METER_EXPECTED_NAME).tag("calculation", "2").gauge().value()).isEqualTo(5.0);
+
+        calculationMetersService.resetLagExcept(Set.of(2L));
+
+        assertThat(meterRegistry.get(LAG_METER_EXPECTED_NAME).tag("calculation", "1").gauge().value()).isZero();
+        assertThat(meterRegistry.get(LAG_METER_EXPECTED_NAME).tag("calculation", "2").gauge().value()).isEqualTo(5.0);
+    }
+
+    @Test
+    void testCountMethodsShouldBeBoundToCorrectCounters() {
+        assertThat(meterRegistry.get(DEFERRED_METER_EXPECTED_NAME).tag("cause", "pool-saturated").counter().count()).isZero();
+
+        calculationMetersService.trackDeferredPoolSaturated();
+
+        assertThat(meterRegistry.get(DEFERRED_METER_EXPECTED_NAME).tag("cause", "pool-saturated").counter().count()).isEqualTo(1);
+
+        calculationMetersService.trackDeferredExecutorFull();
+
+        assertThat(meterRegistry.get(DEFERRED_METER_EXPECTED_NAME).tag("cause", "executor-full").counter().count()).isEqualTo(1);
+
+        calculationMetersService.trackRun(Duration.ofMillis(20));
+
+        assertThat(meterRegistry.get("calculation.chart.run").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(20.0);
+    }
+}
@@ -0,0 +1,132 @@
+package de.bitc.se.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.projection.OhlcValues;
+import de.bitc.se.service.helper.ChartTestData;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the time-range, latest and keyset queries of {@link OhlcRepository}.
+ */
+@IntegrationTest
+@Transactional
+class OhlcRepositoryIT {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private Chart chart;
+
+    // the candles of the chart at START plus 0 to 4 minutes, saved in reverse time order
+    private final List<Ohlc> candles = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        chart = ChartTestData.createChart(em, objectMapper, 1);
+        Chart other = ChartTestData.createChart(em, objectMapper, chart.getPair(), 1);
+        for (int i = 4; i >= 0; i--) {
+            candles.add(0, ohlcRepository.saveAndFlush(new Ohlc().time(START.plusMinutes(i)).close(BigDecimal.valueOf(i)).chart(chart)));
+            ohlcRepository.saveAndFlush(new Ohlc().time(START.plusMinutes(i)).close(BigDecimal.ONE).chart(other));
+        }
+    }
+
+    private List<Long> ids(int... indexes) {
+        List<Long> ids = new ArrayList<>();
+        for (int index : indexes) {
+            ids.add(candles.get(index).getId());
+        }
+        return ids;
+    }
+
+    private static List<Long> ids(Slice<Ohlc> slice) {
+        return slice.getContent().stream().map(Ohlc::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(Stream<Ohlc> stream) {
+        try (stream) {
+            return stream.map(Ohlc::getId).collect(Collectors.toList());
+        }
+    }
+
+    private static List<Long> valueIds(Stream<OhlcValues> stream) {
+        try (stream) {
+            return stream.map(OhlcValues::getId).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void testTimeRangeIncludesFromAndExcludesTo() {
+        ZonedDateTime from = START.plusMinutes(1);
+        ZonedDateTime to = START.plusMinutes(4);
+
+        Slice<Ohlc> all = ohlcRepository.findByChartIdAndTimeRange(chart.getId(), from, to, PageRequest.of(0, 10));
+        assertThat(ids(all)).isEqualTo(ids(1, 2, 3));
+        assertThat(all.hasNext()).isFalse();
+
+        Slice<Ohlc> first = ohlcRepository.findByChartIdAndTimeRange(chart.getId(), from, to, PageRequest.of(0, 2));
+        assertThat(ids(first)).isEqualTo(ids(1, 2));
+        assertThat(first.hasNext()).isTrue();
+
+        assertThat(ids(ohlcRepository.streamByChartIdAndTimeRange(chart.getId(), from, to))).isEqualTo(ids(1, 2, 3));
+        assertThat(valueIds(ohlcRepository.streamValuesByChartIdAndTimeRange(chart.getId(), from, to))).isEqualTo(ids(1, 2, 3));
+        assertThat(ids(ohlcRepository.streamByChartIdAndTimeRange(chart.getId(), from, from))).isEmpty();
+    }
+
+    @Test
+    void testLatestAreNewestFirst() {
+        assertThat(ids(ohlcRepository.findLatestByChartId(chart.getId(), PageRequest.of(0, 2)))).isEqualTo(ids(4, 3));
+        assertThat(ids(ohlcRepository.findLatestByChartId(chart.getId(), PageRequest.of(0, 10)))).isEqualTo(ids(4, 3, 2, 1, 0));
+    }
+
+    @Test
+    void testKeysetContinuesStrictlyAfterTheCursor() {
+        Ohlc cursor = candles.get(1);
+
+        Slice<Ohlc> first = ohlcRepository.findByChartIdAfter(chart.getId(), cursor.getTime(), cursor.getId(), PageRequest.of(0, 2));
+        assertThat(ids(first)).isEqualTo(ids(2, 3));
+        assertThat(first.hasNext()).isTrue();
+
+        // the next page continues after the last candle of the previous one
+        Ohlc last = first.getContent().get(1);
+        Slice<Ohlc> next = ohlcRepository.findByChartIdAfter(chart.getId(), last.getTime(), last.getId(), PageRequest.of(0, 2));
+        assertThat(ids(next)).isEqualTo(ids(4));
+        assertThat(next.hasNext()).isFalse();
+
+        assertThat(ids(ohlcRepository.streamByChartIdAfter(chart.getId(), cursor.getTime(), cursor.getId()))).isEqualTo(ids(2, 3, 4));
+        Stream<OhlcValues> values = ohlcRepository.streamValuesByChartIdAfter(
+            chart.getId(),
+            cursor.getTime(),
+            cursor.getId(),
+            START.plusMinutes(4)
+        );
+        assertThat(valueIds(values)).isEqualTo(ids(2, 3));
+        Ohlc newest = candles.get(4);
+        assertThat(ids(ohlcRepository.streamByChartIdAfter(chart.getId(), newest.getTime(), newest.getId()))).isEmpty();
+    }
+}
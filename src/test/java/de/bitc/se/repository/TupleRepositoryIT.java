@@ -0,0 +1,151 @@
+package de.bitc.se.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Calculation;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Tuple;
+import de.bitc.se.domain.projection.TupleValues;
+import de.bitc.se.service.helper.ChartTestData;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the time-range, latest and keyset queries of {@link TupleRepository}.
+ * <p>
+ * Unlike the candles of a chart, several tuples of a calculation may have the same time, they are ordered by id.
+ */
+@IntegrationTest
+@Transactional
+class TupleRepositoryIT {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    @Autowired
+    private TupleRepository tupleRepository;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private Calculation calculation;
+
+    // the tuples of the calculation at START plus 0, 1, 1, 2 and 3 minutes
+    private final List<Tuple> tuples = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Chart chart = ChartTestData.createChart(em, objectMapper, 1);
+        calculation = calculationRepository.saveAndFlush(new Calculation().name("SMA(3)").disabled(false).chart(chart));
+        Calculation other = calculationRepository.saveAndFlush(new Calculation().name("SMA(5)").disabled(false).chart(chart));
+        for (int minutes : new int[] { 0, 1, 1, 2, 3 }) {
+            tuples.add(tupleRepository.saveAndFlush(tuple(calculation, minutes)));
+            tupleRepository.saveAndFlush(tuple(other, minutes));
+        }
+    }
+
+    private static Tuple tuple(Calculation calculation, int minutes) {
+        return new Tuple().time(START.plusMinutes(minutes)).computation(BigDecimal.valueOf(minutes)).calculation(calculation);
+    }
+
+    private List<Long> ids(int... indexes) {
+        List<Long> ids = new ArrayList<>();
+        for (int index : indexes) {
+            ids.add(tuples.get(index).getId());
+        }
+        return ids;
+    }
+
+    private static List<Long> ids(Slice<Tuple> slice) {
+        return slice.getContent().stream().map(Tuple::getId).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(Stream<Tuple> stream) {
+        try (stream) {
+            return stream.map(Tuple::getId).collect(Collectors.toList());
+        }
+    }
+
+    private static List<Long> valueIds(Stream<TupleValues> stream) {
+        try (stream) {
+            return stream.map(TupleValues::getId).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void testTimeRangeIncludesFromAndExcludesTo() {
+        ZonedDateTime from = START.plusMinutes(1);
+        ZonedDateTime to = START.plusMinutes(3);
+
+        Slice<Tuple> all = tupleRepository.findByCalculationIdAndTimeRange(calculation.getId(), from, to, PageRequest.of(0, 10));
+        assertThat(ids(all)).isEqualTo(ids(1, 2, 3));
+        assertThat(all.hasNext()).isFalse();
+
+        assertThat(ids(tupleRepository.streamByCalculationIdAndTimeRange(calculation.getId(), from, to))).isEqualTo(ids(1, 2, 3));
+        assertThat(valueIds(tupleRepository.streamValuesByCalculationIdAndTimeRange(calculation.getId(), from, to)))
+            .isEqualTo(ids(1, 2, 3));
+    }
+
+    @Test
+    void testLatestAreNewestFirst() {
+        // the later of the two tuples at the same time comes first
+        assertThat(ids(tupleRepository.findLatestByCalculationId(calculation.getId(), PageRequest.of(0, 3)))).isEqualTo(ids(4, 3, 2));
+        assertThat(ids(tupleRepository.findLatestByCalculationId(calculation.getId(), PageRequest.of(0, 10))))
+            .isEqualTo(ids(4, 3, 2, 1, 0));
+    }
+
+    @Test
+    void testKeysetContinuesStrictlyAfterTheCursor() {
+        // the cursor is the first of the two tuples at the same time
+        Tuple cursor = tuples.get(1);
+
+        Slice<Tuple> first = tupleRepository.findByCalculationIdAfter(
+            calculation.getId(),
+            cursor.getTime(),
+            cursor.getId(),
+            PageRequest.of(0, 2)
+        );
+        assertThat(ids(first)).isEqualTo(ids(2, 3));
+        assertThat(first.hasNext()).isTrue();
+
+        // the next page continues after the last tuple of the previous one
+        Tuple last = first.getContent().get(1);
+        Slice<Tuple> next = tupleRepository.findByCalculationIdAfter(
+            calculation.getId(),
+            last.getTime(),
+            last.getId(),
+            PageRequest.of(0, 2)
+        );
+        assertThat(ids(next)).isEqualTo(ids(4));
+        assertThat(next.hasNext()).isFalse();
+
+        assertThat(ids(tupleRepository.streamByCalculationIdAfter(calculation.getId(), cursor.getTime(), cursor.getId())))
+            .isEqualTo(ids(2, 3, 4));
+        Stream<TupleValues> values = tupleRepository.streamValuesByCalculationIdAfter(
+            calculation.getId(),
+            cursor.getTime(),
+            cursor.getId(),
+            START.plusMinutes(3)
+        );
+        assertThat(valueIds(values)).isEqualTo(ids(2, 3));
+    }
+}
@@ -2,11 +2,13 @@ package de.bitc.se.security.jwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import de.bitc.se.config.ApplicationProperties;
 import de.bitc.se.management.SecurityMetersService;
 import de.bitc.se.security.AuthoritiesConstants;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
 import java.util.Collections;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -38,7 +40,9 @@ class JWTFilterTest {
         ReflectionTestUtils.setField(tokenProvider, "key", Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
 
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
-        jwtFilter = new JWTFilter(tokenProvider);
+        jwtFilter = new JWTFilter(
+            new VerifiedTokenCache(tokenProvider, securityMetersService, new ApplicationProperties.TokenCache(), Clock.systemUTC())
+        );
         SecurityContextHolder.getContext().setAuthentication(null);
     }
 
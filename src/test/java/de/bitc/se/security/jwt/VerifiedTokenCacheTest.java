@@ -0,0 +1,186 @@
+package de.bitc.se.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.management.SecurityMetersService;
+import de.bitc.se.security.AuthoritiesConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.jhipster.config.JHipsterProperties;
+
+class VerifiedTokenCacheTest {
+
+    private static final String INVALID_TOKENS_METER_NAME = "security.authentication.invalid-tokens";
+
+    private static final String TOKEN_CACHE_METER_NAME = "security.authentication.token-cache";
+
+    private MeterRegistry meterRegistry;
+
+    private SecurityMetersService securityMetersService;
+
+    private TokenProvider tokenProvider;
+
+    private MutableClock clock;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @BeforeEach
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        String base64Secret = "fd54a45s65fds737b9aafcb3412e07ed99b267f33413274720ddbb7f6c5e64e9f14075f2d7ed041592f0b7657baf8";
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setBase64Secret(base64Secret);
+
+        meterRegistry = new SimpleMeterRegistry();
+        securityMetersService = new SecurityMetersService(meterRegistry);
+
+        tokenProvider = new TokenProvider(jHipsterProperties, securityMetersService);
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
+        clock = new MutableClock(Instant.now());
+        verifiedTokenCache = new VerifiedTokenCache(tokenProvider, securityMetersService, tokenCache(3, 2), clock);
+    }
+
+    @Test
+    void testValidTokenIsVerifiedOnce() {
+        String jwt = createToken("test-user");
+
+        Authentication first = verifiedTokenCache.authenticate(jwt).orElseThrow();
+        Authentication second = verifiedTokenCache.authenticate(jwt).orElseThrow();
+
+        assertThat(first.getName()).isEqualTo("test-user");
+        assertThat(first.getCredentials()).hasToString(jwt);
+        assertThat(first.getAuthorities()).extracting("authority").containsExactly(AuthoritiesConstants.USER);
+        assertThat(second).isSameAs(first);
+        assertThat(cacheLookups("miss")).isEqualTo(1);
+        assertThat(cacheLookups("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void testValidTokenIsCachedUntilItExpires() {
+        String jwt = createToken("test-user");
+        verifiedTokenCache.authenticate(jwt);
+
+        clock.advance(Duration.ofSeconds(59));
+        assertThat(verifiedTokenCache.authenticate(jwt)).isPresent();
+        assertThat(cacheLookups("hit")).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(2));
+        // the clock of the cache is ahead, the token is verified again and is still valid for its parser
+        assertThat(verifiedTokenCache.authenticate(jwt)).isPresent();
+        assertThat(cacheLookups("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidTokenIsRememberedForItsTimeToLive() {
+        String invalid = createToken("test-user").substring(1);
+
+        assertThat(verifiedTokenCache.authenticate(invalid)).isEmpty();
+        assertThat(verifiedTokenCache.authenticate(invalid)).isEmpty();
+        assertThat(invalidTokens()).isEqualTo(1);
+        assertThat(cacheLookups("hit")).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(11));
+        assertThat(verifiedTokenCache.authenticate(invalid)).isEmpty();
+        assertThat(invalidTokens()).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidTokensDoNotEvictTheValidTokens() {
+        String valid = createToken("test-user");
+        verifiedTokenCache.authenticate(valid);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(verifiedTokenCache.authenticate(createToken("user-" + i).substring(1))).isEmpty();
+            assertThat(verifiedTokenCache.invalidSize()).isLessThanOrEqualTo(2);
+        }
+
+        assertThat(invalidTokens()).isEqualTo(10);
+        assertThat(verifiedTokenCache.size()).isEqualTo(1);
+        // the valid token is still cached
+        assertThat(verifiedTokenCache.authenticate(valid)).isPresent();
+        assertThat(cacheLookups("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(verifiedTokenCache.authenticate(createToken("user-" + i))).isPresent();
+            assertThat(verifiedTokenCache.size()).isLessThanOrEqualTo(3);
+        }
+    }
+
+    @Test
+    void testDisabledCacheVerifiesEachToken() {
+        verifiedTokenCache = new VerifiedTokenCache(tokenProvider, securityMetersService, tokenCache(0, 0), clock);
+        String jwt = createToken("test-user");
+
+        assertThat(verifiedTokenCache.authenticate(jwt)).isPresent();
+        assertThat(verifiedTokenCache.authenticate(jwt)).isPresent();
+        assertThat(verifiedTokenCache.authenticate(jwt.substring(1))).isEmpty();
+        assertThat(verifiedTokenCache.size()).isZero();
+        assertThat(verifiedTokenCache.invalidSize()).isZero();
+        assertThat(cacheLookups("hit")).isZero();
+    }
+
+    private static ApplicationProperties.TokenCache tokenCache(int maxSize, int negativeMaxSize) {
+        ApplicationProperties.TokenCache tokenCache = new ApplicationProperties.TokenCache();
+        tokenCache.setMaxSize(maxSize);
+        tokenCache.setNegativeMaxSize(negativeMaxSize);
+        tokenCache.setNegativeTimeToLive(Duration.ofSeconds(10));
+        return tokenCache;
+    }
+
+    private double invalidTokens() {
+        return meterRegistry.get(INVALID_TOKENS_METER_NAME).tag("cause", "malformed").counter().count();
+    }
+
+    private String createToken(String login) {
+        return tokenProvider.createToken(
+            new UsernamePasswordAuthenticationToken(login, "password", Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))),
+            false
+        );
+    }
+
+    private double cacheLookups(String result) {
+        return meterRegistry.get(TOKEN_CACHE_METER_NAME).tag("result", result).counter().count();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -104,9 +104,10 @@ class CalculationServiceIT {
         calculationRepository.saveAndFlush(calculation);
     }
 
-    @Test
-    public void testFetchRepair() throws IOException {
-        // init test data
+    /**
+     * Save the candles and tuples of {@code /json/broken-data.json} to the chart and calculation.
+     */
+    private void saveBrokenData() throws IOException {
         String json = IOUtils.toString(
             Objects.requireNonNull(this.getClass().getResourceAsStream("/json/broken-data.json")),
             StandardCharsets.UTF_8
@@ -137,6 +138,12 @@ class CalculationServiceIT {
                 t.setCalculation(calculation);
                 tupleRepository.saveAndFlush(t);
             });
+    }
+
+    @Test
+    public void testFetchRepair() throws IOException {
+        // init test data
+        saveBrokenData();
 
         // Start Hibernate tests
         Long calculationId = calculation.getId(); // This is the Id of the calculation
@@ -183,40 +190,40 @@ class CalculationServiceIT {
         assertTrue(result.isPresent());
     }
     
+    @Test
+    public void testStreamingRepair() throws IOException {
+        saveBrokenData();
+
+        CalculationRepairDTO expected = new CalculationRepairDTO(ZonedDateTime.parse("2022-10-13T11:30:00Z"), 15);
+
+        Optional<CalculationRepairDTO> result = calculationService.calculationRepair(calculation.getId());
+        assertEquals(Optional.of(expected), result);
+
+        List<CalculationRepairDTO> gaps = new ArrayList<>();
+        long count = calculationService.calculationGaps(calculation.getId(), gaps::add);
+        assertEquals(1, count);
+        assertEquals(List.of(expected), gaps);
+    }
+
+    @Test
+    public void testStreamingRepairWithoutLimit() throws IOException {
+        saveBrokenData();
+
+        assertEquals(0, calculationService.calculationGaps(calculation.getId(), null, 0, gap -> fail("no gap expected")));
+        assertEquals(0, calculationService.calculationGaps(calculation.getId(), null, -1, gap -> fail("no gap expected")));
+    }
+
+    @Test
+    public void testStreamingRepairOfUnknownCalculation() {
+        assertTrue(calculationService.calculationRepair(Long.MAX_VALUE).isEmpty());
+        assertEquals(0, calculationService.calculationGaps(Long.MAX_VALUE, gap -> fail("no gap expected")));
+    }
+
     @Test
     @Disabled
     public void testingTest() throws IOException {
         // init test data
-        String json = IOUtils.toString(
-            Objects.requireNonNull(this.getClass().getResourceAsStream("/json/broken-data.json")),
-            StandardCharsets.UTF_8
-        );
-        assertNotNull(json);
-
-        CalculationJsonTestData testData = objectMapper.readValue(json, CalculationJsonTestData.class);
-        assertNotNull(testData);
-
-        testData
-            .getOhlcs()
-            .stream()
-            .sorted(Comparator.comparing(Ohlc::getTime))
-            .forEach(ohlc -> {
-                ohlc.setId(null);
-                ohlc.setChart(chart);
-                Ohlc saved = ohlcRepository.saveAndFlush(ohlc);
-                ohlcs.put(saved.getTime(), saved);
-            });
-        testData
-            .getTuples()
-            .stream()
-            .sorted(Comparator.comparing(Tuple::getTime))
-            .forEach(t -> {
-                Ohlc ohlc = ohlcs.get(t.getTime());
-                t.setId(null);
-                t.setOhlc(ohlc);
-                t.setCalculation(calculation);
-                tupleRepository.saveAndFlush(t);
-            });
+        saveBrokenData();
         Long calculationId = calculation.getId(); // This is the Id of the calculation
 
         Query impossibleJoin = entityManager
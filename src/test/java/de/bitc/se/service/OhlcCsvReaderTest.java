@@ -0,0 +1,57 @@
+package de.bitc.se.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.bitc.se.domain.Ohlc;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link OhlcCsvReader}.
+ */
+class OhlcCsvReaderTest {
+
+    private static OhlcCsvReader reader(String csv) throws IOException {
+        return new OhlcCsvReader(new BufferedReader(new StringReader(csv)));
+    }
+
+    @Test
+    void testReadColumnsInHeaderOrder() throws IOException {
+        OhlcCsvReader reader = reader("close, time,count\n2.5,2022-10-13T11:30:00Z,7\n\n,2022-10-13T11:45:00Z,\n");
+
+        Ohlc first = reader.read();
+        assertThat(first.getTime()).isEqualTo(ZonedDateTime.parse("2022-10-13T11:30:00Z"));
+        assertThat(first.getClose()).isEqualByComparingTo(new BigDecimal("2.5"));
+        assertThat(first.getCount()).isEqualTo(7);
+        assertThat(first.getOpen()).isNull();
+
+        Ohlc second = reader.read();
+        assertThat(second.getTime()).isEqualTo(ZonedDateTime.parse("2022-10-13T11:45:00Z"));
+        assertThat(second.getClose()).isNull();
+        assertThat(second.getCount()).isNull();
+
+        assertThat(reader.read()).isNull();
+    }
+
+    @Test
+    void testHeaderWithoutTime() {
+        assertThatThrownBy(() -> reader("open,close\n")).isInstanceOf(OhlcImportException.class);
+    }
+
+    @Test
+    void testUnknownColumn() {
+        assertThatThrownBy(() -> reader("time,price\n")).isInstanceOf(OhlcImportException.class);
+    }
+
+    @Test
+    void testInvalidLines() throws IOException {
+        OhlcCsvReader reader = reader("time,open\n2022-10-13T11:30:00Z\n2022-10-13T11:30:00Z,x\n");
+        assertThatThrownBy(reader::read).isInstanceOf(OhlcImportException.class).hasMessageContaining("Line 2");
+        assertThatThrownBy(reader::read).isInstanceOf(OhlcImportException.class).hasMessageContaining("Line 3");
+    }
+}
@@ -0,0 +1,87 @@
+package de.bitc.se.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link TimeSeriesGapDetector} utility class.
+ */
+class TimeSeriesGapDetectorTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.of(2022, 10, 13, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final Duration SIZE = Duration.ofMinutes(15);
+
+    private static List<ZonedDateTime> series(int... slots) {
+        return IntStream.of(slots).mapToObj(slot -> START.plus(SIZE.multipliedBy(slot))).collect(Collectors.toList());
+    }
+
+    private static List<ZonedDateTime> detectAll(List<ZonedDateTime> ohlcs, List<ZonedDateTime> tuples) {
+        List<ZonedDateTime> gaps = new ArrayList<>();
+        TimeSeriesGapDetector.detect(
+            ohlcs.iterator(),
+            tuples.iterator(),
+            SIZE,
+            (previous, time) -> {
+                gaps.add(time);
+                return true;
+            }
+        );
+        return gaps;
+    }
+
+    @Test
+    void testConsistentSeries() {
+        assertThat(detectAll(series(0, 1, 2, 3, 4), series(0, 1, 2, 3, 4))).isEmpty();
+    }
+
+    @Test
+    void testMissingTuples() {
+        assertThat(detectAll(series(0, 1, 2, 3, 4, 5, 6), series(0, 1, 4, 5, 6))).containsExactly(START.plus(SIZE.multipliedBy(4)));
+    }
+
+    @Test
+    void testGapInCandlesIsNotReported() {
+        assertThat(detectAll(series(0, 1, 4, 5), series(0, 1, 4, 5))).isEmpty();
+    }
+
+    @Test
+    void testMissingTuplesAfterCandleGap() {
+        assertThat(detectAll(series(0, 1, 4, 5, 6, 7, 8), series(0, 1, 4, 5, 8))).containsExactly(START.plus(SIZE.multipliedBy(8)));
+    }
+
+    @Test
+    void testTupleGapLargerThanCandleGap() {
+        assertThat(detectAll(series(0, 1, 3, 4, 5), series(0, 1, 5))).containsExactly(START.plus(SIZE.multipliedBy(5)));
+    }
+
+    @Test
+    void testStopsAtFirstGap() {
+        List<ZonedDateTime> previous = new ArrayList<>();
+        long gaps = TimeSeriesGapDetector.detect(
+            series(0, 1, 2, 3, 4, 5, 6, 7).iterator(),
+            series(0, 2, 3, 5, 7).iterator(),
+            SIZE,
+            (last, time) -> {
+                previous.add(last);
+                return false;
+            }
+        );
+        assertThat(gaps).isEqualTo(1);
+        assertThat(previous).containsExactly(START);
+    }
+
+    @Test
+    void testEmptySeries() {
+        assertThat(detectAll(List.of(), List.of())).isEmpty();
+        assertThat(detectAll(List.of(), series(0, 2))).containsExactly(START.plus(SIZE.multipliedBy(2)));
+    }
+}
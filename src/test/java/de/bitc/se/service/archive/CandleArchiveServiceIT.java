@@ -0,0 +1,182 @@
+package de.bitc.se.service.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Tuple;
+import de.bitc.se.domain.projection.OhlcValues;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.OhlcService;
+import de.bitc.se.service.dto.TimeSeriesQueryDTO;
+import de.bitc.se.service.helper.ChartTestData;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link CandleArchiveService}.
+ */
+@IntegrationTest
+@Transactional
+class CandleArchiveServiceIT {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    private static final int CANDLES = 25;
+
+    @Autowired
+    private CandleArchiveService candleArchiveService;
+
+    @Autowired
+    private OhlcService ohlcService;
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private TupleRepository tupleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private Chart chart;
+
+    private Tuple tuple;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        chart = ChartTestData.createChart(em, objectMapper);
+        Ohlc first = null;
+        for (int i = 0; i < CANDLES; i++) {
+            Ohlc ohlc = ohlcRepository.saveAndFlush(
+                new Ohlc().time(START.plusMinutes(i)).close(BigDecimal.valueOf(i)).volume(BigDecimal.TEN).count(i).chart(chart)
+            );
+            first = first == null ? ohlc : first;
+        }
+        tuple = tupleRepository.saveAndFlush(new Tuple().time(first.getTime()).computation(BigDecimal.ONE).ohlc(first));
+    }
+
+    @Test
+    void testCompactMovesOldCandlesIntoTheArchive() {
+        // more than two chunks of the test batch size
+        long moved = candleArchiveService.compact(chart.getId(), START.plusMinutes(22));
+        em.clear();
+
+        assertThat(moved).isEqualTo(22);
+        assertThat(ohlcRepository.countByChartId(chart.getId())).isEqualTo(CANDLES - 22);
+        assertThat(tupleRepository.findById(tuple.getId()).orElseThrow().getOhlc()).isNull();
+        CandleArchive.Range range = candleArchiveService.getArchivedCandles(chart.getId(), START, START.plusDays(1)).orElseThrow();
+        assertThat(range.size()).isEqualTo(22);
+        assertThat(range.time(21)).isEqualTo(START.plusMinutes(21).toInstant().toEpochMilli());
+        assertThat(range.close(21)).isEqualByComparingTo("21");
+        assertThat(range.open(21)).isNull();
+        assertThat(range.count(21)).isEqualTo(21);
+    }
+
+    @Test
+    void testCompactContinuesAfterTheArchivedCandles() {
+        candleArchiveService.compact(chart.getId(), START.plusMinutes(5));
+
+        long moved = candleArchiveService.compact(chart.getId(), START.plusMinutes(8));
+        em.clear();
+
+        assertThat(moved).isEqualTo(3);
+        assertThat(ohlcRepository.countByChartId(chart.getId())).isEqualTo(CANDLES - 8);
+        CandleArchive.Range range = candleArchiveService
+            .getArchivedCandles(chart.getId(), START.plusMinutes(4), START.plusMinutes(6))
+            .orElseThrow();
+        assertThat(range.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testCompactMergesTheCandlesWrittenIntoTheArchivedRange() {
+        candleArchiveService.compact(chart.getId(), START.plusMinutes(5));
+        // a corrected candle and a candle behind the archive
+        ohlcRepository.saveAndFlush(new Ohlc().time(START.plusMinutes(1)).close(BigDecimal.valueOf(100)).chart(chart));
+        ohlcRepository.saveAndFlush(new Ohlc().time(START.minusMinutes(1)).close(BigDecimal.valueOf(-1)).chart(chart));
+
+        long moved = candleArchiveService.compact(chart.getId(), START.plusMinutes(8));
+        em.clear();
+
+        assertThat(moved).isEqualTo(5);
+        assertThat(ohlcRepository.countByChartId(chart.getId())).isEqualTo(CANDLES - 8);
+        CandleArchive.Range range = candleArchiveService
+            .getArchivedCandles(chart.getId(), START.minusDays(1), START.plusDays(1))
+            .orElseThrow();
+        assertThat(range.size()).isEqualTo(9);
+        assertThat(range.close(0)).isEqualByComparingTo("-1");
+        assertThat(range.close(2)).isEqualByComparingTo("100");
+        assertThat(range.close(8)).isEqualByComparingTo("7");
+    }
+
+    @Test
+    void testTheWindowsOfTheChartReadTheArchivedCandles() {
+        candleArchiveService.compact(chart.getId(), START.plusMinutes(10));
+        List<OhlcValues> values = new ArrayList<>();
+
+        long count = ohlcService.streamOhlcValues(
+            new TimeSeriesQueryDTO(chart.getId(), START.plusMinutes(5), START.plusMinutes(15), null, null, null),
+            values::add
+        );
+
+        assertThat(count).isEqualTo(10);
+        assertThat(values.get(0).getTime()).isEqualTo(START.plusMinutes(5));
+        assertThat(values.get(4).getId()).isNull();
+        assertThat(values.get(4).getClose()).isEqualByComparingTo("9");
+        assertThat(values.get(5).getId()).isNotNull();
+        assertThat(values.get(9).getTime()).isEqualTo(START.plusMinutes(14));
+    }
+
+    @Test
+    void testTheWindowsContinueAfterAnArchivedCandle() {
+        candleArchiveService.compact(chart.getId(), START.plusMinutes(10));
+        List<Ohlc> ohlcs = new ArrayList<>();
+
+        ohlcService.streamOhlcs(new TimeSeriesQueryDTO(chart.getId(), null, null, START.plusMinutes(8), null, 3), ohlcs::add);
+
+        assertThat(ohlcs).extracting(Ohlc::getTime).containsExactly(START.plusMinutes(9), START.plusMinutes(10), START.plusMinutes(11));
+        assertThat(ohlcs.get(0).getId()).isNull();
+        assertThat(ohlcs.get(0).getChart().getId()).isEqualTo(chart.getId());
+        assertThat(ohlcs.get(1).getId()).isNotNull();
+    }
+
+    @Test
+    void testACandleWrittenAtAnArchivedTimeReplacesTheArchivedOne() {
+        candleArchiveService.compact(chart.getId(), START.plusMinutes(10));
+        ohlcRepository.saveAndFlush(new Ohlc().time(START.plusMinutes(2)).close(BigDecimal.valueOf(99)).chart(chart));
+        List<OhlcValues> values = new ArrayList<>();
+
+        ohlcService.streamOhlcValues(new TimeSeriesQueryDTO(chart.getId(), START, START.plusMinutes(4), null, null, null), values::add);
+
+        assertThat(values)
+            .extracting(value -> value.getTime().toInstant())
+            .containsExactly(
+                START.toInstant(),
+                START.plusMinutes(1).toInstant(),
+                START.plusMinutes(2).toInstant(),
+                START.plusMinutes(3).toInstant()
+            );
+        assertThat(values.get(2).getId()).isNotNull();
+        assertThat(values.get(2).getClose()).isEqualByComparingTo("99");
+    }
+
+    @Test
+    void testUnknownChart() {
+        assertThat(candleArchiveService.compact(Long.MAX_VALUE, START)).isZero();
+        assertThat(candleArchiveService.getArchivedCandles(Long.MAX_VALUE, START, START.plusDays(1))).isEmpty();
+    }
+}
@@ -0,0 +1,178 @@
+package de.bitc.se.service.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.projection.OhlcValues;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+/**
+ * Test class for the {@link CandleArchive}.
+ */
+class CandleArchiveTest {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    @TempDir
+    Path directory;
+
+    private static OhlcValues candle(long time, BigDecimal close) {
+        Ohlc ohlc = new Ohlc()
+            .time(ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC))
+            .open(close)
+            .high(close.add(BigDecimal.ONE))
+            .low(close.subtract(BigDecimal.ONE))
+            .close(close)
+            .volume(BigDecimal.TEN)
+            .count(3);
+        return PROJECTIONS.createProjection(OhlcValues.class, ohlc);
+    }
+
+    private static void append(CandleArchive archive, long time, long close) throws IOException {
+        archive.append(candle(time, BigDecimal.valueOf(close)));
+    }
+
+    @Test
+    void testAppendedCandlesAreVisibleAfterCommit() throws IOException {
+        try (CandleArchive archive = CandleArchive.open(directory.resolve("chart.candles"), 1, 2)) {
+            append(archive, 0, 1);
+            append(archive, 60_000, 2);
+            assertThat(archive.size()).isZero();
+            assertThat(archive.lastTime()).isEqualTo(Long.MIN_VALUE);
+
+            archive.commit();
+
+            assertThat(archive.size()).isEqualTo(2);
+            assertThat(archive.lastTime()).isEqualTo(60_000);
+            CandleArchive.Range range = archive.range(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertThat(range.size()).isEqualTo(2);
+            assertThat(range.close(1)).isEqualByComparingTo("2");
+            assertThat(range.high(1)).isEqualByComparingTo("3");
+            assertThat(range.volumeWeightedAveragePrice(0)).isNull();
+            assertThat(range.volume(0)).isEqualByComparingTo("10");
+            assertThat(range.count(0)).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void testRangeFindsTheCandlesByTime() throws IOException {
+        try (CandleArchive archive = CandleArchive.open(directory.resolve("chart.candles"), 1, 2)) {
+            // more than one write buffer
+            for (int i = 0; i < 3000; i++) {
+                append(archive, i * 60_000L, i);
+            }
+            archive.commit();
+
+            CandleArchive.Range range = archive.range(1500 * 60_000L, 1510 * 60_000L);
+            assertThat(range.size()).isEqualTo(10);
+            assertThat(range.time(0)).isEqualTo(1500 * 60_000L);
+            assertThat(range.close(9)).isEqualByComparingTo("1509");
+            assertThat(archive.range(1500 * 60_000L + 1, 1501 * 60_000L).size()).isZero();
+            assertThat(archive.range(-60_000, 60_000).size()).isEqualTo(1);
+            assertThat(archive.range(5000 * 60_000L, 6000 * 60_000L).size()).isZero();
+            assertThatThrownBy(() -> range.time(10)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
+    @Test
+    void testReopenKeepsOnlyCommittedCandles() throws IOException {
+        Path file = directory.resolve("chart.candles");
+        try (CandleArchive archive = CandleArchive.open(file, 1, 2)) {
+            append(archive, 0, 1);
+            archive.commit();
+            append(archive, 60_000, 2);
+            archive.commit();
+            append(archive, 120_000, 3);
+        }
+        try (CandleArchive archive = CandleArchive.open(file, 1, 2)) {
+            assertThat(archive.size()).isEqualTo(2);
+            append(archive, 180_000, 4);
+            archive.commit();
+            CandleArchive.Range range = archive.range(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertThat(range.size()).isEqualTo(3);
+            assertThat(range.time(2)).isEqualTo(180_000);
+        }
+        assertThat(Files.size(file)).isEqualTo(CandleArchive.HEADER_SIZE + 3L * CandleArchive.RECORD_SIZE);
+    }
+
+    @Test
+    void testAppendRejectsCandlesNotAfterTheLastOne() throws IOException {
+        try (CandleArchive archive = CandleArchive.open(directory.resolve("chart.candles"), 1, 2)) {
+            append(archive, 60_000, 1);
+            assertThatThrownBy(() -> append(archive, 60_000, 2)).isInstanceOf(IllegalArgumentException.class);
+            archive.commit();
+            assertThatThrownBy(() -> append(archive, 0, 2)).isInstanceOf(IllegalArgumentException.class);
+            archive.discard();
+            append(archive, 120_000, 2);
+        }
+    }
+
+    @Test
+    void testDecimalsAreArchivedExactly() throws IOException {
+        try (CandleArchive archive = CandleArchive.open(directory.resolve("chart.candles"), 1, 2)) {
+            archive.append(candle(0, new BigDecimal("12345678901234567.89")));
+            archive.append(candle(60_000, new BigDecimal("0.1")));
+            assertThatThrownBy(() -> archive.append(candle(120_000, new BigDecimal("0.125")))).isInstanceOf(ArithmeticException.class);
+            assertThatThrownBy(() -> archive.append(candle(120_000, new BigDecimal("123456789012345678.9"))))
+                .isInstanceOf(ArithmeticException.class);
+            archive.commit();
+
+            CandleArchive.Range range = archive.range(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertThat(range.size()).isEqualTo(2);
+            assertThat(range.close(0)).isEqualTo(new BigDecimal("12345678901234567.89"));
+            assertThat(range.low(1)).isEqualTo(new BigDecimal("-0.90"));
+        }
+    }
+
+    @Test
+    void testMergeReplacesAndInsertsCandles() throws IOException {
+        Path file = directory.resolve("chart.candles");
+        try (CandleArchive archive = CandleArchive.open(file, 1, 2)) {
+            append(archive, 0, 1);
+            append(archive, 120_000, 2);
+            append(archive, 240_000, 3);
+            archive.commit();
+            CandleArchive.Range before = archive.range(Long.MIN_VALUE, Long.MAX_VALUE);
+
+            archive.merge(List.of(candle(60_000, BigDecimal.valueOf(5)), candle(120_000, BigDecimal.valueOf(7))));
+
+            CandleArchive.Range range = archive.range(Long.MIN_VALUE, Long.MAX_VALUE);
+            assertThat(range.size()).isEqualTo(4);
+            assertThat(range.time(1)).isEqualTo(60_000);
+            assertThat(range.close(1)).isEqualByComparingTo("5");
+            assertThat(range.close(2)).isEqualByComparingTo("7");
+            assertThat(range.close(3)).isEqualByComparingTo("3");
+            // the ranges read before the merge stay valid
+            assertThat(before.size()).isEqualTo(3);
+            assertThat(before.close(1)).isEqualByComparingTo("2");
+            append(archive, 300_000, 4);
+            archive.commit();
+            assertThatThrownBy(() -> archive.merge(List.of(candle(60_000, BigDecimal.ONE), candle(0, BigDecimal.ONE))))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+        try (CandleArchive archive = CandleArchive.open(file, 1, 2)) {
+            assertThat(archive.size()).isEqualTo(5);
+            assertThat(archive.range(120_000, 120_001).close(0)).isEqualByComparingTo("7");
+        }
+        assertThat(Files.size(file)).isEqualTo(CandleArchive.HEADER_SIZE + 5L * CandleArchive.RECORD_SIZE);
+    }
+
+    @Test
+    void testOpenRejectsTheArchiveOfAnotherChart() throws IOException {
+        Path file = directory.resolve("chart.candles");
+        CandleArchive.open(file, 1, 2).close();
+        assertThatThrownBy(() -> CandleArchive.open(file, 3, 2)).isInstanceOf(IOException.class);
+    }
+}
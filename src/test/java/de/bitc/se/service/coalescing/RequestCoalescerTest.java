@@ -0,0 +1,124 @@
+package de.bitc.se.service.coalescing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import de.bitc.se.service.event.TuplesWrittenEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RequestCoalescerTest {
+
+    private static final CoalescingKey KEY = CoalescingKey.ofCalculation("calculation-repair", 1L, 2L);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private RequestCoalescer requestCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        requestCoalescer = new RequestCoalescer(Duration.ofSeconds(2), 10, nanoTime::get);
+    }
+
+    @Test
+    void testConcurrentCallersShareOneRead() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> requestCoalescer.execute(KEY, () -> blockingRead(reading, release))));
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> requestCoalescer.execute(KEY, () -> blockingRead(reading, release))));
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result 1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testResultIsKeptForTimeToLive() {
+        assertThat(requestCoalescer.execute(KEY, this::read)).isEqualTo("result 1");
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(requestCoalescer.execute(KEY, this::read)).isEqualTo("result 1");
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(requestCoalescer.execute(KEY, this::read)).isEqualTo("result 2");
+    }
+
+    @Test
+    void testArgumentsArePartOfKey() {
+        assertThat(requestCoalescer.execute(CoalescingKey.ofChart("ohlc-columns", 1L, "a"), this::read)).isEqualTo("result 1");
+        assertThat(requestCoalescer.execute(CoalescingKey.ofChart("ohlc-columns", 1L, "b"), this::read)).isEqualTo("result 2");
+        assertThat(requestCoalescer.execute(CoalescingKey.ofChart("ohlc-columns", 1L, "a"), this::read)).isEqualTo("result 1");
+    }
+
+    @Test
+    void testWritesDropResults() {
+        CoalescingKey columns = CoalescingKey.ofChart("ohlc-columns", 1L, "a");
+        requestCoalescer.execute(KEY, this::read);
+        requestCoalescer.execute(columns, this::read);
+
+        requestCoalescer.onTuplesWritten(new TuplesWrittenEvent(2L, List.of()));
+        assertThat(requestCoalescer.size()).isEqualTo(1);
+        assertThat(requestCoalescer.execute(KEY, this::read)).isEqualTo("result 3");
+
+        requestCoalescer.onCandlesWritten(new CandlesWrittenEvent(1L, List.of()));
+        assertThat(requestCoalescer.size()).isZero();
+        assertThat(requestCoalescer.execute(columns, this::read)).isEqualTo("result 4");
+    }
+
+    @Test
+    void testFailedReadIsNotKept() {
+        assertThatThrownBy(() ->
+                requestCoalescer.execute(
+                    KEY,
+                    () -> {
+                        throw new IllegalStateException("failed");
+                    }
+                )
+            )
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(requestCoalescer.execute(KEY, this::read)).isEqualTo("result 1");
+    }
+
+    @Test
+    void testWithoutTimeToLiveOnlyReadsInProgressAreShared() {
+        requestCoalescer = new RequestCoalescer(Duration.ZERO, 10, nanoTime::get);
+        assertThat(requestCoalescer.execute(KEY, this::read)).isEqualTo("result 1");
+        assertThat(requestCoalescer.execute(KEY, this::read)).isEqualTo("result 2");
+        assertThat(requestCoalescer.size()).isZero();
+    }
+
+    private String read() {
+        return "result " + reads.incrementAndGet();
+    }
+
+    private String blockingRead(CountDownLatch reading, CountDownLatch release) {
+        reading.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return read();
+    }
+}
@@ -0,0 +1,119 @@
+package de.bitc.se.service.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.bitc.se.domain.Ohlc;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link FeedClient}, against a {@link ReplayWebSocketServer} replaying recorded traffic.
+ */
+class FeedClientTest {
+
+    private static final long CHART_ID = 7L;
+
+    private final List<FeedSubscription> subscriptions = List.of(new FeedSubscription("XBT/EUR", CHART_ID, 1));
+
+    private final List<Ohlc> written = new ArrayList<>();
+
+    private FeedRingBuffer ring;
+
+    private FeedCandleWriter writer;
+
+    private ReplayWebSocketServer server;
+
+    private FeedClient client;
+
+    @BeforeEach
+    void setUp() {
+        ring = new FeedRingBuffer(8);
+        writer =
+            new FeedCandleWriter(
+                ring.addConsumer(),
+                (chartId, ohlcs) -> {
+                    assertThat(chartId).isEqualTo(CHART_ID);
+                    written.addAll(ohlcs);
+                },
+                100,
+                Long.MAX_VALUE
+            );
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private void connect(double speed) throws Exception {
+        server = new ReplayWebSocketServer(ReplayWebSocketServer.recording("/feed/kraken-ohlc.txt"), speed);
+        client = new FeedClient(server.getUri(), subscriptions, ring, Duration.ofSeconds(5), Duration.ofMillis(50));
+        client.connect();
+    }
+
+    private void awaitDecoded(long decoded) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (client.getDecoded() < decoded && System.nanoTime() < deadline) {
+            writer.drain();
+            Thread.sleep(5);
+        }
+        writer.drain();
+    }
+
+    @Test
+    void testWritesTheLatestStateOfTheReceivedCandles() throws Exception {
+        connect(0);
+
+        assertThat(server.awaitReplayed(10, TimeUnit.SECONDS)).isTrue();
+        awaitDecoded(5);
+        writer.flush();
+
+        assertThat(server.getReceived())
+            .containsExactly("{\"event\":\"subscribe\",\"pair\":[\"XBT/EUR\"],\"subscription\":{\"name\":\"ohlc\",\"interval\":1}}");
+        assertThat(client.getReceived()).isEqualTo(11);
+        assertThat(client.getDecoded()).isEqualTo(5);
+        assertThat(written).hasSize(2);
+        assertThat(written.get(0).getTime()).isEqualTo(ZonedDateTime.parse("2022-10-13T00:00:00Z"));
+        assertThat(written.get(0).getClose()).isEqualTo(new BigDecimal("19495.50000"));
+        assertThat(written.get(0).getCount()).isEqualTo(3);
+        assertThat(written.get(1).getTime()).isEqualTo(ZonedDateTime.parse("2022-10-13T00:01:00Z"));
+        assertThat(written.get(1).getClose()).isEqualTo(new BigDecimal("19520.00000"));
+        assertThat(writer.getWritten()).isEqualTo(2);
+    }
+
+    @Test
+    void testReplaysAtTheRecordedSpeed() throws Exception {
+        long start = System.nanoTime();
+        connect(2.0);
+
+        assertThat(server.awaitReplayed(10, TimeUnit.SECONDS)).isTrue();
+
+        // the recording lasts 800 ms
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    @Test
+    void testReconnectsWhenTheConnectionIsLost() throws Exception {
+        connect(0);
+        assertThat(server.awaitReplayed(10, TimeUnit.SECONDS)).isTrue();
+        awaitDecoded(5);
+
+        server.dropClients();
+        awaitDecoded(10);
+
+        assertThat(server.getReceived()).hasSize(2);
+        assertThat(client.getDecoded()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,100 @@
+package de.bitc.se.service.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link FeedRingBuffer}.
+ */
+class FeedRingBufferTest {
+
+    private static void produce(FeedRingBuffer ring, long time) {
+        ring.claim().setTime(time);
+        ring.publish();
+    }
+
+    @Test
+    void testEveryConsumerReadsEveryCandle() {
+        FeedRingBuffer ring = new FeedRingBuffer(8);
+        FeedRingBuffer.Consumer first = ring.addConsumer();
+        FeedRingBuffer.Consumer second = ring.addConsumer();
+        for (long time = 0; time < 5; time++) {
+            produce(ring, time);
+        }
+
+        List<Long> firstTimes = new ArrayList<>();
+        List<Long> secondTimes = new ArrayList<>();
+        assertThat(first.poll(candle -> firstTimes.add(candle.getTime()), 3)).isEqualTo(3);
+        assertThat(first.poll(candle -> firstTimes.add(candle.getTime()), 10)).isEqualTo(2);
+        assertThat(second.poll(candle -> secondTimes.add(candle.getTime()), 10)).isEqualTo(5);
+
+        assertThat(firstTimes).containsExactly(0L, 1L, 2L, 3L, 4L);
+        assertThat(secondTimes).containsExactly(0L, 1L, 2L, 3L, 4L);
+        assertThat(first.poll(candle -> firstTimes.add(candle.getTime()), 10)).isZero();
+    }
+
+    @Test
+    void testAnUnpublishedClaimIsNotRead() {
+        FeedRingBuffer ring = new FeedRingBuffer(4);
+        FeedRingBuffer.Consumer consumer = ring.addConsumer();
+
+        ring.claim().setTime(1);
+
+        assertThat(consumer.poll(candle -> {}, 10)).isZero();
+        assertThat(ring.claim().getTime()).isEqualTo(1);
+    }
+
+    @Test
+    void testTheProducerWaitsForTheSlowestConsumer() throws InterruptedException {
+        int candles = 100_000;
+        FeedRingBuffer ring = new FeedRingBuffer(16);
+        List<FeedRingBuffer.Consumer> consumers = List.of(ring.addConsumer(), ring.addConsumer());
+        AtomicBoolean ordered = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (FeedRingBuffer.Consumer consumer : consumers) {
+            Thread thread = new Thread(() -> {
+                long[] expected = { 0 };
+                int idles = 0;
+                while (expected[0] < candles) {
+                    int read = consumer.poll(
+                        candle -> {
+                            if (candle.getTime() != expected[0]++) {
+                                ordered.set(false);
+                            }
+                        },
+                        7
+                    );
+                    if (read > 0) {
+                        idles = 0;
+                    } else {
+                        FeedRingBuffer.idle(idles++);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (long time = 0; time < candles; time++) {
+            produce(ring, time);
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+
+        assertThat(ordered).isTrue();
+        assertThat(consumers.get(0).getLag()).isZero();
+        assertThat(consumers.get(1).getLag()).isZero();
+    }
+
+    @Test
+    void testTheSizeIsAPowerOfTwo() {
+        assertThatThrownBy(() -> new FeedRingBuffer(12)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
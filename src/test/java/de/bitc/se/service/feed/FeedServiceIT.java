@@ -0,0 +1,118 @@
+package de.bitc.se.service.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Pair;
+import de.bitc.se.domain.TimeRange;
+import de.bitc.se.repository.AssetRepository;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.PairRepository;
+import de.bitc.se.repository.TimeRangeRepository;
+import de.bitc.se.service.OhlcService;
+import de.bitc.se.service.event.ReferenceDataChangedEvent;
+import de.bitc.se.service.reference.ReferenceDataService;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link FeedService}, the replayed candles are written in the test transaction.
+ */
+@IntegrationTest
+@Transactional
+class FeedServiceIT {
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private OhlcService ohlcService;
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private ChartRepository chartRepository;
+
+    @Autowired
+    private PairRepository pairRepository;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private TimeRangeRepository timeRangeRepository;
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Chart baseChart;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Pair pair = objectMapper.readValue(getClass().getResourceAsStream("/json/pair.json"), Pair.class);
+        assetRepository.saveAndFlush(pair.getBase());
+        assetRepository.saveAndFlush(pair.getQuote());
+        pair = pairRepository.saveAndFlush(pair);
+        baseChart = chart(pair, 1, false);
+        chart(pair, 5, false);
+        chart(pair, 0, false);
+        chart(pair, 1, true);
+        // the listener is called directly, the event is published after the commit
+        referenceDataService.onReferenceDataChanged(new ReferenceDataChangedEvent("pair"));
+    }
+
+    private Chart chart(Pair pair, int rangeSize, boolean disabled) {
+        TimeRange timeRange = timeRangeRepository.saveAndFlush(new TimeRange().name(rangeSize + "M").rangeSize(rangeSize));
+        return chartRepository.saveAndFlush(
+            new Chart().name(pair.getAltname() + " " + timeRange.getName()).disabled(disabled).pair(pair).timeRange(timeRange)
+        );
+    }
+
+    @Test
+    void testSubscribesTheBaseChartOfAPair() {
+        assertThat(feedService.subscriptions()).contains(new FeedSubscription("XBT/EUR", baseChart.getId(), 1));
+        assertThat(feedService.subscriptions()).noneMatch(subscription -> subscription.getInterval() != 1 && "XBT/EUR".equals(subscription.getPairName()));
+    }
+
+    @Test
+    void testWritesTheReplayedCandles() throws Exception {
+        FeedRingBuffer ring = new FeedRingBuffer(16);
+        FeedCandleWriter writer = new FeedCandleWriter(ring.addConsumer(), ohlcService::saveAll, 100, Long.MAX_VALUE);
+        List<FeedSubscription> subscriptions = List.of(new FeedSubscription("XBT/EUR", baseChart.getId(), 1));
+        try (ReplayWebSocketServer server = new ReplayWebSocketServer(ReplayWebSocketServer.recording("/feed/kraken-ohlc.txt"), 0)) {
+            FeedClient client = new FeedClient(server.getUri(), subscriptions, ring, Duration.ofSeconds(5), Duration.ofSeconds(5));
+            client.connect();
+            assertThat(server.awaitReplayed(10, TimeUnit.SECONDS)).isTrue();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (client.getDecoded() < 5 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            client.close();
+        }
+        writer.drain();
+        writer.flush();
+
+        List<Ohlc> ohlcs = ohlcRepository.findAll();
+        assertThat(ohlcRepository.countByChartId(baseChart.getId())).isEqualTo(2);
+        assertThat(ohlcs)
+            .filteredOn(ohlc -> ohlc.getChart().getId().equals(baseChart.getId()))
+            .extracting(Ohlc::getClose)
+            .usingElementComparator(BigDecimal::compareTo)
+            .containsExactlyInAnyOrder(new BigDecimal("19495.5"), new BigDecimal("19520"));
+    }
+}
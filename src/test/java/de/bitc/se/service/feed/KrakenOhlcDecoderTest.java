@@ -0,0 +1,71 @@
+package de.bitc.se.service.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link KrakenOhlcDecoder}.
+ */
+class KrakenOhlcDecoderTest {
+
+    private static final String MESSAGE =
+        "[343,[\"1665619230.512000\",\"1665619260.000000\",\"19500.10000\",\"19510.00000\",\"19490.00000\"," +
+        "\"19495.50000\",\"19501.20000\",\"0.03500000\",3],\"ohlc-1\",\"XBT/EUR\"]";
+
+    private final KrakenOhlcDecoder decoder = new KrakenOhlcDecoder(
+        List.of(new FeedSubscription("XBT/EUR", 7L, 1), new FeedSubscription("ETH/EUR", 8L, 5))
+    );
+
+    private final FeedCandle candle = new FeedCandle();
+
+    @Test
+    void testDecodesAnOhlcMessage() {
+        assertThat(decoder.decode(MESSAGE, candle)).isTrue();
+
+        assertThat(candle.getChartId()).isEqualTo(7L);
+        assertThat(Instant.ofEpochMilli(candle.getTime())).isEqualTo(Instant.parse("2022-10-13T00:00:00Z"));
+        assertThat(candle.getDecimal(FeedCandle.OPEN)).isEqualTo(new BigDecimal("19500.10000"));
+        assertThat(candle.getDecimal(FeedCandle.HIGH)).isEqualTo(new BigDecimal("19510.00000"));
+        assertThat(candle.getDecimal(FeedCandle.LOW)).isEqualTo(new BigDecimal("19490.00000"));
+        assertThat(candle.getDecimal(FeedCandle.CLOSE)).isEqualTo(new BigDecimal("19495.50000"));
+        assertThat(candle.getDecimal(FeedCandle.VOLUME_WEIGHTED_AVERAGE_PRICE)).isEqualTo(new BigDecimal("19501.20000"));
+        assertThat(candle.getDecimal(FeedCandle.VOLUME)).isEqualTo(new BigDecimal("0.03500000"));
+        assertThat(candle.getCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testAlignsTheTimeToTheInterval() {
+        String message =
+            "[344,[\"1665619505.5\",\"1665619800.0\",\"1290.5\",\"1290.5\",\"1290.5\",\"1290.5\",\"1290.5\",\"2.5\",1],\"ohlc-5\",\"ETH/EUR\"]";
+
+        assertThat(decoder.decode(message, candle)).isTrue();
+
+        assertThat(candle.getChartId()).isEqualTo(8L);
+        assertThat(Instant.ofEpochMilli(candle.getTime())).isEqualTo(Instant.parse("2022-10-13T00:05:00Z"));
+    }
+
+    @Test
+    void testSkipsTheEvents() {
+        assertThat(decoder.decode("{\"event\":\"heartbeat\"}", candle)).isFalse();
+        assertThat(decoder.decode("{\"event\":\"systemStatus\",\"status\":\"online\"}", candle)).isFalse();
+    }
+
+    @Test
+    void testSkipsTheUnsubscribedPairsAndIntervals() {
+        assertThat(decoder.decode(MESSAGE.replace("XBT/EUR", "XBT/USD"), candle)).isFalse();
+        assertThat(decoder.decode(MESSAGE.replace("ohlc-1", "ohlc-5"), candle)).isFalse();
+        assertThat(decoder.decode(MESSAGE.replace("XBT/EUR", "XBT/EURO"), candle)).isFalse();
+    }
+
+    @Test
+    void testRejectsInvalidMessages() {
+        assertThat(decoder.decode("", candle)).isFalse();
+        assertThat(decoder.decode(MESSAGE.substring(0, MESSAGE.length() - 10), candle)).isFalse();
+        assertThat(decoder.decode(MESSAGE.replace("\"19510.00000\"", "\"abc\""), candle)).isFalse();
+        assertThat(decoder.decode(MESSAGE.replace("0.03500000", "0.0350000000000000000001"), candle)).isFalse();
+    }
+}
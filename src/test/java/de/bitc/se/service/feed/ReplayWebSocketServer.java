@@ -0,0 +1,281 @@
+package de.bitc.se.service.feed;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local stand-in of the exchange WebSocket feed, replaying recorded traffic to each client.
+ * <p>
+ * A recording has one message per line, prefixed with its offset in milliseconds and a tab. The replay of a client
+ * starts once it has sent its first message, a subscription, and keeps the recorded offsets divided by the speed; a
+ * speed of 0 replays without delays. Only unfragmented text frames are supported.
+ */
+class ReplayWebSocketServer implements AutoCloseable {
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    /**
+     * A recorded message.
+     */
+    static final class Recorded {
+
+        private final long offsetMillis;
+
+        private final String message;
+
+        Recorded(long offsetMillis, String message) {
+            this.offsetMillis = offsetMillis;
+            this.message = message;
+        }
+    }
+
+    private final List<Recorded> recording;
+
+    private final double speed;
+
+    private final ServerSocket serverSocket;
+
+    private final List<String> received = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch replayed = new CountDownLatch(1);
+
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+    ReplayWebSocketServer(List<Recorded> recording, double speed) throws IOException {
+        this.recording = recording;
+        this.speed = speed;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "replay-websocket-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Read a recording from the class path.
+     */
+    static List<Recorded> recording(String resource) throws IOException {
+        List<Recorded> recording = new ArrayList<>();
+        try (
+            InputStream inputStream = ReplayWebSocketServer.class.getResourceAsStream(resource);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))
+        ) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (!line.isBlank() && tab > 0) {
+                    recording.add(new Recorded(Long.parseLong(line.substring(0, tab)), line.substring(tab + 1)));
+                }
+            }
+        }
+        return recording;
+    }
+
+    URI getUri() {
+        return URI.create("ws://localhost:" + serverSocket.getLocalPort() + "/");
+    }
+
+    /**
+     * @return the messages received from the clients.
+     */
+    List<String> getReceived() {
+        return received;
+    }
+
+    /**
+     * Wait until the recording is replayed to a client.
+     */
+    boolean awaitReplayed(long timeout, TimeUnit unit) throws InterruptedException {
+        return replayed.await(timeout, unit);
+    }
+
+    /**
+     * Close the connections of the clients without a close frame, as if the network failed.
+     */
+    void dropClients() throws IOException {
+        for (Socket client : clients) {
+            client.close();
+        }
+        clients.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropClients();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                clients.add(socket);
+                Thread client = new Thread(() -> serve(socket), "replay-websocket-client");
+                client.setDaemon(true);
+                client.start();
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            handshake(in, out);
+            String subscription = readText(in);
+            if (subscription == null) {
+                return;
+            }
+            received.add(subscription);
+            Thread reader = new Thread(() -> readAll(in), "replay-websocket-reader");
+            reader.setDaemon(true);
+            reader.start();
+            long start = System.nanoTime();
+            for (Recorded recorded : recording) {
+                if (speed > 0) {
+                    long due = start + (long) (recorded.offsetMillis * 1_000_000L / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                writeText(out, recorded.message);
+            }
+            replayed.countDown();
+            reader.join();
+        } catch (IOException e) {
+            // the client is gone
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void readAll(DataInputStream in) {
+        try {
+            String text;
+            while ((text = readText(in)) != null) {
+                received.add(text);
+            }
+        } catch (IOException e) {
+            // the client is gone
+        }
+    }
+
+    private static void handshake(DataInputStream in, OutputStream out) throws IOException {
+        String key = null;
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                throw new IOException("Handshake incomplete");
+            }
+            if (c == '\n') {
+                String header = line.toString().trim();
+                if (header.isEmpty()) {
+                    break;
+                }
+                if (header.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = header.substring(header.indexOf(':') + 1).trim();
+                }
+                line.setLength(0);
+            } else {
+                line.append((char) c);
+            }
+        }
+        if (key == null) {
+            throw new IOException("No Sec-WebSocket-Key");
+        }
+        String response =
+            "HTTP/1.1 101 Switching Protocols\r\n" +
+            "Upgrade: websocket\r\n" +
+            "Connection: Upgrade\r\n" +
+            "Sec-WebSocket-Accept: " +
+            accept(key) +
+            "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String accept(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            return Base64.getEncoder().encodeToString(sha1.digest((key + ACCEPT_GUID).getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read the next text frame of a client, the frames of a client are masked.
+     *
+     * @return the text, or {@code null} when the client closes the connection.
+     */
+    private static String readText(DataInputStream in) throws IOException {
+        while (true) {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            int opcode = first & 0x0F;
+            int second = in.readUnsignedByte();
+            long length = second & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = in.readLong();
+            }
+            byte[] mask = new byte[4];
+            if ((second & 0x80) != 0) {
+                in.readFully(mask);
+            }
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+            if (opcode == 0x8) {
+                return null;
+            }
+            if (opcode == 0x1) {
+                return new String(payload, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static synchronized void writeText(OutputStream out, String text) throws IOException {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        out.write(0x81);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else if (payload.length < 65536) {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length & 0xFF);
+        } else {
+            out.write(127);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) ((long) payload.length >>> shift) & 0xFF);
+            }
+        }
+        out.write(payload);
+        out.flush();
+    }
+}
@@ -0,0 +1,124 @@
+package de.bitc.se.service.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Pair;
+import de.bitc.se.domain.TimeRange;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.PairRepository;
+import de.bitc.se.repository.TimeRangeRepository;
+import de.bitc.se.service.dto.OhlcImportDTO;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link MarketDataGeneratorService}.
+ */
+@IntegrationTest
+@Transactional
+class MarketDataGeneratorServiceIT {
+
+    private static final int CANDLES = 50;
+
+    @Autowired
+    private MarketDataGeneratorService marketDataGeneratorService;
+
+    @Autowired
+    private TimeRangeRepository timeRangeRepository;
+
+    @Autowired
+    private PairRepository pairRepository;
+
+    @Autowired
+    private ChartRepository chartRepository;
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private ApplicationProperties.Generator settings;
+
+    @BeforeEach
+    void setUp() {
+        timeRangeRepository.saveAndFlush(new TimeRange().name("2M").rangeSize(2));
+        timeRangeRepository.saveAndFlush(new TimeRange().name("4M").rangeSize(4));
+        timeRangeRepository.saveAndFlush(new TimeRange().name("5M").rangeSize(5));
+        settings = new ApplicationProperties.Generator();
+        settings.setPairs(2);
+        settings.setCandles(CANDLES);
+        settings.setStart(ZonedDateTime.parse("2022-10-13T00:00:00Z"));
+        settings.setGapProbability(0);
+        settings.setDuplicateProbability(0.1);
+    }
+
+    private Map<Integer, Chart> charts(String pairName) {
+        Pair pair = pairRepository.findFirstByName(pairName).orElseThrow();
+        return chartRepository
+            .findAllByPairId(pair.getId())
+            .stream()
+            .collect(Collectors.toMap(chart -> chart.getTimeRange().getRangeSize(), Function.identity(), (first, second) -> first));
+    }
+
+    private List<Ohlc> candles(Chart chart) {
+        return ohlcRepository
+            .findByChartIdAndTimeRange(chart.getId(), settings.getStart(), settings.getStart().plusDays(2), Pageable.unpaged())
+            .getContent();
+    }
+
+    @Test
+    void testGeneratesTheChartsNotDerived() {
+        List<OhlcImportDTO> imports = marketDataGeneratorService.generate(settings);
+        em.flush();
+        em.clear();
+
+        for (String pairName : List.of("GEN1/EUR", "GEN2/EUR")) {
+            Map<Integer, Chart> charts = charts(pairName);
+            assertThat(charts).containsKeys(2, 4, 5);
+            // the 4 minute chart is rolled up from the 2 minute chart once it is committed
+            assertThat(ohlcRepository.countByChartId(charts.get(2).getId())).isEqualTo(CANDLES);
+            assertThat(ohlcRepository.countByChartId(charts.get(4).getId())).isZero();
+            assertThat(ohlcRepository.countByChartId(charts.get(5).getId())).isEqualTo(CANDLES);
+        }
+        // a duplicate in the next batch of the import is counted again
+        assertThat(imports).hasSize(4).allSatisfy(result -> assertThat(result.getRows()).isGreaterThanOrEqualTo(CANDLES));
+    }
+
+    @Test
+    void testGeneratesTheSameCandlesAgain() {
+        marketDataGeneratorService.generate(settings);
+        em.flush();
+        em.clear();
+        Chart chart = charts("GEN1/EUR").get(2);
+        List<Ohlc> first = candles(chart);
+        em.clear();
+
+        marketDataGeneratorService.generate(settings);
+        em.flush();
+        em.clear();
+
+        assertThat(charts("GEN1/EUR")).hasSize(charts("GEN2/EUR").size());
+        List<Ohlc> second = candles(chart);
+        assertThat(second).hasSize(CANDLES);
+        for (int i = 0; i < CANDLES; i++) {
+            assertThat(second.get(i).getId()).isEqualTo(first.get(i).getId());
+            assertThat(second.get(i).getClose()).isEqualByComparingTo(first.get(i).getClose());
+            assertThat(second.get(i).getVolume()).isEqualByComparingTo(first.get(i).getVolume());
+        }
+    }
+}
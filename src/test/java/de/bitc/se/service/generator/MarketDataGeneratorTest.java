@@ -0,0 +1,110 @@
+package de.bitc.se.service.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Ohlc;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link MarketDataGenerator}.
+ */
+class MarketDataGeneratorTest {
+
+    private ApplicationProperties.Generator settings;
+
+    @BeforeEach
+    void setUp() {
+        settings = new ApplicationProperties.Generator();
+        settings.setCandles(5000);
+        settings.setStart(ZonedDateTime.parse("2022-10-13T00:07:00Z"));
+    }
+
+    private List<Ohlc> generate(long seed, int rangeSize) {
+        List<Ohlc> ohlcs = new ArrayList<>();
+        new MarketDataGenerator(settings, seed, rangeSize).forEachRemaining(ohlcs::add);
+        return ohlcs;
+    }
+
+    @Test
+    void testSameSeedGeneratesSameCandles() {
+        List<Ohlc> first = generate(1, 5);
+        List<Ohlc> second = generate(1, 5);
+        List<Ohlc> other = generate(2, 5);
+
+        assertThat(first).hasSameSizeAs(second);
+        for (int i = 0; i < first.size(); i++) {
+            assertThat(second.get(i).getTime()).isEqualTo(first.get(i).getTime());
+            assertThat(second.get(i).getClose()).isEqualTo(first.get(i).getClose());
+            assertThat(second.get(i).getVolume()).isEqualTo(first.get(i).getVolume());
+        }
+        assertThat(other.get(other.size() - 1).getClose()).isNotEqualTo(first.get(first.size() - 1).getClose());
+    }
+
+    @Test
+    void testCandlesAreConsistent() {
+        List<Ohlc> ohlcs = generate(42, 5);
+
+        assertThat(ohlcs.get(0).getTime()).isEqualTo(ZonedDateTime.parse("2022-10-13T00:05:00Z"));
+        assertThat(ohlcs.get(0).getOpen()).isEqualByComparingTo("100.00");
+        for (Ohlc ohlc : ohlcs) {
+            assertThat(ohlc.getTime().getMinute() % 5).isZero();
+            assertThat(ohlc.getHigh()).isGreaterThanOrEqualTo(ohlc.getOpen().max(ohlc.getClose()));
+            assertThat(ohlc.getLow()).isLessThanOrEqualTo(ohlc.getOpen().min(ohlc.getClose()));
+            assertThat(ohlc.getLow()).isPositive();
+            assertThat(ohlc.getVolumeWeightedAveragePrice()).isBetween(ohlc.getLow(), ohlc.getHigh());
+            assertThat(ohlc.getCount()).isPositive();
+        }
+    }
+
+    @Test
+    void testInjectsGapsAndDuplicates() {
+        settings.setGapProbability(0.01);
+        settings.setDuplicateProbability(0.01);
+
+        List<Ohlc> ohlcs = generate(42, 1);
+
+        int gaps = 0;
+        int duplicates = 0;
+        for (int i = 1; i < ohlcs.size(); i++) {
+            long minutes = (ohlcs.get(i).getTime().toEpochSecond() - ohlcs.get(i - 1).getTime().toEpochSecond()) / 60;
+            if (minutes == 0) {
+                duplicates++;
+                // the unfinished candle comes first and opens like the finished one
+                assertThat(ohlcs.get(i).getOpen()).isEqualTo(ohlcs.get(i - 1).getOpen());
+            } else if (minutes > 1) {
+                gaps++;
+            }
+        }
+        assertThat(gaps).isBetween(20, 80);
+        assertThat(duplicates).isBetween(20, 80);
+        long times = ohlcs.stream().map(Ohlc::getTime).distinct().count();
+        assertThat(times).isEqualTo(ohlcs.size() - duplicates).isLessThanOrEqualTo(settings.getCandles() - gaps);
+    }
+
+    @Test
+    void testVolumeBursts() {
+        settings.setBurstProbability(0);
+        double calm = generate(42, 1).stream().mapToDouble(ohlc -> ohlc.getVolume().doubleValue()).max().orElse(0);
+        settings.setBurstProbability(0.01);
+        double bursty = generate(42, 1).stream().mapToDouble(ohlc -> ohlc.getVolume().doubleValue()).max().orElse(0);
+
+        assertThat(bursty).isGreaterThan(calm * 2);
+    }
+
+    @Test
+    void testEnds() {
+        settings.setCandles(1);
+        MarketDataGenerator generator = new MarketDataGenerator(settings, 42, 1);
+        generator.next();
+
+        assertThat(generator.hasNext()).isFalse();
+        assertThatThrownBy(generator::next).isInstanceOf(NoSuchElementException.class);
+    }
+}
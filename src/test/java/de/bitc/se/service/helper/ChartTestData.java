@@ -0,0 +1,80 @@
+package de.bitc.se.service.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Pair;
+import java.io.IOException;
+import javax.persistence.EntityManager;
+
+/**
+ * The chart the service integration tests write their candles to, read from {@code /json/pair.json} and
+ * {@code /json/chart.json}.
+ */
+public final class ChartTestData {
+
+    private ChartTestData() {}
+
+    /**
+     * Create the pair of {@code /json/pair.json} with its assets, without its fees.
+     *
+     * @param em the entity manager of the test.
+     * @param objectMapper the mapper of the application.
+     * @return the persisted pair.
+     * @throws IOException if the JSON cannot be read.
+     */
+    public static Pair createPair(EntityManager em, ObjectMapper objectMapper) throws IOException {
+        Pair pair = objectMapper.readValue(ChartTestData.class.getResourceAsStream("/json/pair.json"), Pair.class);
+        em.persist(pair.getBase());
+        em.persist(pair.getQuote());
+        em.persist(pair);
+        em.flush();
+        return pair;
+    }
+
+    /**
+     * Create the chart of {@code /json/chart.json} with a new pair and its time range.
+     *
+     * @param em the entity manager of the test.
+     * @param objectMapper the mapper of the application.
+     * @return the persisted chart.
+     * @throws IOException if the JSON cannot be read.
+     */
+    public static Chart createChart(EntityManager em, ObjectMapper objectMapper) throws IOException {
+        return createChart(em, objectMapper, createPair(em, objectMapper), null);
+    }
+
+    /**
+     * Create the chart of {@code /json/chart.json} with a new pair and a time range of another size.
+     *
+     * @param em the entity manager of the test.
+     * @param objectMapper the mapper of the application.
+     * @param rangeSize the size of the time range in minutes.
+     * @return the persisted chart.
+     * @throws IOException if the JSON cannot be read.
+     */
+    public static Chart createChart(EntityManager em, ObjectMapper objectMapper, int rangeSize) throws IOException {
+        return createChart(em, objectMapper, createPair(em, objectMapper), rangeSize);
+    }
+
+    /**
+     * Create the chart of {@code /json/chart.json} on a pair, with a new time range.
+     *
+     * @param em the entity manager of the test.
+     * @param objectMapper the mapper of the application.
+     * @param pair the persisted pair of the chart.
+     * @param rangeSize the size of the time range in minutes, or null for the size of the JSON.
+     * @return the persisted chart.
+     * @throws IOException if the JSON cannot be read.
+     */
+    public static Chart createChart(EntityManager em, ObjectMapper objectMapper, Pair pair, Integer rangeSize) throws IOException {
+        Chart chart = objectMapper.readValue(ChartTestData.class.getResourceAsStream("/json/chart.json"), Chart.class);
+        chart.setPair(pair);
+        if (rangeSize != null) {
+            chart.getTimeRange().setRangeSize(rangeSize);
+        }
+        em.persist(chart.getTimeRange());
+        em.persist(chart);
+        em.flush();
+        return chart;
+    }
+}
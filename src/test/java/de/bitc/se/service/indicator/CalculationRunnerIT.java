@@ -0,0 +1,106 @@
+package de.bitc.se.service.indicator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Calculation;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.service.helper.ChartTestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link CalculationRunner}, the calculation executor runs the tasks in the calling thread.
+ */
+@IntegrationTest
+@Transactional
+class CalculationRunnerIT {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    @Autowired
+    private CalculationRunner calculationRunner;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Chart chart;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        chart = ChartTestData.createChart(em, objectMapper, 1);
+        for (int i = 0; i < 5; i++) {
+            ohlcRepository.saveAndFlush(new Ohlc().time(START.plusMinutes(i)).close(BigDecimal.valueOf(i)).chart(chart));
+        }
+    }
+
+    @Test
+    void testRunLaggingComputesTheCalculationsBehindTheirCandles() {
+        Calculation lagging = calculationRepository.saveAndFlush(
+            new Calculation().name("SMA(2)").disabled(false).last(START.plusMinutes(1)).chart(chart)
+        );
+        Calculation disabled = calculationRepository.saveAndFlush(new Calculation().name("SMA(2)").disabled(true).chart(chart));
+
+        assertThat(calculationRepository.findLagging(List.of(lagging.getId(), disabled.getId()), ZonedDateTime.now()))
+            .anySatisfy(lag -> {
+                assertThat(lag.getCalculationId()).isEqualTo(lagging.getId());
+                assertThat(lag.getChartId()).isEqualTo(chart.getId());
+                assertThat(lag.getFirst()).isEqualTo(START.plusMinutes(2));
+                assertThat(lag.getLatest()).isEqualTo(START.plusMinutes(4));
+            })
+            .noneSatisfy(lag -> assertThat(lag.getCalculationId()).isEqualTo(disabled.getId()));
+
+        assertThat(calculationRunner.runLagging()).isPositive();
+
+        assertThat(meterRegistry.get("calculation.lag").tag("calculation", String.valueOf(lagging.getId())).gauge().value())
+            .isEqualTo(180.0);
+        assertThat(calculationRepository.findById(lagging.getId()).orElseThrow().getLast()).isEqualTo(START.plusMinutes(4));
+        assertThat(calculationRepository.findLagging(List.of(lagging.getId()), ZonedDateTime.now())).isEmpty();
+    }
+
+    @Test
+    void testRunLaggingSkipsTheCaughtUpChartsAndTheOtherCalculations() throws IOException {
+        // the only candle after the last computed one is in the open bucket
+        Chart caughtUp = ChartTestData.createChart(em, objectMapper, 1);
+        ZonedDateTime open = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        ohlcRepository.saveAndFlush(new Ohlc().time(open.minusMinutes(2)).close(BigDecimal.ONE).chart(caughtUp));
+        ohlcRepository.saveAndFlush(new Ohlc().time(open).close(BigDecimal.ONE).chart(caughtUp));
+        Calculation computed = calculationRepository.saveAndFlush(
+            new Calculation().name("SMA(2)").disabled(false).last(open.minusMinutes(2)).chart(caughtUp)
+        );
+        // no indicator, its last is never moved
+        Calculation other = calculationRepository.saveAndFlush(new Calculation().name("custom").disabled(false).chart(chart));
+
+        calculationRunner.runLagging();
+
+        assertThat(meterRegistry.find("calculation.lag").tag("calculation", String.valueOf(computed.getId())).gauge()).isNull();
+        assertThat(meterRegistry.find("calculation.lag").tag("calculation", String.valueOf(other.getId())).gauge()).isNull();
+        assertThat(calculationRepository.findById(computed.getId()).orElseThrow().getLast()).isEqualTo(open.minusMinutes(2));
+    }
+}
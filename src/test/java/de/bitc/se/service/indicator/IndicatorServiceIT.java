@@ -0,0 +1,212 @@
+package de.bitc.se.service.indicator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Calculation;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Tuple;
+import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.archive.CandleArchiveService;
+import de.bitc.se.service.dto.CalculationRepairResultDTO;
+import de.bitc.se.service.helper.ChartTestData;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link IndicatorService}.
+ */
+@IntegrationTest
+@Transactional
+class IndicatorServiceIT {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    private static final int CANDLES = 25;
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private TupleRepository tupleRepository;
+
+    @Autowired
+    private CandleArchiveService candleArchiveService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private Chart chart;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        chart = ChartTestData.createChart(em, objectMapper, 1);
+        for (int i = 0; i < CANDLES; i++) {
+            saveCandle(i);
+        }
+    }
+
+    private void saveCandle(int minute) {
+        ohlcRepository.saveAndFlush(new Ohlc().time(START.plusMinutes(minute)).close(BigDecimal.valueOf(minute)).chart(chart));
+    }
+
+    private Calculation calculation(String name, boolean disabled) {
+        return calculationRepository.saveAndFlush(new Calculation().name(name).disabled(disabled).chart(chart));
+    }
+
+    private List<Tuple> tuples(Calculation calculation) {
+        em.flush();
+        em.clear();
+        return tupleRepository
+            .findAll()
+            .stream()
+            .filter(tuple -> tuple.getCalculation() != null && calculation.getId().equals(tuple.getCalculation().getId()))
+            .sorted(Comparator.comparing(Tuple::getTime))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    void testCalculateComputesTheTuplesOfAllCandles() {
+        Calculation calculation = calculation("SMA(3)", false);
+
+        long written = indicatorService.calculate(calculation.getId());
+
+        assertThat(written).isEqualTo(CANDLES - 2);
+        List<Tuple> tuples = tuples(calculation);
+        assertThat(tuples).hasSize(CANDLES - 2);
+        assertThat(tuples.get(0).getTime()).isEqualTo(START.plusMinutes(2));
+        assertThat(tuples.get(0).getComputation()).isEqualByComparingTo("1.00");
+        assertThat(tuples.get(0).getOhlc()).isNotNull();
+        assertThat(tuples.get(0).getOhlc().getTime()).isEqualTo(START.plusMinutes(2));
+        assertThat(calculationRepository.findById(calculation.getId()).orElseThrow().getLast()).isEqualTo(START.plusMinutes(CANDLES - 1));
+    }
+
+    @Test
+    void testCalculateContinuesAfterTheLastCandle() {
+        Calculation calculation = calculation("SMA(3)", false);
+        indicatorService.calculate(calculation.getId());
+        saveCandle(CANDLES);
+        saveCandle(CANDLES + 1);
+
+        long written = indicatorService.calculate(calculation.getId());
+
+        assertThat(written).isEqualTo(2);
+        List<Tuple> tuples = tuples(calculation);
+        assertThat(tuples).hasSize(CANDLES);
+        assertThat(tuples.get(CANDLES - 1).getComputation()).isEqualByComparingTo(String.valueOf(CANDLES));
+    }
+
+    @Test
+    void testCalculateWarmsUpFromTheLastCandle() {
+        Calculation calculation = calculationRepository.saveAndFlush(
+            new Calculation().name("SMA(3)").disabled(false).last(START.plusMinutes(CANDLES - 2)).chart(chart)
+        );
+
+        long written = indicatorService.calculate(calculation.getId());
+
+        assertThat(written).isEqualTo(1);
+        assertThat(tuples(calculation).get(0).getComputation()).isEqualByComparingTo(String.valueOf(CANDLES - 2));
+    }
+
+    @Test
+    void testCalculateWarmsUpFromTheArchivedCandles() {
+        Calculation calculation = calculationRepository.saveAndFlush(
+            new Calculation().name("SMA(3)").disabled(false).last(START.plusMinutes(CANDLES - 2)).chart(chart)
+        );
+        candleArchiveService.compact(chart.getId(), START.plusMinutes(CANDLES - 2));
+
+        long written = indicatorService.calculate(calculation.getId());
+
+        assertThat(written).isEqualTo(1);
+        assertThat(tuples(calculation).get(0).getComputation()).isEqualByComparingTo(String.valueOf(CANDLES - 2));
+    }
+
+    @Test
+    void testDisabledAndUnknownCalculationsAreSkipped() {
+        assertThat(indicatorService.calculate(calculation("SMA(3)", true).getId())).isZero();
+        assertThat(indicatorService.calculate(calculation("MACD", false).getId())).isZero();
+        assertThat(indicatorService.calculate(Long.MAX_VALUE)).isZero();
+    }
+
+    @Test
+    void testRepairRecomputesTheWindowOfAGap() {
+        Calculation calculation = calculation("SMA(3)", false);
+        indicatorService.calculate(calculation.getId());
+        em.flush();
+        tupleRepository.deleteByCalculationIdBetween(calculation.getId(), START.plusMinutes(9), START.plusMinutes(12));
+
+        CalculationRepairResultDTO result = indicatorService.repair(calculation.getId()).orElseThrow();
+
+        // the window ends the warm-up of two candles after the gap
+        assertThat(result).isEqualTo(new CalculationRepairResultDTO(calculation.getId(), 1, 6));
+        List<Tuple> tuples = tuples(calculation);
+        assertThat(tuples).hasSize(CANDLES - 2);
+        assertThat(tuples.get(9).getTime()).isEqualTo(START.plusMinutes(11));
+        assertThat(tuples.get(9).getComputation()).isEqualByComparingTo("10.00");
+        assertThat(indicatorService.repair(calculation.getId())).contains(new CalculationRepairResultDTO(calculation.getId(), 0, 0));
+    }
+
+    @Test
+    void testRepairContinuesTheDetectionAfterEachBatchOfGaps() {
+        Calculation calculation = calculation("SMA(1)", false);
+        indicatorService.calculate(calculation.getId());
+        em.flush();
+        // 12 gaps, more than the batch size of 10, each window is the missing tuple and the one after it
+        for (int minute = 1; minute < CANDLES - 1; minute += 2) {
+            tupleRepository.deleteByCalculationIdBetween(calculation.getId(), START.plusMinutes(minute - 1), START.plusMinutes(minute));
+        }
+
+        CalculationRepairResultDTO result = indicatorService.repair(calculation.getId()).orElseThrow();
+
+        assertThat(result).isEqualTo(new CalculationRepairResultDTO(calculation.getId(), 12, 24));
+        assertThat(tuples(calculation)).hasSize(CANDLES);
+    }
+
+    @Test
+    void testCandleWithoutValueGetsATupleWithoutComputation() {
+        for (Ohlc ohlc : ohlcRepository.findAll()) {
+            if (chart.getId().equals(ohlc.getChart().getId()) && !ohlc.getTime().isEqual(START.plusMinutes(10))) {
+                ohlcRepository.saveAndFlush(ohlc.volume(BigDecimal.ONE));
+            }
+        }
+        Calculation calculation = calculation("VWAP(2)", false);
+
+        long written = indicatorService.calculate(calculation.getId());
+
+        assertThat(written).isEqualTo(CANDLES - 1);
+        List<Tuple> tuples = tuples(calculation);
+        assertThat(tuples.get(0).getTime()).isEqualTo(START.plusMinutes(1));
+        assertThat(tuples.get(9).getTime()).isEqualTo(START.plusMinutes(10));
+        assertThat(tuples.get(9).getComputation()).isNull();
+        assertThat(tuples.get(10).getComputation()).isEqualByComparingTo("10.00");
+        // the candle without volume is no gap
+        assertThat(indicatorService.repair(calculation.getId())).contains(new CalculationRepairResultDTO(calculation.getId(), 0, 0));
+    }
+
+    @Test
+    void testRepairUnknownCalculation() {
+        assertThat(indicatorService.repair(Long.MAX_VALUE)).isEmpty();
+    }
+}
@@ -0,0 +1,95 @@
+package de.bitc.se.service.indicator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link IndicatorType} and its indicators.
+ */
+class IndicatorTypeTest {
+
+    private static double close(Indicator indicator, double close) {
+        return indicator.next(close, close, close, 1);
+    }
+
+    @Test
+    void testFromName() {
+        assertThat(IndicatorType.fromName("SMA(3)")).containsInstanceOf(SimpleMovingAverage.class);
+        assertThat(IndicatorType.fromName(" ema ( 9 ) ")).containsInstanceOf(ExponentialMovingAverage.class);
+        assertThat(IndicatorType.fromName("rsi")).containsInstanceOf(RelativeStrengthIndex.class);
+        assertThat(IndicatorType.fromName("VWAP(5)")).containsInstanceOf(VolumeWeightedAveragePrice.class);
+        assertThat(IndicatorType.fromName("ATR")).containsInstanceOf(AverageTrueRange.class);
+        assertThat(IndicatorType.fromName("SMA(0)")).isEmpty();
+        assertThat(IndicatorType.fromName("MACD")).isEmpty();
+        assertThat(IndicatorType.fromName("SMA 20")).isEmpty();
+        assertThat(IndicatorType.fromName(null)).isEmpty();
+    }
+
+    @Test
+    void testSimpleMovingAverage() {
+        Indicator sma = IndicatorType.SMA.create(3);
+        assertThat(close(sma, 1)).isNaN();
+        assertThat(close(sma, 2)).isNaN();
+        assertThat(close(sma, 3)).isEqualTo(2.0);
+        assertThat(close(sma, 10)).isEqualTo(5.0);
+        assertThat(close(sma, Double.NaN)).isNaN();
+        assertThat(close(sma, 12)).isEqualTo(25.0 / 3);
+    }
+
+    @Test
+    void testExponentialMovingAverage() {
+        Indicator ema = IndicatorType.EMA.create(3);
+        close(ema, 1);
+        close(ema, 2);
+        assertThat(close(ema, 3)).isEqualTo(2.0);
+        assertThat(close(ema, 6)).isEqualTo(4.0);
+    }
+
+    @Test
+    void testRelativeStrengthIndex() {
+        Indicator rsi = IndicatorType.RSI.create(2);
+        assertThat(close(rsi, 10)).isNaN();
+        assertThat(close(rsi, 12)).isNaN();
+        // average gain 1, average loss 0.5
+        assertThat(close(rsi, 11)).isCloseTo(200.0 / 3, within(1e-9));
+        // average gain 0.5, average loss 1.25
+        assertThat(close(rsi, 9)).isCloseTo(200.0 / 7, within(1e-9));
+    }
+
+    @Test
+    void testVolumeWeightedAveragePrice() {
+        Indicator vwap = IndicatorType.VWAP.create(2);
+        assertThat(vwap.next(12, 6, 9, 1)).isNaN();
+        assertThat(vwap.next(Double.NaN, Double.NaN, 12, 2)).isEqualTo(11.0);
+        assertThat(vwap.next(15, 15, 15, 2)).isEqualTo(13.5);
+    }
+
+    @Test
+    void testAverageTrueRange() {
+        Indicator atr = IndicatorType.ATR.create(2);
+        assertThat(atr.next(11, 9, 10, 1)).isNaN();
+        // the true range extends to the previous close: 14 - 10
+        assertThat(atr.next(14, 12, 13, 1)).isEqualTo(3.0);
+        assertThat(atr.next(13, 12, 12, 1)).isEqualTo(2.0);
+    }
+
+    @Test
+    void testWarmUpRestoresTheState() {
+        Indicator full = IndicatorType.EMA.create(5);
+        Indicator restored = IndicatorType.EMA.create(5);
+        int candles = 200;
+        int resume = candles - restored.warmUp();
+        double fullValue = Double.NaN;
+        double restoredValue = Double.NaN;
+        for (int i = 0; i < candles + 1; i++) {
+            double close = 100 + 10 * Math.sin(i / 7.0);
+            fullValue = close(full, close);
+            if (i >= resume) {
+                restoredValue = close(restored, close);
+            }
+        }
+        assertThat(restoredValue).isCloseTo(fullValue, within(1e-3));
+    }
+}
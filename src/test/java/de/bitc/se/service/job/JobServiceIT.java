@@ -0,0 +1,311 @@
+package de.bitc.se.service.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Calculation;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Job;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.enumeration.JobStatus;
+import de.bitc.se.domain.enumeration.JobType;
+import de.bitc.se.repository.CalculationRepository;
+import de.bitc.se.repository.JobRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.CalculationService;
+import de.bitc.se.service.dto.CalculationGapsResultDTO;
+import de.bitc.se.service.dto.CalculationRepairDTO;
+import de.bitc.se.service.dto.CalculationRepairResultDTO;
+import de.bitc.se.service.helper.ChartTestData;
+import de.bitc.se.service.indicator.IndicatorService;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link JobService}.
+ */
+@IntegrationTest
+@Transactional
+class JobServiceIT {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    private static final Instant NOW = Instant.parse("2026-10-18T12:00:00Z");
+
+    private static final int CANDLES = 25;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private List<JobHandler> handlers;
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Autowired
+    private CalculationRepository calculationRepository;
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private TupleRepository tupleRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    // the tasks are run by the test, one after the other
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+    private Chart chart;
+
+    private Calculation calculation;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        chart = ChartTestData.createChart(em, objectMapper, 1);
+        for (int i = 0; i < CANDLES; i++) {
+            ohlcRepository.saveAndFlush(new Ohlc().time(START.plusMinutes(i)).close(BigDecimal.valueOf(i)).chart(chart));
+        }
+        calculation = calculationRepository.saveAndFlush(new Calculation().name("SMA(3)").disabled(false).chart(chart));
+        indicatorService.calculate(calculation.getId());
+        em.flush();
+        tupleRepository.deleteByCalculationIdBetween(calculation.getId(), START.plusMinutes(9), START.plusMinutes(12));
+    }
+
+    private JobService jobService(Executor executor, int maxConcurrentPerChart) {
+        return new JobService(
+            jobRepository,
+            calculationRepository,
+            handlers,
+            transactionTemplate,
+            executor,
+            objectMapper,
+            eventPublisher,
+            maxConcurrentPerChart,
+            Clock.fixed(NOW, ZoneOffset.UTC)
+        );
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    private Job job(Long id) {
+        return jobRepository.findById(id).orElseThrow();
+    }
+
+    @Test
+    void testRepairJobRepairsTheGapsInChunks() throws Exception {
+        JobService jobService = jobService(Runnable::run, 1);
+
+        Job job = jobService.submit(JobType.CALCULATION_REPAIR, calculation.getId()).orElseThrow();
+        assertThat(job.getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(job.getChartId()).isEqualTo(chart.getId());
+        assertThat(job.getCreatedDate()).isEqualTo(NOW);
+
+        // the listener is called directly, the event is published after the commit
+        jobService.dispatch();
+
+        job = job(job.getId());
+        assertThat(job.getStatus()).isEqualTo(JobStatus.SUCCEEDED);
+        assertThat(job.getStartedDate()).isEqualTo(NOW);
+        assertThat(job.getFinishedDate()).isEqualTo(NOW);
+        // the 20 tuples left are read in chunks of 10, then the gap is repaired
+        assertThat(job.getTotal()).isEqualTo(20);
+        assertThat(job.getProgress()).isEqualTo(20);
+        assertThat(job.getResult()).isEqualTo(objectMapper.writeValueAsString(new CalculationRepairResultDTO(calculation.getId(), 1, 6)));
+        assertThat(tupleRepository.countByCalculationId(calculation.getId())).isEqualTo(CANDLES - 2);
+    }
+
+    @Test
+    void testGapsJobFindsTheGapsOfTheCalculation() throws Exception {
+        JobService jobService = jobService(Runnable::run, 1);
+        List<CalculationRepairDTO> gaps = new ArrayList<>();
+        calculationService.calculationGaps(calculation.getId(), gaps::add);
+        assertThat(gaps).hasSize(1);
+
+        Job job = jobService.submit(JobType.CALCULATION_GAPS, calculation.getId()).orElseThrow();
+        jobService.dispatch();
+
+        job = job(job.getId());
+        assertThat(job.getStatus()).isEqualTo(JobStatus.SUCCEEDED);
+        assertThat(job.getResult()).isEqualTo(objectMapper.writeValueAsString(new CalculationGapsResultDTO(calculation.getId(), 1, gaps)));
+        assertThat(job.getProgress()).isEqualTo(20);
+    }
+
+    @Test
+    void testGapsDetectionWithoutLimitReceivesNoGap() {
+        CalculationGapsJobHandler handler = handlers
+            .stream()
+            .filter(CalculationGapsJobHandler.class::isInstance)
+            .map(CalculationGapsJobHandler.class::cast)
+            .findFirst()
+            .orElseThrow();
+
+        long read = handler.detect(calculation.getId(), null, 0, (done, total) -> {}, gap -> fail("no gap expected"));
+
+        assertThat(read).isZero();
+    }
+
+    @Test
+    void testJobsKeepAndRepairMoreGapsThanInMemory() throws Exception {
+        // with the gap of the set up, the calculation has 3 gaps, one more than application.job.max-gaps
+        tupleRepository.deleteByCalculationIdBetween(calculation.getId(), START.plusMinutes(14), START.plusMinutes(15));
+        tupleRepository.deleteByCalculationIdBetween(calculation.getId(), START.plusMinutes(18), START.plusMinutes(20));
+        List<CalculationRepairDTO> gaps = new ArrayList<>();
+        calculationService.calculationGaps(calculation.getId(), gaps::add);
+        assertThat(gaps).hasSize(3);
+        JobService jobService = jobService(Runnable::run, 1);
+
+        Job gapsJob = jobService.submit(JobType.CALCULATION_GAPS, calculation.getId()).orElseThrow();
+        jobService.dispatch();
+
+        assertThat(job(gapsJob.getId()).getResult())
+            .isEqualTo(objectMapper.writeValueAsString(new CalculationGapsResultDTO(calculation.getId(), 3, gaps.subList(0, 2))));
+
+        Job repairJob = jobService.submit(JobType.CALCULATION_REPAIR, calculation.getId()).orElseThrow();
+        jobService.dispatch();
+
+        assertThat(job(repairJob.getId()).getStatus()).isEqualTo(JobStatus.SUCCEEDED);
+        assertThat(tupleRepository.countByCalculationId(calculation.getId())).isEqualTo(CANDLES - 2);
+        gaps.clear();
+        calculationService.calculationGaps(calculation.getId(), gaps::add);
+        assertThat(gaps).isEmpty();
+    }
+
+    @Test
+    void testRejectedJobIsStartedByTheNextDispatch() {
+        AtomicBoolean rejected = new AtomicBoolean();
+        JobService jobService = jobService(
+            task -> {
+                if (rejected.compareAndSet(false, true)) {
+                    throw new TaskRejectedException("full");
+                }
+                task.run();
+            },
+            1
+        );
+        Job job = jobService.submit(JobType.CALCULATION_GAPS, calculation.getId()).orElseThrow();
+
+        jobService.dispatch();
+
+        assertThat(job(job.getId()).getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(job(job.getId()).getStartedDate()).isNull();
+
+        jobService.scheduledDispatch();
+
+        assertThat(job(job.getId()).getStatus()).isEqualTo(JobStatus.SUCCEEDED);
+    }
+
+    @Test
+    void testJobsOfAChartRunOneAfterTheOther() {
+        JobService jobService = jobService(tasks::add, 1);
+        Calculation other = calculationRepository.saveAndFlush(new Calculation().name("SMA(5)").disabled(false).chart(chart));
+
+        Job first = jobService.submit(JobType.CALCULATION_GAPS, calculation.getId()).orElseThrow();
+        Job second = jobService.submit(JobType.CALCULATION_GAPS, other.getId()).orElseThrow();
+        jobService.dispatch();
+
+        assertThat(job(first.getId()).getStatus()).isEqualTo(JobStatus.RUNNING);
+        assertThat(job(second.getId()).getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(tasks).hasSize(1);
+
+        tasks.poll().run();
+
+        assertThat(job(first.getId()).getStatus()).isEqualTo(JobStatus.SUCCEEDED);
+        assertThat(job(second.getId()).getStatus()).isEqualTo(JobStatus.RUNNING);
+        runTasks();
+        assertThat(job(second.getId()).getStatus()).isEqualTo(JobStatus.SUCCEEDED);
+    }
+
+    @Test
+    void testPendingJobIsReturnedForTheSameSubmission() {
+        JobService jobService = jobService(tasks::add, 1);
+
+        Job job = jobService.submit(JobType.CALCULATION_REPAIR, calculation.getId()).orElseThrow();
+
+        assertThat(jobService.submit(JobType.CALCULATION_REPAIR, calculation.getId())).contains(job);
+        assertThat(jobService.submit(JobType.CALCULATION_GAPS, calculation.getId())).isPresent().get().isNotEqualTo(job);
+        assertThat(jobService.submit(JobType.CALCULATION_REPAIR, Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void testCancelStopsQueuedAndRunningJobs() {
+        JobService jobService = jobService(tasks::add, 1);
+        Job running = jobService.submit(JobType.CALCULATION_REPAIR, calculation.getId()).orElseThrow();
+        Job queued = jobService.submit(JobType.CALCULATION_GAPS, calculation.getId()).orElseThrow();
+        jobService.dispatch();
+
+        assertThat(jobService.cancel(queued.getId()).orElseThrow().getStatus()).isEqualTo(JobStatus.CANCELLED);
+        Job cancelled = jobService.cancel(running.getId()).orElseThrow();
+        assertThat(cancelled.getStatus()).isEqualTo(JobStatus.RUNNING);
+        assertThat(cancelled.getCancelRequested()).isTrue();
+        runTasks();
+
+        assertThat(job(running.getId()).getStatus()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(job(running.getId()).getResult()).isNull();
+        assertThat(job(queued.getId()).getStatus()).isEqualTo(JobStatus.CANCELLED);
+        assertThat(jobService.cancel(Long.MAX_VALUE)).isEmpty();
+        // the tuples are not repaired
+        assertThat(tupleRepository.countByCalculationId(calculation.getId())).isEqualTo(CANDLES - 5);
+    }
+
+    @Test
+    void testInterruptedJobsAreQueuedAgainAtStart() {
+        JobService jobService = jobService(tasks::add, 1);
+        Job job = jobRepository.saveAndFlush(
+            new Job()
+                .type(JobType.CALCULATION_REPAIR)
+                .status(JobStatus.RUNNING)
+                .chartId(chart.getId())
+                .calculationId(calculation.getId())
+                .progress(10L)
+                .total(20L)
+                .startedDate(NOW)
+        );
+
+        jobService.onApplicationReady();
+
+        assertThat(job(job.getId()).getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(job(job.getId()).getProgress()).isZero();
+        runTasks();
+        assertThat(job(job.getId()).getStatus()).isEqualTo(JobStatus.SUCCEEDED);
+    }
+}
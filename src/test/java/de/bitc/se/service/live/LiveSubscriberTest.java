@@ -0,0 +1,154 @@
+package de.bitc.se.service.live;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link LiveSubscriber}.
+ */
+class LiveSubscriberTest {
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private final List<String> sent = new ArrayList<>();
+
+    private final AtomicInteger closed = new AtomicInteger();
+
+    private LiveSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        subscriber = new LiveSubscriber("ohlc", (name, data) -> sent.add(name + ":" + data), tasks::add, 3, s -> closed.incrementAndGet());
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    @Test
+    void testSendsTheLatestStateOfATime() {
+        subscriber.offer(1, "a1");
+        subscriber.offer(2, "b1");
+        subscriber.offer(1, "a2");
+        subscriber.offer(1, "a3");
+
+        assertThat(tasks).hasSize(1);
+        runTasks();
+
+        assertThat(sent).containsExactly("ohlc:a3", "ohlc:b1");
+        assertThat(subscriber.getPending()).isZero();
+    }
+
+    @Test
+    void testSendsAnInvalidationBeforeTheNextUpdates() {
+        subscriber.invalidate("{\"from\":1}");
+        subscriber.offer(1, "a1");
+        runTasks();
+
+        assertThat(sent).containsExactly("invalidated:{\"from\":1}", "ohlc:a1");
+    }
+
+    @Test
+    void testInvalidatesAllTimesWhenUpdatesAreDropped() {
+        subscriber.offer(1, "a1");
+        subscriber.invalidate("{\"from\":1}");
+        runTasks();
+
+        assertThat(sent).containsExactly("invalidated:" + LiveSubscriber.INVALIDATED_ALL);
+    }
+
+    @Test
+    void testInvalidatesAllTimesWhenTooManyArePending() {
+        subscriber.offer(1, "a1");
+        subscriber.offer(2, "b1");
+        subscriber.offer(3, "c1");
+        subscriber.offer(4, "d1");
+        subscriber.offer(5, "e1");
+        runTasks();
+
+        assertThat(sent).containsExactly("invalidated:" + LiveSubscriber.INVALIDATED_ALL, "ohlc:e1");
+    }
+
+    @Test
+    void testClosesWhenTheClientIsGone() {
+        LiveSubscriber failing = new LiveSubscriber(
+            "ohlc",
+            (name, data) -> {
+                throw new IOException("Broken pipe");
+            },
+            tasks::add,
+            3,
+            s -> closed.incrementAndGet()
+        );
+
+        failing.offer(1, "a1");
+        runTasks();
+        failing.offer(2, "b1");
+        failing.close();
+
+        assertThat(failing.isClosed()).isTrue();
+        assertThat(tasks).isEmpty();
+        assertThat(closed).hasValue(1);
+    }
+
+    @Test
+    void testClosesWhenASendIsBlocked() throws InterruptedException {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch aborted = new CountDownLatch(1);
+        LiveSubscriber blocked = new LiveSubscriber(
+            "ohlc",
+            new LiveSubscriber.Sink() {
+                @Override
+                public void send(String name, String data) throws IOException {
+                    sending.countDown();
+                    try {
+                        aborted.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IOException("Connection closed");
+                }
+
+                @Override
+                public void abort() {
+                    aborted.countDown();
+                }
+            },
+            task -> new Thread(task).start(),
+            3,
+            s -> closed.incrementAndGet()
+        );
+
+        blocked.offer(1, "a1");
+        assertThat(sending.await(10, TimeUnit.SECONDS)).isTrue();
+        long now = System.nanoTime();
+        long timeout = TimeUnit.SECONDS.toNanos(10);
+
+        assertThat(blocked.expireSend(now, timeout)).isFalse();
+        assertThat(blocked.expireSend(now + timeout, timeout)).isTrue();
+        assertThat(aborted.getCount()).isZero();
+        assertThat(blocked.isClosed()).isTrue();
+        assertThat(closed).hasValue(1);
+    }
+
+    @Test
+    void testDoesNotCloseWithoutASend() {
+        subscriber.offer(1, "a1");
+        runTasks();
+
+        assertThat(subscriber.expireSend(System.nanoTime() + TimeUnit.HOURS.toNanos(1), 1)).isFalse();
+        assertThat(subscriber.isClosed()).isFalse();
+    }
+}
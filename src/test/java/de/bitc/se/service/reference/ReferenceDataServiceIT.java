@@ -0,0 +1,122 @@
+package de.bitc.se.service.reference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Fee;
+import de.bitc.se.domain.Pair;
+import de.bitc.se.domain.TimeRange;
+import de.bitc.se.repository.AssetRepository;
+import de.bitc.se.repository.FeeRepository;
+import de.bitc.se.repository.PairRepository;
+import de.bitc.se.repository.TimeRangeRepository;
+import de.bitc.se.service.event.ReferenceDataChangedEvent;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link ReferenceDataService}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@RecordApplicationEvents
+@Transactional
+class ReferenceDataServiceIT {
+
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private PairRepository pairRepository;
+
+    @Autowired
+    private FeeRepository feeRepository;
+
+    @Autowired
+    private TimeRangeRepository timeRangeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Test
+    void testChangeThroughResourceReplacesSnapshot() throws Exception {
+        ReferenceData before = referenceDataService.getSnapshot();
+
+        restMockMvc
+            .perform(
+                post("/api/time-ranges").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"REF-7M\",\"rangeSize\":7}")
+            )
+            .andExpect(status().isCreated());
+
+        List<ReferenceDataChangedEvent> events = applicationEvents
+            .stream(ReferenceDataChangedEvent.class)
+            .collect(Collectors.toList());
+        assertThat(events).extracting(ReferenceDataChangedEvent::getEntityName).containsExactly("timeRange");
+        assertThat(referenceDataService.getSnapshot()).isSameAs(before);
+
+        // the listener is called directly, the event is published after the commit
+        referenceDataService.onReferenceDataChanged(events.get(0));
+
+        ReferenceData after = referenceDataService.getSnapshot();
+        assertThat(after.getVersion()).isGreaterThan(before.getVersion());
+        assertThat(after.findTimeRangeByName("REF-7M")).get().extracting(ReferenceTimeRange::getRangeSize).isEqualTo(7);
+        assertThat(before.findTimeRangeByName("REF-7M")).isEmpty();
+    }
+
+    @Test
+    void testLoadsPairsWithAssetsAndFees() throws Exception {
+        Pair pair = objectMapper.readValue(getClass().getResourceAsStream("/json/pair.json"), Pair.class);
+        assetRepository.saveAndFlush(pair.getBase());
+        assetRepository.saveAndFlush(pair.getQuote());
+        List<Fee> fees = List.copyOf(pair.getFees());
+        pair = pairRepository.saveAndFlush(pair);
+        for (Fee fee : fees) {
+            feeRepository.saveAndFlush(fee.pair(pair));
+        }
+
+        ReferencePair referencePair = referenceDataService.reload().findPairByWebSocketPairName("XBT/EUR").orElseThrow();
+
+        assertThat(referencePair.getId()).isEqualTo(pair.getId());
+        assertThat(referencePair.getBase().getAlternativeName()).isEqualTo("XBT");
+        assertThat(referencePair.getQuote().getAlternativeName()).isEqualTo("EUR");
+        assertThat(referencePair.getFees()).hasSize(9);
+        assertThat(referencePair.fee(120000)).get().extracting(FeeTier::getVolume).isEqualTo(100000);
+        assertThat(referencePair.fee(49999)).get().extracting(FeeTier::getVolume).isEqualTo(0);
+    }
+
+    @Test
+    void testFindsATimeRangeMissingFromTheSnapshot() {
+        long version = referenceDataService.getSnapshot().getVersion();
+        TimeRange timeRange = timeRangeRepository.saveAndFlush(new TimeRange().name("7m").rangeSize(7));
+
+        ReferenceTimeRange found = referenceDataService.findTimeRange(timeRange.getId()).orElseThrow();
+
+        assertThat(found.getRangeSize()).isEqualTo(7);
+        assertThat(referenceDataService.getSnapshot().getVersion()).isEqualTo(version + 1);
+        // a known time range is found without a reload
+        referenceDataService.findTimeRange(timeRange.getId());
+        assertThat(referenceDataService.getSnapshot().getVersion()).isEqualTo(version + 1);
+    }
+}
@@ -0,0 +1,105 @@
+package de.bitc.se.service.reference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.bitc.se.domain.Asset;
+import de.bitc.se.domain.Fee;
+import de.bitc.se.domain.Pair;
+import de.bitc.se.domain.TimeRange;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ReferenceData} snapshot.
+ */
+class ReferenceDataTest {
+
+    private Asset xbt;
+
+    private Asset eur;
+
+    private Pair pair;
+
+    private TimeRange minute;
+
+    private ReferenceData referenceData;
+
+    @BeforeEach
+    void setUp() {
+        xbt = new Asset().id(2L).name("XXBT").alternativeName("XBT");
+        eur = new Asset().id(1L).name("ZEUR").alternativeName("EUR");
+        pair = new Pair().id(10L).name("XXBTZEUR").altname("XBTEUR").webSocketPairName("XBT/EUR").base(xbt).quote(eur);
+        Pair other = new Pair().id(11L).name("XETHZEUR").altname("ETHEUR").base(xbt).quote(eur);
+        minute = new TimeRange().id(20L).name("1M").rangeSize(1).duration(Duration.ofMinutes(1));
+        TimeRange hour = new TimeRange().id(21L).name("1H").rangeSize(60).duration(Duration.ofHours(1));
+        List<Fee> fees = List.of(
+            new Fee().id(32L).volume(100000).percent(new BigDecimal("0.22")).pair(pair),
+            new Fee().id(30L).volume(0).percent(new BigDecimal("0.26")).pair(pair),
+            new Fee().id(31L).volume(50000).percent(new BigDecimal("0.24")).pair(pair),
+            new Fee().id(33L).volume(0).percent(new BigDecimal("0.20")).pair(other)
+        );
+        referenceData = ReferenceData.of(3, List.of(xbt, eur), List.of(other, pair), List.of(hour, minute), fees);
+    }
+
+    @Test
+    void testFindsByIdAndNaturalKeys() {
+        assertThat(referenceData.getVersion()).isEqualTo(3);
+        assertThat(referenceData.findPair(10L)).get().extracting(ReferencePair::getName).isEqualTo("XXBTZEUR");
+        assertThat(referenceData.findPairByName("XXBTZEUR")).get().extracting(ReferencePair::getId).isEqualTo(10L);
+        assertThat(referenceData.findPairByAltname("ETHEUR")).get().extracting(ReferencePair::getId).isEqualTo(11L);
+        assertThat(referenceData.findPairByWebSocketPairName("XBT/EUR")).get().extracting(ReferencePair::getId).isEqualTo(10L);
+        assertThat(referenceData.findPairByWebSocketPairName("ETH/EUR")).isEmpty();
+        assertThat(referenceData.findAssetByName("ZEUR")).get().extracting(ReferenceAsset::getId).isEqualTo(1L);
+        assertThat(referenceData.findAssetByAlternativeName("XBT")).get().extracting(ReferenceAsset::getId).isEqualTo(2L);
+        assertThat(referenceData.findTimeRangeByName("1H")).get().extracting(ReferenceTimeRange::getId).isEqualTo(21L);
+        assertThat(referenceData.findTimeRangeByRangeSize(1)).get().extracting(ReferenceTimeRange::getId).isEqualTo(20L);
+        assertThat(referenceData.findTimeRangeByDuration(Duration.ofHours(1))).get().extracting(ReferenceTimeRange::getId).isEqualTo(21L);
+        assertThat(referenceData.findTimeRange(22L)).isEmpty();
+    }
+
+    @Test
+    void testPairsShareTheirAssets() {
+        ReferencePair referencePair = referenceData.findPair(10L).orElseThrow();
+
+        assertThat(referencePair.getBase()).isSameAs(referenceData.findAsset(2L).orElseThrow());
+        assertThat(referencePair.getQuote()).isSameAs(referenceData.findAsset(1L).orElseThrow());
+        assertThat(referenceData.getPairs()).extracting(ReferencePair::getId).containsExactly(10L, 11L);
+    }
+
+    @Test
+    void testFeesAreOrderedByVolume() {
+        ReferencePair referencePair = referenceData.findPair(10L).orElseThrow();
+
+        assertThat(referencePair.getFees()).extracting(FeeTier::getVolume).containsExactly(0, 50000, 100000);
+        assertThat(referencePair.fee(0)).get().extracting(FeeTier::getPercent).isEqualTo(new BigDecimal("0.26"));
+        assertThat(referencePair.fee(49999)).get().extracting(FeeTier::getPercent).isEqualTo(new BigDecimal("0.26"));
+        assertThat(referencePair.fee(50000)).get().extracting(FeeTier::getPercent).isEqualTo(new BigDecimal("0.24"));
+        assertThat(referencePair.fee(Long.MAX_VALUE)).get().extracting(FeeTier::getPercent).isEqualTo(new BigDecimal("0.22"));
+        assertThat(referencePair.fee(-1)).isEmpty();
+        assertThat(referenceData.findPair(11L).orElseThrow().getFees()).hasSize(1);
+    }
+
+    @Test
+    void testSnapshotIsACopy() {
+        pair.setAltname("changed");
+        xbt.setName("changed");
+
+        assertThat(referenceData.findPairByAltname("XBTEUR")).isPresent();
+        assertThat(referenceData.findAssetByName("XXBT")).isPresent();
+        assertThatThrownBy(() -> referenceData.getPairs().clear()).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void testFirstByIdWinsADuplicateKey() {
+        TimeRange duplicate = new TimeRange().id(19L).name("1M").rangeSize(1);
+
+        ReferenceData withDuplicate = ReferenceData.of(1, List.of(), List.of(), List.of(minute, duplicate), List.of());
+
+        assertThat(withDuplicate.findTimeRangeByName("1M")).get().extracting(ReferenceTimeRange::getId).isEqualTo(19L);
+        assertThat(withDuplicate.getTimeRanges()).hasSize(2);
+    }
+}
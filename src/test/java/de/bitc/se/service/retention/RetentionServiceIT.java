@@ -0,0 +1,170 @@
+package de.bitc.se.service.retention;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.config.ApplicationProperties;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Tuple;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.PartitionJdbcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.helper.ChartTestData;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link RetentionService}.
+ */
+@IntegrationTest
+@Transactional
+class RetentionServiceIT {
+
+    private static final int CANDLES = 25;
+
+    @Autowired
+    private RetentionService retentionService;
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private TupleRepository tupleRepository;
+
+    @Autowired
+    private ChartRepository chartRepository;
+
+    @Autowired
+    private PartitionJdbcRepository partitionJdbcRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private Chart chart;
+
+    private ZonedDateTime start;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        chart = ChartTestData.createChart(em, objectMapper);
+        start = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MINUTES).minusMinutes(CANDLES);
+        for (int i = 0; i < CANDLES; i++) {
+            Ohlc ohlc = ohlcRepository.saveAndFlush(new Ohlc().time(start.plusMinutes(i)).close(BigDecimal.valueOf(i)).chart(chart));
+            tupleRepository.saveAndFlush(new Tuple().time(ohlc.getTime()).computation(BigDecimal.ONE).ohlc(ohlc));
+        }
+    }
+
+    private long candles() {
+        em.flush();
+        em.clear();
+        return ohlcRepository.countByChartId(chart.getId());
+    }
+
+    private long tuples() {
+        return tupleRepository
+            .findAll()
+            .stream()
+            .filter(tuple -> tuple.getOhlc() != null && chart.getId().equals(tuple.getOhlc().getChart().getId()))
+            .count();
+    }
+
+    @Test
+    void testTrimDeletesTheCandlesAndTuplesInChunks() {
+        // more candles than the batch size of the tests
+        long deleted = retentionService.trim(chart.getId(), start.plusMinutes(15));
+
+        assertThat(deleted).isEqualTo(15);
+        assertThat(candles()).isEqualTo(CANDLES - 15);
+        assertThat(tuples()).isEqualTo(CANDLES - 15);
+        assertThat(ohlcRepository.findIdsByChartIdBefore(chart.getId(), start.plusMinutes(15), PageRequest.of(0, 1))).isEmpty();
+    }
+
+    @Test
+    void testTrimToMaxCountKeepsTheLatestCandles() {
+        chart.setMaxCount(5);
+
+        assertThat(retentionService.trimToMaxCount(chart)).isEqualTo(CANDLES - 5);
+        assertThat(candles()).isEqualTo(5);
+        assertThat(tuples()).isEqualTo(5);
+        assertThat(retentionService.trimToMaxCount(chart)).isZero();
+    }
+
+    @Test
+    void testEnforceAppliesTheMaxCountOfTheCharts() {
+        chart.setMaxCount(10);
+        chartRepository.saveAndFlush(chart);
+
+        retentionService.enforce();
+
+        assertThat(candles()).isEqualTo(10);
+        assertThat(tuples()).isEqualTo(10);
+    }
+
+    @Test
+    void testEnforceDeletesTheCandlesPastTheHorizon() {
+        Ohlc old = ohlcRepository.saveAndFlush(new Ohlc().time(start.minusYears(2)).close(BigDecimal.ONE).chart(chart));
+
+        retentionService.enforce();
+
+        assertThat(candles()).isEqualTo(CANDLES);
+        assertThat(ohlcRepository.findById(old.getId())).isEmpty();
+    }
+
+    @Test
+    void testEnforceTrimsTheOtherChartsWhenAChartFails() throws IOException {
+        Chart failing = ChartTestData.createChart(em, objectMapper, chart.getPair(), null).maxCount(1);
+        ohlcRepository.saveAndFlush(new Ohlc().time(start).close(BigDecimal.ONE).chart(failing));
+        ohlcRepository.saveAndFlush(new Ohlc().time(start.plusMinutes(1)).close(BigDecimal.ONE).chart(failing));
+        chartRepository.saveAndFlush(chart.maxCount(10));
+        OhlcRepository failingRepository = mock(OhlcRepository.class, AdditionalAnswers.delegatesTo(ohlcRepository));
+        doThrow(new DataAccessResourceFailureException("failure"))
+            .when(failingRepository)
+            .findTimesByChartIdLatestFirst(eq(failing.getId()), any());
+        RetentionService failingService = new RetentionService(
+            applicationProperties,
+            chartRepository,
+            failingRepository,
+            tupleRepository,
+            partitionJdbcRepository,
+            transactionTemplate,
+            applicationEventPublisher
+        );
+
+        assertThat(failingService.enforce()).isEqualTo(CANDLES - 10);
+
+        assertThat(candles()).isEqualTo(10);
+        assertThat(ohlcRepository.countByChartId(failing.getId())).isEqualTo(2);
+    }
+}
@@ -0,0 +1,76 @@
+package de.bitc.se.service.rollup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.bitc.se.domain.Ohlc;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link CandleBucket}.
+ */
+class CandleBucketTest {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    private static Ohlc candle(int minute, String open, String high, String low, String close, String vwap, String volume, Integer count) {
+        return new Ohlc()
+            .time(START.plusMinutes(minute))
+            .open(open != null ? new BigDecimal(open) : null)
+            .high(high != null ? new BigDecimal(high) : null)
+            .low(low != null ? new BigDecimal(low) : null)
+            .close(close != null ? new BigDecimal(close) : null)
+            .volumeWeightedAveragePrice(vwap != null ? new BigDecimal(vwap) : null)
+            .volume(volume != null ? new BigDecimal(volume) : null)
+            .count(count);
+    }
+
+    @Test
+    void testAggregatesTheCandles() {
+        CandleBucket bucket = new CandleBucket(START.toInstant().toEpochMilli());
+        bucket.add(candle(0, "10.00", "12.00", "9.00", "11.00", "10.00", "1.00", 2));
+        bucket.add(candle(1, "11.00", "15.00", "10.00", "14.00", "13.00", "3.00", 5));
+        bucket.add(candle(2, "14.00", "14.50", "8.00", "9.00", "12.00", "2.00", 1));
+
+        Ohlc ohlc = bucket.toOhlc();
+
+        assertThat(ohlc.getTime()).isEqualTo(START);
+        assertThat(ohlc.getOpen()).isEqualByComparingTo("10.00");
+        assertThat(ohlc.getHigh()).isEqualByComparingTo("15.00");
+        assertThat(ohlc.getLow()).isEqualByComparingTo("8.00");
+        assertThat(ohlc.getClose()).isEqualByComparingTo("9.00");
+        // (10 * 1 + 13 * 3 + 12 * 2) / 6
+        assertThat(ohlc.getVolumeWeightedAveragePrice()).isEqualByComparingTo("12.17");
+        assertThat(ohlc.getVolume()).isEqualByComparingTo("6.00");
+        assertThat(ohlc.getCount()).isEqualTo(8);
+        assertThat(bucket.getLastTime()).isEqualTo(START.plusMinutes(2).toInstant().toEpochMilli());
+    }
+
+    @Test
+    void testSkipsMissingValues() {
+        CandleBucket bucket = new CandleBucket(START.toInstant().toEpochMilli());
+        bucket.add(candle(0, null, null, null, "11.00", null, null, null));
+        bucket.add(candle(1, "11.00", "12.00", "10.00", null, null, "2.00", 3));
+
+        Ohlc ohlc = bucket.toOhlc();
+
+        assertThat(ohlc.getOpen()).isEqualByComparingTo("11.00");
+        assertThat(ohlc.getHigh()).isEqualByComparingTo("12.00");
+        assertThat(ohlc.getLow()).isEqualByComparingTo("10.00");
+        assertThat(ohlc.getClose()).isEqualByComparingTo("11.00");
+        assertThat(ohlc.getVolumeWeightedAveragePrice()).isNull();
+        assertThat(ohlc.getVolume()).isEqualByComparingTo("2.00");
+        assertThat(ohlc.getCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testIsDirtyUntilConverted() {
+        CandleBucket bucket = new CandleBucket(START.toInstant().toEpochMilli());
+        assertThat(bucket.isDirty()).isTrue();
+        bucket.toOhlc();
+        assertThat(bucket.isDirty()).isFalse();
+        bucket.add(candle(0, "1.00", "1.00", "1.00", "1.00", null, null, null));
+        assertThat(bucket.isDirty()).isTrue();
+    }
+}
@@ -0,0 +1,159 @@
+package de.bitc.se.service.rollup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Pair;
+import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.service.OhlcService;
+import de.bitc.se.service.helper.ChartTestData;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link CandleRollupService}.
+ */
+@IntegrationTest
+@Transactional
+class CandleRollupServiceIT {
+
+    private static final ZonedDateTime START = ZonedDateTime.parse("2022-10-13T00:00:00Z");
+
+    @Autowired
+    private CandleRollupService candleRollupService;
+
+    @Autowired
+    private OhlcService ohlcService;
+
+    @Autowired
+    private OhlcRepository ohlcRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    private Chart base;
+
+    private Chart derived;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        candleRollupService.clear();
+        Pair pair = ChartTestData.createPair(em, objectMapper);
+        base = ChartTestData.createChart(em, objectMapper, pair, 1);
+        derived = ChartTestData.createChart(em, objectMapper, pair, 5);
+    }
+
+    private static Ohlc candle(int minute, int price) {
+        BigDecimal value = BigDecimal.valueOf(price);
+        return new Ohlc()
+            .time(START.plusMinutes(minute))
+            .open(value)
+            .high(value.add(BigDecimal.ONE))
+            .low(value.subtract(BigDecimal.ONE))
+            .close(value)
+            .volumeWeightedAveragePrice(value)
+            .volume(BigDecimal.ONE)
+            .count(1);
+    }
+
+    private List<Ohlc> write(int fromMinute, int toMinute) {
+        List<Ohlc> candles = new ArrayList<>();
+        for (int minute = fromMinute; minute < toMinute; minute++) {
+            candles.add(candle(minute, 100 + minute));
+        }
+        return ohlcService.saveAll(base.getId(), candles);
+    }
+
+    private List<Ohlc> derivedCandles() {
+        em.flush();
+        em.clear();
+        return ohlcRepository
+            .findAll()
+            .stream()
+            .filter(ohlc -> ohlc.getChart() != null && derived.getId().equals(ohlc.getChart().getId()))
+            .sorted(Comparator.comparing(Ohlc::getTime))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    void testRollupWritesTheClosedRanges() {
+        int written = candleRollupService.rollup(base.getId(), write(0, 12));
+
+        // the ranges starting at minute 0 and 5 are complete, the range starting at minute 10 stays open
+        assertThat(written).isEqualTo(2);
+        List<Ohlc> candles = derivedCandles();
+        assertThat(candles).hasSize(2);
+        Ohlc first = candles.get(0);
+        assertThat(first.getTime()).isEqualTo(START);
+        assertThat(first.getOpen()).isEqualByComparingTo("100");
+        assertThat(first.getHigh()).isEqualByComparingTo("105");
+        assertThat(first.getLow()).isEqualByComparingTo("99");
+        assertThat(first.getClose()).isEqualByComparingTo("104");
+        assertThat(first.getVolumeWeightedAveragePrice()).isEqualByComparingTo("102");
+        assertThat(first.getVolume()).isEqualByComparingTo("5");
+        assertThat(first.getCount()).isEqualTo(5);
+        assertThat(candles.get(1).getTime()).isEqualTo(START.plusMinutes(5));
+    }
+
+    @Test
+    void testRollupUpdatesTheOpenRangeIncrementally() {
+        candleRollupService.rollup(base.getId(), write(0, 12));
+        candleRollupService.rollup(base.getId(), write(12, 14));
+
+        int written = candleRollupService.rollup(base.getId(), write(14, 16));
+
+        assertThat(written).isEqualTo(1);
+        Ohlc last = derivedCandles().get(2);
+        assertThat(last.getTime()).isEqualTo(START.plusMinutes(10));
+        assertThat(last.getOpen()).isEqualByComparingTo("110");
+        assertThat(last.getClose()).isEqualByComparingTo("114");
+        assertThat(last.getVolume()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void testRollupRereadsARangeWrittenAgain() {
+        candleRollupService.rollup(base.getId(), write(0, 10));
+
+        int written = candleRollupService.rollup(base.getId(), ohlcService.saveAll(base.getId(), List.of(candle(2, 200))));
+
+        assertThat(written).isEqualTo(1);
+        Ohlc first = derivedCandles().get(0);
+        assertThat(first.getHigh()).isEqualByComparingTo("201");
+        assertThat(first.getVolume()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void testRebuildDerivesTheRangeFromTheDatabase() {
+        write(0, 11);
+
+        int written = candleRollupService.rebuild(base.getId(), START, START.plusMinutes(10));
+
+        assertThat(written).isEqualTo(2);
+        assertThat(derivedCandles()).extracting(ohlc -> ohlc.getTime().toInstant()).containsExactly(START.toInstant(), START.plusMinutes(5).toInstant());
+        // the range starting at minute 10 is open
+        assertThat(candleRollupService.rollup(base.getId(), write(11, 15))).isEqualTo(1);
+        assertThat(derivedCandles().get(2).getVolume()).isEqualByComparingTo("5");
+    }
+
+    @Test
+    void testDerivedChartsAreNotRolledUp() {
+        assertThat(candleRollupService.rollup(derived.getId(), List.of(candle(0, 1)))).isZero();
+        assertThat(candleRollupService.rollup(Long.MAX_VALUE, List.of(candle(0, 1)))).isZero();
+    }
+}
@@ -0,0 +1,114 @@
+package de.bitc.se.service.series;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.bitc.se.domain.Chart;
+import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.TimeRange;
+import de.bitc.se.repository.ChartRepository;
+import de.bitc.se.service.dto.TimeSeriesQueryDTO;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CandleWindowCacheTest {
+
+    private static final long CHART_ID = 1L;
+
+    private static final ZonedDateTime NOW = ZonedDateTime.of(2024, 1, 1, 12, 30, 30, 0, ZoneOffset.UTC);
+
+    // the open candle of the hourly chart
+    private static final ZonedDateTime OPEN = NOW.withMinute(0).withSecond(0);
+
+    private ChartRepository chartRepository;
+
+    private CandleWindowCache candleWindowCache;
+
+    @BeforeEach
+    void setUp() {
+        chartRepository = mock(ChartRepository.class);
+        Chart chart = new Chart().timeRange(new TimeRange().rangeSize(60));
+        chart.setId(CHART_ID);
+        when(chartRepository.findById(CHART_ID)).thenReturn(Optional.of(chart));
+        candleWindowCache = new CandleWindowCache(chartRepository, 100, 40, Clock.fixed(NOW.toInstant(), ZoneOffset.UTC));
+    }
+
+    @Test
+    void testWindowEndingAtOpenCandleIsClosed() {
+        assertThat(candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN), "json")).isPresent();
+        assertThat(candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN.plusHours(1)), "json")).isEmpty();
+        assertThat(candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), null), "json")).isEmpty();
+        assertThat(candleWindowCache.getClosedWindow(new TimeSeriesQueryDTO(2L, null, OPEN, null, null, null), "json")).isEmpty();
+        // the time range is read once
+        verify(chartRepository, times(1)).findById(CHART_ID);
+    }
+
+    @Test
+    void testETagDependsOnFormatAndMatchesIfNoneMatch() {
+        CandleWindow json = candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN), "json").orElseThrow();
+        CandleWindow columnar = candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN), "columnar").orElseThrow();
+
+        assertThat(json.getETag()).isNotEqualTo(columnar.getETag()).startsWith("\"1-").endsWith("\"");
+        assertThat(json.matches(null)).isFalse();
+        assertThat(json.matches(columnar.getETag())).isFalse();
+        assertThat(json.matches(columnar.getETag() + ", W/" + json.getETag())).isTrue();
+        assertThat(json.matches("*")).isTrue();
+    }
+
+    @Test
+    void testWriteOfClosedCandleChangesVersion() {
+        CandleWindow window = candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN), "json").orElseThrow();
+        candleWindowCache.put(window, new byte[10]);
+
+        // the open candle does not change the closed windows
+        candleWindowCache.onCandlesWritten(new CandlesWrittenEvent(CHART_ID, List.of(new Ohlc().time(OPEN))));
+        assertThat(candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN), "json").orElseThrow().getETag())
+            .isEqualTo(window.getETag());
+        assertThat(candleWindowCache.get(window)).isPresent();
+
+        candleWindowCache.onCandlesWritten(new CandlesWrittenEvent(CHART_ID, List.of(new Ohlc().time(OPEN.minusHours(1)))));
+        CandleWindow repaired = candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN), "json").orElseThrow();
+        assertThat(repaired.getETag()).isNotEqualTo(window.getETag());
+        assertThat(candleWindowCache.get(repaired)).isEmpty();
+        assertThat(candleWindowCache.getSize()).isZero();
+
+        candleWindowCache.onCandlesInvalidated(new CandlesInvalidatedEvent(CHART_ID));
+        assertThat(candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN), "json").orElseThrow().getETag())
+            .isNotEqualTo(repaired.getETag());
+    }
+
+    @Test
+    void testLeastRecentlyUsedResponsesAreDropped() {
+        CandleWindow first = candleWindowCache.getClosedWindow(query(OPEN.minusHours(3), OPEN), "json").orElseThrow();
+        CandleWindow second = candleWindowCache.getClosedWindow(query(OPEN.minusHours(2), OPEN), "json").orElseThrow();
+        CandleWindow third = candleWindowCache.getClosedWindow(query(OPEN.minusHours(1), OPEN), "json").orElseThrow();
+
+        candleWindowCache.put(first, new byte[40]);
+        candleWindowCache.put(second, new byte[40]);
+        assertThat(candleWindowCache.get(first)).isPresent();
+        candleWindowCache.put(third, new byte[40]);
+
+        assertThat(candleWindowCache.get(first)).isPresent();
+        assertThat(candleWindowCache.get(second)).isEmpty();
+        assertThat(candleWindowCache.get(third)).isPresent();
+        assertThat(candleWindowCache.getSize()).isEqualTo(80);
+
+        // too large to be kept
+        candleWindowCache.put(second, new byte[41]);
+        assertThat(candleWindowCache.get(second)).isEmpty();
+    }
+
+    private static TimeSeriesQueryDTO query(ZonedDateTime from, ZonedDateTime to) {
+        return new TimeSeriesQueryDTO(CHART_ID, from, to, null, null, null);
+    }
+}
@@ -409,4 +409,10 @@ class CalculationResourceIT {
         List<Calculation> calculationList = calculationRepository.findAll();
         assertThat(calculationList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void repairNonExistingCalculation() throws Exception {
+        restCalculationMockMvc.perform(post(ENTITY_API_URL_ID + "/repair", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
 }
@@ -0,0 +1,192 @@
+package de.bitc.se.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Calculation;
+import de.bitc.se.domain.Job;
+import de.bitc.se.domain.enumeration.JobStatus;
+import de.bitc.se.domain.enumeration.JobType;
+import de.bitc.se.repository.JobRepository;
+import java.time.Instant;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link JobResource} REST controller.
+ * <p>
+ * The jobs are started after the commit, the tests roll back, so the submitted jobs stay queued.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class JobResourceIT {
+
+    private static final Instant DEFAULT_CREATED_DATE = Instant.ofEpochMilli(0L);
+
+    private static final String ENTITY_API_URL = "/api/jobs";
+    private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restJobMockMvc;
+
+    private Calculation calculation;
+
+    @BeforeEach
+    public void initTest() {
+        calculation = CalculationResourceIT.createEntity(em);
+        em.persist(calculation);
+        em.flush();
+    }
+
+    private Job saveJob(JobStatus status, String result) {
+        return jobRepository.saveAndFlush(
+            new Job()
+                .type(JobType.CALCULATION_REPAIR)
+                .status(status)
+                .chartId(calculation.getChart().getId())
+                .calculationId(calculation.getId())
+                .progress(5L)
+                .total(10L)
+                .cancelRequested(false)
+                .result(result)
+                .createdDate(DEFAULT_CREATED_DATE)
+        );
+    }
+
+    @Test
+    @Transactional
+    void submitJob() throws Exception {
+        int databaseSizeBeforeSubmit = jobRepository.findAll().size();
+        Job job = new Job().type(JobType.CALCULATION_REPAIR).calculationId(calculation.getId());
+
+        restJobMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(job)))
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists("Location"))
+            .andExpect(jsonPath("$.type").value(JobType.CALCULATION_REPAIR.toString()))
+            .andExpect(jsonPath("$.status").value(JobStatus.QUEUED.toString()))
+            .andExpect(jsonPath("$.chartId").value(calculation.getChart().getId().intValue()))
+            .andExpect(jsonPath("$.progress").value(0));
+
+        List<Job> jobList = jobRepository.findAll();
+        assertThat(jobList).hasSize(databaseSizeBeforeSubmit + 1);
+        assertThat(jobList.get(jobList.size() - 1).getStatus()).isEqualTo(JobStatus.QUEUED);
+
+        // the queued job is returned for the same submission
+        restJobMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(job)))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.id").value(jobList.get(jobList.size() - 1).getId().intValue()));
+        assertThat(jobRepository.findAll()).hasSize(databaseSizeBeforeSubmit + 1);
+    }
+
+    @Test
+    @Transactional
+    void submitJobWithExistingId() throws Exception {
+        Job job = new Job().id(1L).type(JobType.CALCULATION_REPAIR).calculationId(calculation.getId());
+
+        restJobMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(job)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void submitJobOfNonExistingCalculation() throws Exception {
+        int databaseSizeBeforeSubmit = jobRepository.findAll().size();
+        Job job = new Job().type(JobType.CALCULATION_GAPS).calculationId(Long.MAX_VALUE);
+
+        restJobMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(job)))
+            .andExpect(status().isBadRequest());
+
+        restJobMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(new Job())))
+            .andExpect(status().isBadRequest());
+        assertThat(jobRepository.findAll()).hasSize(databaseSizeBeforeSubmit);
+    }
+
+    @Test
+    @Transactional
+    void getJob() throws Exception {
+        Job job = saveJob(JobStatus.RUNNING, null);
+
+        restJobMockMvc
+            .perform(get(ENTITY_API_URL_ID, job.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.id").value(job.getId().intValue()))
+            .andExpect(jsonPath("$.status").value(JobStatus.RUNNING.toString()))
+            .andExpect(jsonPath("$.calculationId").value(calculation.getId().intValue()))
+            .andExpect(jsonPath("$.progress").value(5))
+            .andExpect(jsonPath("$.total").value(10))
+            .andExpect(jsonPath("$.createdDate").value(DEFAULT_CREATED_DATE.toString()))
+            .andExpect(jsonPath("$.result").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingJob() throws Exception {
+        restJobMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void cancelJob() throws Exception {
+        Job queued = saveJob(JobStatus.QUEUED, null);
+        Job running = saveJob(JobStatus.RUNNING, null);
+        Job succeeded = saveJob(JobStatus.SUCCEEDED, "{}");
+
+        restJobMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/cancel", queued.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value(JobStatus.CANCELLED.toString()))
+            .andExpect(jsonPath("$.finishedDate").exists());
+        restJobMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/cancel", running.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value(JobStatus.RUNNING.toString()))
+            .andExpect(jsonPath("$.cancelRequested").value(true));
+        restJobMockMvc
+            .perform(post(ENTITY_API_URL_ID + "/cancel", succeeded.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value(JobStatus.SUCCEEDED.toString()))
+            .andExpect(jsonPath("$.cancelRequested").value(false))
+            .andExpect(jsonPath("$.finishedDate").value(nullValue()));
+        restJobMockMvc.perform(post(ENTITY_API_URL_ID + "/cancel", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getJobResult() throws Exception {
+        Job succeeded = saveJob(JobStatus.SUCCEEDED, "{\"calculationId\":1,\"windows\":2,\"tuples\":3}");
+        Job running = saveJob(JobStatus.RUNNING, null);
+
+        restJobMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/result", succeeded.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.windows").value(2))
+            .andExpect(jsonPath("$.tuples").value(3));
+        restJobMockMvc.perform(get(ENTITY_API_URL_ID + "/result", running.getId())).andExpect(status().isConflict());
+        restJobMockMvc.perform(get(ENTITY_API_URL_ID + "/result", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+}
@@ -3,19 +3,32 @@ package de.bitc.se.web.rest;
 import static de.bitc.se.web.rest.TestUtil.sameInstant;
 import static de.bitc.se.web.rest.TestUtil.sameNumber;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import de.bitc.se.IntegrationTest;
 import de.bitc.se.domain.Chart;
 import de.bitc.se.domain.Ohlc;
+import de.bitc.se.domain.Tuple;
 import de.bitc.se.repository.OhlcRepository;
+import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.service.event.CandlesInvalidatedEvent;
+import de.bitc.se.service.event.CandlesWrittenEvent;
+import de.bitc.se.service.live.LiveUpdateService;
+import de.bitc.se.service.series.CandleWindowCache;
+import de.bitc.se.web.rest.util.ColumnarResponseUtil;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
@@ -24,9 +37,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -70,9 +87,18 @@ class OhlcResourceIT {
     @Autowired
     private OhlcRepository ohlcRepository;
 
+    @Autowired
+    private TupleRepository tupleRepository;
+
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private LiveUpdateService liveUpdateService;
+
+    @Autowired
+    private CandleWindowCache candleWindowCache;
+
     @Autowired
     private MockMvc restOhlcMockMvc;
 
@@ -164,6 +190,210 @@ class OhlcResourceIT {
         assertThat(testOhlc.getCount()).isEqualTo(DEFAULT_COUNT);
     }
 
+    @Test
+    @Transactional
+    void importOhlcsFromNdjson() throws Exception {
+        Chart chart = createEntity(em).getChart();
+        int databaseSizeBeforeImport = ohlcRepository.findAll().size();
+
+        // 25 candles span three batches
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            body
+                .append("{\"time\":\"")
+                .append(DEFAULT_TIME.plusMinutes(i))
+                .append("\",\"open\":1,\"high\":2,\"low\":0.5,\"close\":1.5,\"volume\":10,\"count\":3}\n");
+        }
+        restOhlcMockMvc
+            .perform(
+                post("/api/charts/{id}/ohlcs:bulk", chart.getId())
+                    .contentType("application/x-ndjson")
+                    .content(body.toString())
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.chartId").value(chart.getId().intValue()))
+            .andExpect(jsonPath("$.rows").value(25))
+            .andExpect(jsonPath("$.rowsPerSecond").isNumber());
+
+        assertThat(ohlcRepository.findAll()).hasSize(databaseSizeBeforeImport + 25);
+        Ohlc lastOhlc = ohlcRepository.findLatestByChartId(chart.getId(), PageRequest.of(0, 1)).getContent().get(0);
+        assertThat(lastOhlc.getTime().toInstant()).isEqualTo(DEFAULT_TIME.plusMinutes(24).toInstant());
+        assertThat(lastOhlc.getHigh()).isEqualByComparingTo(new BigDecimal(2));
+        assertThat(lastOhlc.getCount()).isEqualTo(3);
+    }
+
+    @Test
+    @Transactional
+    void importOhlcsFromCsv() throws Exception {
+        Chart chart = createEntity(em).getChart();
+
+        String body =
+            "time,open,high,low,close,volume,count\n" +
+            DEFAULT_TIME +
+            ",1,2,0.5,1.5,10,3\n" +
+            "\n" +
+            DEFAULT_TIME.plusMinutes(1) +
+            ",1.5,2.5,1,2,,\n";
+        restOhlcMockMvc
+            .perform(post("/api/charts/{id}/ohlcs:bulk", chart.getId()).contentType("text/csv").content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(2));
+
+        List<Ohlc> ohlcList = ohlcRepository.findLatestByChartId(chart.getId(), PageRequest.of(0, 1)).getContent();
+        assertThat(ohlcList).hasSize(1);
+        assertThat(ohlcList.get(0).getTime().toInstant()).isEqualTo(DEFAULT_TIME.plusMinutes(1).toInstant());
+        assertThat(ohlcList.get(0).getClose()).isEqualByComparingTo(new BigDecimal(2));
+        assertThat(ohlcList.get(0).getVolume()).isNull();
+    }
+
+    @Test
+    @Transactional
+    void importOverlappingOhlcs() throws Exception {
+        Chart chart = createEntity(em).getChart();
+        Ohlc existing = ohlcRepository.saveAndFlush(createEntity(em));
+        int databaseSizeBeforeImport = ohlcRepository.findAll().size();
+
+        // the first candle is resent twice, the last one wins
+        String body =
+            "time,close\n" +
+            DEFAULT_TIME +
+            ",5\n" +
+            DEFAULT_TIME.plusMinutes(1) +
+            ",6\n" +
+            DEFAULT_TIME +
+            ",7\n";
+        restOhlcMockMvc
+            .perform(post("/api/charts/{id}/ohlcs:bulk", chart.getId()).contentType("text/csv").content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.rows").value(2));
+        em.clear();
+
+        assertThat(ohlcRepository.findAll()).hasSize(databaseSizeBeforeImport + 1);
+        Ohlc updated = ohlcRepository.findById(existing.getId()).orElseThrow();
+        assertThat(updated.getClose()).isEqualByComparingTo(new BigDecimal(7));
+        assertThat(updated.getOpen()).isNull();
+    }
+
+    @Test
+    @Transactional
+    void importInvalidCsv() throws Exception {
+        Chart chart = createEntity(em).getChart();
+
+        restOhlcMockMvc
+            .perform(
+                post("/api/charts/{id}/ohlcs:bulk", chart.getId())
+                    .contentType("text/csv")
+                    .content("time,open\n" + DEFAULT_TIME + ",one\n")
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void importOhlcsOfUnknownChart() throws Exception {
+        restOhlcMockMvc
+            .perform(
+                post("/api/charts/{id}/ohlcs:bulk", Long.MAX_VALUE)
+                    .contentType("text/csv")
+                    .content("time\n" + DEFAULT_TIME + "\n")
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void subscribeToOhlcs() throws Exception {
+        Long chartId = ohlc.getChart().getId();
+        MvcResult mvcResult = restOhlcMockMvc
+            .perform(get("/api/charts/{id}/ohlcs:live", chartId).accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(liveUpdateService.countChartSubscribers(chartId)).isEqualTo(1);
+
+        // the listeners are called directly, the events are published after the commit
+        liveUpdateService.onCandlesWritten(new CandlesWrittenEvent(chartId, List.of(ohlc)));
+        liveUpdateService.onCandlesInvalidated(new CandlesInvalidatedEvent(chartId));
+
+        String content = mvcResult.getResponse().getContentAsString();
+        assertThat(content)
+            .contains("event:ohlc\ndata:{")
+            .contains("\"close\":" + DEFAULT_CLOSE)
+            .contains("\"chart\":null")
+            .contains("event:invalidated\ndata:{}");
+
+        // the subscriber is closed with the request
+        mvcResult.getRequest().getAsyncContext().complete();
+        assertThat(liveUpdateService.countChartSubscribers(chartId)).isZero();
+    }
+
+    @Test
+    @Transactional
+    void subscribeToOhlcsOfUnknownChart() throws Exception {
+        restOhlcMockMvc
+            .perform(get("/api/charts/{id}/ohlcs:live", Long.MAX_VALUE).accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void createOhlcWithExistingTime() throws Exception {
+        // Initialize the database
+        ohlcRepository.saveAndFlush(ohlc);
+        int databaseSizeBeforeCreate = ohlcRepository.findAll().size();
+
+        // The chart has already an ohlc at the time, so this API call must fail
+        Ohlc sameTime = new Ohlc().time(DEFAULT_TIME).close(UPDATED_CLOSE).chart(ohlc.getChart());
+        restOhlcMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(sameTime)))
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("X-querybugApp-error", "error.timeexists"));
+
+        // Validate the Ohlc in the database
+        List<Ohlc> ohlcList = ohlcRepository.findAll();
+        assertThat(ohlcList).hasSize(databaseSizeBeforeCreate);
+        assertThat(ohlcRepository.findById(ohlc.getId()).orElseThrow().getClose()).isEqualByComparingTo(DEFAULT_CLOSE);
+    }
+
+    @Test
+    @Transactional
+    void putOhlcWithExistingTime() throws Exception {
+        // Initialize the database
+        ohlcRepository.saveAndFlush(ohlc);
+        Ohlc other = ohlcRepository.saveAndFlush(createEntity(em).time(DEFAULT_TIME.plusMinutes(1)));
+        em.detach(other);
+
+        // Moving the other ohlc onto the time of the first one violates the unique constraint
+        restOhlcMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, other.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(other.time(DEFAULT_TIME)))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("X-querybugApp-error", "error.timeexists"));
+    }
+
+    @Test
+    @Transactional
+    void patchOhlcWithExistingTime() throws Exception {
+        // Initialize the database
+        ohlcRepository.saveAndFlush(ohlc);
+        Ohlc other = ohlcRepository.saveAndFlush(createEntity(em).time(DEFAULT_TIME.plusMinutes(1)));
+
+        // Moving the other ohlc onto the time of the first one violates the unique constraint
+        Ohlc partialUpdatedOhlc = new Ohlc();
+        partialUpdatedOhlc.setId(other.getId());
+        partialUpdatedOhlc.time(DEFAULT_TIME);
+        restOhlcMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, other.getId())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedOhlc))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(header().string("X-querybugApp-error", "error.timeexists"));
+    }
+
     @Test
     @Transactional
     void createOhlcWithExistingId() throws Exception {
@@ -189,8 +419,9 @@ class OhlcResourceIT {
         ohlcRepository.saveAndFlush(ohlc);
 
         // Get all the ohlcList
+        MvcResult mvcResult = restOhlcMockMvc.perform(get(ENTITY_API_URL + "?sort=id,desc")).andExpect(request().asyncStarted()).andReturn();
         restOhlcMockMvc
-            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .perform(asyncDispatch(mvcResult))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(ohlc.getId().intValue())))
@@ -204,6 +435,240 @@ class OhlcResourceIT {
             .andExpect(jsonPath("$.[*].count").value(hasItem(DEFAULT_COUNT)));
     }
 
+    @Test
+    @Transactional
+    void getOhlcsOfChartWindow() throws Exception {
+        // Initialize the database
+        List<Ohlc> candles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            candles.add(ohlcRepository.saveAndFlush(createEntity(em).time(DEFAULT_TIME.plusMinutes(i))));
+        }
+        Long chartId = candles.get(0).getChart().getId();
+
+        // Get the window [1, 4)
+        MvcResult mvcResult = restOhlcMockMvc
+            .perform(
+                get(ENTITY_API_URL)
+                    .param("chartId", chartId.toString())
+                    .param("from", DEFAULT_TIME.plusMinutes(1).toString())
+                    .param("to", DEFAULT_TIME.plusMinutes(4).toString())
+            )
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(
+                jsonPath("$.[*].id")
+                    .value(contains(candles.get(1).getId().intValue(), candles.get(2).getId().intValue(), candles.get(3).getId().intValue()))
+            );
+
+        // Get the next page after the second candle
+        mvcResult =
+            restOhlcMockMvc
+                .perform(
+                    get(ENTITY_API_URL)
+                        .param("chartId", chartId.toString())
+                        .param("afterTime", candles.get(1).getTime().toString())
+                        .param("afterId", candles.get(1).getId().toString())
+                        .param("limit", "2")
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(candles.get(2).getId().intValue(), candles.get(3).getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getOhlcsOfChartWindowInJsonColumns() throws Exception {
+        // Initialize the database
+        List<Ohlc> candles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            candles.add(ohlcRepository.saveAndFlush(createEntity(em).time(DEFAULT_TIME.plusMinutes(i))));
+        }
+        Long chartId = candles.get(0).getChart().getId();
+
+        MvcResult mvcResult = restOhlcMockMvc
+            .perform(get(ENTITY_API_URL).param("chartId", chartId.toString()).accept(ColumnarResponseUtil.COLUMNAR_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(ColumnarResponseUtil.COLUMNAR_JSON_VALUE))
+            .andExpect(jsonPath("$.t").value(contains(0, 60_000, 120_000)))
+            .andExpect(jsonPath("$.o[0]").value(DEFAULT_OPEN.doubleValue()))
+            .andExpect(jsonPath("$.h[0]").value(DEFAULT_HIGH.doubleValue()))
+            .andExpect(jsonPath("$.l[0]").value(DEFAULT_LOW.doubleValue()))
+            .andExpect(jsonPath("$.c[0]").value(DEFAULT_CLOSE.doubleValue()))
+            .andExpect(jsonPath("$.w[0]").value(DEFAULT_VOLUME_WEIGHTED_AVERAGE_PRICE.doubleValue()))
+            .andExpect(jsonPath("$.v[0]").value(DEFAULT_VOLUME.doubleValue()))
+            .andExpect(jsonPath("$.n[0]").value(DEFAULT_COUNT))
+            .andExpect(
+                jsonPath("$.i")
+                    .value(contains(candles.get(0).getId().intValue(), candles.get(1).getId().intValue(), candles.get(2).getId().intValue()))
+            );
+    }
+
+    @Test
+    @Transactional
+    void getOhlcsOfChartWindowInJsonColumnsUpToTheMaxRows() throws Exception {
+        // Initialize the database, with more candles than application.columnar.max-rows
+        List<Ohlc> candles = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            candles.add(ohlcRepository.saveAndFlush(createEntity(em).time(DEFAULT_TIME.plusMinutes(i))));
+        }
+        Long chartId = candles.get(0).getChart().getId();
+
+        MvcResult mvcResult = restOhlcMockMvc
+            .perform(
+                get(ENTITY_API_URL).param("chartId", chartId.toString()).param("limit", "10").accept(ColumnarResponseUtil.COLUMNAR_JSON)
+            )
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.t").value(contains(0, 60_000, 120_000)));
+
+        // the next rows are read after the last row
+        mvcResult =
+            restOhlcMockMvc
+                .perform(
+                    get(ENTITY_API_URL)
+                        .param("chartId", chartId.toString())
+                        .param("afterTime", candles.get(2).getTime().toString())
+                        .param("afterId", candles.get(2).getId().toString())
+                        .accept(ColumnarResponseUtil.COLUMNAR_JSON)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.i").value(contains(candles.get(3).getId().intValue(), candles.get(4).getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getOhlcsInJsonColumnsWithoutChart() throws Exception {
+        restOhlcMockMvc.perform(get(ENTITY_API_URL).accept(ColumnarResponseUtil.COLUMNAR_JSON)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getOhlcsOfChartWindowInBinaryColumns() throws Exception {
+        // Initialize the database
+        List<Ohlc> candles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            candles.add(ohlcRepository.saveAndFlush(createEntity(em).time(DEFAULT_TIME.plusMinutes(i))));
+        }
+        Long chartId = candles.get(0).getChart().getId();
+
+        MvcResult mvcResult = restOhlcMockMvc
+            .perform(get(ENTITY_API_URL).param("chartId", chartId.toString()).accept(ColumnarResponseUtil.COLUMNAR_BINARY))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        byte[] body = restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(ColumnarResponseUtil.COLUMNAR_BINARY_VALUE))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(new String(body, 0, 4, StandardCharsets.US_ASCII)).isEqualTo("QBCF");
+        assertThat(buffer.get(4)).isEqualTo((byte) 1);
+        assertThat(buffer.get(5)).isEqualTo((byte) 9);
+        assertThat(buffer.getInt(8)).isEqualTo(3);
+        // the descriptors of t, o, h, l, c, w, v, n and i follow the header
+        assertThat(buffer.get(16)).isEqualTo((byte) 1);
+        assertThat((char) buffer.get(18)).isEqualTo('t');
+        assertThat((char) buffer.get(16 + 7 * 8 + 2)).isEqualTo('n');
+        int data = 16 + 9 * 8;
+        assertThat(buffer.getLong(data)).isZero();
+        assertThat(buffer.getLong(data + 16)).isEqualTo(120_000L);
+        assertThat(buffer.getDouble(data + 24)).isEqualTo(DEFAULT_OPEN.doubleValue());
+        // the counts of 3 rows are padded to 16 bytes
+        int counts = data + 7 * 24;
+        assertThat(buffer.getInt(counts)).isEqualTo(DEFAULT_COUNT);
+        assertThat(buffer.getLong(counts + 16 + 16)).isEqualTo(candles.get(2).getId());
+        assertThat(body).hasSize(counts + 16 + 24);
+    }
+
+    @Test
+    @Transactional
+    void getClosedOhlcsWindowNotModified() throws Exception {
+        // Initialize the database
+        Ohlc candle = ohlcRepository.saveAndFlush(ohlc);
+        Long chartId = candle.getChart().getId();
+
+        // the window ends long before the open candle of the chart
+        MockHttpServletRequestBuilder windowRequest = get(ENTITY_API_URL)
+            .param("chartId", chartId.toString())
+            .param("from", DEFAULT_TIME.toString())
+            .param("to", DEFAULT_TIME.plusMinutes(4).toString());
+        MvcResult mvcResult = restOhlcMockMvc.perform(windowRequest).andExpect(request().asyncStarted()).andReturn();
+        String eTag = restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, private"))
+            .andExpect(jsonPath("$.[*].id").value(contains(candle.getId().intValue())))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).startsWith("\"" + chartId + "-").endsWith("-json\"");
+
+        restOhlcMockMvc
+            .perform(windowRequest.header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        // a repair of the closed candles changes the version of the window
+        // the listener is called directly, the event is published after the commit
+        candleWindowCache.onCandlesWritten(new CandlesWrittenEvent(chartId, List.of(candle)));
+        mvcResult = restOhlcMockMvc.perform(windowRequest).andExpect(request().asyncStarted()).andReturn();
+        restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    @Transactional
+    void getOpenOhlcsWindowWithoutETag() throws Exception {
+        // Initialize the database
+        Ohlc candle = ohlcRepository.saveAndFlush(ohlc);
+
+        MvcResult mvcResult = restOhlcMockMvc
+            .perform(get(ENTITY_API_URL).param("chartId", candle.getChart().getId().toString()).param("from", DEFAULT_TIME.toString()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restOhlcMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @Transactional
+    void getOhlcsWindowWithoutChart() throws Exception {
+        restOhlcMockMvc.perform(get(ENTITY_API_URL).param("from", DEFAULT_TIME.toString())).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getOhlcsWithIncompleteCursor() throws Exception {
+        restOhlcMockMvc
+            .perform(get(ENTITY_API_URL).param("chartId", "1").param("afterId", "1"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getOhlc() throws Exception {
@@ -490,4 +955,23 @@ class OhlcResourceIT {
         List<Ohlc> ohlcList = ohlcRepository.findAll();
         assertThat(ohlcList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void deleteOhlcWithTuple() throws Exception {
+        // Initialize the database
+        ohlcRepository.saveAndFlush(ohlc);
+        Tuple tuple = tupleRepository.saveAndFlush(new Tuple().time(ohlc.getTime()).ohlc(ohlc));
+
+        // Delete the ohlc
+        restOhlcMockMvc
+            .perform(delete(ENTITY_API_URL_ID, ohlc.getId()).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNoContent());
+
+        // Validate the tuple referring to the ohlc is deleted first
+        em.flush();
+        em.clear();
+        assertThat(ohlcRepository.findById(ohlc.getId())).isEmpty();
+        assertThat(tupleRepository.findById(tuple.getId())).isEmpty();
+    }
 }
@@ -3,13 +3,16 @@ package de.bitc.se.web.rest;
 import static de.bitc.se.web.rest.TestUtil.sameInstant;
 import static de.bitc.se.web.rest.TestUtil.sameNumber;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import de.bitc.se.IntegrationTest;
+import de.bitc.se.domain.Calculation;
 import de.bitc.se.domain.Tuple;
 import de.bitc.se.repository.TupleRepository;
+import de.bitc.se.web.rest.util.ColumnarResponseUtil;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.ZoneId;
@@ -26,6 +29,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -128,8 +132,9 @@ class TupleResourceIT {
         tupleRepository.saveAndFlush(tuple);
 
         // Get all the tupleList
+        MvcResult mvcResult = restTupleMockMvc.perform(get(ENTITY_API_URL + "?sort=id,desc")).andExpect(request().asyncStarted()).andReturn();
         restTupleMockMvc
-            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .perform(asyncDispatch(mvcResult))
             .andExpect(status().isOk())
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(tuple.getId().intValue())))
@@ -137,6 +142,33 @@ class TupleResourceIT {
             .andExpect(jsonPath("$.[*].time").value(hasItem(sameInstant(DEFAULT_TIME))));
     }
 
+    @Test
+    @Transactional
+    void getTuplesOfCalculationInJsonColumns() throws Exception {
+        // Initialize the database
+        Calculation calculation = CalculationResourceIT.createEntity(em);
+        em.persist(calculation);
+        tupleRepository.saveAndFlush(tuple.calculation(calculation));
+
+        MvcResult mvcResult = restTupleMockMvc
+            .perform(get(ENTITY_API_URL).param("calculationId", calculation.getId().toString()).accept(ColumnarResponseUtil.COLUMNAR_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        restTupleMockMvc
+            .perform(asyncDispatch(mvcResult))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(ColumnarResponseUtil.COLUMNAR_JSON_VALUE))
+            .andExpect(jsonPath("$.i").value(contains(tuple.getId().intValue())))
+            .andExpect(jsonPath("$.v").value(contains(DEFAULT_COMPUTATION.doubleValue())))
+            .andExpect(jsonPath("$.t").value(contains(0)));
+    }
+
+    @Test
+    @Transactional
+    void getTuplesInJsonColumnsWithoutCalculation() throws Exception {
+        restTupleMockMvc.perform(get(ENTITY_API_URL).accept(ColumnarResponseUtil.COLUMNAR_JSON)).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getTuple() throws Exception {
@@ -0,0 +1,32 @@
+package de.bitc.se.web.rest.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ColumnarResponseUtilTest {
+
+    @Test
+    void testSealedColumnsAreReadOnly() throws Exception {
+        ColumnarResponseUtil.Columns columns = new ColumnarResponseUtil.Columns();
+        ColumnarResponseUtil.LongColumn time = columns.longs("t");
+        ColumnarResponseUtil.DoubleColumn close = columns.doubles("c");
+        time.add(1L);
+        close.add(BigDecimal.ONE);
+
+        assertThat(columns.seal()).isSameAs(columns);
+
+        assertThat(columns.isSealed()).isTrue();
+        assertThatThrownBy(() -> time.add(2L)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> close.add(BigDecimal.TEN)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> columns.ints("n")).isInstanceOf(IllegalStateException.class);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ColumnarResponseUtil.json(new ObjectMapper(), () -> columns).writeTo(body);
+        assertThat(body.toString(StandardCharsets.UTF_8)).isEqualTo("{\"t\":[1],\"c\":[1.0]}");
+    }
+}